@@ -0,0 +1,166 @@
+package io.bitizens.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FormFieldsProcessor generates a {@code <ClassName>FormWriter} for every class annotated with
+ * {@code io.bitizens.common.FormFields}. A writer reads the fields of its class directly, so serializing options
+ * needs neither reflection nor {@code setAccessible}.
+ */
+@SupportedAnnotationTypes(FormFieldsProcessor.FORM_FIELDS)
+public class FormFieldsProcessor extends AbstractProcessor {
+    static final String FORM_FIELDS = "io.bitizens.common.FormFields";
+    private static final String FORM_SINK = "io.bitizens.common.FormSink";
+    private static final String WRITER_SUFFIX = "FormWriter";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@FormFields can only be applied to classes");
+                    continue;
+                }
+                generateWriter((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generateWriter(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = type.getSimpleName().toString();
+        String writerName = className + WRITER_SUFFIX;
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("public final class ").append(writerName).append(" {\n\n");
+        source.append("    private ").append(writerName).append("() {\n    }\n\n");
+        source.append("    public static void write(").append(className).append(" source, ").append(FORM_SINK).append(" sink) {\n");
+        source.append("        if (source == null) {\n            return;\n        }\n");
+
+        TypeElement superclass = annotatedSuperclass(type);
+        if (superclass != null) {
+            source.append("        ").append(writerOf(superclass)).append(".write(source, sink);\n");
+        }
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                error(field, "@FormFields fields must not be private");
+                return;
+            }
+            String statement = writeStatement(field);
+            if (statement == null) {
+                error(field, "Unsupported @FormFields field type " + field.asType());
+                return;
+            }
+            source.append(statement);
+        }
+
+        source.append("    }\n}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + writerName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            error(type, "Could not generate " + writerName + ": " + e.getMessage());
+        }
+    }
+
+    private String writeStatement(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        TypeMirror type = field.asType();
+
+        if (type.getKind() == TypeKind.BOOLEAN || type.getKind() == TypeKind.INT || type.getKind() == TypeKind.LONG) {
+            return "        sink.text(\"" + name + "\", String.valueOf(source." + name + "));\n";
+        }
+        if (isType(type, "java.lang.String")) {
+            return "        if (source." + name + " != null) {\n"
+                    + "            sink.text(\"" + name + "\", source." + name + ");\n"
+                    + "        }\n";
+        }
+        if (isType(type, "java.io.File")) {
+            return "        if (source." + name + " != null) {\n"
+                    + "            sink.file(\"" + name + "\", source." + name + ");\n"
+                    + "        }\n";
+        }
+        if (isFileList(type)) {
+            return "        if (source." + name + " != null) {\n"
+                    + "            for (java.io.File file : source." + name + ") {\n"
+                    + "                sink.file(\"" + name + "\", file);\n"
+                    + "            }\n"
+                    + "        }\n";
+        }
+        return null;
+    }
+
+    private boolean isFileList(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || !isType(processingEnv.getTypeUtils().erasure(type), "java.util.List")) {
+            return false;
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return arguments.size() == 1 && isType(arguments.get(0), "java.io.File");
+    }
+
+    private boolean isType(TypeMirror type, String qualifiedName) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        return element.getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private TypeElement annotatedSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(FORM_FIELDS)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private String writerOf(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.getQualifiedName() + "." + type.getSimpleName() + WRITER_SUFFIX;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,87 @@
+package io.bitizens;
+
+import com.sun.net.httpserver.HttpServer;
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficePageProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures end-to-end request building and execution against a loopback sink that drains the upload and answers
+ * with a small canned PDF, so that the client-side cost of a conversion is isolated from Gotenberg's.
+ */
+@State(Scope.Benchmark)
+public class RequestPipelineBenchmark {
+    private static final byte[] PDF = "%PDF-1.7\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private Jotenberg client;
+    private DocumentSource index;
+    private DocumentSource[] documents;
+    private ChromiumPageProperties chromiumPageProperties;
+    private ChromiumOptions chromiumOptions;
+    private LibreOfficePageProperties libreOfficePageProperties;
+    private LibreOfficeOptions libreOfficeOptions;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            exchange.sendResponseHeaders(200, PDF.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PDF);
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        client = new Jotenberg("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        index = DocumentSource.of("index.html", "<html><body>benchmark</body></html>".getBytes(StandardCharsets.UTF_8));
+        documents = new DocumentSource[10];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = DocumentSource.of("document-" + i + ".docx", new byte[16 * 1024]);
+        }
+        chromiumPageProperties = new ChromiumPageProperties.Builder().build();
+        chromiumOptions = new ChromiumOptions.Builder().build();
+        libreOfficePageProperties = new LibreOfficePageProperties.Builder().build();
+        libreOfficeOptions = new LibreOfficeOptions.Builder().build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long chromiumHtml() throws IOException {
+        return client.convert(index, chromiumPageProperties, chromiumOptions)
+                .transferTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long libreOffice() throws IOException {
+        return client.convertWithLibreOffice(documents, libreOfficePageProperties, libreOfficeOptions)
+                .transferTo(OutputStream.nullOutputStream());
+    }
+}
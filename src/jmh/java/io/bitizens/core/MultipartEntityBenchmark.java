@@ -0,0 +1,69 @@
+package io.bitizens.core;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the construction and serialization of multipart entities carrying 1 to 500 small files.
+ */
+@State(Scope.Benchmark)
+public class MultipartEntityBenchmark {
+    private static final int FILE_SIZE = 4 * 1024;
+
+    @Param({"1", "10", "100", "500"})
+    public int fileCount;
+
+    private Path directory;
+    private List<File> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jotenberg-jmh-");
+        files = new ArrayList<>(fileCount);
+        byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < fileCount; i++) {
+            Path file = directory.resolve("document-" + i + ".docx");
+            Files.write(file, content);
+            files.add(file.toFile());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public HttpEntity build() {
+        MultipartEntityBuilder builder = ConversionHelper.newBuilder();
+        files.forEach(file -> builder.addBinaryBody(file.getName(), file));
+        return builder.build();
+    }
+
+    @Benchmark
+    public long buildAndWrite() throws IOException {
+        HttpEntity entity = build();
+        entity.writeTo(OutputStream.nullOutputStream());
+        return entity.getContentLength();
+    }
+}
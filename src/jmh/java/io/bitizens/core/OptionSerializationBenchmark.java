@@ -0,0 +1,85 @@
+package io.bitizens.core;
+
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.common.PdfFormat;
+import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import io.bitizens.pdfengines.PDFEnginesOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+/**
+ * Measures the cost of writing options and page properties to a conversion request, and of fingerprinting
+ * the request for the result cache.
+ */
+@State(Scope.Benchmark)
+public class OptionSerializationBenchmark {
+    private final ConversionHelper conversionHelper = new ConversionHelper();
+
+    private ChromiumPageProperties chromiumPageProperties;
+    private ChromiumOptions chromiumOptions;
+    private LibreOfficePageProperties libreOfficePageProperties;
+    private LibreOfficeOptions libreOfficeOptions;
+    private PDFEnginesOptions pdfEnginesOptions;
+
+    @Setup
+    public void setUp() throws IOException {
+        chromiumPageProperties = new ChromiumPageProperties.Builder()
+                .addPaperWidth(8.27f)
+                .addPaperHeight(11.7f)
+                .addLandscape(true)
+                .addPrintBackground(true)
+                .build();
+        chromiumOptions = new ChromiumOptions.Builder()
+                .addWaitDelay(1)
+                .addSkipNetworkIdleEvent(true)
+                .build();
+        libreOfficePageProperties = new LibreOfficePageProperties.Builder()
+                .addLandscape(true)
+                .addExportBookmarks(true)
+                .build();
+        libreOfficeOptions = new LibreOfficeOptions.Builder()
+                .addMerge(true)
+                .addPdfa(PdfFormat.A_2B)
+                .addQuality(80)
+                .build();
+        pdfEnginesOptions = new PDFEnginesMergeOptions.Builder()
+                .addFlatten(true)
+                .addPdfa(PdfFormat.A_2B)
+                .build();
+    }
+
+    @Benchmark
+    public ConversionRequest chromium() {
+        ConversionRequest request = new ConversionRequest("/forms/chromium/convert/url");
+        conversionHelper.buildPageProperties(request, chromiumPageProperties);
+        conversionHelper.buildChromiumOptions(request, chromiumOptions);
+        return request;
+    }
+
+    @Benchmark
+    public ConversionRequest libreOffice() {
+        ConversionRequest request = new ConversionRequest("/forms/libreoffice/convert");
+        conversionHelper.buildPageProperties(request, libreOfficePageProperties);
+        conversionHelper.buildPageOptions(request, libreOfficeOptions);
+        return request;
+    }
+
+    @Benchmark
+    public ConversionRequest pdfEngines() {
+        ConversionRequest request = new ConversionRequest("/forms/pdfengines/merge");
+        conversionHelper.buildPdfEngineOptions(request, pdfEnginesOptions);
+        return request;
+    }
+
+    @Benchmark
+    public String fingerprint() throws IOException {
+        return chromium().fingerprint();
+    }
+}
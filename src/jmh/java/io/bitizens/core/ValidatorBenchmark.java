@@ -0,0 +1,76 @@
+package io.bitizens.core;
+
+import io.bitizens.common.CommonUtils;
+import io.bitizens.common.DocumentSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the CommonUtils validators on large file lists, with the index file placed last as the worst case.
+ */
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+    private static final String[] NAMES = {"report.docx", "sheet.xlsx", "notes.md", "scan.tiff", "unknown.gql"};
+
+    @Param({"100", "10000"})
+    public int fileCount;
+
+    private Path directory;
+    private List<File> files;
+    private List<DocumentSource> documents;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jotenberg-jmh-");
+        files = new ArrayList<>(fileCount);
+        documents = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            String name = i == fileCount - 1 ? "index.html" : i + "-" + NAMES[i % NAMES.length];
+            Path file = Files.createFile(directory.resolve(name));
+            files.add(file.toFile());
+            documents.add(DocumentSource.of(name, new byte[0]));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long isSupportedFiles() {
+        return files.stream().filter(CommonUtils::isSupported).count();
+    }
+
+    @Benchmark
+    public boolean containsIndexFiles() {
+        return CommonUtils.containsIndex(files);
+    }
+
+    @Benchmark
+    public long isSupportedDocuments() {
+        return documents.stream().filter(CommonUtils::isSupported).count();
+    }
+
+    @Benchmark
+    public boolean containsIndexDocuments() {
+        return documents.stream().anyMatch(CommonUtils::isIndex);
+    }
+}
@@ -0,0 +1,488 @@
+package io.bitizens;
+
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.core.AbortScope;
+import io.bitizens.core.ConversionResult;
+import io.bitizens.core.ConversionTemplate;
+import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.pdfengines.PDFEnginesConversionOptions;
+import io.bitizens.pdfengines.PDFEnginesEncryptOptions;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import io.bitizens.screenshots.ImageProperties;
+import io.bitizens.screenshots.ScreenshotOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AsyncJotenberg is a non-blocking facade over {@link Jotenberg}. Each method runs the corresponding conversion on an
+ * executor and returns a {@link CompletableFuture} that completes once Gotenberg has answered.
+ * <p>
+ * Cancelling a future aborts the underlying HTTP request. Closing an AsyncJotenberg shuts down the executor it owns,
+ * if any, but leaves the wrapped Jotenberg open.
+ */
+public class AsyncJotenberg implements AutoCloseable {
+    private final Jotenberg jotenberg;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Constructs an AsyncJotenberg running conversions on its own pool of daemon threads.
+     *
+     * @param jotenberg The client performing the conversions.
+     */
+    public AsyncJotenberg(Jotenberg jotenberg) {
+        this.jotenberg = jotenberg;
+        this.ownedExecutor = Executors.newCachedThreadPool(daemonThreadFactory());
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Constructs an AsyncJotenberg running conversions on the given executor.
+     *
+     * @param jotenberg The client performing the conversions.
+     * @param executor  The executor running the blocking conversions.
+     */
+    public AsyncJotenberg(Jotenberg jotenberg, Executor executor) {
+        this.jotenberg = jotenberg;
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+
+    public Jotenberg getJotenberg() {
+        return jotenberg;
+    }
+
+    /**
+     * Asynchronously converts a document from a URL using the Chromium URL conversion route.
+     *
+     * @param url            The URL of the document to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(String, ChromiumPageProperties, ChromiumOptions)
+     */
+    public CompletableFuture<ConversionResult> convert(String url, ChromiumPageProperties pageProperties, ChromiumOptions options) {
+        return submit(() -> jotenberg.convert(url, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts a document from a local file using the Chromium HTML conversion route.
+     *
+     * @param file           The local file to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(File, ChromiumPageProperties, ChromiumOptions)
+     */
+    public CompletableFuture<ConversionResult> convert(File file, ChromiumPageProperties pageProperties, ChromiumOptions options) {
+        return submit(() -> jotenberg.convert(file, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts an HTML document using the Chromium HTML conversion route.
+     *
+     * @param document       The index.html document to convert, e.g. rendered in memory.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(DocumentSource, ChromiumPageProperties, ChromiumOptions)
+     */
+    public CompletableFuture<ConversionResult> convert(DocumentSource document, ChromiumPageProperties pageProperties, ChromiumOptions options) {
+        return submit(() -> jotenberg.convert(document, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts a list of Markdown files using the Chromium Markdown conversion route.
+     *
+     * @param files          The list of files to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(List, ChromiumPageProperties, ChromiumOptions)
+     */
+    public CompletableFuture<ConversionResult> convert(List<File> files, ChromiumPageProperties pageProperties, ChromiumOptions options) {
+        return submit(() -> jotenberg.convert(files, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts Markdown documents using the Chromium Markdown conversion route.
+     *
+     * @param documents      The index.html and Markdown documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(DocumentSource[], ChromiumPageProperties, ChromiumOptions)
+     */
+    public CompletableFuture<ConversionResult> convert(DocumentSource[] documents, ChromiumPageProperties pageProperties, ChromiumOptions options) {
+        return submit(() -> jotenberg.convert(documents, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts documents with a template.
+     *
+     * @param template  The template of the conversion.
+     * @param documents The documents to convert.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convert(ConversionTemplate, DocumentSource...)
+     */
+    public CompletableFuture<ConversionResult> convert(ConversionTemplate template, DocumentSource... documents) {
+        return submit(() -> jotenberg.convert(template, documents));
+    }
+
+    /**
+     * Asynchronously screenshots a URL using the Chromium URL screenshot route.
+     *
+     * @param url             The URL to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A future completed with the result of the screenshot.
+     * @see Jotenberg#capture(String, ImageProperties, ScreenshotOptions)
+     */
+    public CompletableFuture<ConversionResult> capture(String url, ImageProperties imageProperties, ScreenshotOptions options) {
+        return submit(() -> jotenberg.capture(url, imageProperties, options));
+    }
+
+    /**
+     * Asynchronously screenshots a local file using the Chromium HTML screenshot route.
+     *
+     * @param file            The local file to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A future completed with the result of the screenshot.
+     * @see Jotenberg#capture(File, ImageProperties, ScreenshotOptions)
+     */
+    public CompletableFuture<ConversionResult> capture(File file, ImageProperties imageProperties, ScreenshotOptions options) {
+        return submit(() -> jotenberg.capture(file, imageProperties, options));
+    }
+
+    /**
+     * Asynchronously screenshots an HTML document using the Chromium HTML screenshot route.
+     *
+     * @param document        The index.html document to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A future completed with the result of the screenshot.
+     * @see Jotenberg#capture(DocumentSource, ImageProperties, ScreenshotOptions)
+     */
+    public CompletableFuture<ConversionResult> capture(DocumentSource document, ImageProperties imageProperties, ScreenshotOptions options) {
+        return submit(() -> jotenberg.capture(document, imageProperties, options));
+    }
+
+    /**
+     * Asynchronously screenshots a list of Markdown files using the Chromium Markdown screenshot route.
+     *
+     * @param files           The list of files to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A future completed with the result of the screenshot.
+     * @see Jotenberg#capture(List, ImageProperties, ScreenshotOptions)
+     */
+    public CompletableFuture<ConversionResult> capture(List<File> files, ImageProperties imageProperties, ScreenshotOptions options) {
+        return submit(() -> jotenberg.capture(files, imageProperties, options));
+    }
+
+    /**
+     * Asynchronously screenshots Markdown documents using the Chromium Markdown screenshot route.
+     *
+     * @param documents       The index.html and Markdown documents to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A future completed with the result of the screenshot.
+     * @see Jotenberg#capture(DocumentSource[], ImageProperties, ScreenshotOptions)
+     */
+    public CompletableFuture<ConversionResult> capture(DocumentSource[] documents, ImageProperties imageProperties, ScreenshotOptions options) {
+        return submit(() -> jotenberg.capture(documents, imageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts a list of files using LibreOffice.
+     *
+     * @param files          The list of files to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convertWithLibreOffice(List, LibreOfficePageProperties, LibreOfficeOptions)
+     */
+    public CompletableFuture<ConversionResult> convertWithLibreOffice(List<File> files, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) {
+        return submit(() -> jotenberg.convertWithLibreOffice(files, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts documents using LibreOffice. The name of each document must carry an extension supported
+     * by LibreOffice.
+     *
+     * @param documents      The documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convertWithLibreOffice(DocumentSource[], LibreOfficePageProperties, LibreOfficeOptions)
+     */
+    public CompletableFuture<ConversionResult> convertWithLibreOffice(DocumentSource[] documents, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) {
+        return submit(() -> jotenberg.convertWithLibreOffice(documents, pageProperties, options));
+    }
+
+    /**
+     * Asynchronously converts a list of documents using PDF Engines.
+     *
+     * @param files   The list of files to convert.
+     * @param options PDF Engines conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convertWithPdfEngines(List, PDFEnginesConversionOptions)
+     */
+    public CompletableFuture<ConversionResult> convertWithPdfEngines(List<File> files, PDFEnginesConversionOptions options) {
+        return submit(() -> jotenberg.convertWithPdfEngines(files, options));
+    }
+
+    /**
+     * Asynchronously converts documents using PDF Engines.
+     *
+     * @param documents The documents to convert.
+     * @param options   PDF Engines conversion options.
+     * @return A future completed with the result of the conversion.
+     * @see Jotenberg#convertWithPdfEngines(DocumentSource[], PDFEnginesConversionOptions)
+     */
+    public CompletableFuture<ConversionResult> convertWithPdfEngines(DocumentSource[] documents, PDFEnginesConversionOptions options) {
+        return submit(() -> jotenberg.convertWithPdfEngines(documents, options));
+    }
+
+    /**
+     * Asynchronously merges a list of PDF documents using PDF Engines.
+     *
+     * @param files   The list of PDF files to merge.
+     * @param options PDF Engines merge options.
+     * @return A future completed with the result of the merge.
+     * @see Jotenberg#mergeWithPdfEngines(List, PDFEnginesMergeOptions)
+     */
+    public CompletableFuture<ConversionResult> mergeWithPdfEngines(List<File> files, PDFEnginesMergeOptions options) {
+        return submit(() -> jotenberg.mergeWithPdfEngines(files, options));
+    }
+
+    /**
+     * Asynchronously merges PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to merge.
+     * @param options   PDF Engines merge options.
+     * @return A future completed with the result.
+     * @see Jotenberg#mergeWithPdfEngines(DocumentSource[], PDFEnginesMergeOptions)
+     */
+    public CompletableFuture<ConversionResult> mergeWithPdfEngines(DocumentSource[] documents, PDFEnginesMergeOptions options) {
+        return submit(() -> jotenberg.mergeWithPdfEngines(documents, options));
+    }
+
+    /**
+     * Asynchronously reads metadata from PDF files using PDF Engines.
+     *
+     * @param files The list of PDF files.
+     * @return A future completed with the metadata.
+     * @see Jotenberg#readMetadataWithPdfEngines(List)
+     */
+    public CompletableFuture<ConversionResult> readMetadataWithPdfEngines(List<File> files) {
+        return submit(() -> jotenberg.readMetadataWithPdfEngines(files));
+    }
+
+    /**
+     * Asynchronously reads metadata from PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents.
+     * @return A future completed with the result.
+     * @see Jotenberg#readMetadataWithPdfEngines(DocumentSource[])
+     */
+    public CompletableFuture<ConversionResult> readMetadataWithPdfEngines(DocumentSource[] documents) {
+        return submit(() -> jotenberg.readMetadataWithPdfEngines(documents));
+    }
+
+    /**
+     * Asynchronously writes metadata to PDF files using PDF Engines.
+     *
+     * @param files    The list of PDF files.
+     * @param metadata The metadata to write as a JSON string.
+     * @return A future completed with the result.
+     * @see Jotenberg#writeMetadataWithPdfEngines(List, String)
+     */
+    public CompletableFuture<ConversionResult> writeMetadataWithPdfEngines(List<File> files, String metadata) {
+        return submit(() -> jotenberg.writeMetadataWithPdfEngines(files, metadata));
+    }
+
+    /**
+     * Asynchronously writes metadata to PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents.
+     * @param metadata  The metadata to write as a JSON string.
+     * @return A future completed with the result.
+     * @see Jotenberg#writeMetadataWithPdfEngines(DocumentSource[], String)
+     */
+    public CompletableFuture<ConversionResult> writeMetadataWithPdfEngines(DocumentSource[] documents, String metadata) {
+        return submit(() -> jotenberg.writeMetadataWithPdfEngines(documents, metadata));
+    }
+
+    /**
+     * Asynchronously splits PDF files using PDF Engines.
+     *
+     * @param files      The list of PDF files to split.
+     * @param splitMode  The split mode ('pages' or 'intervals').
+     * @param splitSpan  The split span.
+     * @param splitUnify Whether to unify (only for pages mode).
+     * @param flatten    Whether to flatten.
+     * @return A future completed with the result.
+     * @see Jotenberg#splitWithPdfEngines(List, String, String, Boolean, Boolean)
+     */
+    public CompletableFuture<ConversionResult> splitWithPdfEngines(List<File> files, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten) {
+        return submit(() -> jotenberg.splitWithPdfEngines(files, splitMode, splitSpan, splitUnify, flatten));
+    }
+
+    /**
+     * Asynchronously splits PDF documents using PDF Engines.
+     *
+     * @param documents  The PDF documents to split.
+     * @param splitMode  The split mode ('pages' or 'intervals').
+     * @param splitSpan  The split span.
+     * @param splitUnify Whether to unify (only for pages mode).
+     * @param flatten    Whether to flatten.
+     * @return A future completed with the result.
+     * @see Jotenberg#splitWithPdfEngines(DocumentSource[], String, String, Boolean, Boolean)
+     */
+    public CompletableFuture<ConversionResult> splitWithPdfEngines(DocumentSource[] documents, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten) {
+        return submit(() -> jotenberg.splitWithPdfEngines(documents, splitMode, splitSpan, splitUnify, flatten));
+    }
+
+    /**
+     * Asynchronously flattens PDF files using PDF Engines.
+     *
+     * @param files The list of PDF files to flatten.
+     * @return A future completed with the result.
+     * @see Jotenberg#flattenWithPdfEngines(List)
+     */
+    public CompletableFuture<ConversionResult> flattenWithPdfEngines(List<File> files) {
+        return submit(() -> jotenberg.flattenWithPdfEngines(files));
+    }
+
+    /**
+     * Asynchronously flattens PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to flatten.
+     * @return A future completed with the result.
+     * @see Jotenberg#flattenWithPdfEngines(DocumentSource[])
+     */
+    public CompletableFuture<ConversionResult> flattenWithPdfEngines(DocumentSource[] documents) {
+        return submit(() -> jotenberg.flattenWithPdfEngines(documents));
+    }
+
+    /**
+     * Asynchronously encrypts PDF files using PDF Engines.
+     *
+     * @param files   The list of PDF files to encrypt.
+     * @param options PDF Engines encrypt options.
+     * @return A future completed with the result.
+     * @see Jotenberg#encryptWithPdfEngines(List, PDFEnginesEncryptOptions)
+     */
+    public CompletableFuture<ConversionResult> encryptWithPdfEngines(List<File> files, PDFEnginesEncryptOptions options) {
+        return submit(() -> jotenberg.encryptWithPdfEngines(files, options));
+    }
+
+    /**
+     * Asynchronously encrypts PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to encrypt.
+     * @param options   PDF Engines encrypt options.
+     * @return A future completed with the result.
+     * @see Jotenberg#encryptWithPdfEngines(DocumentSource[], PDFEnginesEncryptOptions)
+     */
+    public CompletableFuture<ConversionResult> encryptWithPdfEngines(DocumentSource[] documents, PDFEnginesEncryptOptions options) {
+        return submit(() -> jotenberg.encryptWithPdfEngines(documents, options));
+    }
+
+    /**
+     * Asynchronously embeds files into PDF files using PDF Engines.
+     *
+     * @param files  The list of PDF files to embed files into.
+     * @param embeds The list of files to embed.
+     * @return A future completed with the result.
+     * @see Jotenberg#embedWithPdfEngines(List, List)
+     */
+    public CompletableFuture<ConversionResult> embedWithPdfEngines(List<File> files, List<File> embeds) {
+        return submit(() -> jotenberg.embedWithPdfEngines(files, embeds));
+    }
+
+    /**
+     * Asynchronously embeds documents into PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to embed documents into.
+     * @param embeds    The documents to embed.
+     * @return A future completed with the result.
+     * @see Jotenberg#embedWithPdfEngines(DocumentSource[], DocumentSource[])
+     */
+    public CompletableFuture<ConversionResult> embedWithPdfEngines(DocumentSource[] documents, DocumentSource[] embeds) {
+        return submit(() -> jotenberg.embedWithPdfEngines(documents, embeds));
+    }
+
+    /**
+     * Runs a blocking conversion on the executor. The returned future aborts the conversion's HTTP requests when it
+     * is cancelled, and a result that arrives after cancellation is closed instead of being leaked.
+     */
+    private CompletableFuture<ConversionResult> submit(Conversion conversion) {
+        AbortScope abortScope = new AbortScope();
+        CompletableFuture<ConversionResult> future = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    abortScope.abort();
+                }
+                return cancelled;
+            }
+        };
+
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try (AbortScope.Binding ignored = abortScope.bind()) {
+                    ConversionResult result = conversion.run();
+                    if (!future.complete(result)) {
+                        result.close();
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "jotenberg-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Conversion {
+        ConversionResult run() throws IOException;
+    }
+}
@@ -3,32 +3,52 @@ package io.bitizens;
 import io.bitizens.chromium.ChromiumOptions;
 import io.bitizens.chromium.ChromiumPageProperties;
 import io.bitizens.common.CommonUtils;
+import io.bitizens.common.DocumentSource;
 import io.bitizens.common.exceptions.EmptyFileListException;
 import io.bitizens.common.exceptions.IndexFileNotFoundExceptions;
 import io.bitizens.core.ConversionHelper;
+import io.bitizens.core.ConversionRequest;
+import io.bitizens.core.ConversionResult;
+import io.bitizens.core.ConversionTemplate;
+import io.bitizens.core.ConcurrencyLimiter;
+import io.bitizens.core.Endpoint;
+import io.bitizens.core.HealthMonitor;
 import io.bitizens.core.HTTPRequestManager;
+import io.bitizens.core.JotenbergConfig;
+import io.bitizens.core.RouteFamily;
 import io.bitizens.libreoffice.LibreOfficeOptions;
 import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.metrics.MetricsRecorder;
 import io.bitizens.pdfengines.PDFEnginesConversionOptions;
 import io.bitizens.pdfengines.PDFEnginesEncryptOptions;
 import io.bitizens.pdfengines.PDFEnginesMergeOptions;
 import io.bitizens.screenshots.ImageProperties;
 import io.bitizens.screenshots.ScreenshotOptions;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.entity.mime.HttpMultipartMode;
-import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Jotenberg is a class that provides functionality for interacting with the Gotenberg API
  * to convert and process various types of documents.
+ * <p>
+ * Every call assembles its multipart payload on its own {@link ConversionRequest}, so a single instance can be shared
+ * between threads and serve concurrent conversions.
+ * <p>
+ * A Jotenberg can spread its requests over several Gotenberg nodes. Each node gets its own connection pool, and the
+ * configured {@link io.bitizens.core.LoadBalancer} picks the node of every request from the number of requests each
+ * one is processing. With a {@link io.bitizens.core.HealthPolicy}, failing, hung or markedly slow nodes are taken out
+ * of rotation until they recover.
  */
 public class Jotenberg implements AutoCloseable {
     private static final String CHROMIUM_HTML_ROUTE = "forms/chromium/convert/html";
@@ -47,41 +67,122 @@ public class Jotenberg implements AutoCloseable {
     private static final String SCREENSHOTS_HTML_ROUTE = "forms/chromium/screenshot/html";
     private static final String SCREENSHOTS_MARKDOWN_ROUTE = "forms/chromium/screenshot/markdown";
     private static final String SCREENSHOTS_URL_ROUTE = "forms/chromium/screenshot/url";
-    private final MultipartEntityBuilder builder;
-    private final CloseableHttpClient client;
-    private final String endpoint;
-    private final ConversionHelper conversionHelper = new ConversionHelper(this);
-    private final HTTPRequestManager HTTPRequestManager = new HTTPRequestManager(this);
+    private final JotenbergConfig config;
+    private final List<Endpoint> endpoints;
+    private final HealthMonitor healthMonitor;
+    private final Map<RouteFamily, ConcurrencyLimiter> concurrencyLimiters = new EnumMap<>(RouteFamily.class);
+    private final ConversionHelper conversionHelper = new ConversionHelper();
+    private final HTTPRequestManager HTTPRequestManager;
 
     /**
-     * Constructs a Jotenberg object with the specified endpoint URL.
+     * Constructs a Jotenberg object with the specified endpoint URL and the default transport configuration.
      *
      * @param endpoint The URL of the Gotenberg API endpoint.
      * @throws MalformedURLException If the provided endpoint URL is not a valid URL.
      */
     public Jotenberg(String endpoint) throws MalformedURLException {
-        if (!CommonUtils.isValidURL(endpoint)) {
-            throw new MalformedURLException();
+        this(endpoint, JotenbergConfig.defaults());
+    }
+
+    /**
+     * Constructs a Jotenberg object with the specified endpoint URL and transport configuration.
+     *
+     * @param endpoint The URL of the Gotenberg API endpoint.
+     * @param config   Connection pool, keep-alive, socket and timeout settings.
+     * @throws MalformedURLException If the provided endpoint URL is not a valid URL.
+     */
+    public Jotenberg(String endpoint, JotenbergConfig config) throws MalformedURLException {
+        this(List.of(endpoint), config);
+    }
+
+    /**
+     * Constructs a Jotenberg object balancing its requests across the specified endpoint URLs.
+     *
+     * @param endpoints The URLs of the Gotenberg API endpoints.
+     * @param config    Connection pool, keep-alive, socket, timeout and load balancing settings.
+     * @throws MalformedURLException    If one of the provided endpoint URLs is not a valid URL.
+     * @throws IllegalArgumentException If no endpoint is provided.
+     */
+    public Jotenberg(List<String> endpoints, JotenbergConfig config) throws MalformedURLException {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("endpoints must not be empty");
+        }
+        List<Endpoint> nodes = new ArrayList<>(endpoints.size());
+        try {
+            for (String endpoint : endpoints) {
+                nodes.add(new Endpoint(endpoint, config));
+            }
+        } catch (MalformedURLException e) {
+            for (Endpoint node : nodes) {
+                try {
+                    node.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+            }
+            throw e;
         }
-        this.endpoint = endpoint;
-        this.builder = MultipartEntityBuilder.create().setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
-        this.client = HttpClients.createDefault();
+        this.endpoints = List.copyOf(nodes);
+        this.config = config;
+        this.healthMonitor = config.getHealthPolicy() == null || config.getHealthPolicy().getCheckInterval() == null
+                ? null
+                : HealthMonitor.start(this.endpoints, config.getHealthPolicy());
+        if (config.getLimitPolicy() != null) {
+            for (RouteFamily family : RouteFamily.values()) {
+                concurrencyLimiters.put(family, new ConcurrencyLimiter(family, config.getLimitPolicy()));
+            }
+        }
+        this.HTTPRequestManager = new HTTPRequestManager(this);
+        registerGauges(config.getMetrics());
     }
 
     public ConversionHelper getConversionHelper() {
         return conversionHelper;
     }
 
+    /**
+     * Returns the HTTP client of the first endpoint.
+     *
+     * @return The HTTP client.
+     */
     public CloseableHttpClient getClient() {
-        return client;
+        return endpoints.get(0).getClient();
+    }
+
+    public JotenbergConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns the connection manager of the first endpoint.
+     *
+     * @return The connection manager.
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return endpoints.get(0).getConnectionManager();
     }
 
+    /**
+     * Returns the URL of the first endpoint.
+     *
+     * @return The endpoint URL.
+     */
     public String getEndpoint() {
-        return endpoint;
+        return endpoints.get(0).getUrl();
     }
 
-    public MultipartEntityBuilder getBuilder() {
-        return builder;
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns the adaptive concurrency limiter of a route family.
+     *
+     * @param family The route family.
+     * @return The limiter or {@code null} if concurrency limiting is disabled.
+     */
+    public ConcurrencyLimiter getConcurrencyLimiter(RouteFamily family) {
+        return concurrencyLimiters.get(family);
     }
 
     /**
@@ -89,17 +190,18 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param url            The URL of the document to convert.
      * @param pageProperties Page properties for the conversion.
-     * @return A CloseableHttpResponse containing the result of the conversion.
+     * @return A ConversionResult containing the result of the conversion.
      * @throws IOException If an I/O error occurs during the conversion process.
      */
-    public CloseableHttpResponse convert(String url, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+    public ConversionResult convert(String url, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
         if (!CommonUtils.isValidURL(url)) {
             throw new MalformedURLException();
         }
 
-        this.builder.addTextBody("url", url);
+        ConversionRequest request = new ConversionRequest(CHROMIUM_URL_ROUTE);
+        request.text("url", url);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(CHROMIUM_URL_ROUTE), pageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, pageProperties, options);
     }
 
     /**
@@ -107,17 +209,31 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param file           The local file to convert.
      * @param pageProperties Page properties for the conversion.
-     * @return A CloseableHttpResponse containing the result of the conversion.
+     * @return A ConversionResult containing the result of the conversion.
      * @throws IOException If an I/O error occurs during the conversion process.
      */
-    public CloseableHttpResponse convert(File file, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
-        if (!CommonUtils.isIndex(file)) {
+    public ConversionResult convert(File file, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        return convert(DocumentSource.of(file), pageProperties, options);
+    }
+
+    /**
+     * Converts an HTML document using the Chromium HTML conversion route.
+     *
+     * @param document       The index.html document to convert, e.g. rendered in memory.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A ConversionResult containing the result of the conversion.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    public ConversionResult convert(DocumentSource document, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        if (!CommonUtils.isIndex(document)) {
             throw new IndexFileNotFoundExceptions();
         }
 
-        this.builder.addBinaryBody(file.getName(), file);
+        ConversionRequest request = new ConversionRequest(CHROMIUM_HTML_ROUTE);
+        request.document(document);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(CHROMIUM_HTML_ROUTE), pageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, pageProperties, options);
     }
 
     /**
@@ -125,31 +241,66 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files          The list of files to convert.
      * @param pageProperties Page properties for the conversion.
-     * @return A CloseableHttpResponse containing the result of the conversion.
+     * @return A ConversionResult containing the result of the conversion.
      * @throws IOException If an I/O error occurs during the conversion process.
      */
-    public CloseableHttpResponse convert(List<File> files, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
-        if (files.isEmpty()) {
+    public ConversionResult convert(List<File> files, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        return convert(toDocuments(files), pageProperties, options);
+    }
+
+    /**
+     * Converts Markdown documents using the Chromium Markdown conversion route.
+     *
+     * @param documents      The index.html and Markdown documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options.
+     * @return A ConversionResult containing the result of the conversion.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    public ConversionResult convert(DocumentSource[] documents, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        if (documents.length == 0) {
             throw new EmptyFileListException();
         }
 
-        if (!CommonUtils.containsIndex(files)) {
-            throw new IndexFileNotFoundExceptions();
-        }
+        DocumentSource index = Arrays.stream(documents).filter(CommonUtils::isIndex).findFirst()
+                .orElseThrow(IndexFileNotFoundExceptions::new);
 
-        List<File> markdowns = files.stream().filter(CommonUtils::isMarkdown).toList();
+        List<DocumentSource> markdowns = Arrays.stream(documents).filter(CommonUtils::isMarkdown).toList();
 
         if (markdowns.isEmpty()) {
             throw new FileNotFoundException("Chromium's markdown route accepts a single index.html and markdown files.");
         }
 
-        File indexFile = files.stream().filter(CommonUtils::isIndex).findFirst().orElseThrow();
+        ConversionRequest request = new ConversionRequest(CHROMIUM_MARKDOWN_ROUTE);
+        request.document(index);
+
+        markdowns.forEach(request::document);
 
-        this.builder.addBinaryBody(indexFile.getName(), indexFile);
+        return HTTPRequestManager.executeHttpPostRequest(request, pageProperties, options);
+    }
+
+    /**
+     * Converts documents with a template, which supplies the route, the page properties, the options and the static
+     * assets of the conversion, already encoded. Only the documents are encoded and uploaded after them.
+     *
+     * @param template  The template of the conversion.
+     * @param documents The documents to convert, e.g. the index.html of a Chromium HTML template.
+     * @return A ConversionResult containing the result of the conversion.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    public ConversionResult convert(ConversionTemplate template, DocumentSource... documents) throws IOException {
+        if (documents.length == 0) {
+            throw new EmptyFileListException();
+        }
+        if (template.getRoute().equals(CHROMIUM_HTML_ROUTE) && !template.getAssetNames().contains("index.html")
+                && Arrays.stream(documents).noneMatch(CommonUtils::isIndex)) {
+            throw new IndexFileNotFoundExceptions();
+        }
 
-        markdowns.forEach(file -> this.builder.addBinaryBody(file.getName(), file));
+        ConversionRequest request = new ConversionRequest(template);
+        Arrays.stream(documents).forEach(request::document);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(CHROMIUM_MARKDOWN_ROUTE), pageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request);
     }
 
 
@@ -158,17 +309,18 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param url             The URL to screenshot.
      * @param imageProperties Image properties for the screenshot.
-     * @return A CloseableHttpResponse containing the result of the screenshot.
+     * @return A ConversionResult containing the result of the screenshot.
      * @throws IOException If an I/O error occurs during the screenshot process.
      */
-    public CloseableHttpResponse capture(String url, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+    public ConversionResult capture(String url, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
         if (!CommonUtils.isValidURL(url)) {
             throw new MalformedURLException();
         }
 
-        this.builder.addTextBody("url", url);
+        ConversionRequest request = new ConversionRequest(SCREENSHOTS_URL_ROUTE);
+        request.text("url", url);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(SCREENSHOTS_URL_ROUTE), imageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, imageProperties, options);
     }
 
     /**
@@ -176,17 +328,31 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param file            The local file to screenshot.
      * @param imageProperties image properties for the screenshot.
-     * @return A CloseableHttpResponse containing the result of the screenshot.
+     * @return A ConversionResult containing the result of the screenshot.
      * @throws IOException If an I/O error occurs during the screenshot process.
      */
-    public CloseableHttpResponse capture(File file, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
-        if (!CommonUtils.isIndex(file)) {
+    public ConversionResult capture(File file, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+        return capture(DocumentSource.of(file), imageProperties, options);
+    }
+
+    /**
+     * Screenshots an HTML document using the Chromium HTML screenshot route.
+     *
+     * @param document        The index.html document to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A ConversionResult containing the result of the screenshot.
+     * @throws IOException If an I/O error occurs during the screenshot process.
+     */
+    public ConversionResult capture(DocumentSource document, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+        if (!CommonUtils.isIndex(document)) {
             throw new IndexFileNotFoundExceptions();
         }
 
-        this.builder.addBinaryBody(file.getName(), file);
+        ConversionRequest request = new ConversionRequest(SCREENSHOTS_HTML_ROUTE);
+        request.document(document);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(SCREENSHOTS_HTML_ROUTE), imageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, imageProperties, options);
     }
 
     /**
@@ -195,31 +361,42 @@ public class Jotenberg implements AutoCloseable {
      * @param files           The list of files to screenshot.
      * @param imageProperties Image properties for the screenshot.
      * @param options         Screenshot options.
-     * @return A CloseableHttpResponse containing the result of the screenshot.
+     * @return A ConversionResult containing the result of the screenshot.
      * @throws IOException If an I/O error occurs during the screenshot process.
      */
-    public CloseableHttpResponse capture(List<File> files, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
-        if (files.isEmpty()) {
+    public ConversionResult capture(List<File> files, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+        return capture(toDocuments(files), imageProperties, options);
+    }
+
+    /**
+     * Screenshots Markdown documents using the Chromium Markdown screenshot route.
+     *
+     * @param documents       The index.html and Markdown documents to screenshot.
+     * @param imageProperties Image properties for the screenshot.
+     * @param options         Screenshot options.
+     * @return A ConversionResult containing the result of the screenshot.
+     * @throws IOException If an I/O error occurs during the screenshot process.
+     */
+    public ConversionResult capture(DocumentSource[] documents, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+        if (documents.length == 0) {
             throw new EmptyFileListException();
         }
 
-        if (!CommonUtils.containsIndex(files)) {
-            throw new IndexFileNotFoundExceptions();
-        }
+        DocumentSource index = Arrays.stream(documents).filter(CommonUtils::isIndex).findFirst()
+                .orElseThrow(IndexFileNotFoundExceptions::new);
 
-        List<File> markdowns = files.stream().filter(CommonUtils::isMarkdown).toList();
+        List<DocumentSource> markdowns = Arrays.stream(documents).filter(CommonUtils::isMarkdown).toList();
 
         if (markdowns.isEmpty()) {
             throw new FileNotFoundException("Chromium's screenshots markdown route accepts a single index.html and markdown files.");
         }
 
-        File indexFile = files.stream().filter(CommonUtils::isIndex).findFirst().orElseThrow();
-
-        this.builder.addBinaryBody(indexFile.getName(), indexFile);
+        ConversionRequest request = new ConversionRequest(SCREENSHOTS_MARKDOWN_ROUTE);
+        request.document(index);
 
-        markdowns.forEach(file -> this.builder.addBinaryBody(file.getName(), file));
+        markdowns.forEach(request::document);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(SCREENSHOTS_MARKDOWN_ROUTE), imageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, imageProperties, options);
     }
 
     /**
@@ -229,23 +406,83 @@ public class Jotenberg implements AutoCloseable {
      * @param files          The list of files to convert.
      * @param pageProperties Page properties for the conversion.
      * @param options        LibreOffice conversion options.
-     * @return A CloseableHttpResponse containing the result of the conversion.
+     * @return A ConversionResult containing the result of the conversion.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    public ConversionResult convertWithLibreOffice(List<File> files, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        return convertWithLibreOffice(toDocuments(files), pageProperties, options);
+    }
+
+    /**
+     * Converts documents using LibreOffice. The name of each document must carry an extension supported by
+     * LibreOffice.
+     *
+     * @param documents      The documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A ConversionResult containing the result of the conversion.
      * @throws IOException If an I/O error occurs during the conversion process.
      */
-    public CloseableHttpResponse convertWithLibreOffice(List<File> files, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
-        if (files.isEmpty()) {
+    public ConversionResult convertWithLibreOffice(DocumentSource[] documents, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        if (documents.length == 0) {
             throw new EmptyFileListException();
         }
 
-        List<File> supportedFiles = files.stream().filter(CommonUtils::isSupported).toList();
+        List<DocumentSource> supportedDocuments = Arrays.stream(documents).filter(CommonUtils::isSupported).toList();
 
-        if (supportedFiles.isEmpty()) {
+        if (supportedDocuments.isEmpty()) {
             throw new FileNotFoundException("File extensions are not supported by Libre Office. Please refer to https://gotenberg.dev/docs/modules/libreoffice for more details.");
         }
 
-        supportedFiles.forEach(file -> this.builder.addBinaryBody(file.getName(), file));
+        ConversionRequest request = new ConversionRequest(LIBRE_OFFICE_ROUTE);
+        supportedDocuments.forEach(request::document);
 
-        return HTTPRequestManager.executeHttpPostRequest(endpoint.concat(LIBRE_OFFICE_ROUTE), pageProperties, options);
+        return HTTPRequestManager.executeHttpPostRequest(request, pageProperties, options);
+    }
+
+    /**
+     * Submits a list of files to LibreOffice in webhook mode. Gotenberg accepts the request at once and posts the
+     * result to the configured {@link io.bitizens.core.WebhookReceiver}, so that no connection is held while the
+     * conversion runs, unlike {@link AsyncJotenberg#convertWithLibreOffice(List, LibreOfficePageProperties,
+     * LibreOfficeOptions)}, which runs a regular conversion on an executor.
+     *
+     * @param files          The list of files to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A future completed with the result of the conversion once Gotenberg has posted it.
+     * @throws IOException           If an I/O error occurs while submitting the conversion.
+     * @throws IllegalStateException If no webhook receiver is configured.
+     */
+    public CompletableFuture<ConversionResult> submitToLibreOffice(List<File> files, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        return submitToLibreOffice(toDocuments(files), pageProperties, options);
+    }
+
+    /**
+     * Submits documents to LibreOffice in webhook mode.
+     *
+     * @param documents      The documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A future completed with the result of the conversion once Gotenberg has posted it.
+     * @throws IOException           If an I/O error occurs while submitting the conversion.
+     * @throws IllegalStateException If no webhook receiver is configured.
+     * @see #submitToLibreOffice(List, LibreOfficePageProperties, LibreOfficeOptions)
+     */
+    public CompletableFuture<ConversionResult> submitToLibreOffice(DocumentSource[] documents, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        if (documents.length == 0) {
+            throw new EmptyFileListException();
+        }
+
+        List<DocumentSource> supportedDocuments = Arrays.stream(documents).filter(CommonUtils::isSupported).toList();
+
+        if (supportedDocuments.isEmpty()) {
+            throw new FileNotFoundException("File extensions are not supported by Libre Office. Please refer to https://gotenberg.dev/docs/modules/libreoffice for more details.");
+        }
+
+        ConversionRequest request = new ConversionRequest(LIBRE_OFFICE_ROUTE);
+        supportedDocuments.forEach(request::document);
+
+        return HTTPRequestManager.submitHttpPostRequest(request, pageProperties, options);
     }
 
     /**
@@ -253,11 +490,23 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files   The list of files to convert.
      * @param options PDF Engines conversion options.
-     * @return A CloseableHttpResponse containing the result of the conversion.
+     * @return A ConversionResult containing the result of the conversion.
      * @throws IOException If an I/O error occurs during the conversion process.
      */
-    public CloseableHttpResponse convertWithPdfEngines(List<File> files, PDFEnginesConversionOptions options) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponse(files, options, endpoint.concat(PDF_ENGINES_CONVERT_ROUTE));
+    public ConversionResult convertWithPdfEngines(List<File> files, PDFEnginesConversionOptions options) throws IOException {
+        return convertWithPdfEngines(toDocuments(files), options);
+    }
+
+    /**
+     * Converts documents using PDF Engines.
+     *
+     * @param documents The documents to convert.
+     * @param options   PDF Engines conversion options.
+     * @return A ConversionResult containing the result of the conversion.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    public ConversionResult convertWithPdfEngines(DocumentSource[] documents, PDFEnginesConversionOptions options) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponse(Arrays.asList(documents), options, PDF_ENGINES_CONVERT_ROUTE);
     }
 
     /**
@@ -265,22 +514,45 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files   The list of PDF files to merge.
      * @param options PDF Engines merge options.
-     * @return A CloseableHttpResponse containing the result of the merge.
+     * @return A ConversionResult containing the result of the merge.
+     * @throws IOException If an I/O error occurs during the merge process.
+     */
+    public ConversionResult mergeWithPdfEngines(List<File> files, PDFEnginesMergeOptions options) throws IOException {
+        return mergeWithPdfEngines(toDocuments(files), options);
+    }
+
+    /**
+     * Merges PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to merge.
+     * @param options   PDF Engines merge options.
+     * @return A ConversionResult containing the result of the merge.
      * @throws IOException If an I/O error occurs during the merge process.
      */
-    public CloseableHttpResponse mergeWithPdfEngines(List<File> files, PDFEnginesMergeOptions options) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponse(files, options, endpoint.concat(PDF_ENGINES_MERGE_ROUTE));
+    public ConversionResult mergeWithPdfEngines(DocumentSource[] documents, PDFEnginesMergeOptions options) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponse(Arrays.asList(documents), options, PDF_ENGINES_MERGE_ROUTE);
     }
 
     /**
      * Reads metadata from PDF files using PDF Engines.
      *
      * @param files The list of PDF files.
-     * @return A CloseableHttpResponse containing the metadata.
+     * @return A ConversionResult containing the metadata.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse readMetadataWithPdfEngines(List<File> files) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponse(files, null, endpoint.concat(PDF_ENGINES_READ_METADATA_ROUTE));
+    public ConversionResult readMetadataWithPdfEngines(List<File> files) throws IOException {
+        return readMetadataWithPdfEngines(toDocuments(files));
+    }
+
+    /**
+     * Reads metadata from PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents.
+     * @return A ConversionResult containing the metadata.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult readMetadataWithPdfEngines(DocumentSource[] documents) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponse(Arrays.asList(documents), null, PDF_ENGINES_READ_METADATA_ROUTE);
     }
 
     /**
@@ -288,11 +560,23 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files    The list of PDF files.
      * @param metadata The metadata to write as a JSON string.
-     * @return A CloseableHttpResponse containing the result.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse writeMetadataWithPdfEngines(List<File> files, String metadata) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponseWithMetadata(files, metadata, endpoint.concat(PDF_ENGINES_WRITE_METADATA_ROUTE));
+    public ConversionResult writeMetadataWithPdfEngines(List<File> files, String metadata) throws IOException {
+        return writeMetadataWithPdfEngines(toDocuments(files), metadata);
+    }
+
+    /**
+     * Writes metadata to PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents.
+     * @param metadata  The metadata to write as a JSON string.
+     * @return A ConversionResult containing the result.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult writeMetadataWithPdfEngines(DocumentSource[] documents, String metadata) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponseWithMetadata(Arrays.asList(documents), metadata, PDF_ENGINES_WRITE_METADATA_ROUTE);
     }
 
     /**
@@ -303,22 +587,48 @@ public class Jotenberg implements AutoCloseable {
      * @param splitSpan  The split span.
      * @param splitUnify Whether to unify (only for pages mode).
      * @param flatten    Whether to flatten.
-     * @return A CloseableHttpResponse containing the result.
+     * @return A ConversionResult containing the result.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult splitWithPdfEngines(List<File> files, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten) throws IOException {
+        return splitWithPdfEngines(toDocuments(files), splitMode, splitSpan, splitUnify, flatten);
+    }
+
+    /**
+     * Splits PDF documents using PDF Engines.
+     *
+     * @param documents  The PDF documents to split.
+     * @param splitMode  The split mode ('pages' or 'intervals').
+     * @param splitSpan  The split span.
+     * @param splitUnify Whether to unify (only for pages mode).
+     * @param flatten    Whether to flatten.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse splitWithPdfEngines(List<File> files, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponseWithSplit(files, splitMode, splitSpan, splitUnify, flatten, endpoint.concat(PDF_ENGINES_SPLIT_ROUTE));
+    public ConversionResult splitWithPdfEngines(DocumentSource[] documents, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponseWithSplit(Arrays.asList(documents), splitMode, splitSpan, splitUnify, flatten, PDF_ENGINES_SPLIT_ROUTE);
     }
 
     /**
      * Flattens PDF files using PDF Engines.
      *
      * @param files The list of PDF files to flatten.
-     * @return A CloseableHttpResponse containing the result.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse flattenWithPdfEngines(List<File> files) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponse(files, null, endpoint.concat(PDF_ENGINES_FLATTEN_ROUTE));
+    public ConversionResult flattenWithPdfEngines(List<File> files) throws IOException {
+        return flattenWithPdfEngines(toDocuments(files));
+    }
+
+    /**
+     * Flattens PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to flatten.
+     * @return A ConversionResult containing the result.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult flattenWithPdfEngines(DocumentSource[] documents) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponse(Arrays.asList(documents), null, PDF_ENGINES_FLATTEN_ROUTE);
     }
 
     /**
@@ -326,11 +636,23 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files   The list of PDF files to encrypt.
      * @param options PDF Engines encrypt options.
-     * @return A CloseableHttpResponse containing the result.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse encryptWithPdfEngines(List<File> files, PDFEnginesEncryptOptions options) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponseWithEncrypt(files, options, endpoint.concat(PDF_ENGINES_ENCRYPT_ROUTE));
+    public ConversionResult encryptWithPdfEngines(List<File> files, PDFEnginesEncryptOptions options) throws IOException {
+        return encryptWithPdfEngines(toDocuments(files), options);
+    }
+
+    /**
+     * Encrypts PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to encrypt.
+     * @param options   PDF Engines encrypt options.
+     * @return A ConversionResult containing the result.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult encryptWithPdfEngines(DocumentSource[] documents, PDFEnginesEncryptOptions options) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponseWithEncrypt(Arrays.asList(documents), options, PDF_ENGINES_ENCRYPT_ROUTE);
     }
 
     /**
@@ -338,16 +660,79 @@ public class Jotenberg implements AutoCloseable {
      *
      * @param files  The list of PDF files to embed files into.
      * @param embeds The list of files to embed.
-     * @return A CloseableHttpResponse containing the result.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse embedWithPdfEngines(List<File> files, List<File> embeds) throws IOException {
-        return HTTPRequestManager.getPdfEnginesHttpResponseWithEmbed(files, embeds, endpoint.concat(PDF_ENGINES_EMBED_ROUTE));
+    public ConversionResult embedWithPdfEngines(List<File> files, List<File> embeds) throws IOException {
+        return embedWithPdfEngines(toDocuments(files), toDocuments(embeds));
     }
 
+    /**
+     * Embeds documents into PDF documents using PDF Engines.
+     *
+     * @param documents The PDF documents to embed documents into.
+     * @param embeds    The documents to embed.
+     * @return A ConversionResult containing the result.
+     * @throws IOException If an I/O error occurs during the operation.
+     */
+    public ConversionResult embedWithPdfEngines(DocumentSource[] documents, DocumentSource[] embeds) throws IOException {
+        return HTTPRequestManager.getPdfEnginesHttpResponseWithEmbed(Arrays.asList(documents), Arrays.asList(embeds), PDF_ENGINES_EMBED_ROUTE);
+    }
+
+    /**
+     * Registers the gauges of the connection pools, concurrency limiters, result and asset caches, request coalescer and
+     * webhook receiver.
+     */
+    private void registerGauges(MetricsRecorder metrics) {
+        for (Endpoint endpoint : endpoints) {
+            Map<String, String> tags = Map.of("endpoint", endpoint.getUrl());
+            PoolingHttpClientConnectionManager pool = endpoint.getConnectionManager();
+            metrics.registerGauge("jotenberg.pool.leased", tags, () -> pool.getTotalStats().getLeased());
+            metrics.registerGauge("jotenberg.pool.available", tags, () -> pool.getTotalStats().getAvailable());
+            metrics.registerGauge("jotenberg.pool.pending", tags, () -> pool.getTotalStats().getPending());
+            metrics.registerGauge("jotenberg.pool.max", tags, () -> pool.getTotalStats().getMax());
+            metrics.registerGauge("jotenberg.endpoint.in_flight", tags, endpoint::getInFlightCount);
+        }
+        concurrencyLimiters.forEach((family, limiter) -> {
+            Map<String, String> tags = Map.of("family", family.name());
+            metrics.registerGauge("jotenberg.limiter.limit", tags, limiter::getLimit);
+            metrics.registerGauge("jotenberg.limiter.in_flight", tags, limiter::getInFlightCount);
+            metrics.registerGauge("jotenberg.limiter.queued", tags, limiter::getQueuedCount);
+            metrics.registerGauge("jotenberg.limiter.rejected", tags, limiter::getRejectedCount);
+        });
+        if (config.getCache() != null) {
+            metrics.registerGauge("jotenberg.cache.hits", Map.of(), config.getCache()::getHitCount);
+            metrics.registerGauge("jotenberg.cache.misses", Map.of(), config.getCache()::getMissCount);
+            metrics.registerGauge("jotenberg.cache.memory_size", Map.of(), config.getCache()::getMemorySize);
+            metrics.registerGauge("jotenberg.cache.disk_size", Map.of(), config.getCache()::getDiskSize);
+        }
+        if (config.getAssetCache() != null) {
+            metrics.registerGauge("jotenberg.asset_cache.hits", Map.of(), config.getAssetCache()::getHitCount);
+            metrics.registerGauge("jotenberg.asset_cache.misses", Map.of(), config.getAssetCache()::getMissCount);
+            metrics.registerGauge("jotenberg.asset_cache.evictions", Map.of(), config.getAssetCache()::getEvictionCount);
+            metrics.registerGauge("jotenberg.asset_cache.size", Map.of(), config.getAssetCache()::getSize);
+        }
+        if (config.getCoalescer() != null) {
+            metrics.registerGauge("jotenberg.coalescer.coalesced", Map.of(), config.getCoalescer()::getCoalescedCount);
+            metrics.registerGauge("jotenberg.coalescer.in_flight", Map.of(), config.getCoalescer()::getInFlightCount);
+        }
+        if (config.getWebhookReceiver() != null) {
+            metrics.registerGauge("jotenberg.webhook.pending", Map.of(), config.getWebhookReceiver()::getPendingCount);
+        }
+    }
+
+    private static DocumentSource[] toDocuments(List<File> files) {
+        return DocumentSource.fromFiles(files).toArray(DocumentSource[]::new);
+    }
 
     @Override
     public void close() throws Exception {
-        this.client.close();
+        HTTPRequestManager.close();
+        if (healthMonitor != null) {
+            healthMonitor.close();
+        }
+        for (Endpoint endpoint : endpoints) {
+            endpoint.close();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package io.bitizens.batch;
+
+import io.bitizens.Jotenberg;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * BatchConverter runs large collections of conversion jobs concurrently against a shared {@link Jotenberg} client.
+ * <p>
+ * Jobs run on virtual threads when the runtime supports them (Java 21+), and on a cached pool of platform threads
+ * otherwise. At most {@code maxConcurrency} jobs are in flight at any time, so the ceiling should match the capacity
+ * of the Gotenberg instances and the client's connection pool rather than the number of available threads. A failing
+ * job never aborts the batch: its failure is reported in its {@link BatchOutcome}.
+ */
+public class BatchConverter implements AutoCloseable {
+    private final Jotenberg client;
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Constructs a BatchConverter running jobs on virtual threads when available.
+     *
+     * @param client         The client to perform the conversions with.
+     * @param maxConcurrency Maximum number of jobs running at the same time.
+     * @throws IllegalArgumentException if the concurrency ceiling is not positive.
+     */
+    public BatchConverter(Jotenberg client, int maxConcurrency) {
+        this(client, maxConcurrency, newVirtualThreadExecutor(), true);
+    }
+
+    /**
+     * Constructs a BatchConverter running jobs on the given executor, which is left open when the converter is closed.
+     *
+     * @param client         The client to perform the conversions with.
+     * @param maxConcurrency Maximum number of jobs running at the same time.
+     * @param executor       The executor running the jobs.
+     * @throws IllegalArgumentException if the concurrency ceiling is not positive.
+     */
+    public BatchConverter(Jotenberg client, int maxConcurrency, ExecutorService executor) {
+        this(client, maxConcurrency, executor, false);
+    }
+
+    private BatchConverter(Jotenberg client, int maxConcurrency, ExecutorService executor, boolean ownsExecutor) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.client = client;
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Runs every job and returns their outcomes in input order.
+     *
+     * @param jobs The jobs to run.
+     * @param <T>  The type of the jobs' results.
+     * @return The outcome of each job, at the index of the job.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the jobs.
+     */
+    public <T> List<BatchOutcome<T>> runAll(List<? extends ConversionJob<T>> jobs) throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        BatchOutcome<T>[] outcomes = new BatchOutcome[jobs.size()];
+        runAsCompleted(jobs, outcome -> outcomes[outcome.getIndex()] = outcome);
+        return Arrays.asList(outcomes);
+    }
+
+    /**
+     * Runs every job and hands each outcome to the consumer as soon as the job completes. The consumer is invoked on
+     * the calling thread, one outcome at a time, so it does not need to be thread-safe.
+     *
+     * @param jobs     The jobs to run.
+     * @param consumer The consumer of the outcomes, in completion order.
+     * @param <T>      The type of the jobs' results.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the jobs.
+     */
+    public <T> void runAsCompleted(List<? extends ConversionJob<T>> jobs, Consumer<BatchOutcome<T>> consumer) throws InterruptedException {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        BlockingQueue<BatchOutcome<T>> completed = new LinkedBlockingQueue<>();
+        List<ConversionJob<T>> pending = new ArrayList<>(jobs);
+        int delivered = 0;
+
+        for (int index = 0; index < pending.size(); index++) {
+            while (!permits.tryAcquire()) {
+                consumer.accept(completed.take());
+                delivered++;
+            }
+            submit(index, pending.get(index), permits, completed);
+            delivered += drain(completed, consumer);
+        }
+
+        while (delivered < pending.size()) {
+            consumer.accept(completed.take());
+            delivered++;
+        }
+    }
+
+    /**
+     * Runs every job and returns their results in input order, as the steps of a single operation: once a job has
+     * failed, the jobs that have not started yet are skipped, and the first failure is thrown.
+     *
+     * @param jobs        The jobs to run.
+     * @param onCompleted Called on the calling thread each time a job succeeds, or {@code null}.
+     * @param <T>         The type of the jobs' results.
+     * @return The result of each job, at the index of the job.
+     * @throws IOException          If one of the jobs fails.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for the jobs.
+     */
+    <T> List<T> runAllOrFail(List<? extends ConversionJob<T>> jobs, Runnable onCompleted) throws IOException, InterruptedException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<ConversionJob<T>> guarded = new ArrayList<>(jobs.size());
+        for (ConversionJob<T> job : jobs) {
+            guarded.add(jobClient -> {
+                if (failed.get()) {
+                    throw new SkippedJobException();
+                }
+                try {
+                    return job.run(jobClient);
+                } catch (IOException | RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] results = (T[]) new Object[jobs.size()];
+        List<Throwable> failures = new ArrayList<>();
+        runAsCompleted(guarded, outcome -> {
+            if (outcome.isSuccess()) {
+                results[outcome.getIndex()] = outcome.getResult();
+                if (onCompleted != null) {
+                    onCompleted.run();
+                }
+            } else {
+                failures.add(outcome.getFailure());
+            }
+        });
+
+        if (!failures.isEmpty()) {
+            Throwable first = failures.stream().filter(e -> !(e instanceof SkippedJobException)).findFirst().orElse(failures.get(0));
+            throw first instanceof IOException ioException ? ioException : new IOException(first.getMessage(), first);
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> void submit(int index, ConversionJob<T> job, Semaphore permits, BlockingQueue<BatchOutcome<T>> completed) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                BatchOutcome<T> outcome;
+                try {
+                    outcome = BatchOutcome.success(index, job.run(client), System.nanoTime() - start);
+                } catch (Throwable e) {
+                    outcome = BatchOutcome.failure(index, e, System.nanoTime() - start);
+                }
+                // the permit is released before the outcome is published, so a caller woken up by the outcome can
+                // always submit the next job
+                permits.release();
+                completed.add(outcome);
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            completed.add(BatchOutcome.failure(index, e, 0L));
+        }
+    }
+
+    private static <T> int drain(BlockingQueue<BatchOutcome<T>> completed, Consumer<BatchOutcome<T>> consumer) {
+        int drained = 0;
+        BatchOutcome<T> outcome;
+        while ((outcome = completed.poll()) != null) {
+            consumer.accept(outcome);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when the runtime supports it, and a cached pool of daemon platform
+     * threads otherwise. The lookup is reflective so the library keeps targeting Java 17.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory());
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "jotenberg-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * SkippedJobException fails the jobs of an operation still pending once one of them has failed.
+     */
+    private static final class SkippedJobException extends IOException {
+        SkippedJobException() {
+            super("Job skipped after a failed job.");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.bitizens.batch;
+
+/**
+ * BatchOutcome is the outcome of a single job of a batch: either its result or the failure that stopped it.
+ *
+ * @param <T> The type of the job's result.
+ */
+public final class BatchOutcome<T> {
+    private final int index;
+    private final T result;
+    private final Throwable failure;
+    private final long durationNanos;
+
+    private BatchOutcome(int index, T result, Throwable failure, long durationNanos) {
+        this.index = index;
+        this.result = result;
+        this.failure = failure;
+        this.durationNanos = durationNanos;
+    }
+
+    static <T> BatchOutcome<T> success(int index, T result, long durationNanos) {
+        return new BatchOutcome<>(index, result, null, durationNanos);
+    }
+
+    static <T> BatchOutcome<T> failure(int index, Throwable failure, long durationNanos) {
+        return new BatchOutcome<>(index, null, failure, durationNanos);
+    }
+
+    /**
+     * Returns the position of the job in the submitted list.
+     *
+     * @return The job index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+}
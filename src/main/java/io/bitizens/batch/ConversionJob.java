@@ -0,0 +1,26 @@
+package io.bitizens.batch;
+
+import io.bitizens.Jotenberg;
+
+import java.io.IOException;
+
+/**
+ * ConversionJob is a unit of work of a batch. It performs one or more calls on the given client and returns what the
+ * caller needs from them, typically the path the converted document was written to.
+ * <p>
+ * A job should consume or close the {@link io.bitizens.core.ConversionResult} it obtains, as each open result holds
+ * a pooled connection.
+ *
+ * @param <T> The type of the job's result.
+ */
+@FunctionalInterface
+public interface ConversionJob<T> {
+    /**
+     * Runs the job.
+     *
+     * @param client The client to perform the conversion with.
+     * @return The job's result.
+     * @throws IOException If an I/O error occurs during the conversion process.
+     */
+    T run(Jotenberg client) throws IOException;
+}
@@ -0,0 +1,305 @@
+package io.bitizens.batch;
+
+import io.bitizens.Jotenberg;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.core.ConversionResult;
+import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.pdfengines.PDFEnginesConversionOptions;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * FanOut converts multi-file requests in parallel. Instead of uploading every file in a single request, which Gotenberg
+ * processes one file after another on a single instance, each file, or group of files, is sent as its own request,
+ * spread across the client's endpoints by its load balancer. The wall time of a batch then tends toward the time of
+ * its slowest document.
+ * <p>
+ * The results are reassembled client-side the way Gotenberg would have returned them: a ZIP archive holding one PDF per
+ * file, streamed from the spooled results as it is read, or a single PDF merged by PDF Engines when the LibreOffice
+ * options ask for a merge. A single group is sent as is.
+ */
+public final class FanOut {
+    private static final ContentType ZIP = ContentType.create("application/zip");
+
+    private final int groupSize;
+    private final int maxConcurrency;
+    private final Path spoolDirectory;
+    private final PDFEnginesMergeOptions mergeOptions;
+
+    private FanOut(Builder builder) {
+        groupSize = builder.groupSize;
+        maxConcurrency = builder.maxConcurrency;
+        spoolDirectory = builder.spoolDirectory;
+        mergeOptions = builder.mergeOptions;
+    }
+
+    /**
+     * Converts a list of files with LibreOffice, one request per group of files.
+     *
+     * @param client         The client performing the conversions.
+     * @param files          The list of files to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A ConversionResult containing a ZIP archive of the converted files, or the merged PDF.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     * @see Jotenberg#convertWithLibreOffice(List, LibreOfficePageProperties, LibreOfficeOptions)
+     */
+    public ConversionResult convertWithLibreOffice(Jotenberg client, List<File> files, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        return convertWithLibreOffice(client, DocumentSource.fromFiles(files).toArray(DocumentSource[]::new), pageProperties, options);
+    }
+
+    /**
+     * Converts a list of documents with LibreOffice, one request per group of documents.
+     *
+     * @param client         The client performing the conversions.
+     * @param documents      The documents to convert.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        LibreOffice conversion options.
+     * @return A ConversionResult containing a ZIP archive of the converted documents, or the merged PDF.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     */
+    public ConversionResult convertWithLibreOffice(Jotenberg client, DocumentSource[] documents, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        boolean merge = options != null && options.isMerge();
+        return fanOut(client, documents, merge, (jobClient, group) -> jobClient.convertWithLibreOffice(group, pageProperties, options));
+    }
+
+    /**
+     * Converts a list of PDF files with PDF Engines, one request per group of files.
+     *
+     * @param client  The client performing the conversions.
+     * @param files   The list of files to convert.
+     * @param options PDF Engines conversion options.
+     * @return A ConversionResult containing a ZIP archive of the converted files.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     * @see Jotenberg#convertWithPdfEngines(List, PDFEnginesConversionOptions)
+     */
+    public ConversionResult convertWithPdfEngines(Jotenberg client, List<File> files, PDFEnginesConversionOptions options) throws IOException {
+        return convertWithPdfEngines(client, DocumentSource.fromFiles(files).toArray(DocumentSource[]::new), options);
+    }
+
+    /**
+     * Converts a list of PDF documents with PDF Engines, one request per group of documents.
+     *
+     * @param client    The client performing the conversions.
+     * @param documents The documents to convert.
+     * @param options   PDF Engines conversion options.
+     * @return A ConversionResult containing a ZIP archive of the converted documents.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     */
+    public ConversionResult convertWithPdfEngines(Jotenberg client, DocumentSource[] documents, PDFEnginesConversionOptions options) throws IOException {
+        return fanOut(client, documents, false, (jobClient, group) -> jobClient.convertWithPdfEngines(group, options));
+    }
+
+    private ConversionResult fanOut(Jotenberg client, DocumentSource[] documents, boolean merge, Conversion conversion) throws IOException {
+        if (documents.length <= groupSize) {
+            return conversion.run(client, documents);
+        }
+
+        Path spool = spoolDirectory == null ? Files.createTempDirectory("jotenberg-fanout-") : Files.createTempDirectory(spoolDirectory, "jotenberg-fanout-");
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : client.getEndpoints().size() * client.getConfig().getMaxConnectionsPerRoute();
+        boolean handedOver = false;
+        try (BatchConverter converter = new BatchConverter(client, concurrency)) {
+            List<ConversionJob<Spooled>> jobs = new ArrayList<>();
+            for (int from = 0; from < documents.length; from += groupSize) {
+                List<DocumentSource> group = Arrays.asList(documents).subList(from, Math.min(from + groupSize, documents.length));
+                DocumentSource[] sent = merge ? OrderedDocuments.prefixed(group) : group.toArray(DocumentSource[]::new);
+                Path target = spool.resolve(OrderedDocuments.name(jobs.size()));
+                jobs.add(jobClient -> {
+                    try (ConversionResult result = conversion.run(jobClient, sent)) {
+                        OrderedDocuments.requireSuccess(result);
+                        Header contentType = result.getFirstHeader("Content-Type");
+                        boolean zip = contentType != null && contentType.getValue().startsWith(ZIP.getMimeType());
+                        result.writeTo(target);
+                        return new Spooled(target, zip, group.get(0).getName());
+                    }
+                });
+            }
+            List<Spooled> results = converter.runAllOrFail(jobs, null);
+
+            if (merge) {
+                List<DocumentSource> merged = results.stream().map(spooled -> DocumentSource.of(spooled.path())).toList();
+                return client.mergeWithPdfEngines(OrderedDocuments.of(merged), mergeOptions);
+            }
+
+            ConversionResult archive = archive(results, spool);
+            handedOver = true;
+            return archive;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fanning out");
+        } finally {
+            if (!handedOver) {
+                FileUtils.deleteQuietly(spool.toFile());
+            }
+        }
+    }
+
+    /**
+     * Builds a result streaming the spooled results as a ZIP archive, one PDF per converted file. Results that are
+     * archives themselves, e.g. the result of a group, are unpacked so that their files end up at the top level.
+     */
+    private static ConversionResult archive(List<Spooled> results, Path spool) throws IOException {
+        List<StreamingZip.Entry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Spooled result : results) {
+            if (!result.zip()) {
+                Path path = result.path();
+                entries.add(new StreamingZip.Entry(unique(names, FilenameUtils.getBaseName(result.name()) + ".pdf"), () -> Files.newInputStream(path)));
+                continue;
+            }
+
+            Path directory = Files.createDirectory(Path.of(result.path() + ".d"));
+            try (ZipInputStream in = new ZipInputStream(Files.newInputStream(result.path()))) {
+                ZipEntry zipEntry;
+                while ((zipEntry = in.getNextEntry()) != null) {
+                    if (zipEntry.isDirectory()) {
+                        continue;
+                    }
+                    Path path = directory.resolve(String.valueOf(entries.size()));
+                    Files.copy(in, path);
+                    entries.add(new StreamingZip.Entry(unique(names, FilenameUtils.getName(zipEntry.getName())), () -> Files.newInputStream(path)));
+                }
+            }
+        }
+
+        InputStream zip = new StreamingZip(entries, spool);
+        ArchiveResponse response = new ArchiveResponse(zip);
+        response.setHeader("Content-Type", ZIP.getMimeType());
+        response.setEntity(new InputStreamEntity(zip, -1L, ZIP));
+        return new ConversionResult(response);
+    }
+
+    private static String unique(Set<String> names, String name) {
+        String candidate = name;
+        for (int i = 2; !names.add(candidate); i++) {
+            candidate = FilenameUtils.getBaseName(name) + "_" + i + "." + FilenameUtils.getExtension(name);
+        }
+        return candidate;
+    }
+
+    /**
+     * Conversion sends a group of documents.
+     */
+    @FunctionalInterface
+    private interface Conversion {
+        ConversionResult run(Jotenberg client, DocumentSource[] documents) throws IOException;
+    }
+
+    /**
+     * Spooled is the result of a group, written to the spool directory.
+     */
+    private record Spooled(Path path, boolean zip, String name) {
+    }
+
+    /**
+     * ArchiveResponse is the response assembled from the results of the groups.
+     */
+    private static final class ArchiveResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        private final InputStream content;
+
+        ArchiveResponse(InputStream content) {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+            this.content = content;
+        }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    /**
+     * The Builder class is used to construct instances of FanOut with specific grouping settings.
+     */
+    public static class Builder {
+        private int groupSize = 1;
+        private int maxConcurrency = 0;
+        private Path spoolDirectory = null;
+        private PDFEnginesMergeOptions mergeOptions = null;
+
+        /**
+         * Sets the number of files sent by each request.
+         *
+         * @param groupSize Number of files per request.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder groupSize(int groupSize) {
+            if (groupSize <= 0) {
+                throw new IllegalArgumentException("groupSize must be positive");
+            }
+            this.groupSize = groupSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests in flight. Zero, the default, allows as many requests as the connection
+         * pools of the client's endpoints can carry.
+         *
+         * @param maxConcurrency Maximum number of concurrent requests.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 0) {
+                throw new IllegalArgumentException("maxConcurrency must not be negative");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the directory the results are spooled to until they are reassembled. Passing {@code null} uses the
+         * default temporary directory.
+         *
+         * @param spoolDirectory The spool directory.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder spoolDirectory(Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the options of the final merge, performed when the LibreOffice options ask for a merge.
+         *
+         * @param mergeOptions PDF Engines merge options.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder mergeOptions(PDFEnginesMergeOptions mergeOptions) {
+            this.mergeOptions = mergeOptions;
+            return this;
+        }
+
+        /**
+         * Builds an instance of FanOut with the configured settings.
+         *
+         * @return An instance of FanOut.
+         */
+        public FanOut build() {
+            return new FanOut(this);
+        }
+    }
+}
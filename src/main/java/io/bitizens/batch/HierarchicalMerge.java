@@ -0,0 +1,237 @@
+package io.bitizens.batch;
+
+import io.bitizens.Jotenberg;
+import io.bitizens.common.CommonUtils;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.common.exceptions.EmptyFileListException;
+import io.bitizens.core.ConversionResult;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HierarchicalMerge merges more PDF files than a single request can carry. The files are split into chunks that are
+ * merged in parallel, spread across the client's endpoints by its load balancer, and the intermediate documents are
+ * merged again, level after level, until a single request can merge them all.
+ * <p>
+ * The order of the input is preserved: every document is uploaded under a name reflecting its position, so it does not
+ * depend on the original file names. Intermediate documents are spooled to a temporary directory, each level being
+ * deleted once the next one is complete. The {@link PDFEnginesMergeOptions} only apply to the final merge, so
+ * metadata, flattening and PDF/A conversion are performed once, on the complete document.
+ */
+public final class HierarchicalMerge {
+    private final int chunkSize;
+    private final int maxConcurrency;
+    private final Path spoolDirectory;
+    private final Progress progress;
+
+    private HierarchicalMerge(Builder builder) {
+        chunkSize = builder.chunkSize;
+        maxConcurrency = builder.maxConcurrency;
+        spoolDirectory = builder.spoolDirectory;
+        progress = builder.progress;
+    }
+
+    /**
+     * Merges a list of PDF files.
+     *
+     * @param client  The client performing the merges.
+     * @param files   The PDF files to merge, in order.
+     * @param options PDF Engines merge options, applied to the final merge.
+     * @return A ConversionResult containing the merged document.
+     * @throws IOException If one of the merges fails or an I/O error occurs while spooling.
+     * @see Jotenberg#mergeWithPdfEngines(List, PDFEnginesMergeOptions)
+     */
+    public ConversionResult merge(Jotenberg client, List<File> files, PDFEnginesMergeOptions options) throws IOException {
+        return merge(client, DocumentSource.fromFiles(files).toArray(DocumentSource[]::new), options);
+    }
+
+    /**
+     * Merges a list of PDF documents. Documents that are not PDF files are ignored, as by
+     * {@link Jotenberg#mergeWithPdfEngines(DocumentSource[], PDFEnginesMergeOptions)}.
+     *
+     * @param client    The client performing the merges.
+     * @param documents The PDF documents to merge, in order.
+     * @param options   PDF Engines merge options, applied to the final merge.
+     * @return A ConversionResult containing the merged document.
+     * @throws IOException If one of the merges fails or an I/O error occurs while spooling.
+     */
+    public ConversionResult merge(Jotenberg client, DocumentSource[] documents, PDFEnginesMergeOptions options) throws IOException {
+        if (documents.length == 0) {
+            throw new EmptyFileListException();
+        }
+        List<DocumentSource> level = Arrays.stream(documents).filter(CommonUtils::isPDF).toList();
+        if (level.isEmpty()) {
+            throw new FileNotFoundException("No PDF file not found.");
+        }
+
+        int total = countMerges(level.size());
+        int[] completed = {0};
+        if (level.size() <= chunkSize) {
+            return mergeFinal(client, level, options, completed, total);
+        }
+
+        Path spool = spoolDirectory == null ? Files.createTempDirectory("jotenberg-merge-") : Files.createTempDirectory(spoolDirectory, "jotenberg-merge-");
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : client.getEndpoints().size() * client.getConfig().getMaxConnectionsPerRoute();
+        try (BatchConverter converter = new BatchConverter(client, concurrency)) {
+            Path previous = null;
+            for (int depth = 1; level.size() > chunkSize; depth++) {
+                Path directory = Files.createDirectory(spool.resolve(String.valueOf(depth)));
+                level = mergeLevel(converter, level, directory, completed, total);
+                if (previous != null) {
+                    FileUtils.deleteQuietly(previous.toFile());
+                }
+                previous = directory;
+            }
+            return mergeFinal(client, level, options, completed, total);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while merging");
+        } finally {
+            FileUtils.deleteQuietly(spool.toFile());
+        }
+    }
+
+    /**
+     * Merges every chunk of a level in parallel, and returns the merged chunks in order.
+     */
+    private List<DocumentSource> mergeLevel(BatchConverter converter, List<DocumentSource> level, Path directory, int[] completed, int total) throws IOException, InterruptedException {
+        List<ConversionJob<Path>> jobs = new ArrayList<>();
+        for (int from = 0; from < level.size(); from += chunkSize) {
+            List<DocumentSource> chunk = level.subList(from, Math.min(from + chunkSize, level.size()));
+            Path target = directory.resolve(OrderedDocuments.name(jobs.size()));
+            jobs.add(client -> {
+                try (ConversionResult result = client.mergeWithPdfEngines(OrderedDocuments.of(chunk), null)) {
+                    OrderedDocuments.requireSuccess(result);
+                    result.writeTo(target);
+                    return target;
+                }
+            });
+        }
+
+        List<DocumentSource> next = new ArrayList<>(jobs.size());
+        for (Path path : converter.runAllOrFail(jobs, () -> report(completed, total))) {
+            next.add(DocumentSource.of(path));
+        }
+        return next;
+    }
+
+    private ConversionResult mergeFinal(Jotenberg client, List<DocumentSource> level, PDFEnginesMergeOptions options, int[] completed, int total) throws IOException {
+        ConversionResult result = client.mergeWithPdfEngines(OrderedDocuments.of(level), options);
+        report(completed, total);
+        return result;
+    }
+
+    private void report(int[] completed, int total) {
+        completed[0]++;
+        if (progress != null) {
+            progress.onMerged(completed[0], total);
+        }
+    }
+
+    /**
+     * Counts the merge requests needed for the given number of documents, the final merge included.
+     */
+    int countMerges(int documents) {
+        int merges = 1;
+        for (int remaining = documents; remaining > chunkSize; remaining = (remaining + chunkSize - 1) / chunkSize) {
+            merges += (remaining + chunkSize - 1) / chunkSize;
+        }
+        return merges;
+    }
+
+    /**
+     * Progress is notified on the calling thread each time a merge request completes.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * Called when a merge request has completed.
+         *
+         * @param completed The number of merge requests completed so far.
+         * @param total     The total number of merge requests, the final merge included.
+         */
+        void onMerged(int completed, int total);
+    }
+
+    /**
+     * The Builder class is used to construct instances of HierarchicalMerge with specific chunking settings.
+     */
+    public static class Builder {
+        private int chunkSize = 100;
+        private int maxConcurrency = 0;
+        private Path spoolDirectory = null;
+        private Progress progress = null;
+
+        /**
+         * Sets the maximum number of documents uploaded by a single merge request.
+         *
+         * @param chunkSize Maximum number of documents per request.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is lower than 2.
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 2) {
+                throw new IllegalArgumentException("chunkSize must be at least 2");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of merge requests in flight. Zero, the default, allows as many requests as the
+         * connection pools of the client's endpoints can carry.
+         *
+         * @param maxConcurrency Maximum number of concurrent requests.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 0) {
+                throw new IllegalArgumentException("maxConcurrency must not be negative");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the directory of the intermediate documents. Passing {@code null} uses the default temporary directory.
+         *
+         * @param spoolDirectory The spool directory.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder spoolDirectory(Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the callback notified each time a merge request completes.
+         *
+         * @param progress The progress callback.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder progress(Progress progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        /**
+         * Builds an instance of HierarchicalMerge with the configured settings.
+         *
+         * @return An instance of HierarchicalMerge.
+         */
+        public HierarchicalMerge build() {
+            return new HierarchicalMerge(this);
+        }
+    }
+}
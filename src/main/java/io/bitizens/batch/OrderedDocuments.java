@@ -0,0 +1,136 @@
+package io.bitizens.batch;
+
+import io.bitizens.common.DocumentSource;
+import io.bitizens.core.ConversionResult;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * OrderedDocuments names the documents of the requests split by batch operations after their position, so that the
+ * order of the parts survives Gotenberg sorting them by name.
+ */
+final class OrderedDocuments {
+    private OrderedDocuments() {
+    }
+
+    /**
+     * Returns the name of the PDF document at the given position, e.g. {@code 000042.pdf}.
+     */
+    static String name(int index) {
+        return String.format("%06d.pdf", index);
+    }
+
+    /**
+     * Renames PDF documents after their position.
+     */
+    static DocumentSource[] of(List<DocumentSource> documents) {
+        DocumentSource[] ordered = new DocumentSource[documents.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = new RenamedDocumentSource(name(i), documents.get(i));
+        }
+        return ordered;
+    }
+
+    /**
+     * Prefixes the names of documents with their position, keeping their extension, e.g. {@code 000042_report.docx}.
+     */
+    static DocumentSource[] prefixed(List<DocumentSource> documents) {
+        DocumentSource[] ordered = new DocumentSource[documents.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            DocumentSource document = documents.get(i);
+            ordered[i] = new RenamedDocumentSource(String.format("%06d_%s", i, document.getName()), document);
+        }
+        return ordered;
+    }
+
+    static void requireSuccess(ConversionResult result) throws IOException {
+        if (!result.isSuccessful()) {
+            throw new IOException("Gotenberg answered with status " + result.getStatusCode() + ".");
+        }
+    }
+
+    /**
+     * RenamedDocumentSource uploads a document under another name.
+     */
+    private record RenamedDocumentSource(String name, DocumentSource document) implements DocumentSource {
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getLength() {
+            return document.getLength();
+        }
+
+        @Override
+        public boolean exists() {
+            return document.exists();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return document.isRepeatable();
+        }
+
+        @Override
+        public byte[] peek(int length) throws IOException {
+            return document.peek(length);
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return document.openStream();
+        }
+
+        @Override
+        public ContentBody toContentBody() {
+            ContentBody body = document.toContentBody();
+            return new ContentBody() {
+                @Override
+                public String getFilename() {
+                    return name;
+                }
+
+                @Override
+                public void writeTo(OutputStream out) throws IOException {
+                    body.writeTo(out);
+                }
+
+                @Override
+                public String getTransferEncoding() {
+                    return body.getTransferEncoding();
+                }
+
+                @Override
+                public long getContentLength() {
+                    return body.getContentLength();
+                }
+
+                @Override
+                public String getMimeType() {
+                    return body.getMimeType();
+                }
+
+                @Override
+                public String getMediaType() {
+                    return body.getMediaType();
+                }
+
+                @Override
+                public String getSubType() {
+                    return body.getSubType();
+                }
+
+                @Override
+                public String getCharset() {
+                    return body.getCharset();
+                }
+            };
+        }
+    }
+}
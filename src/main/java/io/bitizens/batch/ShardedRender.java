@@ -0,0 +1,324 @@
+package io.bitizens.batch;
+
+import io.bitizens.Jotenberg;
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.common.CommonUtils;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.common.exceptions.IndexFileNotFoundExceptions;
+import io.bitizens.core.ConversionResult;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpStatus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ShardedRender prints a long HTML document faster by splitting it by pages. The same document is uploaded several
+ * times, each request printing a disjoint slice of its pages with {@code nativePageRanges}, the slices are rendered
+ * in parallel, spread across the client's endpoints by its load balancer, and merged back in order by PDF Engines.
+ * <p>
+ * Splitting requires the page count of the document. It is either passed by the caller or measured by a
+ * {@link PageCountProbe}; without either, the document is printed in a single request. Every slice lays out the
+ * complete document, so sharding pays off when printing, not layout, dominates the conversion time, which is the case
+ * of documents spanning hundreds of pages.
+ * <p>
+ * The {@link PDFEnginesMergeOptions} apply to the merged document, so document-wide settings such as metadata,
+ * flattening or PDF/A conversion belong there rather than in the {@link ChromiumOptions}, which apply to every slice.
+ */
+public final class ShardedRender {
+    private final int shards;
+    private final int minPagesPerShard;
+    private final int maxConcurrency;
+    private final Path spoolDirectory;
+    private final PDFEnginesMergeOptions mergeOptions;
+    private final PageCountProbe probe;
+
+    private ShardedRender(Builder builder) {
+        shards = builder.shards;
+        minPagesPerShard = builder.minPagesPerShard;
+        maxConcurrency = builder.maxConcurrency;
+        spoolDirectory = builder.spoolDirectory;
+        mergeOptions = builder.mergeOptions;
+        probe = builder.probe;
+    }
+
+    /**
+     * Prints a local HTML file, measuring its page count with the configured probe.
+     *
+     * @param client         The client performing the conversions.
+     * @param file           The index.html file to print.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options, applied to every slice.
+     * @return A ConversionResult containing the merged document.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     * @see Jotenberg#convert(File, ChromiumPageProperties, ChromiumOptions)
+     */
+    public ConversionResult render(Jotenberg client, File file, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        return render(client, DocumentSource.of(file), pageProperties, options);
+    }
+
+    /**
+     * Prints an HTML document, measuring its page count with the configured probe.
+     *
+     * @param client         The client performing the conversions.
+     * @param document       The index.html document to print.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options, applied to every slice.
+     * @return A ConversionResult containing the merged document.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     */
+    public ConversionResult render(Jotenberg client, DocumentSource document, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        return render(client, document, 0, pageProperties, options);
+    }
+
+    /**
+     * Prints an HTML document whose page count is known, e.g. from a previous conversion.
+     *
+     * @param client         The client performing the conversions.
+     * @param document       The index.html document to print.
+     * @param pageCount      The number of pages of the document.
+     * @param pageProperties Page properties for the conversion.
+     * @param options        Chromium conversion options, applied to every slice.
+     * @return A ConversionResult containing the merged document.
+     * @throws IOException If one of the conversions fails or an I/O error occurs while spooling.
+     */
+    public ConversionResult render(Jotenberg client, DocumentSource document, int pageCount, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        if (!CommonUtils.isIndex(document)) {
+            throw new IndexFileNotFoundExceptions();
+        }
+        if (pageProperties.getNativePageRanges() != null || (pageCount <= 0 && probe == null)) {
+            return client.convert(document, pageProperties, options);
+        }
+
+        Path spool = spoolDirectory == null ? Files.createTempDirectory("jotenberg-shards-") : Files.createTempDirectory(spoolDirectory, "jotenberg-shards-");
+        try {
+            DocumentSource source = document.isRepeatable() ? document : spoolDocument(document, spool);
+            int pages = pageCount > 0 ? pageCount : probe.pageCount(client, source, pageProperties, options);
+            int count = countShards(client, pages);
+            if (count <= 1) {
+                return client.convert(source, pageProperties, options);
+            }
+            return renderShards(client, source, pages, count, pageProperties, options, spool);
+        } finally {
+            FileUtils.deleteQuietly(spool.toFile());
+        }
+    }
+
+    private ConversionResult renderShards(Jotenberg client, DocumentSource document, int pages, int count, ChromiumPageProperties pageProperties, ChromiumOptions options, Path spool) throws IOException {
+        int concurrency = maxConcurrency > 0 ? maxConcurrency : capacity(client);
+        try (BatchConverter converter = new BatchConverter(client, concurrency)) {
+            List<ConversionJob<Path>> jobs = new ArrayList<>();
+            int start = 1;
+            for (int shard = 0; shard < count; shard++) {
+                int end = start + pages / count - 1 + (shard < pages % count ? 1 : 0);
+                ChromiumPageProperties slice = pageProperties.withNativePageRanges(start, end);
+                Path target = spool.resolve(OrderedDocuments.name(shard));
+                jobs.add(jobClient -> {
+                    try (ConversionResult result = jobClient.convert(document, slice, options)) {
+                        OrderedDocuments.requireSuccess(result);
+                        result.writeTo(target);
+                        return target;
+                    }
+                });
+                start = end + 1;
+            }
+
+            List<DocumentSource> slices = converter.runAllOrFail(jobs, null).stream().map(DocumentSource::of).toList();
+            return client.mergeWithPdfEngines(OrderedDocuments.of(slices), mergeOptions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering shards");
+        }
+    }
+
+    /**
+     * Counts the shards of a document: the configured count, or the capacity of the client's connection pools, without
+     * going below the minimum number of pages per shard.
+     */
+    int countShards(Jotenberg client, int pages) {
+        int wanted = shards > 0 ? shards : capacity(client);
+        return Math.max(1, Math.min(wanted, pages / minPagesPerShard));
+    }
+
+    private static int capacity(Jotenberg client) {
+        return client.getEndpoints().size() * client.getConfig().getMaxConnectionsPerRoute();
+    }
+
+    /**
+     * Copies a document that can only be read once to the spool directory, so that it can be uploaded by every shard.
+     */
+    private static DocumentSource spoolDocument(DocumentSource document, Path spool) throws IOException {
+        Path path = spool.resolve(document.getName());
+        try (InputStream in = document.openStream()) {
+            Files.copy(in, path);
+        }
+        return DocumentSource.of(path);
+    }
+
+    /**
+     * PageCountProbe measures the number of pages of a document before it is split.
+     */
+    @FunctionalInterface
+    public interface PageCountProbe {
+        /**
+         * Measures the number of pages of a document.
+         *
+         * @param client         The client performing the conversions.
+         * @param document       The index.html document, which can be read several times.
+         * @param pageProperties Page properties of the conversion.
+         * @param options        Chromium conversion options of the conversion.
+         * @return The number of pages.
+         * @throws IOException If an I/O error occurs while probing.
+         */
+        int pageCount(Jotenberg client, DocumentSource document, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException;
+
+        /**
+         * Returns a probe printing single pages to find the last one, doubling the page number until Gotenberg rejects
+         * the page range as exceeding the page count, then bisecting. Each request lays out the document but prints a
+         * single page, and an 800-page document takes about 20 requests.
+         *
+         * @return The probe.
+         */
+        static PageCountProbe bisecting() {
+            return (client, document, pageProperties, options) -> {
+                int last = 1;
+                int beyond = 2;
+                while (hasPage(client, document, beyond, pageProperties, options)) {
+                    last = beyond;
+                    beyond *= 2;
+                }
+                while (beyond - last > 1) {
+                    int page = (last + beyond) >>> 1;
+                    if (hasPage(client, document, page, pageProperties, options)) {
+                        last = page;
+                    } else {
+                        beyond = page;
+                    }
+                }
+                return last;
+            };
+        }
+
+        private static boolean hasPage(Jotenberg client, DocumentSource document, int page, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+            try (ConversionResult result = client.convert(document, pageProperties.withNativePageRanges(page, page), options)) {
+                result.transferTo(OutputStream.nullOutputStream());
+                if (result.getStatusCode() == HttpStatus.SC_BAD_REQUEST) {
+                    return false;
+                }
+                OrderedDocuments.requireSuccess(result);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The Builder class is used to construct instances of ShardedRender with specific sharding settings.
+     */
+    public static class Builder {
+        private int shards = 0;
+        private int minPagesPerShard = 10;
+        private int maxConcurrency = 0;
+        private Path spoolDirectory = null;
+        private PDFEnginesMergeOptions mergeOptions = null;
+        private PageCountProbe probe = null;
+
+        /**
+         * Sets the number of slices a document is split into. Zero, the default, splits it into as many slices as the
+         * connection pools of the client's endpoints can carry.
+         *
+         * @param shards Number of slices.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder shards(int shards) {
+            if (shards < 0) {
+                throw new IllegalArgumentException("shards must not be negative");
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of pages of a slice, below which a document is split into fewer slices.
+         *
+         * @param minPagesPerShard Minimum number of pages per slice.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder minPagesPerShard(int minPagesPerShard) {
+            if (minPagesPerShard <= 0) {
+                throw new IllegalArgumentException("minPagesPerShard must be positive");
+            }
+            this.minPagesPerShard = minPagesPerShard;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of slices rendered at once. Zero, the default, allows as many requests as the
+         * connection pools of the client's endpoints can carry.
+         *
+         * @param maxConcurrency Maximum number of concurrent requests.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 0) {
+                throw new IllegalArgumentException("maxConcurrency must not be negative");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the directory the slices are spooled to until they are merged. Passing {@code null} uses the default
+         * temporary directory.
+         *
+         * @param spoolDirectory The spool directory.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder spoolDirectory(Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * Sets the options of the merge of the slices.
+         *
+         * @param mergeOptions PDF Engines merge options.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder mergeOptions(PDFEnginesMergeOptions mergeOptions) {
+            this.mergeOptions = mergeOptions;
+            return this;
+        }
+
+        /**
+         * Sets the probe measuring the page count of documents rendered without a known page count.
+         *
+         * @param probe The page count probe, e.g. {@link PageCountProbe#bisecting()}.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder probe(PageCountProbe probe) {
+            this.probe = probe;
+            return this;
+        }
+
+        /**
+         * Builds an instance of ShardedRender with the configured settings.
+         *
+         * @return An instance of ShardedRender.
+         */
+        public ShardedRender build() {
+            return new ShardedRender(this);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.bitizens.batch;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * StreamingZip is a ZIP archive produced while it is read. Entries are compressed a chunk at a time as the reader
+ * asks for more bytes, so the archive is never held in memory nor written to disk. Closing the stream closes the
+ * entries and deletes the spool directory they were read from.
+ */
+final class StreamingZip extends InputStream {
+    private final Iterator<Entry> entries;
+    private final Path spool;
+    private final Buffer buffer = new Buffer();
+    private final ZipOutputStream zip = new ZipOutputStream(buffer);
+    private final byte[] chunk = new byte[64 * 1024];
+    private InputStream current;
+    private int position;
+    private boolean finished;
+    private boolean closed;
+
+    StreamingZip(List<Entry> entries, Path spool) {
+        this.entries = entries.iterator();
+        this.spool = spool;
+        zip.setLevel(Deflater.BEST_SPEED);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position == buffer.size()) {
+            if (finished) {
+                return -1;
+            }
+            buffer.reset();
+            position = 0;
+            fill();
+        }
+        int read = Math.min(len, buffer.size() - position);
+        System.arraycopy(buffer.bytes(), position, b, off, read);
+        position += read;
+        return read;
+    }
+
+    /**
+     * Compresses the next chunk of the current entry, or moves on to the next entry.
+     */
+    private void fill() throws IOException {
+        if (current == null) {
+            if (!entries.hasNext()) {
+                zip.finish();
+                finished = true;
+                return;
+            }
+            Entry entry = entries.next();
+            zip.putNextEntry(new ZipEntry(entry.name()));
+            current = entry.content().open();
+            return;
+        }
+
+        int read = current.read(chunk);
+        if (read == -1) {
+            current.close();
+            current = null;
+            zip.closeEntry();
+        } else {
+            zip.write(chunk, 0, read);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (current != null) {
+                current.close();
+            }
+        } finally {
+            FileUtils.deleteQuietly(spool.toFile());
+        }
+    }
+
+    /**
+     * Entry is a file of the archive.
+     */
+    record Entry(String name, Content content) {
+    }
+
+    /**
+     * Content opens the content of an entry, once the entry is reached.
+     */
+    @FunctionalInterface
+    interface Content {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Buffer exposes the bytes written by the ZIP stream until the reader has consumed them.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package io.bitizens.cache;
+
+import io.bitizens.common.DocumentSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AssetCache keeps the content of files uploaded over and over, such as the stylesheets, fonts, images, header and
+ * footer shared by HTML conversions, so that every upload reads them from memory rather than from disk.
+ * <p>
+ * A file is only admitted the second time it is uploaded unchanged: the first upload streams it from disk and merely
+ * remembers its path, so that one-off documents, e.g. the index.html of each conversion or spooled intermediate
+ * results, are never loaded onto the heap and never evict the assets the cache is for.
+ * <p>
+ * Entries are keyed by the absolute path of the file and validated against its last modification time and size on
+ * every lookup, which costs a single file status call: an edited file counts as a new file. Files larger than the
+ * entry size limit are uploaded from disk, and the least recently used entries are evicted once the cache exceeds its
+ * size budget. Files that cannot be read are uploaded from disk as well, where the error surfaces.
+ */
+public final class AssetCache {
+    private static final int MAX_SIGHTINGS = 4096;
+
+    private final long maxSize;
+    private final long maxEntrySize;
+
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Path, Version> sightings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Version> eldest) {
+            return size() > MAX_SIGHTINGS;
+        }
+    };
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private AssetCache(Builder builder) {
+        maxSize = builder.maxSize;
+        maxEntrySize = Math.min(builder.maxEntrySize, builder.maxSize);
+    }
+
+    /**
+     * Returns a source uploading the document from memory when it is a file the cache holds, or admits because it has
+     * been uploaded unchanged before.
+     *
+     * @param document The document to upload.
+     * @return The cached source, or the document itself if it does not live on disk, is seen for the first time, is
+     * too large or cannot be read.
+     */
+    public DocumentSource resolve(DocumentSource document) {
+        Path path = document.getPath();
+        if (path == null) {
+            return document;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return document;
+        }
+        if (!attributes.isRegularFile() || attributes.size() > maxEntrySize) {
+            return document;
+        }
+
+        Path key = path.toAbsolutePath().normalize();
+        Version version = new Version(attributes.lastModifiedTime().toMillis(), attributes.size());
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version().equals(version)) {
+                hits.increment();
+                return entry.content();
+            }
+            misses.increment();
+            if (entry != null) {
+                removeEntry(key);
+            }
+            if (!version.equals(sightings.put(key, version))) {
+                return document;
+            }
+            sightings.remove(key);
+        }
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(path);
+        } catch (IOException e) {
+            return document;
+        }
+        DocumentSource cached = DocumentSource.of(document.getName(), content);
+        if (content.length == attributes.size()) {
+            put(key, new Entry(version, cached));
+        }
+        return cached;
+    }
+
+    /**
+     * Discards every cached file.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            sightings.clear();
+            size = 0L;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of lookups of cacheable files served from memory.
+     *
+     * @return The hit ratio between 0 and 1, or 0 if no lookup happened yet.
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of content bytes held by the cache.
+     *
+     * @return The size of the cache.
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    /**
+     * Returns the number of files held by the cache.
+     *
+     * @return The number of entries.
+     */
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void put(Path key, Entry entry) {
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            size += entry.content().getLength() - (previous == null ? 0L : previous.content().getLength());
+
+            Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                size -= iterator.next().getValue().content().getLength();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void removeEntry(Path key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            size -= removed.content().getLength();
+        }
+    }
+
+    /**
+     * Version identifies the content of a file by its last modification time and size.
+     */
+    private record Version(long modified, long size) {
+    }
+
+    /**
+     * Entry is the content of a file as of a version.
+     */
+    private record Entry(Version version, DocumentSource content) {
+    }
+
+    /**
+     * The Builder class is used to construct instances of AssetCache with specific size budgets.
+     */
+    public static class Builder {
+        private long maxSize = 32L * 1024 * 1024;
+        private long maxEntrySize = 2L * 1024 * 1024;
+
+        /**
+         * Sets the maximum number of content bytes held by the cache.
+         *
+         * @param maxSize Size budget of the cache, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxSize(long maxSize) {
+            this.maxSize = requireNonNegative(maxSize, "maxSize");
+            return this;
+        }
+
+        /**
+         * Sets the size above which files are always uploaded from disk.
+         *
+         * @param maxEntrySize Maximum size of a cached file, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxEntrySize(long maxEntrySize) {
+            this.maxEntrySize = requireNonNegative(maxEntrySize, "maxEntrySize");
+            return this;
+        }
+
+        /**
+         * Builds an instance of AssetCache with the configured settings.
+         *
+         * @return An instance of AssetCache.
+         */
+        public AssetCache build() {
+            return new AssetCache(this);
+        }
+
+        private static long requireNonNegative(long value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.bitizens.cache;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * CachedResponse is a response replayed from the cache, detached from any connection.
+ */
+final class CachedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+    private final Closeable resource;
+
+    CachedResponse(Metadata metadata, String source, Closeable resource) {
+        super(new BasicStatusLine(HttpVersion.HTTP_1_1, metadata.statusCode(), metadata.reason()));
+        metadata.headers().forEach(this::addHeader);
+        if (source != null) {
+            addHeader(ConversionCache.CACHE_HEADER, source);
+        }
+        this.resource = resource;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (resource != null) {
+            resource.close();
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package io.bitizens.cache;
+
+import io.bitizens.core.ConversionRequest;
+import io.bitizens.core.ConversionResult;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ConversionCache keeps the results of successful conversions, keyed by the {@link ConversionRequest#fingerprint()
+ * fingerprint} of the request that produced them: the route, every form field and the bytes of every document. A
+ * repeated conversion is served from the cache without reaching Gotenberg.
+ * <p>
+ * Results are kept in a bounded in-memory tier and, when a directory is configured, in a disk tier. Both tiers evict
+ * the least recently used entries once they exceed their size budget. Results larger than the in-memory entry limit
+ * are only stored on disk, and are streamed through untouched when there is no disk tier. Entries older than the
+ * configured time to live are discarded when looked up. The disk tier is best effort: when it cannot store a result,
+ * e.g. because the disk is full, the result is still handed to the caller, and when it cannot read an entry back, the
+ * entry is discarded and the lookup is a miss. Either failure is counted.
+ * <p>
+ * Results served by the cache carry a {@value #CACHE_HEADER} header set to {@code memory} or {@code disk}. Failed
+ * conversions are never cached.
+ */
+public final class ConversionCache {
+    /**
+     * Header added to results served by the cache, set to the tier that held them.
+     */
+    public static final String CACHE_HEADER = "Jotenberg-Cache";
+
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final long maxMemorySize;
+    private final long maxMemoryEntrySize;
+    private final Duration timeToLive;
+    private final DiskTier disk;
+
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder memoryEvictions = new LongAdder();
+    private final LongAdder memoryExpirations = new LongAdder();
+    private final LongAdder diskFailures = new LongAdder();
+
+    private ConversionCache(Builder builder) throws IOException {
+        maxMemorySize = builder.maxMemorySize;
+        maxMemoryEntrySize = Math.min(builder.maxMemoryEntrySize, builder.maxMemorySize);
+        timeToLive = builder.timeToLive;
+        disk = builder.directory == null ? null : new DiskTier(builder.directory, builder.maxDiskSize);
+    }
+
+    /**
+     * Looks up the result stored under the given key.
+     *
+     * @param key The fingerprint of the request.
+     * @return The cached result or {@code null} on a miss. An entry the disk tier cannot read counts as a miss.
+     */
+    public ConversionResult get(String key) {
+        long now = System.currentTimeMillis();
+
+        MemoryEntry entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+            if (entry != null && entry.metadata.isExpired(timeToLive, now)) {
+                removeFromMemory(key);
+                memoryExpirations.increment();
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            memoryHits.increment();
+            return toResult(entry.metadata, entry.content, "memory");
+        }
+
+        DiskTier.Entry stored;
+        try {
+            stored = disk == null ? null : disk.get(key, timeToLive, now);
+        } catch (IOException e) {
+            return diskMiss();
+        }
+        if (stored == null) {
+            misses.increment();
+            return null;
+        }
+
+        Metadata metadata = stored.metadata();
+        if (metadata.length() <= maxMemoryEntrySize) {
+            byte[] content;
+            try (InputStream in = stored.content()) {
+                content = in.readAllBytes();
+            } catch (IOException e) {
+                disk.remove(key);
+                return diskMiss();
+            }
+            diskHits.increment();
+            putInMemory(key, new MemoryEntry(metadata, content));
+            return toResult(metadata, content, "disk");
+        }
+        diskHits.increment();
+        return toResult(metadata, stored.content(), "disk");
+    }
+
+    /**
+     * Counts a disk tier entry which could not be read as a failure and a miss, so the result is fetched again.
+     *
+     * @return {@code null}, to return from a lookup.
+     */
+    private ConversionResult diskMiss() {
+        diskFailures.increment();
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a result under the given key and returns a result to hand to the caller in its place, since storing it
+     * consumes the original. Unsuccessful results and results without a body are returned as is.
+     *
+     * @param key    The fingerprint of the request.
+     * @param result The result of the conversion.
+     * @return The result to use in place of the given one.
+     * @throws IOException If the result cannot be read or the disk tier cannot be written.
+     */
+    public ConversionResult put(String key, ConversionResult result) throws IOException {
+        HttpEntity entity = result.getEntity();
+        if (!result.isSuccessful() || entity == null) {
+            return result;
+        }
+
+        Metadata metadata = Metadata.of(result, System.currentTimeMillis());
+        InputStream in;
+        byte[] head;
+        try {
+            in = entity.getContent();
+            head = in.readNBytes((int) Math.min(maxMemoryEntrySize + 1, Integer.MAX_VALUE - 8));
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(result);
+            throw e;
+        }
+
+        if (head.length <= maxMemoryEntrySize) {
+            result.close();
+            metadata = metadata.withLength(head.length);
+            putInMemory(key, new MemoryEntry(metadata, head));
+            if (disk != null) {
+                try {
+                    disk.put(key, metadata, new ByteArrayInputStream(head)).content().close();
+                } catch (IOException e) {
+                    diskFailures.increment();
+                }
+            }
+            return toResult(metadata, head, null);
+        }
+
+        InputStream content = new SequenceInputStream(new ByteArrayInputStream(head), in);
+        if (disk == null) {
+            return passThrough(result, entity, content);
+        }
+        return putOnDisk(key, metadata, result, entity, content);
+    }
+
+    /**
+     * Spools a large result to a temporary file of the disk tier, then promotes the file into the tier. The disk tier
+     * is best effort: if no file can be created, the body is streamed through untouched; if the disk fails midway, the
+     * bytes already spooled, the chunk being written and the rest of the response are chained back together; if the
+     * promotion fails, the body is served from the spooled file. Only a failure to read the response itself fails the
+     * conversion.
+     */
+    private ConversionResult putOnDisk(String key, Metadata metadata, ConversionResult result, HttpEntity entity, InputStream content) throws IOException {
+        Path spooled;
+        OutputStream out;
+        try {
+            spooled = disk.createSpoolFile();
+        } catch (IOException e) {
+            diskFailures.increment();
+            return passThrough(result, entity, content);
+        }
+        try {
+            out = Files.newOutputStream(spooled);
+        } catch (IOException e) {
+            diskFailures.increment();
+            Files.deleteIfExists(spooled);
+            return passThrough(result, entity, content);
+        }
+
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        long length = 0L;
+        try {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                try {
+                    out.write(buffer, 0, read);
+                } catch (IOException e) {
+                    diskFailures.increment();
+                    closeQuietly(out);
+                    try (FileChannel channel = FileChannel.open(spooled, StandardOpenOption.WRITE)) {
+                        channel.truncate(length);
+                    }
+                    InputStream recovered = new SequenceInputStream(Collections.enumeration(List.of(
+                            Files.newInputStream(spooled),
+                            new ByteArrayInputStream(buffer, 0, read),
+                            content)));
+                    return toResult(metadata, recovered, entity, () -> {
+                        try (result; recovered) {
+                            Files.deleteIfExists(spooled);
+                        }
+                    });
+                }
+                length += read;
+            }
+            out.close();
+        } catch (IOException e) {
+            closeQuietly(out);
+            Files.deleteIfExists(spooled);
+            result.close();
+            throw e;
+        }
+        result.close();
+
+        Metadata stored = metadata.withLength(length);
+        try {
+            DiskTier.Entry entry = disk.promote(key, stored, spooled);
+            return toResult(entry.metadata(), entry.content(), null);
+        } catch (IOException e) {
+            diskFailures.increment();
+            InputStream in = Files.newInputStream(spooled);
+            return toResult(stored, in, entity, () -> {
+                try (in) {
+                    Files.deleteIfExists(spooled);
+                }
+            });
+        }
+    }
+
+    private static ConversionResult passThrough(ConversionResult result, HttpEntity entity, InputStream content) {
+        result.setEntity(new InputStreamEntity(content, entity.getContentLength(), contentType(entity)));
+        return result;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // The original failure is reported instead.
+        }
+    }
+
+    /**
+     * Discards the result stored under the given key from both tiers.
+     *
+     * @param key The fingerprint of the request.
+     */
+    public void invalidate(String key) {
+        synchronized (memory) {
+            removeFromMemory(key);
+        }
+        if (disk != null) {
+            disk.remove(key);
+        }
+    }
+
+    /**
+     * Discards every stored result from both tiers.
+     */
+    public void invalidateAll() {
+        synchronized (memory) {
+            memory.clear();
+            memorySize = 0L;
+        }
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return getMemoryHitCount() + getDiskHitCount();
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.sum();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of lookups served by the cache.
+     *
+     * @return The hit ratio between 0 and 1, or 0 if no lookup happened yet.
+     */
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    public long getEvictionCount() {
+        return memoryEvictions.sum() + (disk == null ? 0L : disk.evictions.sum());
+    }
+
+    /**
+     * Returns the number of results the disk tier failed to store, e.g. because the disk was full, or to read back,
+     * e.g. because the entry was corrupted. Such results are still handed to the caller, or fetched again.
+     *
+     * @return The number of disk tier failures.
+     */
+    public long getDiskFailureCount() {
+        return diskFailures.sum();
+    }
+
+    public long getExpirationCount() {
+        return memoryExpirations.sum() + (disk == null ? 0L : disk.expirations.sum());
+    }
+
+    /**
+     * Returns the number of body bytes held by the in-memory tier.
+     *
+     * @return The size of the in-memory tier.
+     */
+    public long getMemorySize() {
+        synchronized (memory) {
+            return memorySize;
+        }
+    }
+
+    /**
+     * Returns the number of body bytes held by the disk tier.
+     *
+     * @return The size of the disk tier, or 0 if there is none.
+     */
+    public long getDiskSize() {
+        return disk == null ? 0L : disk.size();
+    }
+
+    private void putInMemory(String key, MemoryEntry entry) {
+        if (entry.content.length > maxMemoryEntrySize) {
+            return;
+        }
+        synchronized (memory) {
+            MemoryEntry previous = memory.put(key, entry);
+            memorySize += entry.content.length - (previous == null ? 0L : previous.content.length);
+
+            Iterator<Map.Entry<String, MemoryEntry>> iterator = memory.entrySet().iterator();
+            while (memorySize > maxMemorySize && iterator.hasNext()) {
+                memorySize -= iterator.next().getValue().content.length;
+                iterator.remove();
+                memoryEvictions.increment();
+            }
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        MemoryEntry removed = memory.remove(key);
+        if (removed != null) {
+            memorySize -= removed.content.length;
+        }
+    }
+
+    private static ConversionResult toResult(Metadata metadata, byte[] content, String source) {
+        CachedResponse response = new CachedResponse(metadata, source, null);
+        response.setEntity(new ByteArrayEntity(content, contentType(metadata)));
+        return new ConversionResult(response);
+    }
+
+    /**
+     * Builds a result which is not served from the cache, streaming the body of the response and releasing the given
+     * resource on close.
+     */
+    private static ConversionResult toResult(Metadata metadata, InputStream content, HttpEntity entity, Closeable resource) {
+        CachedResponse response = new CachedResponse(metadata, null, resource);
+        response.setEntity(new InputStreamEntity(content, metadata.length(), contentType(entity)));
+        return new ConversionResult(response);
+    }
+
+    private static ConversionResult toResult(Metadata metadata, InputStream content, String source) {
+        CachedResponse response = new CachedResponse(metadata, source, content);
+        response.setEntity(new InputStreamEntity(content, metadata.length(), contentType(metadata)));
+        return new ConversionResult(response);
+    }
+
+    private static ContentType contentType(Metadata metadata) {
+        String value = metadata.headers().get("Content-Type");
+        return value == null ? null : ContentType.parse(value);
+    }
+
+    private static ContentType contentType(HttpEntity entity) {
+        return entity.getContentType() == null ? null : ContentType.parse(entity.getContentType().getValue());
+    }
+
+    /**
+     * MemoryEntry is a result held by the in-memory tier.
+     */
+    private record MemoryEntry(Metadata metadata, byte[] content) {
+    }
+
+    /**
+     * The Builder class is used to construct instances of ConversionCache with specific size budgets.
+     */
+    public static class Builder {
+        private long maxMemorySize = 64L * 1024 * 1024;
+        private long maxMemoryEntrySize = 4L * 1024 * 1024;
+        private Path directory = null;
+        private long maxDiskSize = 1024L * 1024 * 1024;
+        private Duration timeToLive = null;
+
+        /**
+         * Sets the maximum number of body bytes held in memory.
+         *
+         * @param maxMemorySize Size budget of the in-memory tier, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxMemorySize(long maxMemorySize) {
+            this.maxMemorySize = requireNonNegative(maxMemorySize, "maxMemorySize");
+            return this;
+        }
+
+        /**
+         * Sets the size above which results are only stored on disk.
+         *
+         * @param maxMemoryEntrySize Maximum size of an in-memory entry, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxMemoryEntrySize(long maxMemoryEntrySize) {
+            this.maxMemoryEntrySize = requireNonNegative(maxMemoryEntrySize, "maxMemoryEntrySize");
+            return this;
+        }
+
+        /**
+         * Enables the disk tier in the given directory. Entries left there by a previous run are reused.
+         *
+         * @param directory The directory of the disk tier. It is created if needed.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of body bytes held on disk.
+         *
+         * @param maxDiskSize Size budget of the disk tier, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxDiskSize(long maxDiskSize) {
+            this.maxDiskSize = requireNonNegative(maxDiskSize, "maxDiskSize");
+            return this;
+        }
+
+        /**
+         * Sets how long a result stays valid after it has been stored. Passing {@code null} keeps results until they
+         * are evicted.
+         *
+         * @param timeToLive Time to live of the entries.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is negative.
+         */
+        public Builder timeToLive(Duration timeToLive) {
+            if (timeToLive != null && timeToLive.isNegative()) {
+                throw new IllegalArgumentException("timeToLive must not be negative");
+            }
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Builds an instance of ConversionCache with the configured settings.
+         *
+         * @return An instance of ConversionCache.
+         * @throws IOException If the directory of the disk tier cannot be created or read.
+         */
+        public ConversionCache build() throws IOException {
+            return new ConversionCache(this);
+        }
+
+        private static long requireNonNegative(long value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package io.bitizens.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DiskTier stores cached responses as a {@code <key>.body} file holding the response body next to a
+ * {@code <key>.meta} file holding its {@link Metadata}. Both files are written to temporary files first and moved into
+ * place, so readers never observe a partially written entry.
+ * <p>
+ * The tier is bounded by the total size of the bodies and evicts the least recently used entries first. The recency
+ * order survives restarts through the modification time of the metadata files, which is refreshed on every hit.
+ */
+final class DiskTier {
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    final LongAdder evictions = new LongAdder();
+    final LongAdder expirations = new LongAdder();
+
+    DiskTier(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        load();
+    }
+
+    /**
+     * Opens the entry stored under the given key.
+     *
+     * @return The entry or {@code null} if it is absent or has expired.
+     */
+    Entry get(String key, Duration timeToLive, long now) throws IOException {
+        synchronized (this) {
+            if (index.get(key) == null) {
+                return null;
+            }
+        }
+
+        Metadata metadata;
+        InputStream content;
+        try {
+            metadata = Metadata.read(meta(key));
+            if (metadata.isExpired(timeToLive, now)) {
+                remove(key);
+                expirations.increment();
+                return null;
+            }
+            content = Files.newInputStream(body(key));
+        } catch (NoSuchFileException e) {
+            remove(key);
+            return null;
+        } catch (IOException e) {
+            remove(key);
+            throw e;
+        }
+
+        try {
+            Files.setLastModifiedTime(meta(key), FileTime.fromMillis(now));
+        } catch (IOException ignored) {
+            // The recency order only matters across restarts.
+        }
+        return new Entry(metadata, content);
+    }
+
+    /**
+     * Spools the content to disk and stores it under the given key. The returned entry is opened before the tier is
+     * trimmed, so it stays readable even if the entry is evicted right away.
+     *
+     * @return The stored entry, opened for reading.
+     */
+    Entry put(String key, Metadata metadata, InputStream content) throws IOException {
+        Path spooled = createSpoolFile();
+        try {
+            long length;
+            try (OutputStream out = Files.newOutputStream(spooled)) {
+                length = content.transferTo(out);
+            }
+            return promote(key, metadata.withLength(length), spooled);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates an empty temporary file in the directory of the tier, to spool a body to before it is promoted.
+     *
+     * @return The temporary file.
+     */
+    Path createSpoolFile() throws IOException {
+        return Files.createTempFile(directory, "spool-", TEMP_SUFFIX);
+    }
+
+    /**
+     * Stores a body spooled to a temporary file of the tier under the given key, moving the file into place. The
+     * returned entry is opened before the tier is trimmed, so it stays readable even if the entry is evicted right
+     * away. Should the entry fail to be stored, the body is left in the spooled file.
+     *
+     * @return The stored entry, opened for reading.
+     */
+    Entry promote(String key, Metadata stored, Path spooled) throws IOException {
+        Path metaTemp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        boolean moved = false;
+        try {
+            stored.write(metaTemp);
+            move(spooled, body(key));
+            moved = true;
+            move(metaTemp, meta(key));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(metaTemp);
+            if (moved) {
+                move(body(key), spooled);
+                remove(key);
+            }
+            throw e;
+        }
+
+        InputStream in = Files.newInputStream(body(key));
+        synchronized (this) {
+            Long previous = index.put(key, stored.length());
+            totalBytes += stored.length() - (previous == null ? 0L : previous);
+            trim();
+        }
+        return new Entry(stored, in);
+    }
+
+    synchronized void remove(String key) {
+        Long size = index.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+        delete(key);
+    }
+
+    synchronized void clear() {
+        for (String key : new ArrayList<>(index.keySet())) {
+            remove(key);
+        }
+    }
+
+    synchronized long size() {
+        return totalBytes;
+    }
+
+    synchronized int entryCount() {
+        return index.size();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            delete(eldest.getKey());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the entries left by a previous run, oldest first, and discards leftovers of interrupted
+     * writes.
+     */
+    private void load() throws IOException {
+        List<Path> metas = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(path);
+                } else if (name.endsWith(META_SUFFIX)) {
+                    metas.add(path);
+                }
+            }
+        }
+        metas.sort(Comparator.comparing(DiskTier::lastModified));
+
+        synchronized (this) {
+            for (Path meta : metas) {
+                String name = meta.getFileName().toString();
+                String key = name.substring(0, name.length() - META_SUFFIX.length());
+                Path body = body(key);
+                if (Files.isRegularFile(body)) {
+                    long size = Files.size(body);
+                    index.put(key, size);
+                    totalBytes += size;
+                } else {
+                    Files.deleteIfExists(meta);
+                }
+            }
+            trim();
+        }
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(meta(key));
+            Files.deleteIfExists(body(key));
+        } catch (IOException ignored) {
+            // Orphaned files are discarded on the next load.
+        }
+    }
+
+    private Path body(String key) {
+        return directory.resolve(key + BODY_SUFFIX);
+    }
+
+    private Path meta(String key) {
+        return directory.resolve(key + META_SUFFIX);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0L);
+        }
+    }
+
+    /**
+     * Entry is a stored response opened for reading.
+     *
+     * @param metadata The metadata of the response.
+     * @param content  The body of the response. The caller must close it.
+     */
+    record Entry(Metadata metadata, InputStream content) {
+    }
+}
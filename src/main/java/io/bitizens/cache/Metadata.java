@@ -0,0 +1,83 @@
+package io.bitizens.cache;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Metadata describes a cached response: its status line, the headers worth replaying, the size of its body and when
+ * it was stored.
+ *
+ * @param statusCode The HTTP status code.
+ * @param reason     The HTTP reason phrase.
+ * @param headers    The replayed headers.
+ * @param length     The size of the body in bytes, or -1 while it is unknown.
+ * @param createdAt  When the response was stored, in epoch milliseconds.
+ */
+record Metadata(int statusCode, String reason, Map<String, String> headers, long length, long createdAt) {
+    private static final String[] STORED_HEADERS = {"Content-Type", "Content-Disposition"};
+    private static final String HEADER_PREFIX = "header.";
+
+    static Metadata of(HttpResponse response, long now) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : STORED_HEADERS) {
+            Header header = response.getFirstHeader(name);
+            if (header != null) {
+                headers.put(name, header.getValue());
+            }
+        }
+        return new Metadata(response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase(), headers, -1L, now);
+    }
+
+    Metadata withLength(long length) {
+        return new Metadata(statusCode, reason, headers, length, createdAt);
+    }
+
+    boolean isExpired(Duration timeToLive, long now) {
+        return timeToLive != null && now - createdAt > timeToLive.toMillis();
+    }
+
+    void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("statusCode", String.valueOf(statusCode));
+        properties.setProperty("reason", reason == null ? "" : reason);
+        properties.setProperty("length", String.valueOf(length));
+        properties.setProperty("createdAt", String.valueOf(createdAt));
+        headers.forEach((name, value) -> properties.setProperty(HEADER_PREFIX + name, value));
+        try (OutputStream out = Files.newOutputStream(path)) {
+            properties.store(out, null);
+        }
+    }
+
+    static Metadata read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(HEADER_PREFIX)) {
+                headers.put(name.substring(HEADER_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+        try {
+            return new Metadata(
+                    Integer.parseInt(properties.getProperty("statusCode")),
+                    properties.getProperty("reason"),
+                    headers,
+                    Long.parseLong(properties.getProperty("length")),
+                    Long.parseLong(properties.getProperty("createdAt")));
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IOException("Corrupted cache metadata " + path, e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package io.bitizens.chromium;
 
 import io.bitizens.common.AbstractOptions;
+import io.bitizens.common.FormFields;
 
 /**
  * The ChromiumOptions class is used to configure Chromium conversion options.
  */
+@FormFields
 public final class ChromiumOptions extends AbstractOptions {
 
     private ChromiumOptions(Builder builder) {
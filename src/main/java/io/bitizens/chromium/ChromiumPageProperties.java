@@ -1,5 +1,6 @@
 package io.bitizens.chromium;
 
+import io.bitizens.common.FormFields;
 import io.bitizens.common.PdfFormat;
 import io.bitizens.common.exceptions.MarginMalformedException;
 import io.bitizens.common.exceptions.PageRangeMalformedException;
@@ -10,22 +11,23 @@ import java.io.IOException;
  * ChromiumPageProperties is a class that represents various properties for configuring document conversion,
  * such as paper size, margins, and other formatting options.
  */
+@FormFields
 public class ChromiumPageProperties {
-    private final String paperWidth;
-    private final String paperHeight;
-    private final String marginTop;
-    private final String marginBottom;
-    private final String marginLeft;
-    private final String marginRight;
-    private final String preferCssPageSize;
-    private final String printBackground;
-    private final String omitBackground;
-    private final String landscape;
-    private final String scale;
-    private final String nativePageRanges;
-    private final String pdfa;
-    private final String nativePdfFormat;
-    private final String singlePage;
+    final String paperWidth;
+    final String paperHeight;
+    final String marginTop;
+    final String marginBottom;
+    final String marginLeft;
+    final String marginRight;
+    final String preferCssPageSize;
+    final String printBackground;
+    final String omitBackground;
+    final String landscape;
+    final String scale;
+    final String nativePageRanges;
+    final String pdfa;
+    final String nativePdfFormat;
+    final String singlePage;
 
     public ChromiumPageProperties(Builder builder) {
         paperWidth = builder.paperWidth;
@@ -46,6 +48,48 @@ public class ChromiumPageProperties {
 
     }
 
+    private ChromiumPageProperties(ChromiumPageProperties properties, String nativePageRanges) {
+        paperWidth = properties.paperWidth;
+        paperHeight = properties.paperHeight;
+        marginTop = properties.marginTop;
+        marginBottom = properties.marginBottom;
+        marginLeft = properties.marginLeft;
+        marginRight = properties.marginRight;
+        preferCssPageSize = properties.preferCssPageSize;
+        printBackground = properties.printBackground;
+        omitBackground = properties.omitBackground;
+        landscape = properties.landscape;
+        scale = properties.scale;
+        this.nativePageRanges = nativePageRanges;
+        pdfa = properties.pdfa;
+        nativePdfFormat = properties.nativePdfFormat;
+        singlePage = properties.singlePage;
+    }
+
+    /**
+     * Returns the page ranges to print.
+     *
+     * @return The page ranges or {@code null} if every page is printed.
+     */
+    public String getNativePageRanges() {
+        return nativePageRanges;
+    }
+
+    /**
+     * Returns a copy of these page properties printing the given page range only.
+     *
+     * @param start The start page number.
+     * @param end   The end page number.
+     * @return The page properties of the page range.
+     * @throws PageRangeMalformedException If the page range is malformed.
+     */
+    public ChromiumPageProperties withNativePageRanges(int start, int end) throws PageRangeMalformedException {
+        if (start < 1 || end < start) {
+            throw new PageRangeMalformedException();
+        }
+        return new ChromiumPageProperties(this, start + "-" + end);
+    }
+
 
     /**
      * The Builder class is used to construct instances of ChromiumPageProperties with specific configuration options.
@@ -222,7 +266,7 @@ public class ChromiumPageProperties {
          * @throws PageRangeMalformedException If the page range is malformed.
          */
         public Builder addNativePageRanges(int start, int end) throws PageRangeMalformedException {
-            if (start < 0 || end < 0 || end > start) {
+            if (start < 1 || end < start) {
                 throw new PageRangeMalformedException();
             }
             this.nativePageRanges = start + "-" + end;
@@ -13,6 +13,7 @@ import java.util.List;
 /**
  * ChromiumOptions is a class that provides a builder pattern for configuring Chromium options.
  */
+@FormFields
 public abstract class AbstractOptions {
     protected final File header;
     protected final File footer;
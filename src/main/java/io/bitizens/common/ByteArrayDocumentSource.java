@@ -0,0 +1,57 @@
+package io.bitizens.common;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * ByteArrayDocumentSource is a document held in a byte array.
+ */
+final class ByteArrayDocumentSource implements DocumentSource {
+    private final String name;
+    private final byte[] content;
+
+    ByteArrayDocumentSource(String name, byte[] content) {
+        this.name = name;
+        this.content = content;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getLength() {
+        return content.length;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public byte[] peek(int length) {
+        return Arrays.copyOf(content, Math.min(length, content.length));
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public ContentBody toContentBody() {
+        return new ByteArrayBody(content, ContentType.DEFAULT_BINARY, name);
+    }
+}
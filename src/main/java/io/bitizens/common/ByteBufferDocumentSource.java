@@ -0,0 +1,110 @@
+package io.bitizens.common;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * ByteBufferDocumentSource is a document held in a heap or direct buffer. Uploads of a heap buffer write its backing
+ * array to the socket stream as is, while direct and read-only buffers, whose content cannot be handed to a stream,
+ * are copied to it in small chunks.
+ */
+final class ByteBufferDocumentSource implements DocumentSource {
+    private final String name;
+    private final ByteBuffer content;
+
+    ByteBufferDocumentSource(String name, ByteBuffer content) {
+        this.name = name;
+        this.content = content.duplicate();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getLength() {
+        return content.remaining();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public byte[] peek(int length) {
+        ByteBuffer view = content.duplicate();
+        byte[] head = new byte[Math.min(length, view.remaining())];
+        view.get(head);
+        return head;
+    }
+
+    @Override
+    public InputStream openStream() {
+        ByteBuffer view = content.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(len, view.remaining());
+                view.get(b, off, count);
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public ContentBody toContentBody() {
+        return new AbstractContentBody(ContentType.DEFAULT_BINARY) {
+            @Override
+            public String getFilename() {
+                return name;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                if (content.hasArray()) {
+                    out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+                    return;
+                }
+                ByteBuffer view = content.duplicate();
+                WritableByteChannel channel = Channels.newChannel(out);
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            }
+
+            @Override
+            public String getTransferEncoding() {
+                return MIME.ENC_BINARY;
+            }
+
+            @Override
+            public long getContentLength() {
+                return content.remaining();
+            }
+        };
+    }
+}
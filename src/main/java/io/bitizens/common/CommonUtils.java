@@ -3,9 +3,11 @@ package io.bitizens.common;
 import org.apache.commons.io.FilenameUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -148,6 +150,8 @@ public class CommonUtils {
     private static final String INDEX_HTML = "index.html";
     private static final String HEADER_HTML = "header.html";
     private static final String FOOTER_HTML = "footer.html";
+    private static final byte[] PDF_SIGNATURE = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final int PDF_SIGNATURE_WINDOW = 1024;
 
     private CommonUtils() {
     }
@@ -242,4 +246,70 @@ public class CommonUtils {
     public static boolean containsIndex(List<File> files) {
         return files.stream().anyMatch(CommonUtils::isIndex);
     }
+
+    /**
+     * Checks if a document is an index HTML file.
+     *
+     * @param document The document to check.
+     * @return `true` if the document is an index HTML file, `false` otherwise.
+     */
+    public static boolean isIndex(DocumentSource document) {
+        String filename = FilenameUtils.getName(document.getName());
+        return document.exists() && filename.equals(INDEX_HTML);
+    }
+
+    /**
+     * Checks if a document has a supported file extension.
+     *
+     * @param document The document to check.
+     * @return `true` if the document has a supported extension, `false` otherwise.
+     */
+    public static boolean isSupported(DocumentSource document) {
+        String extension = FilenameUtils.getExtension(document.getName());
+        return document.exists() && Arrays.asList(extensions).contains(extension);
+    }
+
+    /**
+     * Checks if a document is in Markdown format (extension: .md).
+     *
+     * @param document The document to check.
+     * @return `true` if the document is a Markdown file, `false` otherwise.
+     */
+    public static boolean isMarkdown(DocumentSource document) {
+        String extension = FilenameUtils.getExtension(document.getName());
+        return document.exists() && extension.equals("md");
+    }
+
+    /**
+     * Checks if a document is a PDF file, i.e. it has the .pdf extension and its first kilobyte contains the %PDF-
+     * signature.
+     *
+     * @param document The document to check.
+     * @return `true` if the document is a PDF file, `false` otherwise.
+     */
+    public static boolean isPDF(DocumentSource document) {
+        String extension = FilenameUtils.getExtension(document.getName());
+        if (!document.exists() || !extension.equals("pdf")) {
+            return false;
+        }
+
+        try {
+            return indexOf(document.peek(PDF_SIGNATURE_WINDOW), PDF_SIGNATURE) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= content.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
 }
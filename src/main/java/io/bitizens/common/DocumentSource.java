@@ -0,0 +1,145 @@
+package io.bitizens.common;
+
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * DocumentSource is a document to upload to Gotenberg, whether it lives on disk, in memory or behind a stream.
+ * <p>
+ * The name of a source is the file name Gotenberg sees, so it drives route validation (e.g. {@code index.html} for
+ * Chromium, a supported extension for LibreOffice). In-memory and stream sources go straight to the socket without
+ * being written to a temporary file first.
+ */
+public interface DocumentSource {
+
+    /**
+     * Creates a source backed by a file.
+     *
+     * @param file The file.
+     * @return A repeatable source reading the file on each upload.
+     */
+    static DocumentSource of(File file) {
+        return new PathDocumentSource(file.toPath());
+    }
+
+    /**
+     * Creates a source backed by a file.
+     *
+     * @param path The path of the file.
+     * @return A repeatable source reading the file on each upload.
+     */
+    static DocumentSource of(Path path) {
+        return new PathDocumentSource(path);
+    }
+
+    /**
+     * Creates a source backed by a byte array. The array is not copied and must not be modified afterwards.
+     *
+     * @param name    The file name of the document, e.g. {@code index.html}.
+     * @param content The content of the document.
+     * @return A repeatable in-memory source.
+     */
+    static DocumentSource of(String name, byte[] content) {
+        return new ByteArrayDocumentSource(name, content);
+    }
+
+    /**
+     * Creates a source backed by the remaining bytes of a buffer, which may be direct. The buffer is not copied and
+     * its position is left untouched.
+     *
+     * @param name    The file name of the document, e.g. {@code index.html}.
+     * @param content The content of the document.
+     * @return A repeatable in-memory source.
+     */
+    static DocumentSource of(String name, ByteBuffer content) {
+        return new ByteBufferDocumentSource(name, content);
+    }
+
+    /**
+     * Creates a source backed by a stream. The stream is consumed by the upload, so the source can only be sent once.
+     *
+     * @param name    The file name of the document, e.g. {@code report.docx}.
+     * @param content The content of the document.
+     * @return A single-use source.
+     */
+    static DocumentSource of(String name, InputStream content) {
+        return new StreamDocumentSource(name, content);
+    }
+
+    /**
+     * Creates file-backed sources for a list of files.
+     *
+     * @param files The files.
+     * @return The sources, in the same order.
+     */
+    static List<DocumentSource> fromFiles(List<File> files) {
+        return files.stream().map(DocumentSource::of).toList();
+    }
+
+    /**
+     * Returns the file name of the document as sent to Gotenberg.
+     *
+     * @return The file name.
+     */
+    String getName();
+
+    /**
+     * Returns the size of the document in bytes.
+     *
+     * @return The size, or -1 if it is unknown.
+     */
+    long getLength();
+
+    /**
+     * Returns the file backing the document, which lets it be cached, e.g. by an asset cache.
+     *
+     * @return The path of the file or {@code null} if the document does not live on disk.
+     */
+    default Path getPath() {
+        return null;
+    }
+
+    /**
+     * Checks whether the document can be read, e.g. whether a file-backed source points to a regular file.
+     *
+     * @return `true` if the document exists, `false` otherwise.
+     */
+    boolean exists();
+
+    /**
+     * Checks whether the document can be uploaded more than once.
+     *
+     * @return `true` if the source is repeatable, `false` otherwise.
+     */
+    boolean isRepeatable();
+
+    /**
+     * Returns the first bytes of the document without consuming it, for content sniffing.
+     *
+     * @param length The maximum number of bytes to return.
+     * @return Up to {@code length} leading bytes.
+     * @throws IOException If the document cannot be read.
+     */
+    byte[] peek(int length) throws IOException;
+
+    /**
+     * Opens a stream over the content of the document.
+     *
+     * @return A stream over the document.
+     * @throws IOException If the document cannot be read.
+     */
+    InputStream openStream() throws IOException;
+
+    /**
+     * Returns the multipart body uploading this document.
+     *
+     * @return The multipart body.
+     */
+    ContentBody toContentBody();
+}
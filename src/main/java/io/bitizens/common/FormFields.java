@@ -0,0 +1,21 @@
+package io.bitizens.common;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * FormFields marks a class whose fields are sent to Gotenberg as multipart form fields.
+ * <p>
+ * At build time, the annotation processor generates a {@code <ClassName>FormWriter} class in the same package. Its
+ * static {@code write} method hands every non-null field to a {@link FormSink}, under the name of the field:
+ * {@code String} fields as text fields, {@code File} fields as files and {@code List<File>} fields as repeated files.
+ * Fields inherited from an annotated superclass are written by the superclass's writer. Fields must not be private.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface FormFields {
+}
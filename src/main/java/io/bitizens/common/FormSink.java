@@ -0,0 +1,25 @@
+package io.bitizens.common;
+
+import java.io.File;
+
+/**
+ * FormSink receives the form fields of a request, as written by the generated writers of {@link FormFields} classes.
+ */
+public interface FormSink {
+
+    /**
+     * Adds a text field.
+     *
+     * @param name  The name of the field.
+     * @param value The value of the field.
+     */
+    void text(String name, String value);
+
+    /**
+     * Adds a file field.
+     *
+     * @param name The name of the field.
+     * @param file The file to upload.
+     */
+    void file(String name, File file);
+}
@@ -0,0 +1,67 @@
+package io.bitizens.common;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * PathDocumentSource is a document read from the file system on each upload.
+ */
+final class PathDocumentSource implements DocumentSource {
+    private final Path path;
+
+    PathDocumentSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public String getName() {
+        return path.getFileName().toString();
+    }
+
+    @Override
+    public long getLength() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public byte[] peek(int length) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.readNBytes(length);
+        }
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public ContentBody toContentBody() {
+        return new FileBody(path.toFile(), ContentType.DEFAULT_BINARY, getName());
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+}
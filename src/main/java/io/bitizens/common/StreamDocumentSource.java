@@ -0,0 +1,66 @@
+package io.bitizens.common;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * StreamDocumentSource is a document read from a stream. The stream is consumed by the upload, so the source is not
+ * repeatable; its leading bytes are buffered so that they can be inspected beforehand.
+ */
+final class StreamDocumentSource implements DocumentSource {
+    private static final int PEEK_LIMIT = 8 * 1024;
+
+    private final String name;
+    private final BufferedInputStream content;
+
+    StreamDocumentSource(String name, InputStream content) {
+        this.name = name;
+        this.content = new BufferedInputStream(content, PEEK_LIMIT);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getLength() {
+        return -1L;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public synchronized byte[] peek(int length) throws IOException {
+        int limit = Math.min(length, PEEK_LIMIT);
+        content.mark(limit);
+        try {
+            return content.readNBytes(limit);
+        } finally {
+            content.reset();
+        }
+    }
+
+    @Override
+    public InputStream openStream() {
+        return content;
+    }
+
+    @Override
+    public ContentBody toContentBody() {
+        return new InputStreamBody(content, ContentType.DEFAULT_BINARY, name);
+    }
+}
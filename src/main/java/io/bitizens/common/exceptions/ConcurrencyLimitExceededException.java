@@ -0,0 +1,19 @@
+package io.bitizens.common.exceptions;
+
+import java.io.IOException;
+
+/**
+ * ConcurrencyLimitExceededException is an exception class that is thrown when a request is rejected locally because
+ * Gotenberg is already processing as many requests of its kind as it can sustain.
+ */
+public class ConcurrencyLimitExceededException extends IOException {
+    /**
+     * Constructs a ConcurrencyLimitExceededException for the given route family and limit.
+     *
+     * @param family The family of the rejected route.
+     * @param limit  The concurrency limit at the time of the rejection.
+     */
+    public ConcurrencyLimitExceededException(String family, int limit) {
+        super("Concurrency limit of " + limit + " reached for " + family + " routes.");
+    }
+}
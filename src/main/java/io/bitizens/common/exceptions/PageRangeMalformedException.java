@@ -1,13 +1,14 @@
 package io.bitizens.common.exceptions;
 
 /**
- * PageRangeMalformedException is an exception class that is thrown when a page range is having negative values.
+ * PageRangeMalformedException is an exception class that is thrown when a page range does not start at a positive page or ends before
+ * it starts.
  */
 public class PageRangeMalformedException extends ArithmeticException {
     /**
      * Constructs a PageRangeMalformedException with a default error message.
      */
     public PageRangeMalformedException() {
-        super("Negative page ranges are not allowed.");
+        super("Page ranges must start at page 1 or later and must not end before they start.");
     }
 }
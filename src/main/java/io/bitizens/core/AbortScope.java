@@ -0,0 +1,117 @@
+package io.bitizens.core;
+
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AbortScope collects the HTTP requests issued by the thread it is bound to, so that another thread can abort them,
+ * e.g. when the future of an asynchronous conversion is cancelled.
+ * <p>
+ * Requests registered after {@link #abort()} has been called are aborted right away. A scope can have child scopes,
+ * bound to other threads working on its behalf, which are aborted along with it, and actions run when it is aborted.
+ */
+public final class AbortScope {
+    private static final ThreadLocal<AbortScope> CURRENT = new ThreadLocal<>();
+
+    private final Set<HttpRequestBase> requests = ConcurrentHashMap.newKeySet();
+    private final Set<AbortScope> children = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> actions = ConcurrentHashMap.newKeySet();
+    private volatile boolean aborted;
+
+    /**
+     * Returns the scope bound to the current thread.
+     *
+     * @return The current scope or {@code null} if none is bound.
+     */
+    public static AbortScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds this scope to the current thread until the returned binding is closed.
+     *
+     * @return The binding to close once the guarded work is over.
+     */
+    public Binding bind() {
+        AbortScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Aborts every in-flight request of this scope and every request registered afterwards.
+     */
+    public void abort() {
+        aborted = true;
+        requests.forEach(HttpRequestBase::abort);
+        children.forEach(AbortScope::abort);
+        actions.forEach(Runnable::run);
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    void register(HttpRequestBase request) {
+        requests.add(request);
+        if (aborted) {
+            request.abort();
+        }
+    }
+
+    void unregister(HttpRequestBase request) {
+        requests.remove(request);
+    }
+
+    /**
+     * Creates a scope aborted along with this one, until it is detached.
+     */
+    AbortScope child() {
+        AbortScope child = new AbortScope();
+        children.add(child);
+        if (aborted) {
+            child.abort();
+        }
+        return child;
+    }
+
+    void detach(AbortScope child) {
+        children.remove(child);
+    }
+
+    /**
+     * Runs the action once when this scope is aborted, or right away if it already is, until the returned binding is
+     * closed.
+     */
+    Binding onAbort(Runnable action) {
+        AtomicBoolean ran = new AtomicBoolean();
+        Runnable once = () -> {
+            if (ran.compareAndSet(false, true)) {
+                action.run();
+            }
+        };
+        actions.add(once);
+        if (aborted) {
+            once.run();
+        }
+        return () -> actions.remove(once);
+    }
+
+    /**
+     * Binding of a scope to a thread.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,38 @@
+package io.bitizens.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * BufferPool recycles fixed-size transfer buffers, so that streaming a response of any size allocates no more than
+ * one buffer per concurrent transfer.
+ */
+final class BufferPool {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+    private BufferPool() {
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, or allocates one if the pool is empty.
+     *
+     * @return A buffer of {@link #BUFFER_SIZE} bytes backed by an array.
+     */
+    static ByteBuffer acquire() {
+        ByteBuffer buffer = BUFFERS.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers beyond the pool capacity are left to the garbage collector.
+     *
+     * @param buffer The buffer to recycle.
+     */
+    static void release(ByteBuffer buffer) {
+        buffer.clear();
+        BUFFERS.offer(buffer);
+    }
+}
@@ -0,0 +1,213 @@
+package io.bitizens.core;
+
+import io.bitizens.common.exceptions.ConcurrencyLimitExceededException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrencyLimiter bounds the number of in-flight requests of a {@link RouteFamily} by a limit it learns from the
+ * responses, as described by its {@link LimitPolicy}. Requests beyond the limit wait in first-come, first-served order.
+ */
+public final class ConcurrencyLimiter {
+    private static final double LONG_TERM_WEIGHT = 0.02;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DRIFT_RATIO = 2.0;
+    private static final double DRIFT_DECAY = 0.95;
+
+    private final RouteFamily family;
+    private final LimitPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final LongAdder rejections = new LongAdder();
+    private double limit;
+    private double longTermLatency = -1;
+    private int inFlight;
+    private int queued;
+
+    /**
+     * Constructs a ConcurrencyLimiter starting at the initial limit of the policy.
+     *
+     * @param family The route family the limiter guards.
+     * @param policy The policy bounding and driving the limit.
+     */
+    public ConcurrencyLimiter(RouteFamily family, LimitPolicy policy) {
+        this.family = family;
+        this.policy = policy;
+        this.limit = policy.getInitialLimit();
+    }
+
+    public RouteFamily getFamily() {
+        return family;
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return The limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlightCount() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejections.sum();
+    }
+
+    /**
+     * Takes a slot, waiting for one to be released if the limit is reached. The wait ends as soon as the
+     * {@link AbortScope} of the current thread, if any, is aborted, e.g. because the future of the conversion was
+     * cancelled or the request lost a hedging race, so that abandoned requests neither keep their place in the queue
+     * nor take a slot.
+     *
+     * @throws ConcurrencyLimitExceededException If the queue is full or no slot was released in time.
+     * @throws InterruptedIOException            If the thread is interrupted or its scope is aborted while waiting.
+     */
+    void acquire() throws IOException {
+        AbortScope scope = AbortScope.current();
+        lock.lock();
+        try {
+            if (scope != null && scope.isAborted()) {
+                throw aborted();
+            }
+            if (queued == 0 && inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            if (queued >= policy.getMaxQueueLength()) {
+                throw reject();
+            }
+
+            queued++;
+            try (AbortScope.Binding ignored = scope == null ? null : scope.onAbort(this::wakeUp)) {
+                long remaining = policy.getMaxQueueTime().toNanos();
+                while (inFlight >= (int) limit) {
+                    if (scope != null && scope.isAborted()) {
+                        throw aborted();
+                    }
+                    if (remaining <= 0L) {
+                        throw reject();
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                if (scope != null && scope.isAborted()) {
+                    throw aborted();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a " + family + " slot");
+            } finally {
+                queued--;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a slot and adjusts the limit according to the response.
+     *
+     * @param signal  What the response says about the load of Gotenberg.
+     * @param latency The time Gotenberg took to answer, in nanoseconds.
+     */
+    void release(Signal signal, long latency) {
+        lock.lock();
+        try {
+            int concurrency = inFlight--;
+            if (signal == Signal.DROPPED) {
+                limit = Math.max(policy.getMinLimit(), limit * policy.getBackoffRatio());
+            } else if (signal == Signal.SUCCESS && latency > 0) {
+                adjust(concurrency, latency);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(int concurrency, long latency) {
+        if (longTermLatency < 0) {
+            longTermLatency = latency;
+        } else {
+            longTermLatency += (latency - longTermLatency) * LONG_TERM_WEIGHT;
+        }
+        if (longTermLatency / latency > DRIFT_RATIO) {
+            longTermLatency *= DRIFT_DECAY;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, policy.getLatencyTolerance() * longTermLatency / latency));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (target > limit && concurrency * 2 < limit) {
+            // The limit was not the bottleneck, so the sample says nothing about a higher one.
+            return;
+        }
+        double smoothed = limit * (1 - policy.getSmoothing()) + target * policy.getSmoothing();
+        limit = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), smoothed));
+    }
+
+    /**
+     * Wakes the waiting requests up, so that the ones whose scope was aborted leave the queue.
+     */
+    private void wakeUp() {
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private InterruptedIOException aborted() {
+        return new InterruptedIOException("Aborted while waiting for a " + family + " slot");
+    }
+
+    private ConcurrencyLimitExceededException reject() {
+        rejections.increment();
+        return new ConcurrencyLimitExceededException(family.name(), (int) limit);
+    }
+
+    /**
+     * Signal is what a response says about the load of Gotenberg.
+     */
+    enum Signal {
+        /**
+         * The request succeeded and its latency is meaningful.
+         */
+        SUCCESS,
+        /**
+         * Gotenberg rejected the request or did not answer in time.
+         */
+        DROPPED,
+        /**
+         * The response carries no load information, e.g. a validation error or a cancellation.
+         */
+        IGNORED
+    }
+}
@@ -0,0 +1,88 @@
+package io.bitizens.core;
+
+import java.time.Duration;
+
+/**
+ * ConversionEvent describes a request at one of the phases reported to a {@link ConversionListener}. Timestamps are
+ * {@link System#nanoTime()} readings, only meaningful relative to each other.
+ */
+public final class ConversionEvent {
+    private final String route;
+    private final String trace;
+    private final String endpoint;
+    private final int statusCode;
+    private final long startNanos;
+    private final long timestampNanos;
+
+    ConversionEvent(String route, String trace, String endpoint, int statusCode, long startNanos, long timestampNanos) {
+        this.route = route;
+        this.trace = trace;
+        this.endpoint = endpoint;
+        this.statusCode = statusCode;
+        this.startNanos = startNanos;
+        this.timestampNanos = timestampNanos;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Returns the Gotenberg-Trace correlation id sent with the request.
+     *
+     * @return The trace id.
+     */
+    public String getTrace() {
+        return trace;
+    }
+
+    /**
+     * Returns the URL of the endpoint the request is sent to.
+     *
+     * @return The endpoint or {@code null} if it has not been picked yet.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the status code of the response.
+     *
+     * @return The status code or {@code -1} if the response headers have not been received yet.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the time the request was queued at.
+     *
+     * @return The timestamp in nanoseconds.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the time the phase was reached at.
+     *
+     * @return The timestamp in nanoseconds.
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Returns the time elapsed between the queuing of the request and this phase.
+     *
+     * @return The elapsed time.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(timestampNanos - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        return route + " [" + trace + "] +" + getElapsed().toNanos() + "ns";
+    }
+}
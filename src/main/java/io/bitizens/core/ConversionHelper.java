@@ -1,166 +1,117 @@
 package io.bitizens.core;
 
-import io.bitizens.Jotenberg;
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumOptionsFormWriter;
 import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.chromium.ChromiumPagePropertiesFormWriter;
 import io.bitizens.common.AbstractOptions;
+import io.bitizens.common.AbstractOptionsFormWriter;
+import io.bitizens.common.FormSink;
 import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficeOptionsFormWriter;
 import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.libreoffice.LibreOfficePagePropertiesFormWriter;
+import io.bitizens.pdfengines.PDFEnginesConversionOptions;
+import io.bitizens.pdfengines.PDFEnginesConversionOptionsFormWriter;
+import io.bitizens.pdfengines.PDFEnginesMergeOptions;
+import io.bitizens.pdfengines.PDFEnginesMergeOptionsFormWriter;
 import io.bitizens.pdfengines.PDFEnginesOptions;
+import io.bitizens.pdfengines.PDFEnginesOptionsFormWriter;
 import io.bitizens.screenshots.ImageProperties;
-
-import java.io.File;
-import java.lang.reflect.Field;
+import io.bitizens.screenshots.ImagePropertiesFormWriter;
+import io.bitizens.screenshots.ScreenshotOptions;
+import io.bitizens.screenshots.ScreenshotOptionsFormWriter;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
 
 /**
  * ConversionHelper is a class that provides helper methods for converting between different formats.
+ * <p>
+ * Options are serialized by the {@code FormWriter} classes generated at build time for every
+ * {@link io.bitizens.common.FormFields} class, which read the fields directly instead of going through reflection.
  */
 public class ConversionHelper {
-    private final Jotenberg jotenberg;
 
-    public ConversionHelper(Jotenberg jotenberg) {
-        this.jotenberg = jotenberg;
+    /**
+     * Creates a new multipart builder scoped to a single request. Builders are never shared between requests, so
+     * concurrent conversions cannot leak parts into each other's payloads.
+     *
+     * @return A fresh multipart builder.
+     */
+    public static MultipartEntityBuilder newBuilder() {
+        return MultipartEntityBuilder.create().setMode(HttpMultipartMode.BROWSER_COMPATIBLE);
     }
 
     /**
-     * Builds Chromium page properties using reflection and adds them to the request entity.
+     * Adds Chromium page properties to the request.
      *
-     * @param pageProperties Chromium page properties to add to the request entity.
+     * @param sink           The request to add the fields to.
+     * @param pageProperties Chromium page properties to add to the request.
      */
-    void buildPageProperties(ChromiumPageProperties pageProperties) {
-        Field[] fields = ChromiumPageProperties.class.getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(pageProperties);
-                if (value != null) {
-                    jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
+    void buildPageProperties(FormSink sink, ChromiumPageProperties pageProperties) {
+        ChromiumPagePropertiesFormWriter.write(pageProperties, sink);
     }
 
     /**
-     * Builds Chromium options using reflection and adds them to the request entity.
+     * Adds Chromium options to the request.
      *
-     * @param options Chromium options to add to the request entity.
+     * @param sink    The request to add the fields to.
+     * @param options Chromium options to add to the request.
      */
-    void buildChromiumOptions(AbstractOptions options) {
-        Field[] fields = AbstractOptions.class.getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(options);
-                if (value != null) {
-                    if (value instanceof File) {
-                        jotenberg.getBuilder().addBinaryBody(field.getName(), (File) value);
-                    } else if (value instanceof java.util.List) {
-                        @SuppressWarnings("unchecked")
-                        java.util.List<File> fileList = (java.util.List<File>) value;
-                        for (File file : fileList) {
-                            jotenberg.getBuilder().addBinaryBody("embeds", file);
-                        }
-                    } else {
-                        jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                    }
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    void buildChromiumOptions(FormSink sink, AbstractOptions options) {
+        if (options instanceof ScreenshotOptions screenshotOptions) {
+            ScreenshotOptionsFormWriter.write(screenshotOptions, sink);
+        } else if (options instanceof ChromiumOptions chromiumOptions) {
+            ChromiumOptionsFormWriter.write(chromiumOptions, sink);
+        } else {
+            AbstractOptionsFormWriter.write(options, sink);
         }
     }
 
     /**
-     * Builds LibreOffice page properties using reflection and adds them to the request entity.
+     * Adds LibreOffice page properties to the request.
      *
-     * @param pageProperties LibreOffice page properties to add to the request entity.
+     * @param sink           The request to add the fields to.
+     * @param pageProperties LibreOffice page properties to add to the request.
      */
-    void buildPageProperties(LibreOfficePageProperties pageProperties) {
-        Field[] fields = LibreOfficePageProperties.class.getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(pageProperties);
-                if (value != null) {
-                    jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
+    void buildPageProperties(FormSink sink, LibreOfficePageProperties pageProperties) {
+        LibreOfficePagePropertiesFormWriter.write(pageProperties, sink);
     }
 
     /**
-     * Builds LibreOffice options using reflection and adds them to the request entity.
+     * Adds LibreOffice options to the request.
      *
-     * @param options LibreOffice options to add to the request entity.
+     * @param sink    The request to add the fields to.
+     * @param options LibreOffice options to add to the request.
      */
-    void buildPageOptions(LibreOfficeOptions options) {
-        Field[] fields = LibreOfficeOptions.class.getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(options);
-                if (value != null) {
-                    jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
+    void buildPageOptions(FormSink sink, LibreOfficeOptions options) {
+        LibreOfficeOptionsFormWriter.write(options, sink);
     }
 
     /**
-     * Builds image properties using reflection and adds them to the request entity.
+     * Adds image properties to the request.
      *
-     * @param imageProperties image properties to add to the request entity.
+     * @param sink            The request to add the fields to.
+     * @param imageProperties image properties to add to the request.
      */
-    void buildImageProperties(ImageProperties imageProperties) {
-        Field[] fields = ImageProperties.class.getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(imageProperties);
-                if (value != null) {
-                    jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
+    void buildImageProperties(FormSink sink, ImageProperties imageProperties) {
+        ImagePropertiesFormWriter.write(imageProperties, sink);
     }
 
 
     /**
-     * Builds PDF engines options using reflection and adds them to the request entity.
+     * Adds PDF engines options, including the ones inherited from {@link PDFEnginesOptions}, to the request.
      *
-     * @param options PDF engines options to add to the request entity.
+     * @param sink    The request to add the fields to.
+     * @param options PDF engines options to add to the request.
      */
-    public void buildPdfEngineOptions(PDFEnginesOptions options) {
-        if (options == null) {
-            return;
-        }
-
-        Field[] fields = options.getClass().getDeclaredFields();
-        try {
-            for (Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(options);
-                if (value != null) {
-                    if (value instanceof java.util.List) {
-                        @SuppressWarnings("unchecked")
-                        java.util.List<File> fileList = (java.util.List<File>) value;
-                        for (File file : fileList) {
-                            jotenberg.getBuilder().addBinaryBody("embeds", file);
-                        }
-                    } else {
-                        jotenberg.getBuilder().addTextBody(field.getName(), (String) value);
-                    }
-                }
-            }
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    public void buildPdfEngineOptions(FormSink sink, PDFEnginesOptions options) {
+        if (options instanceof PDFEnginesConversionOptions conversionOptions) {
+            PDFEnginesConversionOptionsFormWriter.write(conversionOptions, sink);
+        } else if (options instanceof PDFEnginesMergeOptions mergeOptions) {
+            PDFEnginesMergeOptionsFormWriter.write(mergeOptions, sink);
+        } else {
+            PDFEnginesOptionsFormWriter.write(options, sink);
         }
     }
-}
\ No newline at end of file
+}
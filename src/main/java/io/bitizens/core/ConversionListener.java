@@ -0,0 +1,78 @@
+package io.bitizens.core;
+
+import java.io.IOException;
+
+/**
+ * ConversionListener is notified of the phases of every request Jotenberg sends to Gotenberg, so that the time of a
+ * slow conversion can be broken down between waiting for a connection, uploading the documents, rendering and
+ * downloading the result.
+ * <p>
+ * A request goes through {@code onQueued}, {@code onConnectionLeased}, {@code onUploadStarted},
+ * {@code onUploadFinished} and {@code onFirstByte}, then ends with {@code onCompleted} once its response body has been
+ * read or the result has been closed, or with {@code onFailed} if no response was received. Every attempt is reported,
+ * including retries and hedged duplicates, which share the {@code Gotenberg-Trace} id of their conversion.
+ * <p>
+ * Callbacks run on the threads performing the requests, so implementations must be thread-safe, quick and must not
+ * throw.
+ */
+public interface ConversionListener {
+    /**
+     * Called before the request waits for a concurrency limiter slot and a pooled connection.
+     *
+     * @param event The request.
+     */
+    default void onQueued(ConversionEvent event) {
+    }
+
+    /**
+     * Called once a connection has been leased from the pool, and established if it was a new one.
+     *
+     * @param event The request.
+     */
+    default void onConnectionLeased(ConversionEvent event) {
+    }
+
+    /**
+     * Called before the request headers and multipart body are written.
+     *
+     * @param event The request.
+     */
+    default void onUploadStarted(ConversionEvent event) {
+    }
+
+    /**
+     * Called once the multipart body has been written.
+     *
+     * @param event The request.
+     */
+    default void onUploadFinished(ConversionEvent event) {
+    }
+
+    /**
+     * Called once the response headers have been received, i.e. once Gotenberg has rendered the document.
+     *
+     * @param event The request, with the status code of the response.
+     */
+    default void onFirstByte(ConversionEvent event) {
+    }
+
+    /**
+     * Called once the response body has been read to the end, its stream has been closed or the result has been
+     * closed, whichever comes first. A result closed without its body being read, e.g. a retried error or the loser
+     * of a hedged request, is reported with the bytes read so far.
+     *
+     * @param event The request, with the status code of the response.
+     */
+    default void onCompleted(ConversionEvent event) {
+    }
+
+    /**
+     * Called when the request failed without a response, e.g. because of a timeout, a refused connection or a
+     * cancellation.
+     *
+     * @param event   The request.
+     * @param failure The cause of the failure.
+     */
+    default void onFailed(ConversionEvent event, IOException failure) {
+    }
+}
@@ -0,0 +1,237 @@
+package io.bitizens.core;
+
+import io.bitizens.common.DocumentSource;
+import io.bitizens.common.FormSink;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * ConversionRequest is a Gotenberg request before it is sent: a route, the form fields and documents of its multipart
+ * body, in order, and its extra HTTP headers.
+ * <p>
+ * Keeping the request in this form rather than in a multipart builder lets it be fingerprinted, e.g. to serve it from
+ * a cache, and turned into a fresh entity for every attempt.
+ * <p>
+ * A request built from a {@link ConversionTemplate} holds only its own parts, which are sent after the parts encoded
+ * by the template.
+ */
+public final class ConversionRequest implements FormSink {
+    private final String route;
+    private final ConversionTemplate template;
+    private final List<Part> parts = new ArrayList<>();
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    /**
+     * Constructs an empty request for a route.
+     *
+     * @param route The route relative to the Gotenberg endpoint, e.g. {@code forms/chromium/convert/html}.
+     */
+    public ConversionRequest(String route) {
+        this.route = route;
+        this.template = null;
+    }
+
+    /**
+     * Constructs an empty request for the route of a template, to which the request's own parts are added.
+     *
+     * @param template The template holding the route, fields and assets shared by its requests.
+     */
+    public ConversionRequest(ConversionTemplate template) {
+        this.route = template.getRoute();
+        this.template = template;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Returns the template the request is built from.
+     *
+     * @return The template or {@code null} if the request holds all of its parts.
+     */
+    public ConversionTemplate getTemplate() {
+        return template;
+    }
+
+    public List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    @Override
+    public void text(String name, String value) {
+        parts.add(new Part(name, value, null));
+    }
+
+    @Override
+    public void file(String name, File file) {
+        document(name, DocumentSource.of(file));
+    }
+
+    /**
+     * Adds a document under its own name.
+     *
+     * @param document The document to upload.
+     */
+    public void document(DocumentSource document) {
+        document(document.getName(), document);
+    }
+
+    /**
+     * Adds a document under the given form field name.
+     *
+     * @param name     The name of the form field.
+     * @param document The document to upload.
+     */
+    public void document(String name, DocumentSource document) {
+        parts.add(new Part(name, null, document));
+    }
+
+    /**
+     * Replaces the documents of the request, e.g. with the in-memory copies held by an asset cache.
+     *
+     * @param replacement The function returning the document to upload in place of each document.
+     */
+    void replaceDocuments(UnaryOperator<DocumentSource> replacement) {
+        parts.replaceAll(part -> part.document() == null ? part : new Part(part.name(), null, replacement.apply(part.document())));
+    }
+
+    /**
+     * Sets an HTTP header sent along with the request.
+     *
+     * @param name  The name of the header.
+     * @param value The value of the header.
+     */
+    public void header(String name, String value) {
+        headers.put(name, value);
+    }
+
+    /**
+     * Checks whether every document of the request can be read more than once, so that the request can be
+     * fingerprinted and sent again.
+     *
+     * @return `true` if the request is repeatable, `false` otherwise.
+     */
+    public boolean isRepeatable() {
+        return parts.stream().allMatch(part -> part.document() == null || part.document().isRepeatable());
+    }
+
+    /**
+     * Builds a new multipart entity holding the parts of this request.
+     *
+     * @return The request entity.
+     */
+    public HttpEntity toEntity() {
+        if (template != null) {
+            return template.toEntity(getParts());
+        }
+        MultipartEntityBuilder builder = ConversionHelper.newBuilder();
+        for (Part part : parts) {
+            if (part.document() == null) {
+                builder.addTextBody(part.name(), part.value());
+            } else {
+                builder.addPart(part.name(), part.document().toContentBody());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Computes a SHA-256 fingerprint of the route, the form fields and the content of the documents. Form fields are
+     * taken in name order, so the order in which options are written does not matter, while documents are taken in
+     * upload order, which Gotenberg preserves, e.g. when merging. The parts of a template are covered by its own
+     * fingerprint, computed once.
+     *
+     * @return The hex-encoded fingerprint.
+     * @throws IOException           If a document cannot be read.
+     * @throws IllegalStateException If the request is not repeatable.
+     */
+    public String fingerprint() throws IOException {
+        if (!isRepeatable()) {
+            throw new IllegalStateException("Requests with stream documents cannot be fingerprinted");
+        }
+
+        MessageDigest digest = sha256();
+        update(digest, route);
+        if (template != null) {
+            update(digest, template.getFingerprint());
+        }
+
+        List<Part> fields = parts.stream()
+                .filter(part -> part.document() == null)
+                .sorted(Comparator.comparing(Part::name).thenComparing(Part::value))
+                .toList();
+        for (Part field : fields) {
+            update(digest, field.name());
+            update(digest, field.value());
+        }
+
+        ByteBuffer buffer = BufferPool.acquire();
+        try {
+            for (Part part : parts) {
+                if (part.document() == null) {
+                    continue;
+                }
+                update(digest, part.name());
+                update(digest, part.document().getName());
+                long length = 0;
+                try (InputStream in = part.document().openStream()) {
+                    int read;
+                    while ((read = in.read(buffer.array(), 0, buffer.capacity())) != -1) {
+                        digest.update(buffer.array(), 0, read);
+                        length += read;
+                    }
+                }
+                digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, bytes.length));
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Part is a form field of the request: a text value or a document.
+     *
+     * @param name     The name of the form field.
+     * @param value    The text value, or {@code null} for a document.
+     * @param document The document, or {@code null} for a text value.
+     */
+    public record Part(String name, String value, DocumentSource document) {
+    }
+}
@@ -0,0 +1,374 @@
+package io.bitizens.core;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderIterator;
+import org.apache.http.HttpEntity;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ConversionResult is the response of a Gotenberg route. It is a {@link CloseableHttpResponse}, so it can be used
+ * wherever a raw response is expected, and adds convenience accessors on top of it.
+ * <p>
+ * The result holds a pooled connection until its entity has been consumed or the result has been closed. The
+ * {@code writeTo} and {@code transferTo} methods stream the entity to a sink through a fixed-size pooled buffer, so
+ * memory usage stays constant regardless of the size of the document, and close the result once done.
+ */
+public class ConversionResult implements CloseableHttpResponse {
+    /**
+     * Header carrying the correlation id Gotenberg uses in its logs. It is echoed in the response.
+     */
+    public static final String TRACE_HEADER = "Gotenberg-Trace";
+
+    private final CloseableHttpResponse response;
+    private final Runnable onClose;
+
+    public ConversionResult(CloseableHttpResponse response) {
+        this(response, null);
+    }
+
+    /**
+     * Wraps a response, running the given action every time the result is closed.
+     *
+     * @param response The response.
+     * @param onClose  The action or {@code null}.
+     */
+    ConversionResult(CloseableHttpResponse response, Runnable onClose) {
+        this.response = response;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return The status code.
+     */
+    public int getStatusCode() {
+        return response.getStatusLine().getStatusCode();
+    }
+
+    /**
+     * Checks whether Gotenberg answered with a 2xx status code.
+     *
+     * @return `true` if the conversion succeeded, `false` otherwise.
+     */
+    public boolean isSuccessful() {
+        int statusCode = getStatusCode();
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * Returns the Gotenberg-Trace correlation id of the response, if any.
+     *
+     * @return The trace id or {@code null}.
+     */
+    public String getTrace() {
+        Header header = response.getFirstHeader(TRACE_HEADER);
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * Streams the response body to a file and closes the result. Only successful responses are written: an error
+     * response is closed without touching the file, so that an error page never ends up in place of a document. If
+     * writing fails, the partially written file is deleted, and with {@link WriteOption#ATOMIC} a previous version of
+     * the file is left untouched.
+     *
+     * @param target  The file to write to. It is created or replaced.
+     * @param options {@link WriteOption#ATOMIC} to publish the file with an atomic rename, {@link WriteOption#FSYNC}
+     *                to force the content to the storage device.
+     * @return The number of bytes written.
+     * @throws IOException If Gotenberg answered with a status other than 2xx, or if an I/O error occurs while reading
+     *                     the response or writing the file.
+     */
+    public long writeTo(Path target, WriteOption... options) throws IOException {
+        if (!isSuccessful()) {
+            close();
+            throw new IOException("Gotenberg answered with status " + getStatusCode() + ".");
+        }
+
+        List<WriteOption> writeOptions = Arrays.asList(options);
+        boolean atomic = writeOptions.contains(WriteOption.ATOMIC);
+        Path destination;
+        try {
+            destination = atomic ? temporarySibling(target) : target;
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        long written;
+        try (FileChannel channel = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            written = transferTo(channel);
+            if (writeOptions.contains(WriteOption.FSYNC)) {
+                channel.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        if (atomic) {
+            try {
+                try {
+                    Files.move(destination, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(destination, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(destination);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Streams the response body to a channel and closes the result. The channel is left open. The body is streamed
+     * whatever the status, check {@link #isSuccessful()} first.
+     *
+     * @param channel The channel to write to.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs while reading the response or writing to the channel.
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        return transfer((buffer, length) -> {
+            buffer.limit(length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        });
+    }
+
+    /**
+     * Streams the response body to an output stream and closes the result. The stream is left open. The body is
+     * streamed whatever the status, check {@link #isSuccessful()} first.
+     *
+     * @param out The stream to write to.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs while reading the response or writing to the stream.
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        return transfer((buffer, length) -> out.write(buffer.array(), 0, length));
+    }
+
+    private long transfer(Sink sink) throws IOException {
+        try (ConversionResult ignored = this) {
+            HttpEntity entity = getEntity();
+            if (entity == null) {
+                return 0L;
+            }
+
+            ByteBuffer buffer = BufferPool.acquire();
+            long total = 0L;
+            try (InputStream in = entity.getContent()) {
+                int read;
+                while ((read = in.read(buffer.array(), 0, buffer.capacity())) != -1) {
+                    buffer.clear();
+                    sink.write(buffer, read);
+                    total += read;
+                }
+            } finally {
+                BufferPool.release(buffer);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Creates an empty file next to the target to write to before it is renamed. Unlike a temporary file, it is
+     * created with the default permissions, so the published file gets the same permissions as with a plain write.
+     */
+    private static Path temporarySibling(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        while (true) {
+            String name = "." + target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".part";
+            try {
+                return Files.createFile(directory.resolve(name));
+            } catch (FileAlreadyExistsException e) {
+                // Another write picked the same name, draw another one.
+            }
+        }
+    }
+
+    @Override
+    public StatusLine getStatusLine() {
+        return response.getStatusLine();
+    }
+
+    @Override
+    public void setStatusLine(StatusLine statusLine) {
+        response.setStatusLine(statusLine);
+    }
+
+    @Override
+    public void setStatusLine(ProtocolVersion ver, int code) {
+        response.setStatusLine(ver, code);
+    }
+
+    @Override
+    public void setStatusLine(ProtocolVersion ver, int code, String reason) {
+        response.setStatusLine(ver, code, reason);
+    }
+
+    @Override
+    public void setStatusCode(int code) {
+        response.setStatusCode(code);
+    }
+
+    @Override
+    public void setReasonPhrase(String reason) {
+        response.setReasonPhrase(reason);
+    }
+
+    @Override
+    public HttpEntity getEntity() {
+        return response.getEntity();
+    }
+
+    @Override
+    public void setEntity(HttpEntity entity) {
+        response.setEntity(entity);
+    }
+
+    @Override
+    public Locale getLocale() {
+        return response.getLocale();
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        response.setLocale(loc);
+    }
+
+    @Override
+    public ProtocolVersion getProtocolVersion() {
+        return response.getProtocolVersion();
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return response.containsHeader(name);
+    }
+
+    @Override
+    public Header[] getHeaders(String name) {
+        return response.getHeaders(name);
+    }
+
+    @Override
+    public Header getFirstHeader(String name) {
+        return response.getFirstHeader(name);
+    }
+
+    @Override
+    public Header getLastHeader(String name) {
+        return response.getLastHeader(name);
+    }
+
+    @Override
+    public Header[] getAllHeaders() {
+        return response.getAllHeaders();
+    }
+
+    @Override
+    public void addHeader(Header header) {
+        response.addHeader(header);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        response.addHeader(name, value);
+    }
+
+    @Override
+    public void setHeader(Header header) {
+        response.setHeader(header);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        response.setHeader(name, value);
+    }
+
+    @Override
+    public void setHeaders(Header[] headers) {
+        response.setHeaders(headers);
+    }
+
+    @Override
+    public void removeHeader(Header header) {
+        response.removeHeader(header);
+    }
+
+    @Override
+    public void removeHeaders(String name) {
+        response.removeHeaders(name);
+    }
+
+    @Override
+    public HeaderIterator headerIterator() {
+        return response.headerIterator();
+    }
+
+    @Override
+    public HeaderIterator headerIterator(String name) {
+        return response.headerIterator(name);
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return response.getParams();
+    }
+
+    @Override
+    @Deprecated
+    public void setParams(HttpParams params) {
+        response.setParams(params);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            response.close();
+        } finally {
+            if (onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void write(ByteBuffer buffer, int length) throws IOException;
+    }
+}
@@ -0,0 +1,197 @@
+package io.bitizens.core;
+
+import io.bitizens.chromium.ChromiumOptions;
+import io.bitizens.chromium.ChromiumPageProperties;
+import io.bitizens.common.DocumentSource;
+import io.bitizens.libreoffice.LibreOfficeOptions;
+import io.bitizens.libreoffice.LibreOfficePageProperties;
+import org.apache.http.HttpEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ConversionTemplate freezes the parts shared by many conversions: the route, the page properties and options, and
+ * static assets such as the header and footer of Chromium conversions. They are serialized and encoded as multipart
+ * parts once, when the template is built, and every conversion using the template only encodes and uploads its own
+ * documents after them.
+ * <p>
+ * A template is immutable and can be shared between threads. Its assets are read when it is built, so later changes
+ * to the files are not picked up. The encoded parts are held on-heap, or off-heap to keep large assets out of the
+ * garbage-collected heap.
+ */
+public final class ConversionTemplate {
+    private static final String CHROMIUM_HTML_ROUTE = "forms/chromium/convert/html";
+    private static final String LIBRE_OFFICE_ROUTE = "forms/libreoffice/convert";
+
+    private final String route;
+    private final String boundary;
+    private final ByteBuffer parts;
+    private final List<String> assetNames;
+    private final String fingerprint;
+
+    private ConversionTemplate(String route, String boundary, ByteBuffer parts, List<String> assetNames, String fingerprint) {
+        this.route = route;
+        this.boundary = boundary;
+        this.parts = parts;
+        this.assetNames = assetNames;
+        this.fingerprint = fingerprint;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Returns the names of the static assets uploaded with every conversion, e.g. {@code header.html}.
+     *
+     * @return The names of the assets.
+     */
+    public List<String> getAssetNames() {
+        return assetNames;
+    }
+
+    /**
+     * Returns the size of the encoded parts held by the template.
+     *
+     * @return The size in bytes.
+     */
+    public long getEncodedSize() {
+        return parts.remaining();
+    }
+
+    /**
+     * Checks whether the encoded parts are held off-heap.
+     *
+     * @return `true` if the parts are held in a direct buffer, `false` otherwise.
+     */
+    public boolean isOffHeap() {
+        return parts.isDirect();
+    }
+
+    /**
+     * Returns the SHA-256 fingerprint of the route, fields and assets of the template, which fingerprints of the
+     * requests built from it include.
+     *
+     * @return The hex-encoded fingerprint.
+     */
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Builds the entity of a request: the encoded parts of the template followed by the parts of the request.
+     */
+    HttpEntity toEntity(List<ConversionRequest.Part> requestParts) {
+        return new TemplateEntity(boundary, parts, requestParts);
+    }
+
+    /**
+     * The Builder class is used to construct instances of ConversionTemplate for a route and its settings.
+     */
+    public static class Builder {
+        private final ConversionHelper conversionHelper = new ConversionHelper();
+        private final List<DocumentSource> assets = new ArrayList<>();
+        private ConversionRequest fields = null;
+        private boolean offHeap = false;
+
+        /**
+         * Sets the template up for the Chromium HTML conversion route. The header and footer of the options are
+         * frozen with the other settings.
+         *
+         * @param pageProperties Page properties for the conversions.
+         * @param options        Chromium conversion options.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder chromiumHtml(ChromiumPageProperties pageProperties, ChromiumOptions options) {
+            fields = new ConversionRequest(CHROMIUM_HTML_ROUTE);
+            conversionHelper.buildPageProperties(fields, pageProperties);
+            conversionHelper.buildChromiumOptions(fields, options);
+            return this;
+        }
+
+        /**
+         * Sets the template up for the LibreOffice conversion route.
+         *
+         * @param pageProperties Page properties for the conversions.
+         * @param options        LibreOffice conversion options.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder libreOffice(LibreOfficePageProperties pageProperties, LibreOfficeOptions options) {
+            fields = new ConversionRequest(LIBRE_OFFICE_ROUTE);
+            conversionHelper.buildPageProperties(fields, pageProperties);
+            conversionHelper.buildPageOptions(fields, options);
+            return this;
+        }
+
+        /**
+         * Adds a static asset uploaded with every conversion, e.g. a stylesheet or an image referenced by the
+         * documents.
+         *
+         * @param asset The asset, uploaded under its own name.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder asset(DocumentSource asset) {
+            assets.add(asset);
+            return this;
+        }
+
+        /**
+         * Sets whether the encoded parts are held in a direct buffer, outside of the garbage-collected heap.
+         *
+         * @param offHeap `true` to hold the parts off-heap, `false` to hold them on-heap, the default.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder offHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+            return this;
+        }
+
+        /**
+         * Serializes the settings, reads the assets and encodes them into a ConversionTemplate.
+         *
+         * @return An instance of ConversionTemplate.
+         * @throws IOException           If an asset cannot be read.
+         * @throws IllegalStateException If no route has been set up.
+         */
+        public ConversionTemplate build() throws IOException {
+            if (fields == null) {
+                throw new IllegalStateException("A route must be set up before building a template");
+            }
+            List<ConversionRequest.Part> sources = new ArrayList<>(fields.getParts());
+            assets.forEach(asset -> sources.add(new ConversionRequest.Part(asset.getName(), null, asset)));
+
+            String boundary = "jotenberg-" + UUID.randomUUID();
+            ConversionRequest frozen = new ConversionRequest(fields.getRoute());
+            List<String> assetNames = new ArrayList<>();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (ConversionRequest.Part part : sources) {
+                if (part.document() == null) {
+                    frozen.text(part.name(), part.value());
+                    out.write(TemplateEntity.textPart(boundary, part.name(), part.value()));
+                    continue;
+                }
+                String name = part.document().getName();
+                byte[] content;
+                try (InputStream in = part.document().openStream()) {
+                    content = in.readAllBytes();
+                }
+                frozen.document(part.name(), DocumentSource.of(name, content));
+                assetNames.add(name);
+                out.write(TemplateEntity.fileHeader(boundary, part.name(), name));
+                out.write(content);
+                out.write(TemplateEntity.CRLF);
+            }
+
+            byte[] encoded = out.toByteArray();
+            ByteBuffer parts = offHeap ? ByteBuffer.allocateDirect(encoded.length).put(encoded).flip() : ByteBuffer.wrap(encoded);
+            return new ConversionTemplate(frozen.getRoute(), boundary, parts, Collections.unmodifiableList(assetNames), frozen.fingerprint());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.bitizens.core;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * ConversionTrace follows a single attempt through its phases, reporting them to a {@link ConversionListener} and
+ * summing them up in a {@link GotenbergRequestEvent}. It travels in the HTTP context of the request, where
+ * {@link TracingRequestExecutor} picks it up.
+ */
+final class ConversionTrace {
+    static final String CONTEXT_ATTRIBUTE = "io.bitizens.trace";
+
+    private final ConversionListener listener;
+    private final GotenbergRequestEvent event;
+    private final String route;
+    private final int fileCount;
+    private final long start = System.nanoTime();
+    private volatile String trace;
+    private volatile String endpoint;
+    private volatile int statusCode = -1;
+    private volatile long leasedAt;
+    private volatile long uploadStartedAt;
+    private volatile long uploadFinishedAt;
+    private volatile long firstByteAt;
+    private volatile long uploadBytes;
+
+    private ConversionTrace(ConversionListener listener, GotenbergRequestEvent event, ConversionRequest request) {
+        this.listener = listener;
+        this.event = event;
+        this.route = request.getRoute();
+        this.fileCount = (int) request.getParts().stream().filter(part -> part.document() != null).count();
+        this.trace = request.getHeaders().get(ConversionResult.TRACE_HEADER);
+    }
+
+    /**
+     * Starts tracing an attempt, unless there is neither a listener nor a recording interested in it.
+     *
+     * @param listener The listener of the attempt or {@code null}.
+     * @param request  The request being sent.
+     * @return The trace or {@code null} if the attempt is not traced.
+     */
+    static ConversionTrace start(ConversionListener listener, ConversionRequest request) {
+        GotenbergRequestEvent event = new GotenbergRequestEvent();
+        if (!event.isEnabled()) {
+            if (listener == null) {
+                return null;
+            }
+            event = null;
+        }
+
+        ConversionTrace conversionTrace = new ConversionTrace(listener, event, request);
+        if (event != null) {
+            event.begin();
+        }
+        if (listener != null) {
+            listener.onQueued(conversionTrace.event());
+        }
+        return conversionTrace;
+    }
+
+    static ConversionTrace from(HttpContext context) {
+        return context == null ? null : (ConversionTrace) context.getAttribute(CONTEXT_ATTRIBUTE);
+    }
+
+    void selected(Endpoint endpoint) {
+        this.endpoint = endpoint.getUrl();
+    }
+
+    void connectionLeased() {
+        leasedAt = System.nanoTime();
+        if (listener != null) {
+            listener.onConnectionLeased(event());
+        }
+    }
+
+    void uploadStarted() {
+        uploadStartedAt = System.nanoTime();
+        if (listener != null) {
+            listener.onUploadStarted(event());
+        }
+    }
+
+    void uploadFinished() {
+        uploadFinishedAt = System.nanoTime();
+        if (listener != null) {
+            listener.onUploadFinished(event());
+        }
+    }
+
+    void uploaded(long bytes) {
+        uploadBytes = bytes;
+    }
+
+    void firstByte(HttpResponse response) {
+        firstByteAt = System.nanoTime();
+        statusCode = response.getStatusLine().getStatusCode();
+        if (trace == null) {
+            Header header = response.getFirstHeader(ConversionResult.TRACE_HEADER);
+            trace = header == null ? null : header.getValue();
+        }
+        if (listener != null) {
+            listener.onFirstByte(event());
+        }
+    }
+
+    void completed(long responseBytes) {
+        long now = System.nanoTime();
+        if (listener != null) {
+            listener.onCompleted(event());
+        }
+        commit(now, responseBytes, null);
+    }
+
+    void failed(IOException failure) {
+        long now = System.nanoTime();
+        if (listener != null) {
+            listener.onFailed(event(), failure);
+        }
+        commit(now, 0L, failure);
+    }
+
+    private void commit(long now, long responseBytes, IOException failure) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.route = route;
+        event.endpoint = endpoint;
+        event.trace = trace;
+        event.fileCount = fileCount;
+        event.uploadBytes = uploadBytes;
+        event.responseBytes = responseBytes;
+        event.statusCode = statusCode;
+        event.failure = failure == null ? null : failure.toString();
+        event.queueTime = span(start, leasedAt);
+        event.uploadTime = span(uploadStartedAt, uploadFinishedAt);
+        event.renderTime = span(uploadFinishedAt, firstByteAt);
+        event.downloadTime = span(firstByteAt, failure == null ? now : 0L);
+        event.commit();
+    }
+
+    private static long span(long from, long to) {
+        return from == 0L || to == 0L ? 0L : to - from;
+    }
+
+    private ConversionEvent event() {
+        return new ConversionEvent(route, trace, endpoint, statusCode, start, System.nanoTime());
+    }
+}
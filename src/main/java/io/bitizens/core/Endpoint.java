@@ -0,0 +1,184 @@
+package io.bitizens.core;
+
+import io.bitizens.common.CommonUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Endpoint is a single Gotenberg node. Each endpoint owns its connection pool, sized by the {@link JotenbergConfig}
+ * it was created with, and tracks the requests it is currently processing, so that a {@link LoadBalancer} can keep
+ * long conversions from piling up on the same node.
+ * <p>
+ * A request counts as outstanding from the moment it is sent until Gotenberg answers with its status line, which,
+ * since Gotenberg only answers once the conversion is over, covers the time spent rendering.
+ * <p>
+ * When the configuration has a {@link HealthPolicy}, the endpoint also tracks the outcome and latency of its requests
+ * to decide whether it should keep receiving requests.
+ */
+public final class Endpoint implements AutoCloseable {
+    private final String url;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final EndpointHealth health;
+
+    /**
+     * Constructs an Endpoint with its own connection pool.
+     *
+     * @param url    The URL of the Gotenberg node.
+     * @param config Connection pool, keep-alive, socket and timeout settings.
+     * @throws MalformedURLException If the provided URL is not a valid URL.
+     */
+    public Endpoint(String url, JotenbergConfig config) throws MalformedURLException {
+        if (!CommonUtils.isValidURL(url)) {
+            throw new MalformedURLException();
+        }
+        this.url = url;
+        this.connectionManager = config.createConnectionManager();
+        this.client = config.createClient(connectionManager);
+        this.health = config.getHealthPolicy() == null ? null : new EndpointHealth(config.getHealthPolicy());
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public CloseableHttpClient getClient() {
+        return client;
+    }
+
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Returns the number of requests this endpoint is currently processing.
+     *
+     * @return The number of outstanding requests.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the number of requests sent to this endpoint.
+     *
+     * @return The number of requests.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests that failed with an I/O error or a 5xx status code.
+     *
+     * @return The number of failures.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the health state of this endpoint.
+     *
+     * @return The state, always {@link State#HEALTHY} when no health policy is configured.
+     */
+    public State getState() {
+        return health == null ? State.HEALTHY : health.getState(System.nanoTime());
+    }
+
+    EndpointHealth getHealth() {
+        return health;
+    }
+
+    boolean isAvailable(long now) {
+        return health == null || health.isAvailable(now);
+    }
+
+    /**
+     * Claims the endpoint for a request the load balancer picked, which takes the trial of a half-open endpoint.
+     */
+    boolean tryClaim(long now) {
+        return health == null || health.tryBegin(now);
+    }
+
+    long begin() {
+        inFlight.incrementAndGet();
+        requests.increment();
+        return System.nanoTime();
+    }
+
+    void end(long start, Outcome outcome) {
+        end(start, outcome, null);
+    }
+
+    /**
+     * Ends a request. Its latency is recorded for the given route family; requests whose latency says nothing about the
+     * conversion time, e.g. webhook submissions, are ended without a family and count towards the failure rate only.
+     */
+    void end(long start, Outcome outcome, RouteFamily family) {
+        inFlight.decrementAndGet();
+        if (outcome == Outcome.CANCELLED) {
+            if (health != null) {
+                health.cancel();
+            }
+            return;
+        }
+        if (outcome != Outcome.SUCCESS) {
+            failures.increment();
+        }
+        if (health != null) {
+            long now = System.nanoTime();
+            health.record(outcome, family, now - start, now);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    /**
+     * State is the health state of an endpoint.
+     */
+    public enum State {
+        /**
+         * The endpoint receives requests.
+         */
+        HEALTHY,
+        /**
+         * The circuit of the endpoint is open, the endpoint receives no requests.
+         */
+        OPEN,
+        /**
+         * The endpoint receives a single trial request deciding whether its circuit closes again.
+         */
+        HALF_OPEN,
+        /**
+         * The endpoint is temporarily out of rotation for being markedly slower than its peers.
+         */
+        EJECTED
+    }
+
+    /**
+     * Outcome is the outcome of a request, as seen by the circuit breaker.
+     */
+    enum Outcome {
+        SUCCESS,
+        FAILURE,
+        TIMEOUT,
+        CANCELLED
+    }
+}
@@ -0,0 +1,241 @@
+package io.bitizens.core;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * EndpointHealth is the circuit breaker and outlier state of a single endpoint, driven by the outcome of its requests
+ * and health checks. Times are {@link System#nanoTime()} values.
+ * <p>
+ * Latencies are kept per {@link RouteFamily}, since a LibreOffice conversion and a PDF merge take different times: an
+ * endpoint is only slow if it is slower than its peers on the same kind of requests.
+ */
+final class EndpointHealth {
+    private static final double MIN_RAMP_UP_WEIGHT = 0.1;
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final HealthPolicy policy;
+    private final boolean[] failures;
+    private final Map<RouteFamily, LatencyWindow> latencies = new EnumMap<>(RouteFamily.class);
+    private int outcomeIndex;
+    private int outcomeCount;
+    private int failureCount;
+    private int consecutiveTimeouts;
+
+    private Endpoint.State state = Endpoint.State.HEALTHY;
+    private long stateUntil;
+    private boolean trialInFlight;
+    private boolean rampingUp;
+    private long rampUpStart;
+    private int ejections;
+
+    EndpointHealth(HealthPolicy policy) {
+        this.policy = policy;
+        this.failures = new boolean[policy.getSlidingWindowSize()];
+        for (RouteFamily family : RouteFamily.values()) {
+            latencies.put(family, new LatencyWindow(Math.max(policy.getMinimumLatencySamples(), 128)));
+        }
+    }
+
+    synchronized Endpoint.State getState(long now) {
+        refresh(now);
+        return state;
+    }
+
+    /**
+     * Checks whether the endpoint may receive a request. Endpoints ramping up are only available for a growing share
+     * of the calls.
+     */
+    synchronized boolean isAvailable(long now) {
+        refresh(now);
+        return switch (state) {
+            case OPEN, EJECTED -> false;
+            case HALF_OPEN -> !trialInFlight;
+            case HEALTHY -> {
+                double weight = weight(now);
+                yield weight >= 1.0 || ThreadLocalRandom.current().nextDouble() < weight;
+            }
+        };
+    }
+
+    /**
+     * Claims the endpoint for a request picked among the available endpoints. A half-open endpoint is claimed by a
+     * single trial request at a time, so that two requests selecting it concurrently cannot both be its trial.
+     *
+     * @return `true` if the request may be sent to the endpoint, `false` if it should pick another one.
+     */
+    synchronized boolean tryBegin(long now) {
+        refresh(now);
+        return switch (state) {
+            case OPEN, EJECTED -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+            case HEALTHY -> true;
+        };
+    }
+
+    /**
+     * Releases the trial of a half-open endpoint whose request was cancelled, e.g. a hedge that lost its race, without
+     * counting it as a failure, so that the next request can be the trial.
+     */
+    synchronized void cancel() {
+        if (state == Endpoint.State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Records the outcome of a request.
+     *
+     * @param family  The family of the request whose latency is recorded, or {@code null} if its latency says nothing
+     *                about the conversion time.
+     * @param latency The latency of the request in nanoseconds, ignored without a family.
+     */
+    synchronized void record(Endpoint.Outcome outcome, RouteFamily family, long latency, long now) {
+        if (state == Endpoint.State.HALF_OPEN) {
+            trialInFlight = false;
+            if (outcome == Endpoint.Outcome.SUCCESS) {
+                readmit(now);
+            } else {
+                trip(now);
+            }
+            return;
+        }
+        if (state != Endpoint.State.HEALTHY) {
+            return;
+        }
+
+        boolean failed = outcome != Endpoint.Outcome.SUCCESS;
+        if (outcomeCount == failures.length && failures[outcomeIndex]) {
+            failureCount--;
+        }
+        failures[outcomeIndex] = failed;
+        outcomeIndex = (outcomeIndex + 1) % failures.length;
+        outcomeCount = Math.min(outcomeCount + 1, failures.length);
+        if (failed) {
+            failureCount++;
+        } else if (family != null && latency >= 0) {
+            latencies.get(family).add(latency);
+        }
+
+        consecutiveTimeouts = outcome == Endpoint.Outcome.TIMEOUT ? consecutiveTimeouts + 1 : 0;
+        if (consecutiveTimeouts >= policy.getConsecutiveTimeoutsThreshold()
+                || (outcomeCount >= policy.getMinimumRequests() && failureCount >= policy.getFailureRateThreshold() * outcomeCount)) {
+            trip(now);
+        }
+    }
+
+    synchronized void recordCheck(boolean healthy, long now) {
+        refresh(now);
+        if (!healthy) {
+            if (state == Endpoint.State.HEALTHY || state == Endpoint.State.HALF_OPEN) {
+                trip(now);
+            }
+        } else if (state == Endpoint.State.HALF_OPEN) {
+            readmit(now);
+        }
+    }
+
+    /**
+     * Returns the given percentile of the recent successful request latencies of a route family.
+     *
+     * @return The latency in nanoseconds, or -1 if the endpoint is not healthy or has too few samples in the family.
+     */
+    synchronized long latencyPercentile(RouteFamily family, double percentile) {
+        LatencyWindow window = latencies.get(family);
+        if (state != Endpoint.State.HEALTHY || window.count < policy.getMinimumLatencySamples()) {
+            return -1L;
+        }
+        return window.percentile(percentile);
+    }
+
+    synchronized void eject(long now) {
+        ejections = Math.min(ejections + 1, MAX_EJECTION_MULTIPLIER);
+        state = Endpoint.State.EJECTED;
+        stateUntil = now + policy.getEjectionDuration().toNanos() * ejections;
+    }
+
+    /**
+     * Forgets past ejections once the endpoint has passed an outlier analysis.
+     */
+    synchronized void clearEjections() {
+        ejections = 0;
+    }
+
+    private void refresh(long now) {
+        if (state == Endpoint.State.OPEN && now - stateUntil >= 0) {
+            state = Endpoint.State.HALF_OPEN;
+            trialInFlight = false;
+        } else if (state == Endpoint.State.EJECTED && now - stateUntil >= 0) {
+            readmit(now);
+        }
+    }
+
+    private void trip(long now) {
+        state = Endpoint.State.OPEN;
+        stateUntil = now + policy.getOpenDuration().toNanos();
+        trialInFlight = false;
+    }
+
+    private void readmit(long now) {
+        state = Endpoint.State.HEALTHY;
+        Arrays.fill(failures, false);
+        outcomeIndex = 0;
+        outcomeCount = 0;
+        failureCount = 0;
+        latencies.values().forEach(LatencyWindow::clear);
+        consecutiveTimeouts = 0;
+        trialInFlight = false;
+        rampingUp = !policy.getRampUpDuration().isZero();
+        rampUpStart = now;
+    }
+
+    private double weight(long now) {
+        if (!rampingUp) {
+            return 1.0;
+        }
+        double progress = (double) (now - rampUpStart) / policy.getRampUpDuration().toNanos();
+        if (progress >= 1.0) {
+            rampingUp = false;
+            return 1.0;
+        }
+        return Math.max(MIN_RAMP_UP_WEIGHT, progress);
+    }
+
+    /**
+     * LatencyWindow holds the most recent successful request latencies of a route family.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int index;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        void add(long latency) {
+            samples[index] = latency;
+            index = (index + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+
+        void clear() {
+            index = 0;
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.bitizens.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * GotenbergRequestEvent is the Java Flight Recorder event emitted for every request sent to Gotenberg. Its duration
+ * spans the request from the moment it is queued until its response body has been read, and it breaks that time down
+ * into phases, so that slow conversions can be correlated with garbage collection, pinned threads or pool contention
+ * in the same recording.
+ * <p>
+ * The event is enabled by default in recordings; it can be disabled through its name,
+ * {@code io.bitizens.GotenbergRequest}.
+ */
+@Name("io.bitizens.GotenbergRequest")
+@Label("Gotenberg Request")
+@Category({"Jotenberg"})
+@Description("A request sent to Gotenberg, from queuing to the end of its response body")
+final class GotenbergRequestEvent extends jdk.jfr.Event {
+    @Label("Route")
+    String route;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Trace")
+    @Description("Gotenberg-Trace correlation id")
+    String trace;
+
+    @Label("File Count")
+    int fileCount;
+
+    @Label("Upload Size")
+    @DataAmount
+    long uploadBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Status Code")
+    @Description("Status code of the response, -1 if none was received")
+    int statusCode;
+
+    @Label("Failure")
+    String failure;
+
+    @Label("Queue Time")
+    @Description("Time spent waiting for a concurrency limiter slot and a connection")
+    @Timespan
+    long queueTime;
+
+    @Label("Upload Time")
+    @Timespan
+    long uploadTime;
+
+    @Label("Render Time")
+    @Description("Time between the end of the upload and the first byte of the response")
+    @Timespan
+    long renderTime;
+
+    @Label("Download Time")
+    @Timespan
+    long downloadTime;
+}
@@ -1,119 +1,137 @@
 package io.bitizens.core;
 
 import io.bitizens.Jotenberg;
+import io.bitizens.cache.AssetCache;
+import io.bitizens.cache.ConversionCache;
 import io.bitizens.chromium.ChromiumOptions;
 import io.bitizens.chromium.ChromiumPageProperties;
 import io.bitizens.common.CommonUtils;
+import io.bitizens.common.DocumentSource;
 import io.bitizens.common.exceptions.EmptyFileListException;
 import io.bitizens.libreoffice.LibreOfficeOptions;
 import io.bitizens.libreoffice.LibreOfficePageProperties;
+import io.bitizens.metrics.MetricsRecorder;
 import io.bitizens.pdfengines.PDFEnginesEncryptOptions;
 import io.bitizens.pdfengines.PDFEnginesOptions;
 import io.bitizens.screenshots.ImageProperties;
 import io.bitizens.screenshots.ScreenshotOptions;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectTimeoutException;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * HTTPRequestManager is a class that manages HTTP requests for Jotenberg.
  */
 public class HTTPRequestManager {
+    private static final String WEBHOOK_METRICS_PREFIX = "webhook/";
+
     private final Jotenberg jotenberg;
+    private final RequestHedger hedger;
+    private final RequestRetrier retrier;
 
     public HTTPRequestManager(Jotenberg jotenberg) {
         this.jotenberg = jotenberg;
+        HedgePolicy hedgePolicy = jotenberg.getConfig().getHedgePolicy();
+        this.hedger = hedgePolicy == null ? null : new RequestHedger(hedgePolicy);
+        RetryPolicy retryPolicy = jotenberg.getConfig().getRetryPolicy();
+        this.retrier = retryPolicy == null ? null : new RequestRetrier(retryPolicy);
+
+        MetricsRecorder metrics = jotenberg.getConfig().getMetrics();
+        if (hedger != null) {
+            metrics.registerGauge("jotenberg.hedges", Map.of(), hedger::getHedgeCount);
+        }
+        if (retrier != null) {
+            metrics.registerGauge("jotenberg.retries", Map.of(), retrier::getRetryCount);
+        }
     }
 
     /**
      * Executes an HTTP POST request for PDF Engines operations with the provided list of files, page properties,
      * and the specified PDF Engines route.
      *
-     * @param files   The list of files to process with PDF Engines.
+     * @param files   The list of documents to process with PDF Engines.
      * @param options Options for the PDF Engines operation.
-     * @param route   The route for the PDF Engines operation (e.g., convert or merge).
-     * @return A CloseableHttpResponse containing the result of the PDF Engines operation.
+     * @param route   The route for the PDF Engines operation (e.g., convert or merge), relative to the endpoint.
+     * @return A ConversionResult containing the result of the PDF Engines operation.
      * @throws IOException If an I/O error occurs during the PDF Engines operation.
      */
-    public CloseableHttpResponse getPdfEnginesHttpResponse(List<File> files, PDFEnginesOptions options, String route) throws IOException {
+    public ConversionResult getPdfEnginesHttpResponse(List<DocumentSource> files, PDFEnginesOptions options, String route) throws IOException {
         if (files.isEmpty()) {
             throw new EmptyFileListException();
         }
 
-        List<File> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
+        List<DocumentSource> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
 
         if (pdfFiles.isEmpty()) {
             throw new FileNotFoundException("No PDF file not found.");
         }
 
-        pdfFiles.forEach(file -> jotenberg.getBuilder().addBinaryBody(file.getName(), file));
+        ConversionRequest request = new ConversionRequest(route);
+
+        pdfFiles.forEach(request::document);
 
         if (options != null) {
-            jotenberg.getConversionHelper().buildPdfEngineOptions(options);
+            jotenberg.getConversionHelper().buildPdfEngineOptions(request, options);
         }
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+        return execute(request);
     }
 
     /**
-     * Executes an HTTP POST request with the provided route and page properties.
+     * Executes an HTTP POST request with the provided request and page properties.
      *
-     * @param route          The route for the POST request.
+     * @param request        The request holding the route and the request's files.
      * @param pageProperties Page properties for the request.
      * @param options        Chromium conversion options.
-     * @return A CloseableHttpResponse containing the response of the request.
+     * @return A ConversionResult containing the response of the request.
      * @throws IOException If an I/O error occurs during the request.
      */
-    public CloseableHttpResponse executeHttpPostRequest(String route, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
-        jotenberg.getConversionHelper().buildPageProperties(pageProperties);
-        jotenberg.getConversionHelper().buildChromiumOptions(options);
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+    public ConversionResult executeHttpPostRequest(ConversionRequest request, ChromiumPageProperties pageProperties, ChromiumOptions options) throws IOException {
+        jotenberg.getConversionHelper().buildPageProperties(request, pageProperties);
+        jotenberg.getConversionHelper().buildChromiumOptions(request, options);
+        return execute(request);
     }
 
     /**
-     * Executes an HTTP POST request with the provided route and page properties.
+     * Executes an HTTP POST request with the provided request and page properties.
      *
-     * @param route          The route for the POST request.
+     * @param request        The request holding the route and the request's files.
      * @param pageProperties Page properties for the request.
      * @param options        LibreOffice conversion options.
-     * @return A CloseableHttpResponse containing the response of the request.
+     * @return A ConversionResult containing the response of the request.
      * @throws IOException If an I/O error occurs during the request.
      */
-    public CloseableHttpResponse executeHttpPostRequest(String route, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
-        jotenberg.getConversionHelper().buildPageProperties(pageProperties);
-        jotenberg.getConversionHelper().buildPageOptions(options);
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+    public ConversionResult executeHttpPostRequest(ConversionRequest request, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        jotenberg.getConversionHelper().buildPageProperties(request, pageProperties);
+        jotenberg.getConversionHelper().buildPageOptions(request, options);
+        return execute(request);
     }
 
     /**
-     * Executes an HTTP POST request with the provided route and page properties.
+     * Executes an HTTP POST request with the provided request and page properties.
      *
-     * @param route           The route for the POST request.
+     * @param request         The request holding the route and the request's files.
      * @param imageProperties Image properties for the request.
      * @param options         Screenshot capture options.
-     * @return A CloseableHttpResponse containing the response of the request.
+     * @return A ConversionResult containing the response of the request.
      * @throws IOException If an I/O error occurs during the request.
      */
-    public CloseableHttpResponse executeHttpPostRequest(String route, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
-        jotenberg.getConversionHelper().buildImageProperties(imageProperties);
-        jotenberg.getConversionHelper().buildChromiumOptions(options);
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+    public ConversionResult executeHttpPostRequest(ConversionRequest request, ImageProperties imageProperties, ScreenshotOptions options) throws IOException {
+        jotenberg.getConversionHelper().buildImageProperties(request, imageProperties);
+        jotenberg.getConversionHelper().buildChromiumOptions(request, options);
+        return execute(request);
     }
 
     /**
@@ -121,28 +139,27 @@ public class HTTPRequestManager {
      *
      * @param files    The list of PDF files.
      * @param metadata The metadata to write as JSON string.
-     * @param route    The route for the PDF Engines operation.
-     * @return A CloseableHttpResponse containing the result.
+     * @param route    The route for the PDF Engines operation, relative to the endpoint.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse getPdfEnginesHttpResponseWithMetadata(List<File> files, String metadata, String route) throws IOException {
+    public ConversionResult getPdfEnginesHttpResponseWithMetadata(List<DocumentSource> files, String metadata, String route) throws IOException {
         if (files.isEmpty()) {
             throw new EmptyFileListException();
         }
 
-        List<File> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
+        List<DocumentSource> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
 
         if (pdfFiles.isEmpty()) {
             throw new FileNotFoundException("No PDF file not found.");
         }
 
-        jotenberg.getBuilder().addTextBody("metadata", metadata);
-        pdfFiles.forEach(file -> jotenberg.getBuilder().addBinaryBody(file.getName(), file));
+        ConversionRequest request = new ConversionRequest(route);
+
+        request.text("metadata", metadata);
+        pdfFiles.forEach(request::document);
 
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+        return execute(request);
     }
 
     /**
@@ -153,37 +170,36 @@ public class HTTPRequestManager {
      * @param splitSpan  The split span.
      * @param splitUnify Whether to unify (only for pages mode).
      * @param flatten    Whether to flatten.
-     * @param route      The route for the PDF Engines operation.
-     * @return A CloseableHttpResponse containing the result.
+     * @param route      The route for the PDF Engines operation, relative to the endpoint.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse getPdfEnginesHttpResponseWithSplit(List<File> files, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten, String route) throws IOException {
+    public ConversionResult getPdfEnginesHttpResponseWithSplit(List<DocumentSource> files, String splitMode, String splitSpan, Boolean splitUnify, Boolean flatten, String route) throws IOException {
         if (files.isEmpty()) {
             throw new EmptyFileListException();
         }
 
-        List<File> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
+        List<DocumentSource> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
 
         if (pdfFiles.isEmpty()) {
             throw new FileNotFoundException("No PDF file not found.");
         }
 
-        pdfFiles.forEach(file -> jotenberg.getBuilder().addBinaryBody(file.getName(), file));
-        jotenberg.getBuilder().addTextBody("splitMode", splitMode);
-        jotenberg.getBuilder().addTextBody("splitSpan", splitSpan);
+        ConversionRequest request = new ConversionRequest(route);
+
+        pdfFiles.forEach(request::document);
+        request.text("splitMode", splitMode);
+        request.text("splitSpan", splitSpan);
 
         if (splitUnify != null) {
-            jotenberg.getBuilder().addTextBody("splitUnify", String.valueOf(splitUnify));
+            request.text("splitUnify", String.valueOf(splitUnify));
         }
 
         if (flatten != null) {
-            jotenberg.getBuilder().addTextBody("flatten", String.valueOf(flatten));
+            request.text("flatten", String.valueOf(flatten));
         }
 
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+        return execute(request);
     }
 
     /**
@@ -191,32 +207,31 @@ public class HTTPRequestManager {
      *
      * @param files   The list of PDF files to encrypt.
      * @param options PDF Engines encrypt options.
-     * @param route   The route for the PDF Engines operation.
-     * @return A CloseableHttpResponse containing the result.
+     * @param route   The route for the PDF Engines operation, relative to the endpoint.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse getPdfEnginesHttpResponseWithEncrypt(List<File> files, PDFEnginesEncryptOptions options, String route) throws IOException {
+    public ConversionResult getPdfEnginesHttpResponseWithEncrypt(List<DocumentSource> files, PDFEnginesEncryptOptions options, String route) throws IOException {
         if (files.isEmpty()) {
             throw new EmptyFileListException();
         }
 
-        List<File> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
+        List<DocumentSource> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
 
         if (pdfFiles.isEmpty()) {
             throw new FileNotFoundException("No PDF file not found.");
         }
 
-        pdfFiles.forEach(file -> jotenberg.getBuilder().addBinaryBody(file.getName(), file));
-        jotenberg.getBuilder().addTextBody("userPassword", options.getUserPassword());
+        ConversionRequest request = new ConversionRequest(route);
+
+        pdfFiles.forEach(request::document);
+        request.text("userPassword", options.getUserPassword());
 
         if (options.getOwnerPassword() != null) {
-            jotenberg.getBuilder().addTextBody("ownerPassword", options.getOwnerPassword());
+            request.text("ownerPassword", options.getOwnerPassword());
         }
 
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+        return execute(request);
     }
 
     /**
@@ -224,27 +239,333 @@ public class HTTPRequestManager {
      *
      * @param files  The list of PDF files to embed files into.
      * @param embeds The list of files to embed.
-     * @param route  The route for the PDF Engines operation.
-     * @return A CloseableHttpResponse containing the result.
+     * @param route  The route for the PDF Engines operation, relative to the endpoint.
+     * @return A ConversionResult containing the result.
      * @throws IOException If an I/O error occurs during the operation.
      */
-    public CloseableHttpResponse getPdfEnginesHttpResponseWithEmbed(List<File> files, List<File> embeds, String route) throws IOException {
+    public ConversionResult getPdfEnginesHttpResponseWithEmbed(List<DocumentSource> files, List<DocumentSource> embeds, String route) throws IOException {
         if (files.isEmpty()) {
             throw new EmptyFileListException();
         }
 
-        List<File> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
+        List<DocumentSource> pdfFiles = files.stream().filter(CommonUtils::isPDF).toList();
 
         if (pdfFiles.isEmpty()) {
             throw new FileNotFoundException("No PDF file not found.");
         }
 
-        pdfFiles.forEach(file -> jotenberg.getBuilder().addBinaryBody(file.getName(), file));
-        embeds.forEach(file -> jotenberg.getBuilder().addBinaryBody("embeds", file));
+        ConversionRequest request = new ConversionRequest(route);
+
+        pdfFiles.forEach(request::document);
+        embeds.forEach(file -> request.document("embeds", file));
+
+        return execute(request);
+    }
+
+    /**
+     * Executes an HTTP POST request whose fields are already set, e.g. by the template it is built from.
+     *
+     * @param request The request holding the route, fields and files.
+     * @return A ConversionResult containing the response of the request.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    public ConversionResult executeHttpPostRequest(ConversionRequest request) throws IOException {
+        return execute(request);
+    }
+
+    /**
+     * Submits a LibreOffice conversion in webhook mode.
+     *
+     * @param request        The request holding the route and the request's files.
+     * @param pageProperties Page properties for the request.
+     * @param options        LibreOffice conversion options.
+     * @return The pending result of the conversion.
+     * @throws IOException If an I/O error occurs while submitting the request.
+     */
+    public CompletableFuture<ConversionResult> submitHttpPostRequest(ConversionRequest request, LibreOfficePageProperties pageProperties, LibreOfficeOptions options) throws IOException {
+        jotenberg.getConversionHelper().buildPageProperties(request, pageProperties);
+        jotenberg.getConversionHelper().buildPageOptions(request, options);
+        return submit(request);
+    }
+
+    /**
+     * Submits a request in webhook mode: Gotenberg answers at once with 204 No Content and posts the result to the
+     * configured receiver, which completes the returned future. Any other answer, e.g. a validation error, completes it
+     * immediately. Submissions bypass the result cache and the coalescer, and are never hedged, since a duplicate would
+     * start a second job under the same trace. Their near-instant answers say nothing about how long conversions take,
+     * so they are measured under the {@value #WEBHOOK_METRICS_PREFIX} prefix and do not feed the latency of the route.
+     *
+     * @param request The request to submit.
+     * @return The pending result of the request.
+     * @throws IOException           If an I/O error occurs while submitting the request.
+     * @throws IllegalStateException If no webhook receiver is configured.
+     */
+    private CompletableFuture<ConversionResult> submit(ConversionRequest request) throws IOException {
+        WebhookReceiver receiver = jotenberg.getConfig().getWebhookReceiver();
+        if (receiver == null) {
+            throw new IllegalStateException("Webhook mode requires a webhook receiver");
+        }
+        resolveAssets(request);
+        if (!request.getHeaders().containsKey(ConversionResult.TRACE_HEADER)) {
+            request.header(ConversionResult.TRACE_HEADER, UUID.randomUUID().toString());
+        }
+        String trace = request.getHeaders().get(ConversionResult.TRACE_HEADER);
+
+        CompletableFuture<ConversionResult> pending = receiver.expect(request);
+        ConversionResult accepted;
+        try {
+            accepted = retrier != null && request.isRepeatable()
+                    ? retrier.execute(() -> attempt(request, null, null, true))
+                    : attempt(request, null, null, true);
+        } catch (IOException e) {
+            receiver.forget(trace);
+            throw e;
+        }
+        if (accepted.getStatusCode() == HttpStatus.SC_NO_CONTENT) {
+            accepted.close();
+            return pending;
+        }
+        receiver.forget(trace);
+        return CompletableFuture.completedFuture(accepted);
+    }
+
+    /**
+     * Executes a request against the endpoint, serving it from the result cache when one is configured and sharing
+     * the response of an identical in-flight request when a coalescer is configured.
+     *
+     * @param request The request to execute.
+     * @return A ConversionResult containing the response of the request.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    private ConversionResult execute(ConversionRequest request) throws IOException {
+        resolveAssets(request);
+        ConversionCache cache = jotenberg.getConfig().getCache();
+        RequestCoalescer coalescer = jotenberg.getConfig().getCoalescer();
+        if ((cache == null && coalescer == null) || !request.isRepeatable()) {
+            return send(request);
+        }
+
+        String key = request.fingerprint();
+        if (cache == null) {
+            return coalescer.execute(key, () -> send(request));
+        }
+
+        ConversionResult cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (coalescer == null) {
+            return cache.put(key, send(request));
+        }
+        return coalescer.execute(key, () -> cache.put(key, send(request)));
+    }
+
+    /**
+     * Swaps the files of a request for the in-memory copies held by the asset cache, when one is configured.
+     *
+     * @param request The request to upload.
+     */
+    private void resolveAssets(ConversionRequest request) {
+        AssetCache assetCache = jotenberg.getConfig().getAssetCache();
+        if (assetCache != null) {
+            request.replaceDocuments(assetCache::resolve);
+        }
+    }
+
+    /**
+     * Sends a request, retrying it when a retry policy is configured and its entity can be rebuilt. When a listener
+     * is configured, the request is given a Gotenberg-Trace id, unless it already has one, shared by its attempts.
+     *
+     * @param request The request to send.
+     * @return A ConversionResult containing the response of the request.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    private ConversionResult send(ConversionRequest request) throws IOException {
+        if (jotenberg.getConfig().getListener() != null && !request.getHeaders().containsKey(ConversionResult.TRACE_HEADER)) {
+            request.header(ConversionResult.TRACE_HEADER, UUID.randomUUID().toString());
+        }
+        if (retrier != null && request.isRepeatable()) {
+            return retrier.execute(() -> dispatch(request));
+        }
+        return dispatch(request);
+    }
+
+    /**
+     * Sends a request once, hedging it when a hedge policy covers its route.
+     *
+     * @param request The request to send.
+     * @return A ConversionResult containing the response of the request.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    private ConversionResult dispatch(ConversionRequest request) throws IOException {
+        if (hedger != null && hedger.isHedged(request)) {
+            return hedger.execute(request, (avoided, selected) -> attempt(request, avoided, selected, false));
+        }
+        return attempt(request, null, null, false);
+    }
+
+    /**
+     * Builds a fresh entity from the request and sends it to the endpoint picked by the load balancer, once the
+     * concurrency limiter of the route family, if any, has granted a slot. The attempt is reported to the configured
+     * metrics recorder and listener, if any, and to Flight Recorder when a recording is running.
+     *
+     * @param request  The request to send.
+     * @param avoided  Holds an endpoint to avoid if another one is available when the request picks its own, or
+     *                 {@code null}.
+     * @param selected Receives the endpoint the request is sent to, or {@code null}.
+     * @param webhook  Whether the request is a webhook submission, whose latency is measured apart from the route's.
+     * @return A ConversionResult containing the response of the request.
+     * @throws IOException If an I/O error occurs during the request.
+     */
+    private ConversionResult attempt(ConversionRequest request, AtomicReference<Endpoint> avoided, AtomicReference<Endpoint> selected, boolean webhook) throws IOException {
+        String route = webhook ? WEBHOOK_METRICS_PREFIX + request.getRoute() : request.getRoute();
+        MetricsRecorder metrics = jotenberg.getConfig().getMetrics();
+        boolean metered = metrics != MetricsRecorder.noop();
+        ConversionTrace trace = ConversionTrace.start(jotenberg.getConfig().getListener(), request);
+
+        HttpEntity entity = request.toEntity();
+        RouteFamily family = RouteFamily.of(request.getRoute());
+        ConcurrencyLimiter limiter = jotenberg.getConcurrencyLimiter(family);
+        if (limiter != null) {
+            try {
+                limiter.acquire();
+            } catch (IOException e) {
+                if (trace != null) {
+                    trace.failed(e);
+                }
+                throw e;
+            }
+        }
+
+        Endpoint endpoint = null;
+        HttpPost httpPost = null;
+        AbortScope abortScope = null;
+        long start = System.nanoTime();
+        Endpoint.Outcome outcome = Endpoint.Outcome.CANCELLED;
+        int statusCode = -1;
+        try {
+            endpoint = selectEndpoint(avoided == null ? null : avoided.get());
+            start = endpoint.begin();
+            if (selected != null) {
+                selected.set(endpoint);
+            }
+            HttpClientContext context = null;
+            if (trace != null) {
+                trace.selected(endpoint);
+                context = HttpClientContext.create();
+                context.setAttribute(ConversionTrace.CONTEXT_ATTRIBUTE, trace);
+            }
+            httpPost = new HttpPost(endpoint.getUrl().concat(request.getRoute()));
+            if (metered || trace != null) {
+                entity = MeteredEntity.request(entity, bytes -> {
+                    metrics.recordRequestBytes(route, bytes);
+                    if (trace != null) {
+                        trace.uploaded(bytes);
+                    }
+                });
+            }
+            httpPost.setEntity(entity);
+            request.getHeaders().forEach(httpPost::setHeader);
+
+            abortScope = AbortScope.current();
+            if (abortScope != null) {
+                abortScope.register(httpPost);
+            }
+
+            outcome = Endpoint.Outcome.FAILURE;
+            CloseableHttpResponse response = endpoint.getClient().execute(httpPost, context);
+            statusCode = response.getStatusLine().getStatusCode();
+            outcome = statusCode >= 500 ? Endpoint.Outcome.FAILURE : Endpoint.Outcome.SUCCESS;
+            metrics.recordResponse(route, statusCode, System.nanoTime() - start);
+            if (response.getEntity() == null) {
+                if (trace != null) {
+                    trace.completed(0L);
+                }
+            } else if (metered || trace != null) {
+                MeteredEntity.Response counted = MeteredEntity.response(response.getEntity(), bytes -> {
+                    metrics.recordResponseBytes(route, bytes);
+                    if (trace != null) {
+                        trace.completed(bytes);
+                    }
+                });
+                response.setEntity(counted);
+                return new ConversionResult(response, counted::discard);
+            }
+            return new ConversionResult(response);
+        } catch (IOException e) {
+            if (e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException) {
+                outcome = Endpoint.Outcome.TIMEOUT;
+            }
+            metrics.recordFailure(route, e, System.nanoTime() - start);
+            if (trace != null) {
+                trace.failed(e);
+            }
+            throw e;
+        } finally {
+            if (httpPost != null && httpPost.isAborted()) {
+                outcome = Endpoint.Outcome.CANCELLED;
+            }
+            if (endpoint != null) {
+                endpoint.end(start, outcome, webhook ? null : family);
+            }
+            if (limiter != null) {
+                ConcurrencyLimiter.Signal signal = signal(outcome, statusCode);
+                limiter.release(webhook && signal == ConcurrencyLimiter.Signal.SUCCESS ? ConcurrencyLimiter.Signal.IGNORED : signal, System.nanoTime() - start);
+            }
+            if (abortScope != null) {
+                abortScope.unregister(httpPost);
+            }
+        }
+    }
+
+    /**
+     * Tells what a response says about the load of Gotenberg: 429 and 503 answers and timeouts mean it is saturated,
+     * other errors carry no load information.
+     */
+    private static ConcurrencyLimiter.Signal signal(Endpoint.Outcome outcome, int statusCode) {
+        if (outcome == Endpoint.Outcome.TIMEOUT || statusCode == 429 || statusCode == 503) {
+            return ConcurrencyLimiter.Signal.DROPPED;
+        }
+        return outcome == Endpoint.Outcome.SUCCESS ? ConcurrencyLimiter.Signal.SUCCESS : ConcurrencyLimiter.Signal.IGNORED;
+    }
 
-        HttpPost httpPost = new HttpPost(route);
-        HttpEntity requestEntity = jotenberg.getBuilder().build();
-        httpPost.setEntity(requestEntity);
-        return jotenberg.getClient().execute(httpPost);
+    /**
+     * Picks the endpoint of the next request among the available ones, or among all of them if none is available. The
+     * pick claims the endpoint, so that a half-open endpoint only receives a single trial request; when another
+     * request claimed it first, the pick is made again among the remaining endpoints.
+     *
+     * @param avoided An endpoint to avoid if another one is available, or {@code null}.
+     * @return The endpoint.
+     */
+    private Endpoint selectEndpoint(Endpoint avoided) {
+        List<Endpoint> endpoints = jotenberg.getEndpoints();
+        if (avoided != null && endpoints.size() > 1) {
+            endpoints = endpoints.stream().filter(endpoint -> endpoint != avoided).toList();
+        }
+
+        LoadBalancer loadBalancer = jotenberg.getConfig().getLoadBalancer();
+        if (jotenberg.getConfig().getHealthPolicy() == null) {
+            return loadBalancer.select(endpoints);
+        }
+
+        long now = System.nanoTime();
+        List<Endpoint> available = new ArrayList<>(endpoints.stream().filter(endpoint -> endpoint.isAvailable(now)).toList());
+        while (!available.isEmpty()) {
+            Endpoint endpoint = loadBalancer.select(available);
+            if (endpoint.tryClaim(now)) {
+                return endpoint;
+            }
+            available.remove(endpoint);
+        }
+        return loadBalancer.select(endpoints);
+    }
+
+    /**
+     * Stops the threads running hedged requests, if any. Called when the Jotenberg instance is closed.
+     */
+    public void close() {
+        if (hedger != null) {
+            hedger.close();
+        }
     }
-}
\ No newline at end of file
+}
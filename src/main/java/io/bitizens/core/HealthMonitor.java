@@ -0,0 +1,151 @@
+package io.bitizens.core;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HealthMonitor periodically probes the {@code /health} route of every endpoint and ejects latency outliers, as
+ * defined by a {@link HealthPolicy}. It runs on its own daemon threads until closed.
+ */
+public final class HealthMonitor implements AutoCloseable {
+    private static final String HEALTH_ROUTE = "health";
+    private static final int MAX_THREADS = 4;
+
+    private final List<Endpoint> endpoints;
+    private final HealthPolicy policy;
+    private final RequestConfig checkConfig;
+    private final ScheduledExecutorService scheduler;
+
+    private HealthMonitor(List<Endpoint> endpoints, HealthPolicy policy) {
+        this.endpoints = endpoints;
+        this.policy = policy;
+        int timeout = (int) Math.min(Integer.MAX_VALUE, policy.getCheckTimeout().toMillis());
+        this.checkConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.min(endpoints.size(), MAX_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "jotenberg-health-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts monitoring the given endpoints.
+     *
+     * @param endpoints The endpoints to monitor.
+     * @param policy    The policy defining the check interval and the outlier thresholds.
+     * @return The running monitor.
+     * @throws IllegalArgumentException if the policy has no check interval.
+     */
+    public static HealthMonitor start(List<Endpoint> endpoints, HealthPolicy policy) {
+        if (policy.getCheckInterval() == null) {
+            throw new IllegalArgumentException("checkInterval must be set to start a health monitor");
+        }
+        HealthMonitor monitor = new HealthMonitor(endpoints, policy);
+        long interval = policy.getCheckInterval().toNanos();
+        for (Endpoint endpoint : endpoints) {
+            monitor.scheduler.scheduleWithFixedDelay(() -> monitor.check(endpoint), 0L, interval, TimeUnit.NANOSECONDS);
+        }
+        if (policy.getMaxEjectionPercent() > 0 && endpoints.size() > 1) {
+            monitor.scheduler.scheduleWithFixedDelay(monitor::ejectOutliers, interval, interval, TimeUnit.NANOSECONDS);
+        }
+        return monitor;
+    }
+
+    /**
+     * Probes the health route of an endpoint. A probe which cannot lease a connection because conversions hold all
+     * of them is inconclusive: a busy endpoint is not an unhealthy one, so it is not recorded.
+     */
+    void check(Endpoint endpoint) {
+        HttpGet httpGet = new HttpGet(endpoint.getUrl().concat(HEALTH_ROUTE));
+        httpGet.setConfig(checkConfig);
+        boolean healthy;
+        try (CloseableHttpResponse response = endpoint.getClient().execute(httpGet)) {
+            healthy = response.getStatusLine().getStatusCode() == 200;
+            EntityUtils.consumeQuietly(response.getEntity());
+        } catch (ConnectionPoolTimeoutException e) {
+            return;
+        } catch (IOException e) {
+            healthy = false;
+        }
+        endpoint.getHealth().recordCheck(healthy, System.nanoTime());
+    }
+
+    /**
+     * Ejects the endpoints whose p99 latency in a route family exceeds the median p99 latency of their peers in that
+     * family by the outlier factor, without ejecting more than the allowed share of endpoints. Only the endpoints with
+     * enough samples in a family are compared in it.
+     */
+    void ejectOutliers() {
+        long now = System.nanoTime();
+        int ejected = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.getHealth().getState(now) == Endpoint.State.EJECTED) {
+                ejected++;
+            }
+        }
+
+        int maxEjected = endpoints.size() * policy.getMaxEjectionPercent() / 100;
+        Set<Endpoint> passed = new HashSet<>();
+        Set<Endpoint> outliers = new HashSet<>();
+        for (RouteFamily family : RouteFamily.values()) {
+            List<Endpoint> analysed = new ArrayList<>();
+            List<Long> p99s = new ArrayList<>();
+            for (Endpoint endpoint : endpoints) {
+                long p99 = endpoint.getHealth().latencyPercentile(family, 0.99);
+                if (p99 >= 0) {
+                    analysed.add(endpoint);
+                    p99s.add(p99);
+                }
+            }
+            if (analysed.size() < 2) {
+                continue;
+            }
+
+            for (int i = 0; i < analysed.size(); i++) {
+                List<Long> peers = new ArrayList<>(p99s);
+                long p99 = peers.remove(i);
+                peers.sort(null);
+                double median = peers.size() % 2 == 1
+                        ? peers.get(peers.size() / 2)
+                        : (peers.get(peers.size() / 2 - 1) + peers.get(peers.size() / 2)) / 2.0;
+
+                Endpoint endpoint = analysed.get(i);
+                if (p99 <= policy.getOutlierLatencyFactor() * median) {
+                    passed.add(endpoint);
+                } else {
+                    outliers.add(endpoint);
+                    if (ejected < maxEjected && endpoint.getHealth().getState(now) != Endpoint.State.EJECTED) {
+                        endpoint.getHealth().eject(now);
+                        ejected++;
+                    }
+                }
+            }
+        }
+
+        passed.removeAll(outliers);
+        passed.forEach(endpoint -> endpoint.getHealth().clearEjections());
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
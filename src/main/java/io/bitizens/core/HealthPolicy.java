@@ -0,0 +1,307 @@
+package io.bitizens.core;
+
+import java.time.Duration;
+
+/**
+ * HealthPolicy defines how Jotenberg decides whether an endpoint should receive requests.
+ * <ul>
+ *     <li>Active health checking probes the {@code /health} route of every endpoint at a fixed interval.</li>
+ *     <li>A circuit breaker opens when the failure rate of the recent requests, or the number of consecutive timeouts,
+ *     crosses a threshold. Once open, the endpoint receives no requests until the open duration has elapsed, after
+ *     which a single trial request, or a successful health check, closes the circuit again.</li>
+ *     <li>Outlier ejection temporarily removes an endpoint whose p99 latency exceeds the median p99 of its peers by the
+ *     configured factor. Repeated ejections last longer.</li>
+ *     <li>Endpoints coming back from an open circuit or an ejection are ramped up gradually over the ramp-up
+ *     duration rather than receiving their full share of traffic right away.</li>
+ * </ul>
+ * When no endpoint is available, requests are spread across all endpoints rather than failing outright.
+ */
+public final class HealthPolicy {
+    private final Duration checkInterval;
+    private final Duration checkTimeout;
+    private final double failureRateThreshold;
+    private final int minimumRequests;
+    private final int slidingWindowSize;
+    private final int consecutiveTimeoutsThreshold;
+    private final Duration openDuration;
+    private final double outlierLatencyFactor;
+    private final int minimumLatencySamples;
+    private final Duration ejectionDuration;
+    private final int maxEjectionPercent;
+    private final Duration rampUpDuration;
+
+    private HealthPolicy(Builder builder) {
+        checkInterval = builder.checkInterval;
+        checkTimeout = builder.checkTimeout;
+        failureRateThreshold = builder.failureRateThreshold;
+        minimumRequests = builder.minimumRequests;
+        slidingWindowSize = builder.slidingWindowSize;
+        consecutiveTimeoutsThreshold = builder.consecutiveTimeoutsThreshold;
+        openDuration = builder.openDuration;
+        outlierLatencyFactor = builder.outlierLatencyFactor;
+        minimumLatencySamples = builder.minimumLatencySamples;
+        ejectionDuration = builder.ejectionDuration;
+        maxEjectionPercent = builder.maxEjectionPercent;
+        rampUpDuration = builder.rampUpDuration;
+    }
+
+    /**
+     * Returns a policy with the default settings.
+     *
+     * @return The default policy.
+     */
+    public static HealthPolicy defaults() {
+        return new Builder().build();
+    }
+
+    public Duration getCheckInterval() {
+        return checkInterval;
+    }
+
+    public Duration getCheckTimeout() {
+        return checkTimeout;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getMinimumRequests() {
+        return minimumRequests;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getConsecutiveTimeoutsThreshold() {
+        return consecutiveTimeoutsThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public double getOutlierLatencyFactor() {
+        return outlierLatencyFactor;
+    }
+
+    public int getMinimumLatencySamples() {
+        return minimumLatencySamples;
+    }
+
+    public Duration getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    public Duration getRampUpDuration() {
+        return rampUpDuration;
+    }
+
+    /**
+     * The Builder class is used to construct instances of HealthPolicy with specific thresholds.
+     */
+    public static class Builder {
+        private Duration checkInterval = Duration.ofSeconds(10);
+        private Duration checkTimeout = Duration.ofSeconds(2);
+        private double failureRateThreshold = 0.5;
+        private int minimumRequests = 20;
+        private int slidingWindowSize = 100;
+        private int consecutiveTimeoutsThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private double outlierLatencyFactor = 3.0;
+        private int minimumLatencySamples = 50;
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+        private int maxEjectionPercent = 50;
+        private Duration rampUpDuration = Duration.ofSeconds(30);
+
+        /**
+         * Sets the interval between two health checks of an endpoint, which is also the interval between two outlier
+         * analyses. Passing {@code null} disables both, leaving only the circuit breaker.
+         *
+         * @param checkInterval Health check interval.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is not positive.
+         */
+        public Builder checkInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval == null ? null : requirePositive(checkInterval, "checkInterval");
+            return this;
+        }
+
+        /**
+         * Sets the time after which a health check is considered failed.
+         *
+         * @param checkTimeout Health check timeout.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is not positive.
+         */
+        public Builder checkTimeout(Duration checkTimeout) {
+            this.checkTimeout = requirePositive(checkTimeout, "checkTimeout");
+            return this;
+        }
+
+        /**
+         * Sets the share of failed requests, among the recent ones, above which the circuit opens.
+         *
+         * @param failureRateThreshold Failure rate between 0 (exclusive) and 1 (inclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            if (!(failureRateThreshold > 0 && failureRateThreshold <= 1)) {
+                throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]");
+            }
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the number of recent requests required before the failure rate is taken into account.
+         *
+         * @param minimumRequests Minimum number of requests.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder minimumRequests(int minimumRequests) {
+            this.minimumRequests = requirePositive(minimumRequests, "minimumRequests");
+            return this;
+        }
+
+        /**
+         * Sets the number of recent requests the failure rate is computed over.
+         *
+         * @param slidingWindowSize Number of requests.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder slidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = requirePositive(slidingWindowSize, "slidingWindowSize");
+            return this;
+        }
+
+        /**
+         * Sets the number of consecutive timeouts after which the circuit opens.
+         *
+         * @param consecutiveTimeoutsThreshold Number of timeouts.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder consecutiveTimeoutsThreshold(int consecutiveTimeoutsThreshold) {
+            this.consecutiveTimeoutsThreshold = requirePositive(consecutiveTimeoutsThreshold, "consecutiveTimeoutsThreshold");
+            return this;
+        }
+
+        /**
+         * Sets how long an open circuit keeps its endpoint out of rotation before a trial request is let through.
+         *
+         * @param openDuration Open duration.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is not positive.
+         */
+        public Builder openDuration(Duration openDuration) {
+            this.openDuration = requirePositive(openDuration, "openDuration");
+            return this;
+        }
+
+        /**
+         * Sets how many times the median p99 latency of its peers an endpoint's p99 latency must exceed to be
+         * ejected.
+         *
+         * @param outlierLatencyFactor Latency factor, greater than 1.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not greater than 1.
+         */
+        public Builder outlierLatencyFactor(double outlierLatencyFactor) {
+            if (!(outlierLatencyFactor > 1)) {
+                throw new IllegalArgumentException("outlierLatencyFactor must be greater than 1");
+            }
+            this.outlierLatencyFactor = outlierLatencyFactor;
+            return this;
+        }
+
+        /**
+         * Sets the number of latency samples an endpoint needs before it takes part in outlier analysis.
+         *
+         * @param minimumLatencySamples Minimum number of samples.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder minimumLatencySamples(int minimumLatencySamples) {
+            this.minimumLatencySamples = requirePositive(minimumLatencySamples, "minimumLatencySamples");
+            return this;
+        }
+
+        /**
+         * Sets how long a first ejection lasts. Each consecutive ejection of the same endpoint lasts one more period.
+         *
+         * @param ejectionDuration Base ejection duration.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is not positive.
+         */
+        public Builder ejectionDuration(Duration ejectionDuration) {
+            this.ejectionDuration = requirePositive(ejectionDuration, "ejectionDuration");
+            return this;
+        }
+
+        /**
+         * Sets the maximum share of endpoints that can be ejected at the same time. Zero disables outlier ejection.
+         *
+         * @param maxEjectionPercent Percentage between 0 and 100.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder maxEjectionPercent(int maxEjectionPercent) {
+            if (maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+                throw new IllegalArgumentException("maxEjectionPercent must be between 0 and 100");
+            }
+            this.maxEjectionPercent = maxEjectionPercent;
+            return this;
+        }
+
+        /**
+         * Sets how long a re-admitted endpoint takes to get back its full share of requests. Zero re-admits endpoints
+         * at full share right away.
+         *
+         * @param rampUpDuration Ramp-up duration.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is negative.
+         */
+        public Builder rampUpDuration(Duration rampUpDuration) {
+            if (rampUpDuration == null || rampUpDuration.isNegative()) {
+                throw new IllegalArgumentException("rampUpDuration must not be negative");
+            }
+            this.rampUpDuration = rampUpDuration;
+            return this;
+        }
+
+        /**
+         * Builds an instance of HealthPolicy with the configured settings.
+         *
+         * @return An instance of HealthPolicy.
+         */
+        public HealthPolicy build() {
+            if (minimumRequests > slidingWindowSize) {
+                throw new IllegalArgumentException("minimumRequests must not exceed slidingWindowSize");
+            }
+            return new HealthPolicy(this);
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            if (value == null || value.isZero() || value.isNegative()) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.bitizens.core;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * HedgePolicy defines when Jotenberg sends a duplicate of a slow request to another endpoint to cut tail latency.
+ * <p>
+ * A request of a hedged route family that has not been answered after the configured percentile of the recent
+ * latencies of its route is sent again, to another endpoint when there is one. The first answer wins and the other
+ * request is aborted. Hedges draw from a budget replenished by every hedgeable request, so that they never exceed the
+ * configured share of the traffic, even when every request turns slow.
+ * <p>
+ * Gotenberg conversions have no side effects, which makes them safe to duplicate. Only Chromium routes, whose tail
+ * latency is dominated by the occasional slow browser instance, are hedged by default.
+ */
+public final class HedgePolicy {
+    private final double percentile;
+    private final Duration minDelay;
+    private final int minimumSamples;
+    private final double budgetRatio;
+    private final Set<RouteFamily> families;
+
+    private HedgePolicy(Builder builder) {
+        percentile = builder.percentile;
+        minDelay = builder.minDelay;
+        minimumSamples = builder.minimumSamples;
+        budgetRatio = builder.budgetRatio;
+        families = Collections.unmodifiableSet(EnumSet.copyOf(builder.families));
+    }
+
+    /**
+     * Returns a policy with the default settings.
+     *
+     * @return The default policy.
+     */
+    public static HedgePolicy defaults() {
+        return new Builder().build();
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public int getMinimumSamples() {
+        return minimumSamples;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public Set<RouteFamily> getFamilies() {
+        return families;
+    }
+
+    /**
+     * The Builder class is used to construct instances of HedgePolicy with specific thresholds.
+     */
+    public static class Builder {
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(50);
+        private int minimumSamples = 20;
+        private double budgetRatio = 0.05;
+        private Set<RouteFamily> families = EnumSet.of(RouteFamily.CHROMIUM);
+
+        /**
+         * Sets the percentile of the recent latencies of a route after which a request is hedged.
+         *
+         * @param percentile Percentile between 0 and 1 (exclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder percentile(double percentile) {
+            if (!(percentile > 0 && percentile < 1)) {
+                throw new IllegalArgumentException("percentile must be in (0, 1)");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the minimum time to wait before hedging, whatever the recent latencies.
+         *
+         * @param minDelay Minimum hedge delay.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is null or negative.
+         */
+        public Builder minDelay(Duration minDelay) {
+            if (minDelay == null || minDelay.isNegative()) {
+                throw new IllegalArgumentException("minDelay must not be negative");
+            }
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * Sets the number of latency samples a route needs before its requests are hedged.
+         *
+         * @param minimumSamples Minimum number of samples.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder minimumSamples(int minimumSamples) {
+            if (minimumSamples <= 0) {
+                throw new IllegalArgumentException("minimumSamples must be positive");
+            }
+            this.minimumSamples = minimumSamples;
+            return this;
+        }
+
+        /**
+         * Sets the maximum share of hedgeable requests that can be hedged.
+         *
+         * @param budgetRatio Ratio between 0 (exclusive) and 1 (inclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder budgetRatio(double budgetRatio) {
+            if (!(budgetRatio > 0 && budgetRatio <= 1)) {
+                throw new IllegalArgumentException("budgetRatio must be in (0, 1]");
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Sets the route families whose requests are hedged.
+         *
+         * @param families The hedged route families.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if no family is given.
+         */
+        public Builder families(RouteFamily... families) {
+            if (families.length == 0) {
+                throw new IllegalArgumentException("families must not be empty");
+            }
+            this.families = EnumSet.of(families[0], families);
+            return this;
+        }
+
+        /**
+         * Builds an instance of HedgePolicy with the configured settings.
+         *
+         * @return An instance of HedgePolicy.
+         */
+        public HedgePolicy build() {
+            return new HedgePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,630 @@
+package io.bitizens.core;
+
+import io.bitizens.cache.AssetCache;
+import io.bitizens.cache.ConversionCache;
+import io.bitizens.metrics.MetricsRecorder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JotenbergConfig holds the HTTP transport settings used by Jotenberg: connection pool sizing, keep-alive and idle
+ * connection eviction, socket options and timeouts. It also holds the balancing of requests across endpoints, their
+ * health tracking, adaptive concurrency limits, request hedging and retries, the optional result and asset caches and
+ * request coalescer, as well as the recorder of the client's metrics, the listener of request phases and the receiver of
+ * webhook callbacks.
+ * <p>
+ * Pool sizes apply to each endpoint, since every endpoint owns its connection pool.
+ * <p>
+ * A {@code null} duration leaves the corresponding setting at the HTTP client's default, which for timeouts means
+ * waiting indefinitely.
+ */
+public final class JotenbergConfig {
+    private final int maxConnectionsTotal;
+    private final int maxConnectionsPerRoute;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration leaseTimeout;
+    private final Duration keepAlive;
+    private final Duration connectionTimeToLive;
+    private final Duration evictIdleConnectionsAfter;
+    private final Duration validateAfterInactivity;
+    private final boolean tcpNoDelay;
+    private final int socketSendBufferSize;
+    private final int socketReceiveBufferSize;
+    private final int connectionBufferSize;
+    private final LoadBalancer loadBalancer;
+    private final HealthPolicy healthPolicy;
+    private final LimitPolicy limitPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final RetryPolicy retryPolicy;
+    private final ConversionCache cache;
+    private final AssetCache assetCache;
+    private final RequestCoalescer coalescer;
+    private final MetricsRecorder metrics;
+    private final ConversionListener listener;
+    private final WebhookReceiver webhookReceiver;
+
+    private JotenbergConfig(Builder builder) {
+        maxConnectionsTotal = builder.maxConnectionsTotal;
+        maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        connectTimeout = builder.connectTimeout;
+        readTimeout = builder.readTimeout;
+        leaseTimeout = builder.leaseTimeout;
+        keepAlive = builder.keepAlive;
+        connectionTimeToLive = builder.connectionTimeToLive;
+        evictIdleConnectionsAfter = builder.evictIdleConnectionsAfter;
+        validateAfterInactivity = builder.validateAfterInactivity;
+        tcpNoDelay = builder.tcpNoDelay;
+        socketSendBufferSize = builder.socketSendBufferSize;
+        socketReceiveBufferSize = builder.socketReceiveBufferSize;
+        connectionBufferSize = builder.connectionBufferSize;
+        loadBalancer = builder.loadBalancer;
+        healthPolicy = builder.healthPolicy;
+        limitPolicy = builder.limitPolicy;
+        hedgePolicy = builder.hedgePolicy;
+        retryPolicy = builder.retryPolicy;
+        cache = builder.cache;
+        assetCache = builder.assetCache;
+        coalescer = builder.coalescer;
+        metrics = builder.metrics;
+        listener = builder.listener;
+        webhookReceiver = builder.webhookReceiver;
+    }
+
+    /**
+     * Returns a configuration with the default settings.
+     *
+     * @return The default configuration.
+     */
+    public static JotenbergConfig defaults() {
+        return new Builder().build();
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    /**
+     * Returns the policy deciding which endpoints receive requests.
+     *
+     * @return The policy or {@code null} if health tracking is disabled.
+     */
+    public HealthPolicy getHealthPolicy() {
+        return healthPolicy;
+    }
+
+    /**
+     * Returns the policy of the adaptive concurrency limiters.
+     *
+     * @return The policy or {@code null} if concurrency limiting is disabled.
+     */
+    public LimitPolicy getLimitPolicy() {
+        return limitPolicy;
+    }
+
+    /**
+     * Returns the policy hedging slow requests.
+     *
+     * @return The policy or {@code null} if hedging is disabled.
+     */
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * Returns the policy retrying failed requests.
+     *
+     * @return The policy or {@code null} if retries are disabled.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Returns the cache serving repeated conversions.
+     *
+     * @return The cache or {@code null} if caching is disabled.
+     */
+    public ConversionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the cache holding the files uploaded by many conversions in memory.
+     *
+     * @return The cache or {@code null} if asset caching is disabled.
+     */
+    public AssetCache getAssetCache() {
+        return assetCache;
+    }
+
+    /**
+     * Returns the coalescer sharing identical in-flight conversions.
+     *
+     * @return The coalescer or {@code null} if coalescing is disabled.
+     */
+    public RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Returns the recorder of request, byte and connection pool metrics.
+     *
+     * @return The recorder, {@link MetricsRecorder#noop()} if none is configured.
+     */
+    public MetricsRecorder getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the listener notified of the phases of every request.
+     *
+     * @return The listener or {@code null} if none is configured.
+     */
+    public ConversionListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Returns the receiver of the results of conversions submitted in webhook mode.
+     *
+     * @return The receiver or {@code null} if webhook mode is disabled.
+     */
+    public WebhookReceiver getWebhookReceiver() {
+        return webhookReceiver;
+    }
+
+    /**
+     * Creates a pooled connection manager sized and tuned according to this configuration.
+     *
+     * @return A new connection manager.
+     */
+    public PoolingHttpClientConnectionManager createConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = connectionTimeToLive == null
+                ? new PoolingHttpClientConnectionManager()
+                : new PoolingHttpClientConnectionManager(connectionTimeToLive.toMillis(), TimeUnit.MILLISECONDS);
+
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(tcpNoDelay)
+                .setSoKeepAlive(true)
+                .setSndBufSize(socketSendBufferSize)
+                .setRcvBufSize(socketReceiveBufferSize)
+                .setSoTimeout(Math.max(0, toMillis(readTimeout)))
+                .build());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setBufferSize(connectionBufferSize)
+                .build());
+
+        if (validateAfterInactivity != null) {
+            connectionManager.setValidateAfterInactivity(toMillis(validateAfterInactivity));
+        }
+
+        return connectionManager;
+    }
+
+    /**
+     * Creates an HTTP client backed by the given connection manager. The client owns the connection manager and
+     * shuts it down when closed.
+     *
+     * @param connectionManager The connection manager created by {@link #createConnectionManager()}.
+     * @return A new HTTP client.
+     */
+    public CloseableHttpClient createClient(PoolingHttpClientConnectionManager connectionManager) {
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .setRequestExecutor(new TracingRequestExecutor())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(toMillis(connectTimeout))
+                        .setSocketTimeout(toMillis(readTimeout))
+                        .setConnectionRequestTimeout(toMillis(leaseTimeout))
+                        .build());
+
+        if (evictIdleConnectionsAfter != null) {
+            builder.evictExpiredConnections()
+                    .evictIdleConnections(evictIdleConnectionsAfter.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Honours the server's Keep-Alive header, capped by the configured keep-alive duration when one is set.
+     */
+    ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            if (keepAlive == null) {
+                return advertised;
+            }
+            long max = keepAlive.toMillis();
+            return advertised > 0 ? Math.min(advertised, max) : max;
+        };
+    }
+
+    private static int toMillis(Duration duration) {
+        return duration == null ? -1 : (int) Math.min(Integer.MAX_VALUE, duration.toMillis());
+    }
+
+    /**
+     * The Builder class is used to construct instances of JotenbergConfig with specific transport settings.
+     */
+    public static class Builder {
+        private int maxConnectionsTotal = 50;
+        private int maxConnectionsPerRoute = 10;
+        private Duration connectTimeout = null;
+        private Duration readTimeout = null;
+        private Duration leaseTimeout = null;
+        private Duration keepAlive = null;
+        private Duration connectionTimeToLive = null;
+        private Duration evictIdleConnectionsAfter = Duration.ofSeconds(30);
+        private Duration validateAfterInactivity = null;
+        private boolean tcpNoDelay = true;
+        private int socketSendBufferSize = 0;
+        private int socketReceiveBufferSize = 0;
+        private int connectionBufferSize = 8 * 1024;
+        private LoadBalancer loadBalancer = LoadBalancer.powerOfTwoChoices();
+        private HealthPolicy healthPolicy = null;
+        private LimitPolicy limitPolicy = null;
+        private HedgePolicy hedgePolicy = null;
+        private RetryPolicy retryPolicy = null;
+        private ConversionCache cache = null;
+        private AssetCache assetCache = null;
+        private RequestCoalescer coalescer = null;
+        private MetricsRecorder metrics = MetricsRecorder.noop();
+        private ConversionListener listener = null;
+        private WebhookReceiver webhookReceiver = null;
+
+        /**
+         * Sets the maximum number of pooled connections across all routes.
+         *
+         * @param maxConnectionsTotal Maximum number of connections.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = requirePositive(maxConnectionsTotal, "maxConnectionsTotal");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections per Gotenberg endpoint. It should match the number of
+         * conversions the endpoint can process concurrently.
+         *
+         * @param maxConnectionsPerRoute Maximum number of connections per route.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = requirePositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+            return this;
+        }
+
+        /**
+         * Sets the timeout for establishing a connection.
+         *
+         * @param connectTimeout Connect timeout.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the socket read timeout, i.e. the maximum inactivity between two consecutive data packets. It should
+         * be longer than the slowest conversion Gotenberg is expected to perform.
+         *
+         * @param readTimeout Read timeout.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder readTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a connection to be leased from the pool.
+         *
+         * @param leaseTimeout Lease timeout.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder leaseTimeout(Duration leaseTimeout) {
+            this.leaseTimeout = leaseTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time an idle connection is kept alive. Shorter Keep-Alive values advertised by the server
+         * take precedence.
+         *
+         * @param keepAlive Maximum keep-alive duration.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * Sets the total time to live of pooled connections, regardless of activity.
+         *
+         * @param connectionTimeToLive Connection time to live.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder connectionTimeToLive(Duration connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the idle time after which pooled connections are closed by a background evictor. Passing {@code null}
+         * disables the evictor.
+         *
+         * @param evictIdleConnectionsAfter Maximum idle time.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder evictIdleConnectionsAfter(Duration evictIdleConnectionsAfter) {
+            this.evictIdleConnectionsAfter = evictIdleConnectionsAfter;
+            return this;
+        }
+
+        /**
+         * Sets the inactivity period after which pooled connections are revalidated before being leased.
+         *
+         * @param validateAfterInactivity Inactivity period.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder validateAfterInactivity(Duration validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        /**
+         * Sets whether Nagle's algorithm is disabled on sockets.
+         *
+         * @param tcpNoDelay `true` to disable Nagle's algorithm, `false` otherwise.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder tcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * Sets the socket send buffer size in bytes. Zero keeps the operating system default.
+         *
+         * @param socketSendBufferSize Send buffer size.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder socketSendBufferSize(int socketSendBufferSize) {
+            this.socketSendBufferSize = requireNonNegative(socketSendBufferSize, "socketSendBufferSize");
+            return this;
+        }
+
+        /**
+         * Sets the socket receive buffer size in bytes. Zero keeps the operating system default.
+         *
+         * @param socketReceiveBufferSize Receive buffer size.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder socketReceiveBufferSize(int socketReceiveBufferSize) {
+            this.socketReceiveBufferSize = requireNonNegative(socketReceiveBufferSize, "socketReceiveBufferSize");
+            return this;
+        }
+
+        /**
+         * Sets the size of the client-side I/O buffer of each connection in bytes.
+         *
+         * @param connectionBufferSize Connection buffer size.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder connectionBufferSize(int connectionBufferSize) {
+            this.connectionBufferSize = requirePositive(connectionBufferSize, "connectionBufferSize");
+            return this;
+        }
+
+        /**
+         * Sets the strategy picking the endpoint of each request when several are configured. Defaults to
+         * {@link LoadBalancer#powerOfTwoChoices()}.
+         *
+         * @param loadBalancer The load balancer.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the load balancer is null.
+         */
+        public Builder loadBalancer(LoadBalancer loadBalancer) {
+            if (loadBalancer == null) {
+                throw new IllegalArgumentException("loadBalancer must not be null");
+            }
+            this.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        /**
+         * Sets the policy driving health checks, circuit breaking and outlier ejection of the endpoints. Passing
+         * {@code null} disables health tracking, which is the default.
+         *
+         * @param healthPolicy The health policy.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder healthPolicy(HealthPolicy healthPolicy) {
+            this.healthPolicy = healthPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the policy of the adaptive concurrency limiters bounding the in-flight requests of each route family.
+         * Passing {@code null} disables concurrency limiting, which is the default.
+         *
+         * @param limitPolicy The limit policy.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder limitPolicy(LimitPolicy limitPolicy) {
+            this.limitPolicy = limitPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the policy sending duplicates of slow requests to another endpoint. Passing {@code null} disables
+         * hedging, which is the default.
+         *
+         * @param hedgePolicy The hedge policy.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder hedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * Sets the policy retrying requests that failed to reach Gotenberg or were rejected by an overloaded or
+         * restarting instance. Passing {@code null} disables retries, which is the default.
+         *
+         * @param retryPolicy The retry policy.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sets the cache serving repeated conversions without reaching Gotenberg. Passing {@code null} disables
+         * caching, which is the default.
+         *
+         * @param cache The result cache.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder cache(ConversionCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets the cache serving the files uploaded by many conversions, such as stylesheets, fonts or headers, from
+         * memory. Passing {@code null} disables asset caching, which is the default.
+         *
+         * @param assetCache The asset cache.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder assetCache(AssetCache assetCache) {
+            this.assetCache = assetCache;
+            return this;
+        }
+
+        /**
+         * Sets the coalescer letting identical conversions share a single in-flight request. Passing {@code null}
+         * disables coalescing, which is the default.
+         *
+         * @param coalescer The request coalescer.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder coalescer(RequestCoalescer coalescer) {
+            this.coalescer = coalescer;
+            return this;
+        }
+
+        /**
+         * Sets the recorder receiving the latency, status and byte count of every request and sampling the gauges of
+         * the connection pools. Defaults to {@link MetricsRecorder#noop()}, which records nothing.
+         *
+         * @param metrics The metrics recorder.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the recorder is null.
+         */
+        public Builder metrics(MetricsRecorder metrics) {
+            if (metrics == null) {
+                throw new IllegalArgumentException("metrics must not be null");
+            }
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Sets the listener notified when requests are queued, lease a connection, upload their documents, receive
+         * their first byte and complete or fail. Passing {@code null} disables notifications, which is the default.
+         *
+         * @param listener The conversion listener.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder listener(ConversionListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the receiver of webhook callbacks, enabling the asynchronous conversion methods. The receiver is started
+         * and closed by the caller, and can be shared between clients. Passing {@code null} disables webhook mode,
+         * which is the default.
+         *
+         * @param webhookReceiver The webhook receiver.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder webhookReceiver(WebhookReceiver webhookReceiver) {
+            this.webhookReceiver = webhookReceiver;
+            return this;
+        }
+
+        /**
+         * Builds an instance of JotenbergConfig with the configured settings.
+         *
+         * @return An instance of JotenbergConfig.
+         */
+        public JotenbergConfig build() {
+            if (maxConnectionsPerRoute > maxConnectionsTotal) {
+                throw new IllegalArgumentException("maxConnectionsPerRoute must not exceed maxConnectionsTotal");
+            }
+            return new JotenbergConfig(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static int requireNonNegative(int value, String name) {
+            if (value < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+    }
+}
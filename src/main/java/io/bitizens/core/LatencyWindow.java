@@ -0,0 +1,39 @@
+package io.bitizens.core;
+
+import java.util.Arrays;
+
+/**
+ * LatencyWindow keeps the most recent latency samples of a route to estimate its percentiles.
+ */
+final class LatencyWindow {
+    private final long[] samples;
+    private int index;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long latency) {
+        samples[index] = latency;
+        index = (index + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * Returns the given percentile of the recorded samples.
+     *
+     * @return The latency in nanoseconds, or -1 if fewer than the minimum number of samples were recorded.
+     */
+    long percentile(double percentile, int minimumSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if (count < minimumSamples || count == 0) {
+                return -1L;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(percentile * sorted.length) - 1))];
+    }
+}
@@ -0,0 +1,223 @@
+package io.bitizens.core;
+
+import java.time.Duration;
+
+/**
+ * LimitPolicy configures the adaptive concurrency limiters Jotenberg keeps for each {@link RouteFamily}.
+ * <p>
+ * Each limiter starts at the initial limit and adjusts it after every response. A 429 or 503 answer, or a timeout,
+ * cuts the limit by the backoff ratio. Other responses move the limit by the gradient between the long-term and the
+ * recent latency: the limit grows while latency stays within the tolerance of its long-term average and shrinks as
+ * requests start queueing inside Gotenberg. Requests beyond the limit wait locally for up to the maximum queue time,
+ * and are rejected with a {@link io.bitizens.common.exceptions.ConcurrencyLimitExceededException} once the queue is
+ * full or the time has elapsed.
+ */
+public final class LimitPolicy {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double smoothing;
+    private final int maxQueueLength;
+    private final Duration maxQueueTime;
+
+    private LimitPolicy(Builder builder) {
+        initialLimit = builder.initialLimit;
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        backoffRatio = builder.backoffRatio;
+        latencyTolerance = builder.latencyTolerance;
+        smoothing = builder.smoothing;
+        maxQueueLength = builder.maxQueueLength;
+        maxQueueTime = builder.maxQueueTime;
+    }
+
+    /**
+     * Returns a policy with the default settings.
+     *
+     * @return The default policy.
+     */
+    public static LimitPolicy defaults() {
+        return new Builder().build();
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    public Duration getMaxQueueTime() {
+        return maxQueueTime;
+    }
+
+    /**
+     * The Builder class is used to construct instances of LimitPolicy with specific bounds.
+     */
+    public static class Builder {
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2.0;
+        private double smoothing = 0.2;
+        private int maxQueueLength = 1000;
+        private Duration maxQueueTime = Duration.ofSeconds(30);
+
+        /**
+         * Sets the limit each limiter starts from.
+         *
+         * @param initialLimit Initial concurrency limit.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = requirePositive(initialLimit, "initialLimit");
+            return this;
+        }
+
+        /**
+         * Sets the limit below which limiters never go.
+         *
+         * @param minLimit Minimum concurrency limit.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder minLimit(int minLimit) {
+            this.minLimit = requirePositive(minLimit, "minLimit");
+            return this;
+        }
+
+        /**
+         * Sets the limit above which limiters never go.
+         *
+         * @param maxLimit Maximum concurrency limit.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = requirePositive(maxLimit, "maxLimit");
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the limit when Gotenberg signals saturation.
+         *
+         * @param backoffRatio Ratio between 0.5 and 1 (exclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            if (!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("backoffRatio must be in [0.5, 1)");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets how many times its long-term average the recent latency may reach before the limit starts shrinking.
+         *
+         * @param latencyTolerance Latency tolerance, at least 1.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is less than 1.
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            if (!(latencyTolerance >= 1)) {
+                throw new IllegalArgumentException("latencyTolerance must be at least 1");
+            }
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Sets how much of each latency-driven adjustment is applied to the limit.
+         *
+         * @param smoothing Smoothing factor between 0 (exclusive) and 1 (inclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder smoothing(double smoothing) {
+            if (!(smoothing > 0 && smoothing <= 1)) {
+                throw new IllegalArgumentException("smoothing must be in (0, 1]");
+            }
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests waiting locally for a slot. Zero rejects excess requests right away.
+         *
+         * @param maxQueueLength Maximum queue length.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxQueueLength(int maxQueueLength) {
+            if (maxQueueLength < 0) {
+                throw new IllegalArgumentException("maxQueueLength must not be negative");
+            }
+            this.maxQueueLength = maxQueueLength;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a request waits locally for a slot.
+         *
+         * @param maxQueueTime Maximum queue time.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is null or negative.
+         */
+        public Builder maxQueueTime(Duration maxQueueTime) {
+            if (maxQueueTime == null || maxQueueTime.isNegative()) {
+                throw new IllegalArgumentException("maxQueueTime must not be negative");
+            }
+            this.maxQueueTime = maxQueueTime;
+            return this;
+        }
+
+        /**
+         * Builds an instance of LimitPolicy with the configured settings.
+         *
+         * @return An instance of LimitPolicy.
+         */
+        public LimitPolicy build() {
+            if (minLimit > maxLimit) {
+                throw new IllegalArgumentException("minLimit must not exceed maxLimit");
+            }
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+            }
+            return new LimitPolicy(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+    }
+}
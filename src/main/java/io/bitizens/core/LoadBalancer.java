@@ -0,0 +1,64 @@
+package io.bitizens.core;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LoadBalancer picks the endpoint a request is sent to.
+ */
+@FunctionalInterface
+public interface LoadBalancer {
+
+    /**
+     * Picks the endpoint of the next request.
+     *
+     * @param endpoints The candidate endpoints. The list is never empty.
+     * @return One of the candidates.
+     */
+    Endpoint select(List<Endpoint> endpoints);
+
+    /**
+     * Returns a balancer picking the endpoint with the fewest outstanding requests. Ties are broken randomly.
+     *
+     * @return The balancer.
+     */
+    static LoadBalancer leastOutstandingRequests() {
+        return endpoints -> {
+            int size = endpoints.size();
+            int offset = size == 1 ? 0 : ThreadLocalRandom.current().nextInt(size);
+            Endpoint selected = null;
+            for (int i = 0; i < size; i++) {
+                Endpoint candidate = endpoints.get((offset + i) % size);
+                if (selected == null || candidate.getInFlightCount() < selected.getInFlightCount()) {
+                    selected = candidate;
+                }
+            }
+            return selected;
+        };
+    }
+
+    /**
+     * Returns a balancer sampling two endpoints at random and picking the one with fewer outstanding requests. It
+     * avoids the herding of {@link #leastOutstandingRequests()} when many clients share stale views of the same
+     * nodes.
+     *
+     * @return The balancer.
+     */
+    static LoadBalancer powerOfTwoChoices() {
+        return endpoints -> {
+            int size = endpoints.size();
+            if (size == 1) {
+                return endpoints.get(0);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            Endpoint a = endpoints.get(first);
+            Endpoint b = endpoints.get(second);
+            return b.getInFlightCount() < a.getInFlightCount() ? b : a;
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package io.bitizens.core;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * MeteredEntity wraps request and response entities to count the bytes flowing through them.
+ */
+final class MeteredEntity {
+    private MeteredEntity() {
+    }
+
+    /**
+     * Wraps a request entity, reporting the number of bytes written once the entity has been written.
+     */
+    static HttpEntity request(HttpEntity entity, LongConsumer sent) {
+        return new HttpEntityWrapper(entity) {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                long[] count = new long[1];
+                try {
+                    super.writeTo(new FilterOutputStream(out) {
+                        @Override
+                        public void write(int b) throws IOException {
+                            out.write(b);
+                            count[0]++;
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            out.write(b, off, len);
+                            count[0] += len;
+                        }
+                    });
+                } finally {
+                    sent.accept(count[0]);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a response entity, reporting the number of bytes read once its content has been fully read or closed, or
+     * once the response is {@link Response#discard() discarded}, whichever comes first.
+     */
+    static Response response(HttpEntity entity, LongConsumer received) {
+        return new Response(entity, received);
+    }
+
+    /**
+     * Response is a response entity counting the bytes read from it. The count is reported exactly once.
+     */
+    static final class Response extends HttpEntityWrapper {
+        private final LongConsumer received;
+        private final AtomicBoolean reported = new AtomicBoolean();
+        private volatile CountingInputStream content;
+
+        private Response(HttpEntity entity, LongConsumer received) {
+            super(entity);
+            this.received = received;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            CountingInputStream counting = new CountingInputStream(super.getContent(), this);
+            content = counting;
+            return counting;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try (InputStream in = getContent()) {
+                in.transferTo(out);
+            }
+        }
+
+        /**
+         * Reports the bytes read so far, unless they have been reported already. Called when the response is closed,
+         * so that responses dropped without reading their content, e.g. retried errors or hedge losers, are reported
+         * too.
+         */
+        void discard() {
+            CountingInputStream counting = content;
+            report(counting == null ? 0L : counting.count);
+        }
+
+        private void report(long count) {
+            if (reported.compareAndSet(false, true)) {
+                received.accept(count);
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Response response;
+        private volatile long count;
+
+        CountingInputStream(InputStream in, Response response) {
+            super(in);
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                response.report(count);
+            } else {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                response.report(count);
+            } else {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                response.report(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package io.bitizens.core;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestCoalescer lets identical conversions share a single round trip to Gotenberg. While a conversion is rendering,
+ * later conversions with the same {@link ConversionRequest#fingerprint() fingerprint} wait for it instead of starting
+ * their own render, and every caller receives its own copy of the response. Once the response has arrived, identical
+ * conversions start a render of their own.
+ * <p>
+ * A response nobody joined is handed to its caller as is, streaming from the connection. Otherwise the shared body is
+ * read once: bodies up to the configured buffer size are held in memory, larger ones are spooled to a temporary file
+ * that is deleted once every caller has closed its result. If the shared conversion fails, every waiting caller fails
+ * with the same error.
+ * <p>
+ * The shared request runs in an {@link AbortScope} of its own: aborting the scope of one caller, e.g. by cancelling the
+ * future of an asynchronous conversion, only aborts the request once every caller sharing it has given up.
+ * <p>
+ * Results handed to callers that joined an in-flight conversion carry a {@value #COALESCED_HEADER} header.
+ */
+public final class RequestCoalescer {
+    /**
+     * Header added to results shared with a conversion that was already in flight.
+     */
+    public static final String COALESCED_HEADER = "Jotenberg-Coalesced";
+
+    private final int maxBufferSize;
+    private final Path spoolDirectory;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private RequestCoalescer(Builder builder) {
+        maxBufferSize = builder.maxBufferSize;
+        spoolDirectory = builder.spoolDirectory;
+    }
+
+    /**
+     * Runs the call, unless a call with the same key is already in flight, in which case its response is shared.
+     *
+     * @param key  The fingerprint of the request.
+     * @param call The call performing the conversion.
+     * @return The result of the conversion.
+     * @throws IOException If the conversion fails or its response cannot be read.
+     */
+    ConversionResult execute(String key, Call call) throws IOException {
+        Flight created = new Flight();
+        Flight flight = flights.compute(key, (k, current) -> {
+            Flight joined = current == null ? created : current;
+            joined.participants++;
+            return joined;
+        });
+
+        if (flight != created) {
+            coalesced.increment();
+            try (AbortScope.Binding ignored = watch(key, flight)) {
+                return flight.await();
+            }
+        }
+
+        executions.increment();
+        ConversionResult result;
+        try (AbortScope.Binding ignored = watch(key, flight); AbortScope.Binding bound = flight.scope.bind()) {
+            result = call.run();
+        } catch (IOException | RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.body.completeExceptionally(e);
+            throw e;
+        }
+
+        flights.remove(key, flight);
+        if (flight.participants == 1) {
+            return result;
+        }
+
+        SharedBody shared;
+        try {
+            shared = SharedBody.read(result, maxBufferSize, spoolDirectory);
+        } catch (IOException | RuntimeException | Error e) {
+            flight.body.completeExceptionally(e);
+            throw e;
+        }
+        shared.readers = flight.participants;
+        flight.body.complete(shared);
+        return shared.newResult(false);
+    }
+
+    /**
+     * Counts the caller out of the flight once its own scope is aborted, and aborts the flight when nobody is left.
+     */
+    private AbortScope.Binding watch(String key, Flight flight) {
+        AbortScope caller = AbortScope.current();
+        if (caller == null) {
+            return () -> {
+            };
+        }
+        return caller.onAbort(() -> {
+            flights.computeIfPresent(key, (k, current) -> {
+                if (current != flight || ++flight.abandoned < flight.participants) {
+                    return current;
+                }
+                flight.deserted = true;
+                return null;
+            });
+            if (flight.deserted) {
+                flight.scope.abort();
+            }
+        });
+    }
+
+    /**
+     * Returns the number of conversions that actually reached Gotenberg.
+     *
+     * @return The number of executions.
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * Returns the number of conversions that shared the response of an in-flight conversion.
+     *
+     * @return The number of coalesced conversions.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of distinct conversions currently in flight.
+     *
+     * @return The number of in-flight conversions.
+     */
+    public int getInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * Call is a conversion that may be shared.
+     */
+    @FunctionalInterface
+    interface Call {
+        ConversionResult run() throws IOException;
+    }
+
+    /**
+     * Flight is a conversion in progress and the callers sharing it. Participants are only added, and only give up,
+     * while the flight is registered, so their number is final once the flight has been removed, before its body is
+     * published.
+     */
+    private static final class Flight {
+        private final CompletableFuture<SharedBody> body = new CompletableFuture<>();
+        private final AbortScope scope = new AbortScope();
+        private int participants;
+        private int abandoned;
+        private volatile boolean deserted;
+
+        private ConversionResult await() throws IOException {
+            SharedBody shared;
+            try {
+                shared = body.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                body.thenAccept(SharedBody::release);
+                throw new InterruptedIOException("Interrupted while waiting for a coalesced conversion");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException(cause.getMessage(), cause);
+            }
+            return shared.newResult(true);
+        }
+    }
+
+    /**
+     * SharedBody is a response read once and replayed to every participant of a flight.
+     */
+    private static final class SharedBody {
+        private final StatusLine statusLine;
+        private final Header[] headers;
+        private final ContentType contentType;
+        private final byte[] content;
+        private final Path spool;
+        private final long length;
+        private int readers;
+
+        private SharedBody(StatusLine statusLine, Header[] headers, ContentType contentType, byte[] content, Path spool, long length) {
+            this.statusLine = statusLine;
+            this.headers = headers;
+            this.contentType = contentType;
+            this.content = content;
+            this.spool = spool;
+            this.length = length;
+        }
+
+        static SharedBody read(ConversionResult result, int maxBufferSize, Path spoolDirectory) throws IOException {
+            try (ConversionResult ignored = result) {
+                HttpEntity entity = result.getEntity();
+                if (entity == null) {
+                    return new SharedBody(result.getStatusLine(), result.getAllHeaders(), null, null, null, -1L);
+                }
+                ContentType contentType = entity.getContentType() == null ? null : ContentType.parse(entity.getContentType().getValue());
+
+                InputStream in = entity.getContent();
+                byte[] head = in.readNBytes(maxBufferSize + 1);
+                if (head.length <= maxBufferSize) {
+                    return new SharedBody(result.getStatusLine(), result.getAllHeaders(), contentType, head, null, head.length);
+                }
+
+                Path spool = spoolDirectory == null ? Files.createTempFile("jotenberg-", ".part") : Files.createTempFile(spoolDirectory, "jotenberg-", ".part");
+                long length;
+                try (OutputStream out = Files.newOutputStream(spool)) {
+                    out.write(head);
+                    length = head.length + in.transferTo(out);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(spool);
+                    throw e;
+                }
+                return new SharedBody(result.getStatusLine(), result.getAllHeaders(), contentType, null, spool, length);
+            }
+        }
+
+        ConversionResult newResult(boolean follower) throws IOException {
+            DetachedResponse response = new DetachedResponse(statusLine);
+            response.setHeaders(headers);
+            if (follower) {
+                response.addHeader(COALESCED_HEADER, "true");
+            }
+
+            if (content != null) {
+                release();
+                response.setEntity(new ByteArrayEntity(content, contentType));
+            } else if (spool != null) {
+                InputStream in;
+                try {
+                    in = new FilterInputStream(Files.newInputStream(spool)) {
+                        private boolean closed;
+
+                        @Override
+                        public void close() throws IOException {
+                            super.close();
+                            if (!closed) {
+                                closed = true;
+                                release();
+                            }
+                        }
+                    };
+                } catch (IOException e) {
+                    release();
+                    throw e;
+                }
+                response.setEntity(new InputStreamEntity(in, length, contentType));
+                response.resource = in;
+            } else {
+                release();
+            }
+            return new ConversionResult(response);
+        }
+
+        /**
+         * Releases one reader and deletes the spooled body once the last one is done.
+         */
+        synchronized void release() {
+            if (--readers == 0 && spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * DetachedResponse is a copy of a shared response, not bound to any connection.
+     */
+    private static final class DetachedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        private Closeable resource;
+
+        DetachedResponse(StatusLine statusLine) {
+            super(statusLine);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+    }
+
+    /**
+     * The Builder class is used to construct instances of RequestCoalescer with specific buffering settings.
+     */
+    public static class Builder {
+        private int maxBufferSize = 4 * 1024 * 1024;
+        private Path spoolDirectory = null;
+
+        /**
+         * Sets the size above which shared bodies are spooled to a temporary file instead of being held in memory.
+         *
+         * @param maxBufferSize Maximum in-memory body size, in bytes.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is negative.
+         */
+        public Builder maxBufferSize(int maxBufferSize) {
+            if (maxBufferSize < 0 || maxBufferSize == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maxBufferSize must be between 0 and " + (Integer.MAX_VALUE - 1));
+            }
+            this.maxBufferSize = maxBufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the directory of the spooled bodies. Passing {@code null} uses the default temporary directory.
+         *
+         * @param spoolDirectory The spool directory.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder spoolDirectory(Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * Builds an instance of RequestCoalescer with the configured settings.
+         *
+         * @return An instance of RequestCoalescer.
+         */
+        public RequestCoalescer build() {
+            return new RequestCoalescer(this);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package io.bitizens.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestHedger races a duplicate against requests that are slower than usual, as defined by a {@link HedgePolicy}.
+ * <p>
+ * Hedged requests run on a cached pool of daemon threads, bound to child scopes of the caller's {@link AbortScope}, so
+ * that cancelling the caller aborts both requests. Each request of a race avoids the endpoint the other one picked, as
+ * of the moment it picks its own, since a request still queued by the concurrency limiter has not picked one yet when
+ * the hedge is started.
+ */
+final class RequestHedger implements AutoCloseable {
+    private static final int LATENCY_SAMPLES = 256;
+    private static final double MAX_BUDGET = 10.0;
+
+    private final HedgePolicy policy;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final LongAdder hedges = new LongAdder();
+    private double budget;
+
+    RequestHedger(HedgePolicy policy) {
+        this.policy = policy;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "jotenberg-hedge-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    boolean isHedged(ConversionRequest request) {
+        return request.isRepeatable() && policy.getFamilies().contains(RouteFamily.of(request.getRoute()));
+    }
+
+    long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * Runs the request, hedging it once it exceeds the hedge delay of its route if the budget allows.
+     */
+    ConversionResult execute(ConversionRequest request, Attempt attempt) throws IOException {
+        LatencyWindow window = latencies.computeIfAbsent(request.getRoute(), route -> new LatencyWindow(LATENCY_SAMPLES));
+        deposit();
+
+        long delay = window.percentile(policy.getPercentile(), policy.getMinimumSamples());
+        if (delay < 0) {
+            long start = System.nanoTime();
+            ConversionResult result = attempt.run(null, null);
+            if (result.getStatusCode() < 500) {
+                window.record(System.nanoTime() - start);
+            }
+            return result;
+        }
+
+        Race race = new Race(window, AbortScope.current());
+        race.start(attempt, race.hedgeEndpoint, race.primaryEndpoint);
+        try {
+            try {
+                return race.winner.get(Math.max(delay, policy.getMinDelay().toNanos()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (withdraw()) {
+                    hedges.increment();
+                    race.start(attempt, race.primaryEndpoint, race.hedgeEndpoint);
+                }
+                return race.winner.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a hedged request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        } finally {
+            race.abortLosers();
+        }
+    }
+
+    /**
+     * Stops the threads running hedged requests once they are done.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + policy.getBudgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1.0) {
+            return false;
+        }
+        budget -= 1.0;
+        return true;
+    }
+
+    /**
+     * Attempt sends a request to an endpoint other than the one the avoided reference holds when it picks its own, when
+     * possible, and reports the endpoint it picked.
+     */
+    @FunctionalInterface
+    interface Attempt {
+        ConversionResult run(AtomicReference<Endpoint> avoided, AtomicReference<Endpoint> selected) throws IOException;
+    }
+
+    /**
+     * Race is a request and its hedge. The first response completes the race, later ones are closed.
+     */
+    private final class Race {
+        private final CompletableFuture<ConversionResult> winner = new CompletableFuture<>();
+        private final AtomicReference<Endpoint> primaryEndpoint = new AtomicReference<>();
+        private final AtomicReference<Endpoint> hedgeEndpoint = new AtomicReference<>();
+        private final List<AbortScope> scopes = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final LatencyWindow window;
+        private final AbortScope parent;
+
+        private Race(LatencyWindow window, AbortScope parent) {
+            this.window = window;
+            this.parent = parent;
+        }
+
+        private void start(Attempt attempt, AtomicReference<Endpoint> avoided, AtomicReference<Endpoint> selected) {
+            if (winner.isDone()) {
+                return;
+            }
+            AbortScope scope = parent == null ? new AbortScope() : parent.child();
+            scopes.add(scope);
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> run(attempt, avoided, selected, scope));
+            } catch (RejectedExecutionException e) {
+                fail(scope, e);
+            }
+        }
+
+        private void run(Attempt attempt, AtomicReference<Endpoint> avoided, AtomicReference<Endpoint> selected, AbortScope scope) {
+            try (AbortScope.Binding ignored = scope.bind()) {
+                long start = System.nanoTime();
+                ConversionResult result = attempt.run(avoided, selected);
+                if (result.getStatusCode() < 500) {
+                    window.record(System.nanoTime() - start);
+                }
+                if (!winner.complete(result)) {
+                    result.close();
+                }
+                detach(scope);
+            } catch (Throwable e) {
+                fail(scope, e);
+            }
+        }
+
+        private void fail(AbortScope scope, Throwable failure) {
+            detach(scope);
+            if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(failure);
+            }
+        }
+
+        private void detach(AbortScope scope) {
+            if (parent != null) {
+                parent.detach(scope);
+            }
+        }
+
+        /**
+         * Aborts the requests still in flight. The winning request has already left its scope by the time it
+         * completes the race, so its response is left untouched.
+         */
+        private void abortLosers() {
+            scopes.forEach(AbortScope::abort);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.bitizens.core;
+
+import org.apache.http.Header;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestRetrier sends requests again according to a {@link RetryPolicy}, within its retry budget.
+ */
+final class RequestRetrier {
+    private static final double MAX_BUDGET = 10.0;
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final RetryPolicy policy;
+    private final LongAdder retries = new LongAdder();
+    private double budget = MAX_BUDGET;
+
+    RequestRetrier(RetryPolicy policy) {
+        this.policy = policy;
+    }
+
+    long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Runs the call until it succeeds, fails with an error that is not retryable, runs out of attempts or exhausts
+     * the budget. The last response is returned as is when no retry is left.
+     */
+    ConversionResult execute(Call call) throws IOException {
+        deposit();
+        for (int attempt = 1; ; attempt++) {
+            ConversionResult result;
+            try {
+                result = call.run();
+            } catch (IOException e) {
+                if (!policy.isRetryable(e) || !shouldRetry(attempt)) {
+                    throw e;
+                }
+                pause(attempt, null);
+                continue;
+            }
+
+            if (!policy.isRetryable(result.getStatusCode()) || !shouldRetry(attempt)) {
+                return result;
+            }
+            Duration retryAfter = retryAfter(result);
+            result.close();
+            pause(attempt, retryAfter);
+        }
+    }
+
+    private boolean shouldRetry(int attempt) {
+        AbortScope abortScope = AbortScope.current();
+        return attempt < policy.getMaxAttempts() && (abortScope == null || !abortScope.isAborted()) && withdraw();
+    }
+
+    private void pause(int attempt, Duration retryAfter) throws IOException {
+        retries.increment();
+        long backoff = policy.backoff(attempt).toNanos();
+        long nanos = backoff == 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff + 1);
+        if (retryAfter != null) {
+            nanos = Math.max(nanos, Math.min(retryAfter.toNanos(), policy.getMaxBackoff().toNanos()));
+        }
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    private static Duration retryAfter(ConversionResult result) {
+        Header header = result.getFirstHeader(RETRY_AFTER_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.getValue().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + policy.getBudgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1.0) {
+            return false;
+        }
+        budget -= 1.0;
+        return true;
+    }
+
+    /**
+     * Call is a request that may be retried.
+     */
+    @FunctionalInterface
+    interface Call {
+        ConversionResult run() throws IOException;
+    }
+}
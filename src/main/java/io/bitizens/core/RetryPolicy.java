@@ -0,0 +1,230 @@
+package io.bitizens.core;
+
+import io.bitizens.common.exceptions.ConcurrencyLimitExceededException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * RetryPolicy defines which failed requests Jotenberg sends again, and when.
+ * <p>
+ * A request is retried when it could not reach Gotenberg (connection refused, connect timeout, connection reset or
+ * closed before an answer) or when Gotenberg answered with a retryable status code, 502, 503 or 504 by default.
+ * Validation errors, read timeouts, cancellations and local rejections are never retried, nor are requests whose
+ * documents are streams that can only be read once.
+ * <p>
+ * Retries wait for an exponentially growing, fully jittered backoff, or for the delay advertised by a Retry-After
+ * header when it is longer, capped by the maximum backoff. They draw from a budget replenished by every request, so
+ * that retries cannot amplify an outage beyond the configured share of the traffic.
+ */
+public final class RetryPolicy {
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final double budgetRatio;
+    private final Set<Integer> retryableStatusCodes;
+
+    private RetryPolicy(Builder builder) {
+        maxAttempts = builder.maxAttempts;
+        initialBackoff = builder.initialBackoff;
+        maxBackoff = builder.maxBackoff;
+        multiplier = builder.multiplier;
+        budgetRatio = builder.budgetRatio;
+        retryableStatusCodes = builder.retryableStatusCodes;
+    }
+
+    /**
+     * Returns a policy with the default settings.
+     *
+     * @return The default policy.
+     */
+    public static RetryPolicy defaults() {
+        return new Builder().build();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    /**
+     * Checks whether a response with the given status code should be retried.
+     *
+     * @param statusCode The HTTP status code.
+     * @return `true` if the status code is retryable, `false` otherwise.
+     */
+    public boolean isRetryable(int statusCode) {
+        return retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Checks whether a request that failed with the given error should be retried.
+     *
+     * @param failure The error.
+     * @return `true` if the error is retryable, `false` otherwise.
+     */
+    public boolean isRetryable(IOException failure) {
+        if (failure instanceof ConnectionPoolTimeoutException
+                || failure instanceof ConcurrencyLimitExceededException
+                || failure instanceof InterruptedIOException && !(failure instanceof ConnectTimeoutException)) {
+            return false;
+        }
+        return failure instanceof ConnectTimeoutException
+                || failure instanceof HttpHostConnectException
+                || failure instanceof ConnectException
+                || failure instanceof NoHttpResponseException
+                || failure instanceof SocketException;
+    }
+
+    /**
+     * Returns the backoff before the given retry, before jitter.
+     *
+     * @param retry The retry number, starting at 1.
+     * @return The backoff.
+     */
+    Duration backoff(int retry) {
+        double nanos = initialBackoff.toNanos() * Math.pow(multiplier, retry - 1);
+        return nanos >= maxBackoff.toNanos() ? maxBackoff : Duration.ofNanos((long) nanos);
+    }
+
+    /**
+     * The Builder class is used to construct instances of RetryPolicy with specific limits.
+     */
+    public static class Builder {
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        private double multiplier = 2.0;
+        private double budgetRatio = 0.1;
+        private Set<Integer> retryableStatusCodes = Set.of(502, 503, 504);
+
+        /**
+         * Sets the maximum number of attempts of a request, the first one included.
+         *
+         * @param maxAttempts Maximum number of attempts.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is not positive.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the backoff before the first retry.
+         *
+         * @param initialBackoff Initial backoff.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is null or negative.
+         */
+        public Builder initialBackoff(Duration initialBackoff) {
+            this.initialBackoff = requireNonNegative(initialBackoff, "initialBackoff");
+            return this;
+        }
+
+        /**
+         * Sets the maximum backoff between two attempts, Retry-After delays included.
+         *
+         * @param maxBackoff Maximum backoff.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the duration is null or negative.
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            this.maxBackoff = requireNonNegative(maxBackoff, "maxBackoff");
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the backoff after each retry.
+         *
+         * @param multiplier Backoff multiplier, at least 1.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is less than 1.
+         */
+        public Builder multiplier(double multiplier) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("multiplier must be at least 1");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets the maximum share of requests that can be retried.
+         *
+         * @param budgetRatio Ratio between 0 (exclusive) and 1 (inclusive).
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the value is out of range.
+         */
+        public Builder budgetRatio(double budgetRatio) {
+            if (!(budgetRatio > 0 && budgetRatio <= 1)) {
+                throw new IllegalArgumentException("budgetRatio must be in (0, 1]");
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP status codes that are retried.
+         *
+         * @param retryableStatusCodes The retryable status codes.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder retryableStatusCodes(int... retryableStatusCodes) {
+            this.retryableStatusCodes = Arrays.stream(retryableStatusCodes).boxed().collect(Collectors.toUnmodifiableSet());
+            return this;
+        }
+
+        /**
+         * Builds an instance of RetryPolicy with the configured settings.
+         *
+         * @return An instance of RetryPolicy.
+         */
+        public RetryPolicy build() {
+            if (initialBackoff.compareTo(maxBackoff) > 0) {
+                throw new IllegalArgumentException("initialBackoff must not exceed maxBackoff");
+            }
+            return new RetryPolicy(this);
+        }
+
+        private static Duration requireNonNegative(Duration value, String name) {
+            if (value == null || value.isNegative()) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.bitizens.core;
+
+/**
+ * RouteFamily groups the Gotenberg routes served by the same engine, and therefore sharing the same capacity.
+ */
+public enum RouteFamily {
+    CHROMIUM("forms/chromium/"),
+    LIBRE_OFFICE("forms/libreoffice/"),
+    PDF_ENGINES("forms/pdfengines/");
+
+    private final String prefix;
+
+    RouteFamily(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns the family of a route.
+     *
+     * @param route The route, relative to the endpoint.
+     * @return The family of the route.
+     * @throws IllegalArgumentException if the route belongs to no known family.
+     */
+    public static RouteFamily of(String route) {
+        for (RouteFamily family : values()) {
+            if (route.startsWith(family.prefix)) {
+                return family;
+            }
+        }
+        throw new IllegalArgumentException("Unknown route family for " + route);
+    }
+}
@@ -0,0 +1,148 @@
+package io.bitizens.core;
+
+import org.apache.http.ContentTooLongException;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * TemplateEntity is the multipart body of a request built from a {@link ConversionTemplate}. It writes the parts the
+ * template encoded once, then encodes the parts of the request only, with the boundary of the template.
+ * <p>
+ * Parts are encoded the way the browser-compatible mode of HttpClient encodes them: a Content-Disposition header, plus
+ * a Content-Type header for files.
+ */
+final class TemplateEntity extends AbstractHttpEntity {
+    static final byte[] CRLF = {'\r', '\n'};
+    private static final String FILE_CONTENT_TYPE = "application/octet-stream";
+    private static final int MAX_BUFFERED_LENGTH = 25 * 1024;
+
+    private final ByteBuffer prefix;
+    private final List<ConversionRequest.Part> parts;
+    private final byte[][] headers;
+    private final byte[] closing;
+
+    TemplateEntity(String boundary, ByteBuffer prefix, List<ConversionRequest.Part> parts) {
+        this.prefix = prefix;
+        this.parts = parts;
+        this.headers = new byte[parts.size()][];
+        for (int i = 0; i < headers.length; i++) {
+            ConversionRequest.Part part = parts.get(i);
+            headers[i] = part.document() == null
+                    ? textPart(boundary, part.name(), part.value())
+                    : fileHeader(boundary, part.name(), part.document().getName());
+        }
+        this.closing = closing(boundary);
+        setContentType("multipart/form-data; boundary=" + boundary);
+    }
+
+    /**
+     * Encodes a complete text part.
+     */
+    static byte[] textPart(String boundary, String name, String value) {
+        return ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the headers of a file part, to be followed by the content of the file and a line break.
+     */
+    static byte[] fileHeader(String boundary, String name, String filename) {
+        return ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename
+                + "\"\r\nContent-Type: " + FILE_CONTENT_TYPE + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] closing(String boundary) {
+        return ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return parts.stream().allMatch(part -> part.document() == null || part.document().isRepeatable());
+    }
+
+    @Override
+    public long getContentLength() {
+        long length = prefix.remaining() + closing.length;
+        for (int i = 0; i < headers.length; i++) {
+            length += headers[i].length;
+            ConversionRequest.Part part = parts.get(i);
+            if (part.document() != null) {
+                long documentLength = part.document().getLength();
+                if (documentLength < 0) {
+                    return -1;
+                }
+                length += documentLength + CRLF.length;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Buffers the body, like the multipart entity of HttpClient does, for bodies of a known length up to
+     * {@value #MAX_BUFFERED_LENGTH} bytes.
+     *
+     * @throws ContentTooLongException If the length of the body is unknown or too long to be buffered.
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        long length = getContentLength();
+        if (length < 0) {
+            throw new ContentTooLongException("Content length is unknown");
+        } else if (length > MAX_BUFFERED_LENGTH) {
+            throw new ContentTooLongException("Content length is too long: " + length);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        writePrefix(out);
+        for (int i = 0; i < headers.length; i++) {
+            out.write(headers[i]);
+            ConversionRequest.Part part = parts.get(i);
+            if (part.document() != null) {
+                part.document().toContentBody().writeTo(out);
+                out.write(CRLF);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Writes the parts encoded by the template, straight from their array when they are held on-heap and through a
+     * pooled transfer buffer when they are held off-heap.
+     */
+    private void writePrefix(OutputStream out) throws IOException {
+        ByteBuffer view = prefix.duplicate();
+        if (view.hasArray()) {
+            out.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+            return;
+        }
+        ByteBuffer buffer = BufferPool.acquire();
+        try {
+            while (view.hasRemaining()) {
+                int length = Math.min(view.remaining(), buffer.capacity());
+                view.get(buffer.array(), 0, length);
+                out.write(buffer.array(), 0, length);
+            }
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+}
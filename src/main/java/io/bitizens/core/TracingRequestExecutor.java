@@ -0,0 +1,48 @@
+package io.bitizens.core;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+
+/**
+ * TracingRequestExecutor reports the connection, upload and first byte phases of the requests carrying a
+ * {@link ConversionTrace} in their context. The HTTP client calls it once a connection has been leased, so it sees
+ * the phases the client does not otherwise expose. Requests without a trace are executed as is.
+ */
+final class TracingRequestExecutor extends HttpRequestExecutor {
+    @Override
+    public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        ConversionTrace trace = ConversionTrace.from(context);
+        if (trace != null) {
+            trace.connectionLeased();
+        }
+        return super.execute(request, conn, context);
+    }
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        ConversionTrace trace = ConversionTrace.from(context);
+        if (trace == null) {
+            return super.doSendRequest(request, conn, context);
+        }
+        trace.uploadStarted();
+        HttpResponse response = super.doSendRequest(request, conn, context);
+        trace.uploadFinished();
+        return response;
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        ConversionTrace trace = ConversionTrace.from(context);
+        if (trace != null) {
+            trace.firstByte(response);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,374 @@
+package io.bitizens.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebhookReceiver is an embedded HTTP server receiving the results of conversions submitted in webhook mode. Gotenberg
+ * answers such a request at once and posts the result to the receiver when it is done, so that a long conversion holds
+ * no client connection while it runs.
+ * <p>
+ * Callbacks are matched to their conversion by their Gotenberg-Trace header and by a random token the receiver puts in
+ * the callback URLs of each conversion, since a trace id chosen by the caller may be predictable: a callback without
+ * the token of its conversion is refused. The body of a callback is streamed to a
+ * spool file, and the pending conversion completes with a {@link ConversionResult} reading that file, which is
+ * deleted when the result is closed. Failures reported on the error URL complete it with a result carrying the status
+ * code and message sent by Gotenberg, as a synchronous conversion would. Conversions with no callback after the
+ * configured timeout complete exceptionally.
+ * <p>
+ * The receiver listens on the loopback interface by default. To receive callbacks from a Gotenberg running elsewhere,
+ * e.g. in a container, it must listen on another address, and the URL under which Gotenberg reaches it must then be
+ * set explicitly.
+ */
+public final class WebhookReceiver implements AutoCloseable {
+    private static final String WEBHOOK_URL_HEADER = "Gotenberg-Webhook-Url";
+    private static final String WEBHOOK_ERROR_URL_HEADER = "Gotenberg-Webhook-Error-Url";
+    private static final String RESULT_PATH = "result";
+    private static final String ERROR_PATH = "error";
+    private static final String TOKEN_PARAMETER = "token=";
+    private static final int TOKEN_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String callbackUrl;
+    private final Path spoolDirectory;
+    private final Duration timeout;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private WebhookReceiver(Builder builder) throws IOException {
+        spoolDirectory = builder.spoolDirectory;
+        timeout = builder.timeout;
+        InetSocketAddress address = new InetSocketAddress(builder.host, builder.port);
+        if (address.getAddress() != null && address.getAddress().isAnyLocalAddress() && builder.callbackUrl == null) {
+            throw new IllegalArgumentException("callbackUrl must be set when listening on every interface");
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext("/" + RESULT_PATH, exchange -> receive(exchange, false));
+        server.createContext("/" + ERROR_PATH, exchange -> receive(exchange, true));
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "jotenberg-webhook-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+
+        String url = builder.callbackUrl;
+        if (url == null) {
+            InetAddress bound = server.getAddress().getAddress();
+            String host = bound instanceof Inet6Address ? "[" + bound.getHostAddress() + "]" : bound.getHostAddress();
+            url = "http://" + host + ":" + server.getAddress().getPort() + "/";
+        }
+        callbackUrl = url.endsWith("/") ? url : url + "/";
+    }
+
+    /**
+     * Returns the base URL under which Gotenberg reaches the receiver.
+     *
+     * @return The callback URL, ending with a slash.
+     */
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    /**
+     * Returns the port the receiver listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of conversions waiting for their callback.
+     *
+     * @return The number of pending conversions.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Sets the webhook headers of a request and registers the conversion, which completes when its callback is
+     * received. The callback URLs carry a random token the callback must present.
+     *
+     * @param request The request to submit. It must carry a Gotenberg-Trace header.
+     * @return The pending result.
+     */
+    CompletableFuture<ConversionResult> expect(ConversionRequest request) {
+        String trace = request.getHeaders().get(ConversionResult.TRACE_HEADER);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        request.header(WEBHOOK_URL_HEADER, callbackUrl + RESULT_PATH + "?" + TOKEN_PARAMETER + token);
+        request.header(WEBHOOK_ERROR_URL_HEADER, callbackUrl + ERROR_PATH + "?" + TOKEN_PARAMETER + token);
+
+        Pending conversion = new Pending(token, new CompletableFuture<>());
+        pending.put(trace, conversion);
+        conversion.result().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((completed, failure) -> pending.remove(trace, conversion));
+        return conversion.result();
+    }
+
+    /**
+     * Forgets a conversion Gotenberg did not accept in webhook mode.
+     *
+     * @param trace The Gotenberg-Trace id of the conversion.
+     */
+    void forget(String trace) {
+        Pending conversion = pending.remove(trace);
+        if (conversion != null) {
+            conversion.result().cancel(false);
+        }
+    }
+
+    private void receive(HttpExchange exchange, boolean error) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String trace = exchange.getRequestHeaders().getFirst(ConversionResult.TRACE_HEADER);
+            Pending conversion = trace == null ? null : pending.get(trace);
+            if (conversion == null || !conversion.matches(token(exchange.getRequestURI())) || !pending.remove(trace, conversion)) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            CompletableFuture<ConversionResult> result = conversion.result();
+            Path file = null;
+            CallbackResponse response;
+            try {
+                file = spoolDirectory == null ? Files.createTempFile("jotenberg-webhook-", ".tmp") : Files.createTempFile(spoolDirectory, "jotenberg-webhook-", ".tmp");
+                try (InputStream in = exchange.getRequestBody()) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                exchange.sendResponseHeaders(204, -1);
+                response = error ? failure(file, trace) : success(exchange, file, trace);
+            } catch (IOException | RuntimeException e) {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+                result.completeExceptionally(e);
+                throw e;
+            }
+            if (!result.complete(new ConversionResult(response))) {
+                response.close();
+            }
+        }
+    }
+
+    private static String token(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(TOKEN_PARAMETER)) {
+                return parameter.substring(TOKEN_PARAMETER.length());
+            }
+        }
+        return null;
+    }
+
+    private static CallbackResponse success(HttpExchange exchange, Path file, String trace) {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        CallbackResponse response = new CallbackResponse(200, "OK", file);
+        response.setHeader(ConversionResult.TRACE_HEADER, trace);
+        if (contentType != null) {
+            response.setHeader("Content-Type", contentType);
+        }
+        String disposition = exchange.getRequestHeaders().getFirst("Content-Disposition");
+        if (disposition != null) {
+            response.setHeader("Content-Disposition", disposition);
+        }
+        response.setEntity(new FileEntity(file.toFile(), contentType == null ? ContentType.APPLICATION_OCTET_STREAM : ContentType.parse(contentType)));
+        return response;
+    }
+
+    /**
+     * Turns the JSON error reported by Gotenberg, e.g. {@code {"status":400,"message":"..."}}, into a response with
+     * that status code and message.
+     */
+    private static CallbackResponse failure(Path file, String trace) throws IOException {
+        int status = 500;
+        String message = Files.readString(file, StandardCharsets.UTF_8);
+        try {
+            JSONObject error = new JSONObject(message);
+            status = error.optInt("status", status);
+            message = error.optString("message", message);
+        } catch (JSONException e) {
+            // Not JSON: keep the body as the message.
+        }
+        Files.writeString(file, message, StandardCharsets.UTF_8);
+
+        CallbackResponse response = new CallbackResponse(status, null, file);
+        response.setHeader(ConversionResult.TRACE_HEADER, trace);
+        response.setHeader("Content-Type", ContentType.TEXT_PLAIN.toString());
+        response.setEntity(new FileEntity(file.toFile(), ContentType.TEXT_PLAIN));
+        return response;
+    }
+
+    /**
+     * Stops the receiver. Pending conversions complete exceptionally.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        IOException closed = new IOException("Webhook receiver closed");
+        pending.values().forEach(conversion -> conversion.result().completeExceptionally(closed));
+        pending.clear();
+    }
+
+    /**
+     * Pending is a conversion waiting for its callback, and the token its callback must present.
+     */
+    private record Pending(String token, CompletableFuture<ConversionResult> result) {
+        boolean matches(String candidate) {
+            return candidate != null
+                    && MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII), candidate.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * CallbackResponse is the response posted by Gotenberg to the receiver, spooled to a file deleted on close.
+     */
+    private static final class CallbackResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        private final Path file;
+
+        CallbackResponse(int statusCode, String reason, Path file) {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, reason));
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * The Builder class is used to construct instances of WebhookReceiver with specific listening settings.
+     */
+    public static class Builder {
+        private String host = "127.0.0.1";
+        private int port = 0;
+        private String callbackUrl = null;
+        private Path spoolDirectory = null;
+        private Duration timeout = Duration.ofHours(1);
+
+        /**
+         * Sets the address the receiver listens on. Listening on every interface, e.g. {@code 0.0.0.0}, requires the
+         * {@link #callbackUrl(String) callback URL} to be set.
+         *
+         * @param host The host name or IP address, {@code 127.0.0.1} by default.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Sets the port the receiver listens on. Zero, the default, picks a free port.
+         *
+         * @param port The port.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the port is out of range.
+         */
+        public Builder port(int port) {
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("port must be between 0 and 65535");
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the base URL under which Gotenberg reaches the receiver, e.g. behind a container network or a proxy.
+         * By default, the address and the port the receiver listens on are used. It is required when the receiver
+         * listens on every interface.
+         *
+         * @param callbackUrl The callback URL.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder callbackUrl(String callbackUrl) {
+            this.callbackUrl = callbackUrl;
+            return this;
+        }
+
+        /**
+         * Sets the directory the callback bodies are spooled to. Passing {@code null} uses the default temporary
+         * directory.
+         *
+         * @param spoolDirectory The spool directory.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder spoolDirectory(Path spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * Sets how long a conversion waits for its callback before failing.
+         *
+         * @param timeout The timeout, one hour by default.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException if the timeout is not positive.
+         */
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+                throw new IllegalArgumentException("timeout must be positive");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Starts a WebhookReceiver with the configured settings.
+         *
+         * @return The running receiver.
+         * @throws IOException              If the receiver cannot listen on the configured address.
+         * @throws IllegalArgumentException If the receiver listens on every interface and no callback URL is set.
+         */
+        public WebhookReceiver start() throws IOException {
+            return new WebhookReceiver(this);
+        }
+    }
+}
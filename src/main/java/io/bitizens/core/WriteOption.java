@@ -0,0 +1,17 @@
+package io.bitizens.core;
+
+/**
+ * WriteOption is an enumeration of the options controlling how a conversion result is written to a file.
+ */
+public enum WriteOption {
+    /**
+     * Writes to a temporary sibling file and atomically renames it to the target once complete, so readers never
+     * observe a partially written file.
+     */
+    ATOMIC,
+
+    /**
+     * Forces the written content and metadata to the storage device before returning.
+     */
+    FSYNC
+}
@@ -1,5 +1,6 @@
 package io.bitizens.libreoffice;
 
+import io.bitizens.common.FormFields;
 import io.bitizens.common.PdfFormat;
 
 import java.io.File;
@@ -9,20 +10,21 @@ import java.util.Set;
 /**
  * The LibreOfficeOptions class is used to configure LibreOffice conversion options.
  */
+@FormFields
 public final class LibreOfficeOptions {
-    private final String quality;
-    private final String merge;
-    private final String pdfa;
-    private final String pdfua;
-    private final String losslessImageCompression;
-    private final String reduceImageResolution;
-    private final String maxImageResolution;
-    private final String downloadFrom;
-    private final String split;
-    private final String flatten;
-    private final String userPassword;
-    private final String ownerPassword;
-    private final List<File> embeds;
+    final String quality;
+    final String merge;
+    final String pdfa;
+    final String pdfua;
+    final String losslessImageCompression;
+    final String reduceImageResolution;
+    final String maxImageResolution;
+    final String downloadFrom;
+    final String split;
+    final String flatten;
+    final String userPassword;
+    final String ownerPassword;
+    final List<File> embeds;
 
     private LibreOfficeOptions(Builder builder) {
         merge = builder.merge;
@@ -40,6 +42,15 @@ public final class LibreOfficeOptions {
         embeds = builder.embeds;
     }
 
+    /**
+     * Checks whether the converted documents are merged into a single PDF.
+     *
+     * @return `true` if the documents are merged, `false` otherwise.
+     */
+    public boolean isMerge() {
+        return Boolean.parseBoolean(merge);
+    }
+
     /**
      * The Builder class is used to construct instances of ChromiumPageProperties with specific configuration options.
      */
@@ -87,7 +98,7 @@ public final class LibreOfficeOptions {
          * @return The Builder instance for method chaining.
          */
         public Builder addPdfa(PdfFormat pdfa) {
-            this.pdfa = String.valueOf(pdfa);
+            this.pdfa = pdfa.format();
             return this;
         }
 
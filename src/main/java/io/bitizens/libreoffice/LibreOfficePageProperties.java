@@ -1,30 +1,32 @@
 package io.bitizens.libreoffice;
 
+import io.bitizens.common.FormFields;
 import io.bitizens.common.exceptions.PageRangeMalformedException;
 
 /**
  * The LibreOfficePageProperties is a class that represents various properties for configuring LibreOffice document conversion,
  * such as landscape, native page ranges, and other formatting options.
  */
+@FormFields
 public final class LibreOfficePageProperties {
-    private final String landscape;
-    private final String nativePageRanges;
-    private final String exportFormFields;
-    private final String singlePageSheets;
-    private final String allowDuplicateFieldNames;
-    private final String exportBookmarks;
-    private final String exportBookmarksToPdfDestination;
-    private final String exportPlaceholders;
-    private final String exportNotes;
-    private final String exportNotesPages;
-    private final String exportOnlyNotesPages;
-    private final String exportNotesInMargin;
-    private final String convertOooTargetToPdfTarget;
-    private final String exportLinksRelativeFsys;
-    private final String exportHiddenSlides;
-    private final String skipEmptyPages;
-    private final String addOriginalDocumentAsStream;
-    private final String password;
+    final String landscape;
+    final String nativePageRanges;
+    final String exportFormFields;
+    final String singlePageSheets;
+    final String allowDuplicateFieldNames;
+    final String exportBookmarks;
+    final String exportBookmarksToPdfDestination;
+    final String exportPlaceholders;
+    final String exportNotes;
+    final String exportNotesPages;
+    final String exportOnlyNotesPages;
+    final String exportNotesInMargin;
+    final String convertOooTargetToPdfTarget;
+    final String exportLinksRelativeFsys;
+    final String exportHiddenSlides;
+    final String skipEmptyPages;
+    final String addOriginalDocumentAsStream;
+    final String password;
 
     private LibreOfficePageProperties(Builder builder) {
         landscape = builder.landscape;
@@ -103,7 +105,7 @@ public final class LibreOfficePageProperties {
          * @throws PageRangeMalformedException If the page range is malformed.
          */
         public Builder addNativePageRanges(int start, int end) throws PageRangeMalformedException {
-            if (start < 0 || end < 0 || end > start) {
+            if (start < 1 || end < start) {
                 throw new PageRangeMalformedException();
             }
             this.nativePageRanges = start + "-" + end;
@@ -0,0 +1,135 @@
+package io.bitizens.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram counts latencies in fixed buckets following a 1-2-5 progression, from 1 millisecond to 500
+ * seconds, plus an overflow bucket. Recording is lock-free; percentiles are approximated by the upper bound of the
+ * bucket they fall in.
+ */
+public final class LatencyHistogram {
+    private static final long[] BOUNDS = bounds();
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    void record(long nanos) {
+        long latency = Math.max(0L, nanos);
+        buckets[bucketOf(latency)].increment();
+        count.increment();
+        sum.add(latency);
+        max.accumulate(latency);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getSum() {
+        return Duration.ofNanos(sum.sum());
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(max.get());
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return The mean or {@link Duration#ZERO} if nothing has been recorded.
+     */
+    public Duration getMean() {
+        long n = count.sum();
+        return n == 0 ? Duration.ZERO : Duration.ofNanos(sum.sum() / n);
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given quantile, or the maximum latency if it falls in the
+     * overflow bucket.
+     *
+     * @param quantile The quantile, between 0 and 1, e.g. {@code 0.99}.
+     * @return The approximate latency or {@link Duration#ZERO} if nothing has been recorded.
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1.
+     */
+    public Duration getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        long[] counts = getBucketCounts();
+        long total = 0L;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0L;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(BOUNDS[i], max.get()));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the upper bounds of the buckets, the overflow bucket excepted.
+     *
+     * @return The bounds, in ascending order.
+     */
+    public Duration[] getBucketBounds() {
+        Duration[] bounds = new Duration[BOUNDS.length];
+        for (int i = 0; i < BOUNDS.length; i++) {
+            bounds[i] = Duration.ofNanos(BOUNDS[i]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the number of latencies recorded in each bucket. The last element is the overflow bucket.
+     *
+     * @return The counts, one more than there are bounds.
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    private static int bucketOf(long nanos) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (nanos <= BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS.length;
+    }
+
+    private static long[] bounds() {
+        long[] steps = {1, 2, 5};
+        long[] bounds = new long[18];
+        long decade = Duration.ofMillis(1).toNanos();
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = steps[i % 3] * decade;
+            if (i % 3 == 2) {
+                decade *= 10;
+            }
+        }
+        return bounds;
+    }
+}
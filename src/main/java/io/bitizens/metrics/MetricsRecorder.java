@@ -0,0 +1,75 @@
+package io.bitizens.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * MetricsRecorder receives the measurements of the requests Jotenberg sends to Gotenberg. Implementations bridge them
+ * to a monitoring system; {@link SimpleMetricsRegistry} keeps them in memory.
+ * <p>
+ * Measurements are keyed by route, e.g. {@code forms/chromium/convert/html}. Every attempt is measured, including
+ * retries and hedged duplicates, while results served by the cache or shared by the coalescer are not. Submissions in
+ * webhook mode, which Gotenberg answers before converting, are keyed by their route prefixed with {@code webhook/}, so
+ * that they do not blend with the latency of synchronous conversions. Methods are called on the threads performing
+ * the requests, so implementations must be thread-safe and must not block.
+ */
+public interface MetricsRecorder {
+    /**
+     * Returns a recorder discarding every measurement, used when no recorder is configured.
+     *
+     * @return The no-op recorder.
+     */
+    static MetricsRecorder noop() {
+        return NoopMetricsRecorder.INSTANCE;
+    }
+
+    /**
+     * Records a response received from Gotenberg.
+     *
+     * @param route        The route of the request.
+     * @param statusCode   The status code of the response.
+     * @param latencyNanos The time elapsed until the response headers were received, in nanoseconds.
+     */
+    default void recordResponse(String route, int statusCode, long latencyNanos) {
+    }
+
+    /**
+     * Records a request that failed without a response, e.g. because of a timeout or a refused connection.
+     *
+     * @param route        The route of the request.
+     * @param failure      The cause of the failure.
+     * @param latencyNanos The time elapsed until the failure, in nanoseconds.
+     */
+    default void recordFailure(String route, IOException failure, long latencyNanos) {
+    }
+
+    /**
+     * Records the size of a request body, once it has been sent.
+     *
+     * @param route The route of the request.
+     * @param bytes The number of bytes sent.
+     */
+    default void recordRequestBytes(String route, long bytes) {
+    }
+
+    /**
+     * Records the size of a response body, once it has been read or the response has been closed.
+     *
+     * @param route The route of the request.
+     * @param bytes The number of bytes read.
+     */
+    default void recordResponseBytes(String route, long bytes) {
+    }
+
+    /**
+     * Registers a gauge sampled by the recorder whenever it needs its value, such as the number of leased
+     * connections of a pool. Gauges are registered once, when the Jotenberg instance is created.
+     *
+     * @param name  The name of the gauge, e.g. {@code jotenberg.pool.leased}.
+     * @param tags  The tags telling apart gauges of the same name, e.g. the endpoint.
+     * @param value The supplier of the value.
+     */
+    default void registerGauge(String name, Map<String, String> tags, LongSupplier value) {
+    }
+}
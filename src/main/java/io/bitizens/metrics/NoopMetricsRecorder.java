@@ -0,0 +1,11 @@
+package io.bitizens.metrics;
+
+/**
+ * NoopMetricsRecorder discards every measurement.
+ */
+final class NoopMetricsRecorder implements MetricsRecorder {
+    static final NoopMetricsRecorder INSTANCE = new NoopMetricsRecorder();
+
+    private NoopMetricsRecorder() {
+    }
+}
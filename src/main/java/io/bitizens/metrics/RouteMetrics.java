@@ -0,0 +1,105 @@
+package io.bitizens.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RouteMetrics holds the measurements of a single Gotenberg route in a {@link SimpleMetricsRegistry}.
+ */
+public final class RouteMetrics {
+    private final String route;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    RouteMetrics(String route) {
+        this.route = route;
+    }
+
+    void recordResponse(int statusCode, long latencyNanos) {
+        requests.increment();
+        if (statusCode >= 400) {
+            errors.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+        }
+        latency.record(latencyNanos);
+    }
+
+    void recordFailure() {
+        requests.increment();
+        failures.increment();
+    }
+
+    void recordRequestBytes(long bytes) {
+        requestBytes.add(bytes);
+    }
+
+    void recordResponseBytes(long bytes) {
+        responseBytes.add(bytes);
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Returns the number of requests sent to the route, whether they were answered or not.
+     *
+     * @return The number of requests.
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests that failed without a response.
+     *
+     * @return The number of failures.
+     */
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Returns the number of responses with the given error status code.
+     *
+     * @param statusCode The status code, 400 or above.
+     * @return The number of responses.
+     */
+    public long getErrorCount(int statusCode) {
+        LongAdder count = errors.get(statusCode);
+        return count == null ? 0L : count.sum();
+    }
+
+    /**
+     * Returns the number of error responses, by status code.
+     *
+     * @return The counts, sorted by status code.
+     */
+    public Map<Integer, Long> getErrorCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        errors.forEach((statusCode, count) -> counts.put(statusCode, count.sum()));
+        return counts;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Returns the latencies of the responses, measured until their headers were received.
+     *
+     * @return The latency histogram.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,100 @@
+package io.bitizens.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * SimpleMetricsRegistry is a {@link MetricsRecorder} keeping its measurements in memory, to be read by the application
+ * or exported by it to a monitoring system. It holds a {@link RouteMetrics} per route and samples gauges on demand.
+ * <p>
+ * Gauges are identified by their name followed by their tags, e.g.
+ * {@code jotenberg.pool.leased{endpoint=http://localhost:3000/}}.
+ */
+public final class SimpleMetricsRegistry implements MetricsRecorder {
+    private final ConcurrentHashMap<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordResponse(String route, int statusCode, long latencyNanos) {
+        route(route).recordResponse(statusCode, latencyNanos);
+    }
+
+    @Override
+    public void recordFailure(String route, IOException failure, long latencyNanos) {
+        route(route).recordFailure();
+    }
+
+    @Override
+    public void recordRequestBytes(String route, long bytes) {
+        route(route).recordRequestBytes(bytes);
+    }
+
+    @Override
+    public void recordResponseBytes(String route, long bytes) {
+        route(route).recordResponseBytes(bytes);
+    }
+
+    @Override
+    public void registerGauge(String name, Map<String, String> tags, LongSupplier value) {
+        gauges.put(gaugeId(name, tags), value);
+    }
+
+    /**
+     * Returns the measurements of a route.
+     *
+     * @param route The route, e.g. {@code forms/chromium/convert/html}.
+     * @return The measurements or {@code null} if no request has been sent to the route.
+     */
+    public RouteMetrics getRouteMetrics(String route) {
+        return routes.get(route);
+    }
+
+    /**
+     * Returns the measurements of every route a request has been sent to.
+     *
+     * @return The measurements, sorted by route.
+     */
+    public Map<String, RouteMetrics> getRoutes() {
+        return new TreeMap<>(routes);
+    }
+
+    /**
+     * Samples a gauge.
+     *
+     * @param name The name of the gauge.
+     * @param tags The tags of the gauge.
+     * @return The value or {@code null} if no such gauge is registered.
+     */
+    public Long getGauge(String name, Map<String, String> tags) {
+        LongSupplier gauge = gauges.get(gaugeId(name, tags));
+        return gauge == null ? null : gauge.getAsLong();
+    }
+
+    /**
+     * Samples every gauge.
+     *
+     * @return The values, sorted by gauge identifier.
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((id, gauge) -> values.put(id, gauge.getAsLong()));
+        return values;
+    }
+
+    private RouteMetrics route(String route) {
+        return routes.computeIfAbsent(route, RouteMetrics::new);
+    }
+
+    private static String gaugeId(String name, Map<String, String> tags) {
+        if (tags.isEmpty()) {
+            return name;
+        }
+        return new TreeMap<>(tags).entrySet().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", name + "{", "}"));
+    }
+}
@@ -1,10 +1,13 @@
 package io.bitizens.pdfengines;
 
+import io.bitizens.common.FormFields;
+
 /**
  * The PDFEnginesConversionOptions class is used to configure LibreOffice conversion options.
  */
+@FormFields
 public final class PDFEnginesConversionOptions extends PDFEnginesOptions {
-    private final String downloadFrom;
+    final String downloadFrom;
 
     private PDFEnginesConversionOptions(Builder builder) {
         super(builder);
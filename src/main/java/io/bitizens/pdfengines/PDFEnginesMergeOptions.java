@@ -1,14 +1,16 @@
 package io.bitizens.pdfengines;
 
+import io.bitizens.common.FormFields;
 import org.json.JSONObject;
 
 /**
  * The PDFEnginesMergeOptions class is used to configure LibreOffice conversion options.
  */
+@FormFields
 public final class PDFEnginesMergeOptions extends PDFEnginesOptions {
-    private final String metadata;
-    private final String flatten;
-    private final String downloadFrom;
+    final String metadata;
+    final String flatten;
+    final String downloadFrom;
 
     private PDFEnginesMergeOptions(Builder builder) {
         super(builder);
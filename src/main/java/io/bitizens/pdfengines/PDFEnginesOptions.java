@@ -1,10 +1,12 @@
 package io.bitizens.pdfengines;
 
+import io.bitizens.common.FormFields;
 import io.bitizens.common.PdfFormat;
 
 /**
  * The PDFEnginesOptions class is used to configure LibreOffice conversion options.
  */
+@FormFields
 public abstract class PDFEnginesOptions {
     protected final String pdfa;
     protected final String pdfua;
@@ -28,7 +30,7 @@ public abstract class PDFEnginesOptions {
          * @return The Builder instance for method chaining.
          */
         public Builder<T> addPdfa(PdfFormat pdfa) {
-            this.pdfa = String.valueOf(pdfa);
+            this.pdfa = pdfa.format();
             return this;
         }
 
@@ -1,15 +1,18 @@
 package io.bitizens.screenshots;
 
+import io.bitizens.common.FormFields;
+
 /**
  * The ImageProperties class is used to store the configuration properties for generating a screenshot.
  */
+@FormFields
 public final class ImageProperties {
-    private final String format;
-    private final String quality;
-    private final String omitBackground;
-    private final String width;
-    private final String height;
-    private final String clip;
+    final String format;
+    final String quality;
+    final String omitBackground;
+    final String width;
+    final String height;
+    final String clip;
 
     private ImageProperties(Builder builder) {
         format = builder.format;
@@ -1,13 +1,15 @@
 package io.bitizens.screenshots;
 
 import io.bitizens.common.AbstractOptions;
+import io.bitizens.common.FormFields;
 
 /**
  * ScreenshotOptions is a class that represents the options for taking a screenshot.
  */
+@FormFields
 public final class ScreenshotOptions extends AbstractOptions {
 
-    private final boolean optimizeForSpeed;
+    final boolean optimizeForSpeed;
 
     private ScreenshotOptions(Builder builder) {
         super(builder);
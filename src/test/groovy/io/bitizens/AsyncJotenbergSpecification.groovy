@@ -0,0 +1,72 @@
+package io.bitizens
+
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.pdfengines.PDFEnginesMergeOptions
+import io.bitizens.testing.FakeGotenberg
+import io.bitizens.testing.LatencyDistribution
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CancellationException
+
+class AsyncJotenbergSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    def "should abort the request and return its connection when a conversion is cancelled mid-render"() {
+        given:
+        server.latency = LatencyDistribution.fixed(Duration.ofSeconds(5))
+        def client = new Jotenberg(server.endpoint)
+        def async = new AsyncJotenberg(client)
+        def conditions = new PollingConditions(timeout: 2)
+
+        when:
+        def future = async.convert(DocumentSource.of("index.html", "<html></html>".bytes),
+                new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build())
+        conditions.eventually { assert server.requestCount == 1 }
+        future.cancel(true)
+
+        then:
+        future.cancelled
+        conditions.eventually {
+            def stats = client.connectionManager.totalStats
+            assert stats.leased == 0
+            assert stats.available == 0
+        }
+        server.requestCount == 1
+
+        when:
+        future.get()
+
+        then:
+        thrown(CancellationException)
+
+        cleanup:
+        async?.close()
+        client?.close()
+    }
+
+    def "should convert in-memory documents"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        def async = new AsyncJotenberg(client)
+        DocumentSource[] documents = [DocumentSource.of("a.pdf", "%PDF-a".bytes), DocumentSource.of("b.pdf", "%PDF-b".bytes)]
+
+        when:
+        def result = async.mergeWithPdfEngines(documents, new PDFEnginesMergeOptions.Builder().build()).get()
+
+        then:
+        result.successful
+        server.requests[0].route == "forms/pdfengines/merge"
+        server.requests[0].files*.filename == ["a.pdf", "b.pdf"]
+
+        cleanup:
+        result?.close()
+        async?.close()
+        client?.close()
+    }
+}
@@ -0,0 +1,106 @@
+package io.bitizens
+
+import com.sun.net.httpserver.HttpServer
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import org.apache.http.util.EntityUtils
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+
+class JotenbergConcurrencySpecification extends Specification {
+    @Shared
+    HttpServer server
+
+    @Shared
+    @AutoCleanup
+    Jotenberg client
+
+    @TempDir
+    Path tempDir
+
+    def setupSpec() {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+        server.createContext("/") { exchange ->
+            byte[] body = exchange.requestBody.readAllBytes()
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        server.executor = Executors.newFixedThreadPool(16)
+        server.start()
+        client = new Jotenberg("http://127.0.0.1:${server.address.port}/")
+    }
+
+    def cleanupSpec() {
+        server.stop(0)
+        (server.executor as java.util.concurrent.ExecutorService).shutdownNow()
+    }
+
+    def "should not re-upload parts of previous requests"() {
+        given:
+        File first = index("first-marker")
+        File second = index("second-marker")
+        def pageProperties = new ChromiumPageProperties.Builder().build()
+        def options = new ChromiumOptions.Builder().build()
+
+        when:
+        String firstPayload = echo(client.convert(first, pageProperties, options))
+        String secondPayload = echo(client.convert(second, pageProperties, options))
+
+        then:
+        firstPayload.contains("first-marker")
+        !secondPayload.contains("first-marker")
+        secondPayload.contains("second-marker")
+        secondPayload.count('filename="index.html"') == 1
+        secondPayload.count('name="paperWidth"') == 1
+    }
+
+    def "should isolate payloads of concurrent conversions"() {
+        given:
+        int conversions = 200
+        def pageProperties = new ChromiumPageProperties.Builder().build()
+        def options = new ChromiumOptions.Builder().build()
+        def pool = Executors.newFixedThreadPool(32)
+        List<Callable<String>> tasks = (0..<conversions).collect { int i ->
+            File file = index("marker-${i}-end")
+            return { -> echo(client.convert(file, pageProperties, options)) } as Callable<String>
+        }
+
+        when:
+        List<String> payloads = pool.invokeAll(tasks).collect { it.get() }
+
+        then:
+        payloads.eachWithIndex { String payload, int i ->
+            assert payload.contains("marker-${i}-end")
+            assert payload.count("marker-") == 1
+            assert payload.count('filename="index.html"') == 1
+        }
+
+        cleanup:
+        pool.shutdownNow()
+        pool.awaitTermination(10, TimeUnit.SECONDS)
+    }
+
+    private File index(String marker) {
+        Path dir = Files.createTempDirectory(tempDir, "doc")
+        Path index = dir.resolve("index.html")
+        Files.writeString(index, "<html><body>${marker}</body></html>")
+        return index.toFile()
+    }
+
+    private static String echo(response) {
+        try {
+            return EntityUtils.toString(response.entity)
+        } finally {
+            response.close()
+        }
+    }
+}
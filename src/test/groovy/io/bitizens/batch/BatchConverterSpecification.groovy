@@ -0,0 +1,72 @@
+package io.bitizens.batch
+
+import io.bitizens.Jotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+
+class BatchConverterSpecification extends Specification {
+    @AutoCleanup
+    Jotenberg client = new Jotenberg("http://localhost:3000/")
+
+    def "should return outcomes in input order and collect failures"() {
+        given:
+        def converter = new BatchConverter(client, 4)
+        List<ConversionJob<Integer>> jobs = (0..<50).collect { int i ->
+            return { Jotenberg ignored ->
+                Thread.sleep((50 - i) % 7)
+                if (i % 10 == 3) {
+                    throw new IOException("job ${i} failed")
+                }
+                return i * 2
+            } as ConversionJob<Integer>
+        }
+
+        when:
+        List<BatchOutcome<Integer>> outcomes = converter.runAll(jobs)
+
+        then:
+        outcomes.size() == 50
+        outcomes.eachWithIndex { BatchOutcome<Integer> outcome, int i ->
+            assert outcome.index == i
+            if (i % 10 == 3) {
+                assert !outcome.success
+                assert outcome.failure.message == "job ${i} failed".toString()
+            } else {
+                assert outcome.success
+                assert outcome.result == i * 2
+            }
+        }
+
+        cleanup:
+        converter.close()
+    }
+
+    def "should never exceed the concurrency ceiling"() {
+        given:
+        def converter = new BatchConverter(client, 3)
+        def running = new AtomicInteger()
+        def peak = new AtomicInteger()
+        List<ConversionJob<Integer>> jobs = (0..<30).collect { int i ->
+            return { Jotenberg ignored ->
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max)
+                Thread.sleep(5)
+                running.decrementAndGet()
+                return i
+            } as ConversionJob<Integer>
+        }
+        List<Integer> completed = []
+
+        when:
+        converter.runAsCompleted(jobs) { completed << it.result }
+
+        then:
+        completed.sort() == (0..<30).toList()
+        peak.get() <= 3
+
+        cleanup:
+        converter.close()
+    }
+}
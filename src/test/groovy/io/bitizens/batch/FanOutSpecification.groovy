@@ -0,0 +1,126 @@
+package io.bitizens.batch
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.pdfengines.PDFEnginesConversionOptions
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipInputStream
+
+class FanOutSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    @AutoCleanup
+    Jotenberg client = new Jotenberg(server.endpoint)
+
+    @TempDir
+    Path spool
+
+    DocumentSource[] documents = (0..<5).collect { DocumentSource.of("doc${it}.docx", new byte[16]) }
+
+    def "should send each file as its own request and stream back a zip in input order"() {
+        given:
+        def fanOut = new FanOut.Builder().spoolDirectory(spool).build()
+
+        when:
+        def result = fanOut.convertWithLibreOffice(client, documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+        def entries = unzip(result)
+
+        then:
+        server.requests.size() == 5
+        server.requests.every { it.files.size() == 1 }
+        entries == ["doc0.pdf", "doc1.pdf", "doc2.pdf", "doc3.pdf", "doc4.pdf"]
+        Files.list(spool).count() == 0
+    }
+
+    def "should unpack the archives returned for groups of files"() {
+        given:
+        def fanOut = new FanOut.Builder().groupSize(2).spoolDirectory(spool).build()
+
+        when:
+        def result = fanOut.convertWithLibreOffice(client, documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+        def entries = unzip(result)
+
+        then:
+        server.requests.size() == 3
+        entries == ["doc0.pdf", "doc1.pdf", "doc2.pdf", "doc3.pdf", "doc4.pdf"]
+    }
+
+    def "should merge the converted groups when the options ask for a merge"() {
+        given:
+        def fanOut = new FanOut.Builder().groupSize(2).spoolDirectory(spool).build()
+
+        when:
+        def result = fanOut.convertWithLibreOffice(client, documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().addMerge(true).build())
+        def contentType = result.withCloseable { it.getFirstHeader("Content-Type").value }
+
+        then:
+        contentType == "application/pdf"
+        server.requests*.route == ["forms/libreoffice/convert"] * 3 + ["forms/pdfengines/merge"]
+        server.requests[0].files*.filename() == ["000000_doc0.docx", "000001_doc1.docx"]
+        server.requests.last().files*.filename() == ["000000.pdf", "000001.pdf", "000002.pdf"]
+        Files.list(spool).count() == 0
+    }
+
+    def "should fan out PDF Engines conversions"() {
+        given:
+        def fanOut = new FanOut.Builder().spoolDirectory(spool).build()
+        DocumentSource[] pdfs = (0..<3).collect { DocumentSource.of("in${it}.pdf", FakeGotenberg.pdf(1)) }
+
+        when:
+        def result = fanOut.convertWithPdfEngines(client, pdfs, new PDFEnginesConversionOptions.Builder().build())
+
+        then:
+        unzip(result) == ["in0.pdf", "in1.pdf", "in2.pdf"]
+        server.requests.size() == 3
+    }
+
+    def "should fail when one of the groups fails"() {
+        given:
+        def fanOut = new FanOut.Builder().spoolDirectory(spool).build()
+        server.errorRate = 1
+
+        when:
+        fanOut.convertWithLibreOffice(client, documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Gotenberg answered with status 500."
+        Files.list(spool).count() == 0
+    }
+
+    def "should send a single group as is"() {
+        given:
+        def fanOut = new FanOut.Builder().groupSize(10).build()
+
+        when:
+        def result = fanOut.convertWithLibreOffice(client, documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+        result.close()
+
+        then:
+        server.requests.size() == 1
+        server.requests[0].files.size() == 5
+    }
+
+    private static List<String> unzip(io.bitizens.core.ConversionResult result) {
+        List<String> names = []
+        result.withCloseable {
+            new ZipInputStream(it.entity.content).withCloseable { zip ->
+                def entry
+                while ((entry = zip.nextEntry) != null) {
+                    assert zip.readAllBytes().length > 0
+                    names << entry.name
+                }
+            }
+        }
+        names
+    }
+}
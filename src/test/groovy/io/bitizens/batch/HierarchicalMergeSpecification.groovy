@@ -0,0 +1,87 @@
+package io.bitizens.batch
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.pdfengines.PDFEnginesMergeOptions
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class HierarchicalMergeSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    @TempDir
+    Path spool
+
+    def "should count the merges of every level"() {
+        given:
+        def merge = new HierarchicalMerge.Builder().chunkSize(100).build()
+
+        expect:
+        merge.countMerges(100) == 1
+        merge.countMerges(101) == 3
+        merge.countMerges(5000) == 51
+        merge.countMerges(20000) == 203
+    }
+
+    def "should merge chunks in parallel and apply the options only to the final merge"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        List<byte[]> inputs = (2..11).collect { FakeGotenberg.pdf(it) }
+        DocumentSource[] documents = inputs.withIndex().collect { byte[] content, int i -> DocumentSource.of("z${9 - i}.pdf", content) }
+        List<List<Integer>> progress = []
+        def merge = new HierarchicalMerge.Builder()
+                .chunkSize(3)
+                .maxConcurrency(4)
+                .spoolDirectory(spool)
+                .progress { completed, total -> progress << [completed, total] }
+                .build()
+
+        when:
+        def statusCode = merge.merge(client, documents, new PDFEnginesMergeOptions.Builder().addFlatten(true).build())
+                .withCloseable { it.statusCode }
+
+        then:
+        statusCode == 200
+        server.requests.size() == 7
+        progress == (1..7).collect { [it, 7] }
+        Files.list(spool).count() == 0
+
+        and: "the first level uploads contiguous chunks in input order"
+        def chunks = server.requests.findAll { request -> request.files.every { part -> inputs.any { Arrays.equals(it, part.content()) } } }
+                .collect { request -> request.files.collect { part -> inputs.findIndexOf { Arrays.equals(it, part.content()) } } }
+        chunks.sort { it[0] } == [[0, 1, 2], [3, 4, 5], [6, 7, 8], [9]]
+        server.requests.every { request -> request.files*.filename() == (0..<request.files.size()).collect { String.format("%06d.pdf", it) } }
+
+        and: "only the final merge carries the options"
+        server.requests.last().getField("flatten") == "true"
+        server.requests.init().every { it.getField("flatten") == null }
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should fail when a chunk cannot be merged"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        DocumentSource[] documents = (1..6).collect { DocumentSource.of("${it}.pdf", FakeGotenberg.pdf(1)) }
+        def merge = new HierarchicalMerge.Builder().chunkSize(2).spoolDirectory(spool).build()
+
+        when:
+        server.errorRate = 1
+        merge.merge(client, documents, null)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Gotenberg answered with status 500."
+        Files.list(spool).count() == 0
+
+        cleanup:
+        client?.close()
+    }
+}
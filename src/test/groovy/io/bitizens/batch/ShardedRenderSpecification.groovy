@@ -0,0 +1,98 @@
+package io.bitizens.batch
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.common.exceptions.PageRangeMalformedException
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ShardedRenderSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).pageCount(95).start()
+
+    @AutoCleanup
+    Jotenberg client = new Jotenberg(server.endpoint)
+
+    @TempDir
+    Path spool
+
+    DocumentSource document = DocumentSource.of("index.html", "<html>report</html>".bytes)
+    ChromiumPageProperties pageProperties = new ChromiumPageProperties.Builder().build()
+    ChromiumOptions options = new ChromiumOptions.Builder().build()
+
+    def "should render balanced page ranges and merge them in order"() {
+        given:
+        def render = new ShardedRender.Builder().shards(4).spoolDirectory(spool).build()
+
+        when:
+        def result = render.render(client, document, 95, pageProperties, options)
+        result.close()
+
+        then:
+        def slices = server.requests.findAll { it.route == "forms/chromium/convert/html" }
+        slices*.getField("nativePageRanges").toSet() == ["1-24", "25-48", "49-72", "73-95"] as Set
+        server.requests.last().route == "forms/pdfengines/merge"
+        server.requests.last().files*.filename() == ["000000.pdf", "000001.pdf", "000002.pdf", "000003.pdf"]
+        Files.list(spool).count() == 0
+    }
+
+    def "should measure the page count with the bisecting probe"() {
+        when:
+        def pages = ShardedRender.PageCountProbe.bisecting().pageCount(client, document, pageProperties, options)
+
+        then:
+        pages == 95
+        server.requests.every { it.getField("nativePageRanges") ==~ /\d+-\d+/ }
+    }
+
+    def "should probe the page count when none is given"() {
+        given:
+        def render = new ShardedRender.Builder()
+                .shards(2)
+                .probe(ShardedRender.PageCountProbe.bisecting())
+                .spoolDirectory(spool)
+                .build()
+
+        when:
+        render.render(client, document, pageProperties, options).close()
+
+        then:
+        server.requests.findAll { it.route == "forms/chromium/convert/html" }*.getField("nativePageRanges").takeRight(2).toSet() == ["1-48", "49-95"] as Set
+        server.requests.last().route == "forms/pdfengines/merge"
+    }
+
+    def "should print in a single request without a page count, a probe or enough pages"() {
+        given:
+        def render = new ShardedRender.Builder().shards(4).minPagesPerShard(50).build()
+
+        when:
+        render.render(client, document, pageProperties, options).close()
+        render.render(client, document, 95, pageProperties, options).close()
+
+        then:
+        server.requests.size() == 2
+        server.requests.every { it.route == "forms/chromium/convert/html" && it.getField("nativePageRanges") == null }
+    }
+
+    def "should reject reversed page ranges"() {
+        when:
+        new ChromiumPageProperties.Builder().addNativePageRanges(5, 2)
+
+        then:
+        thrown(PageRangeMalformedException)
+
+        when:
+        def properties = new ChromiumPageProperties.Builder().addNativePageRanges(2, 5).build()
+
+        then:
+        properties.nativePageRanges == "2-5"
+        properties.withNativePageRanges(7, 7).nativePageRanges == "7-7"
+    }
+}
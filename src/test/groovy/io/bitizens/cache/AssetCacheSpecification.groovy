@@ -0,0 +1,135 @@
+package io.bitizens.cache
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.core.JotenbergConfig
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+class AssetCacheSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    @TempDir
+    Path directory
+
+    def "should upload the header and stylesheet of repeated conversions from memory"() {
+        given:
+        def cache = new AssetCache.Builder().build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().assetCache(cache).build())
+        def header = file("header.html", "<html>Header</html>")
+        def stylesheet = file("styles.css", "body {}")
+        def options = new ChromiumOptions.Builder().addHeader(header.toFile()).build() as ChromiumOptions
+
+        when:
+        (1..3).each {
+            def index = Files.createDirectory(directory.resolve("request-$it")).resolve("index.html")
+            Files.writeString(index, "<html>Request $it</html>")
+            client.convert([index.toFile(), stylesheet.toFile()], new ChromiumPageProperties.Builder().build(), options).close()
+        }
+
+        then:
+        server.requests.size() == 3
+        server.requests.every { request -> request.files*.filename.toSet() == ["index.html", "styles.css", "header.html"].toSet() }
+        new String(server.requests[2].files.find { it.filename == "header.html" }.content) == "<html>Header</html>"
+        new String(server.requests[2].files.find { it.filename == "index.html" }.content) == "<html>Request 3</html>"
+        cache.missCount == 7
+        cache.hitCount == 2
+        cache.entryCount == 2
+        cache.size == Files.size(header) + Files.size(stylesheet)
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should not let one-off documents evict a shared stylesheet"() {
+        given:
+        def cache = new AssetCache.Builder().maxSize(10).build()
+        def stylesheet = file("styles.css", "0123456789")
+        2.times { cache.resolve(DocumentSource.of(stylesheet)) }
+
+        when:
+        def indexes = (1..5).collect { file("index-${it}.html", "<html>$it</html>") }
+        def resolved = indexes.collect { cache.resolve(DocumentSource.of(it)) }
+        def shared = cache.resolve(DocumentSource.of(stylesheet))
+
+        then:
+        resolved.every { it.path != null }
+        shared.path == null
+        shared.openStream().text == "0123456789"
+        cache.evictionCount == 0
+        cache.entryCount == 1
+        cache.hitCount == 1
+    }
+
+    def "should read a file again once it has been modified"() {
+        given:
+        def cache = new AssetCache.Builder().build()
+        def path = file("styles.css", "body {}")
+
+        when:
+        2.times { cache.resolve(DocumentSource.of(path)) }
+        def first = cache.resolve(DocumentSource.of(path))
+        Files.writeString(path, "body { color: red; }")
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 2000))
+        def second = cache.resolve(DocumentSource.of(path))
+
+        then:
+        first.openStream().text == "body {}"
+        second.openStream().text == "body { color: red; }"
+        cache.entryCount == 0
+        cache.size == 0
+
+        when:
+        def third = cache.resolve(DocumentSource.of(path))
+
+        then:
+        third.openStream().text == "body { color: red; }"
+        cache.entryCount == 1
+        cache.size == Files.size(path)
+    }
+
+    def "should evict the least recently used files beyond the size budget"() {
+        given:
+        def cache = new AssetCache.Builder().maxSize(20).build()
+        def a = file("a.css", "0123456789")
+        def b = file("b.css", "0123456789")
+        def c = file("c.css", "0123456789")
+
+        when:
+        [a, a, b, b, a, c, c, a].each { cache.resolve(DocumentSource.of(it)) }
+
+        then:
+        cache.evictionCount == 1
+        cache.hitCount == 2
+        cache.missCount == 6
+        cache.size == 20
+        cache.resolve(DocumentSource.of(b)).path != null
+    }
+
+    def "should leave large files and in-memory documents untouched"() {
+        given:
+        def cache = new AssetCache.Builder().maxEntrySize(4).build()
+        def large = DocumentSource.of(file("font.woff2", "0123456789"))
+        def inMemory = DocumentSource.of("index.html", "<html></html>".bytes)
+
+        expect:
+        cache.resolve(large).is(large)
+        cache.resolve(inMemory).is(inMemory)
+        cache.hitCount == 0
+        cache.missCount == 0
+        cache.entryCount == 0
+    }
+
+    private Path file(String name, String content) {
+        Files.writeString(directory.resolve(name), content)
+    }
+}
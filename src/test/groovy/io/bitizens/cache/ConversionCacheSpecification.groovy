@@ -0,0 +1,176 @@
+package io.bitizens.cache
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.core.ConversionResult
+import io.bitizens.core.JotenbergConfig
+import io.bitizens.testing.FakeGotenberg
+import org.apache.http.HttpVersion
+import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.entity.InputStreamEntity
+import org.apache.http.message.BasicStatusLine
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+class ConversionCacheSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    @TempDir
+    Path directory
+
+    def pageProperties = new ChromiumPageProperties.Builder().build()
+    def options = new ChromiumOptions.Builder().build()
+
+    def "should serve repeated conversions from memory"() {
+        given:
+        def cache = new ConversionCache.Builder().build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(cache).build())
+
+        when:
+        def first = client.convert(DocumentSource.of("index.html", "<html>a</html>".bytes), pageProperties, options)
+        def firstBody = first.entity.content.readAllBytes()
+        def second = client.convert(DocumentSource.of("index.html", "<html>a</html>".bytes), pageProperties, options)
+
+        then:
+        server.requestCount == 1
+        second.getFirstHeader(ConversionCache.CACHE_HEADER).value == "memory"
+        second.entity.content.readAllBytes() == firstBody
+        cache.hitCount == 1
+        cache.missCount == 1
+
+        when:
+        client.convert(DocumentSource.of("index.html", "<html>b</html>".bytes), pageProperties, options).close()
+
+        then:
+        server.requestCount == 2
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should spool large results to disk and reload them after a restart"() {
+        given:
+        def cache = new ConversionCache.Builder().maxMemoryEntrySize(16).directory(directory).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(cache).build())
+        def document = DocumentSource.of("index.html", "<html></html>".bytes)
+
+        when:
+        def body = client.convert(document, pageProperties, options).entity.content.readAllBytes()
+        def reloaded = new ConversionCache.Builder().maxMemoryEntrySize(16).directory(directory).build()
+        def restarted = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(reloaded).build())
+        def cached = restarted.convert(document, pageProperties, options)
+
+        then:
+        server.requestCount == 1
+        cached.getFirstHeader(ConversionCache.CACHE_HEADER).value == "disk"
+        cached.entity.content.readAllBytes() == body
+        reloaded.diskSize == body.length
+
+        cleanup:
+        cached?.close()
+        client?.close()
+        restarted?.close()
+    }
+
+    def "should hand over results the disk tier fails to store"(long maxMemoryEntrySize) {
+        given:
+        def tier = directory.resolve("tier")
+        def cache = new ConversionCache.Builder().maxMemoryEntrySize(maxMemoryEntrySize).directory(tier).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(cache).build())
+        tier.deleteDir()
+
+        when:
+        def result = client.convert(DocumentSource.of("index.html", "<html></html>".bytes), pageProperties, options)
+
+        then:
+        result.successful
+        new String(result.entity.content.readAllBytes()).startsWith("%PDF-")
+        cache.diskFailureCount == 1
+        cache.diskSize == 0
+
+        cleanup:
+        result?.close()
+        client?.close()
+
+        where:
+        maxMemoryEntrySize << [4L * 1024 * 1024, 16L]
+    }
+
+    def "should expire entries and never cache failures"() {
+        given:
+        def cache = new ConversionCache.Builder().timeToLive(Duration.ZERO).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(cache).build())
+        def document = DocumentSource.of("index.html", "<html></html>".bytes)
+
+        when:
+        client.convert(document, pageProperties, options).close()
+        Thread.sleep(5)
+        client.convert(document, pageProperties, options).close()
+        server.errorRate = 1
+        client.convert(document, pageProperties, options).close()
+
+        then:
+        server.requestCount == 3
+        cache.expirationCount == 2
+        cache.memorySize == 0
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should convert again when a disk entry cannot be read"() {
+        given:
+        def cache = new ConversionCache.Builder().maxMemoryEntrySize(16).directory(directory).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().cache(cache).build())
+        def document = DocumentSource.of("index.html", "<html></html>".bytes)
+        client.convert(document, pageProperties, options).close()
+        Files.list(directory).withCloseable { files ->
+            files.filter { it.fileName.toString().endsWith(".meta") }.forEach { Files.writeString(it, "corrupted") }
+        }
+
+        when:
+        def result = client.convert(document, pageProperties, options)
+
+        then:
+        result.successful
+        result.getFirstHeader(ConversionCache.CACHE_HEADER) == null
+        server.requestCount == 2
+        cache.diskFailureCount == 1
+        cache.missCount == 2
+
+        cleanup:
+        result?.close()
+        client?.close()
+    }
+
+    def "should close a result whose body cannot be read"() {
+        given:
+        def cache = new ConversionCache.Builder().build()
+        def body = new InputStream() {
+            @Override
+            int read() throws IOException {
+                throw new IOException("Connection reset")
+            }
+        }
+        def response = Mock(CloseableHttpResponse) {
+            getStatusLine() >> new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK")
+            getEntity() >> new InputStreamEntity(body)
+        }
+
+        when:
+        cache.put("key", new ConversionResult(response))
+
+        then:
+        thrown(IOException)
+        1 * response.close()
+        cache.memorySize == 0
+    }
+}
@@ -0,0 +1,34 @@
+package io.bitizens.chromium
+
+import io.bitizens.common.exceptions.PageRangeMalformedException
+import spock.lang.Specification
+
+class ChromiumPagePropertiesSpecification extends Specification {
+    def "should accept page ranges that start at page 1 or later and do not end before they start"(int start, int end) {
+        when:
+        def properties = new ChromiumPageProperties.Builder().addNativePageRanges(start, end).build()
+
+        then:
+        properties.nativePageRanges == "$start-$end"
+
+        where:
+        start | end
+        1     | 5
+        3     | 3
+    }
+
+    def "should reject page ranges that start before page 1 or end before they start"(int start, int end) {
+        when:
+        new ChromiumPageProperties.Builder().addNativePageRanges(start, end)
+
+        then:
+        def e = thrown(PageRangeMalformedException)
+        e.message == "Page ranges must start at page 1 or later and must not end before they start."
+
+        where:
+        start | end
+        0     | 5
+        -1    | 2
+        5     | 1
+    }
+}
@@ -2,6 +2,8 @@ package io.bitizens.common
 
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 
 class CommonUtilsSpecification extends Specification {
     def "should be truthy when the url is valid"() {
@@ -143,4 +145,34 @@ class CommonUtilsSpecification extends Specification {
         then:
         containsIndexFile == false
     }
-}
\ No newline at end of file
+
+    def "should be truthy when an in-memory document is index.html"() {
+        given:
+        DocumentSource document = DocumentSource.of("index.html", "<html></html>".bytes)
+        expect:
+        CommonUtils.isIndex(document)
+    }
+
+    def "should be truthy when a document named .pdf carries the PDF signature"() {
+        given:
+        DocumentSource document = DocumentSource.of("file.pdf", ByteBuffer.wrap("%PDF-1.7\n".bytes))
+        expect:
+        CommonUtils.isPDF(document)
+    }
+
+    def "should be falsy when a document named .pdf does not carry the PDF signature"() {
+        given:
+        DocumentSource document = DocumentSource.of("file.pdf", new ByteArrayInputStream("<html></html>".bytes))
+        expect:
+        !CommonUtils.isPDF(document)
+    }
+
+    def "should not consume a stream document when peeking at its content"() {
+        given:
+        DocumentSource document = DocumentSource.of("file.pdf", new ByteArrayInputStream("%PDF-1.7".bytes))
+        when:
+        CommonUtils.isPDF(document)
+        then:
+        document.openStream().text == "%PDF-1.7"
+    }
+}
@@ -0,0 +1,34 @@
+package io.bitizens.common
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class DocumentSourceSpecification extends Specification {
+    def "should upload the remaining bytes of a buffer without moving it or flushing the stream"(ByteBuffer buffer) {
+        given:
+        buffer.position(2)
+        def flushes = 0
+        def out = new ByteArrayOutputStream() {
+            @Override
+            void flush() {
+                flushes++
+            }
+        }
+
+        when:
+        DocumentSource.of("file.pdf", buffer).toContentBody().writeTo(out)
+
+        then:
+        out.toString() == "%PDF-1.7"
+        buffer.position() == 2
+        flushes == 0
+
+        where:
+        buffer << [
+                ByteBuffer.wrap("___%PDF-1.7_".bytes, 1, 10).slice(),
+                ByteBuffer.allocateDirect(10).put("__%PDF-1.7".bytes).flip(),
+                ByteBuffer.wrap("__%PDF-1.7".bytes).asReadOnlyBuffer()
+        ]
+    }
+}
@@ -0,0 +1,124 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.common.exceptions.ConcurrencyLimitExceededException
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class ConcurrencyLimiterSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    def "should back off multiplicatively when Gotenberg signals saturation"() {
+        given:
+        def limiter = new ConcurrencyLimiter(RouteFamily.CHROMIUM, new LimitPolicy.Builder().initialLimit(10).backoffRatio(0.5).build())
+
+        when:
+        limiter.acquire()
+        limiter.release(ConcurrencyLimiter.Signal.DROPPED, 1_000_000)
+
+        then:
+        limiter.limit == 5
+        limiter.inFlightCount == 0
+    }
+
+    def "should grow the limit while saturated requests keep a steady latency"() {
+        given:
+        def limiter = new ConcurrencyLimiter(RouteFamily.LIBRE_OFFICE, new LimitPolicy.Builder().initialLimit(4).build())
+
+        when:
+        20.times {
+            4.times { limiter.acquire() }
+            4.times { limiter.release(ConcurrencyLimiter.Signal.SUCCESS, 1_000_000) }
+        }
+
+        then:
+        limiter.limit > 4
+    }
+
+    def "should reject requests beyond the limit once the queue is full or the queue time has elapsed"() {
+        given:
+        def limiter = new ConcurrencyLimiter(RouteFamily.PDF_ENGINES, new LimitPolicy.Builder()
+                .initialLimit(1)
+                .maxQueueLength(queueLength)
+                .maxQueueTime(Duration.ofMillis(10))
+                .build())
+        limiter.acquire()
+
+        when:
+        limiter.acquire()
+
+        then:
+        thrown(ConcurrencyLimitExceededException)
+        limiter.rejectedCount == 1
+        limiter.queuedCount == 0
+
+        where:
+        queueLength << [0, 1]
+    }
+
+    def "should leave the queue without taking a slot once the scope is aborted"() {
+        given:
+        def limiter = new ConcurrencyLimiter(RouteFamily.CHROMIUM, new LimitPolicy.Builder()
+                .initialLimit(1)
+                .maxQueueLength(1)
+                .maxQueueTime(Duration.ofMinutes(1))
+                .build())
+        limiter.acquire()
+        def scope = new AbortScope()
+        def waiter = CompletableFuture.runAsync {
+            scope.bind().withCloseable { limiter.acquire() }
+        }
+
+        when:
+        while (limiter.queuedCount == 0) {
+            Thread.sleep(1)
+        }
+        scope.abort()
+        waiter.get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof InterruptedIOException
+        limiter.queuedCount == 0
+        limiter.inFlightCount == 1
+        limiter.rejectedCount == 0
+    }
+
+    def "should release the slot when the request fails before it is sent"() {
+        given:
+        def config = new JotenbergConfig.Builder()
+                .limitPolicy(new LimitPolicy.Builder().initialLimit(1).maxQueueLength(0).build())
+                .loadBalancer({ throw new IllegalStateException("No endpoint") } as LoadBalancer)
+                .build()
+        def client = new Jotenberg(server.endpoint, config)
+        def limiter = client.getConcurrencyLimiter(RouteFamily.CHROMIUM)
+
+        when:
+        client.convert(DocumentSource.of("index.html", "<html></html>".bytes), new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build())
+
+        then:
+        thrown(IllegalStateException)
+        limiter.inFlightCount == 0
+        limiter.rejectedCount == 0
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should map routes to their family"() {
+        expect:
+        RouteFamily.of("forms/chromium/convert/url") == RouteFamily.CHROMIUM
+        RouteFamily.of("forms/libreoffice/convert") == RouteFamily.LIBRE_OFFICE
+        RouteFamily.of("forms/pdfengines/merge") == RouteFamily.PDF_ENGINES
+    }
+}
@@ -0,0 +1,105 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ConversionListenerSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    List<String> phases = new CopyOnWriteArrayList<>()
+    List<ConversionEvent> events = new CopyOnWriteArrayList<>()
+
+    ConversionListener listener = new ConversionListener() {
+        void onQueued(ConversionEvent event) { record("queued", event) }
+
+        void onConnectionLeased(ConversionEvent event) { record("leased", event) }
+
+        void onUploadStarted(ConversionEvent event) { record("uploadStarted", event) }
+
+        void onUploadFinished(ConversionEvent event) { record("uploadFinished", event) }
+
+        void onFirstByte(ConversionEvent event) { record("firstByte", event) }
+
+        void onCompleted(ConversionEvent event) { record("completed", event) }
+
+        void onFailed(ConversionEvent event, IOException failure) { record("failed", event) }
+    }
+
+    def "should report the phases of a conversion in order"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().listener(listener).build())
+
+        when:
+        def trace = convert(client)
+
+        then:
+        phases == ["queued", "leased", "uploadStarted", "uploadFinished", "firstByte", "completed"]
+        events*.trace.unique() == [trace]
+        server.requests[0].getHeader(ConversionResult.TRACE_HEADER) == trace
+        events[0].endpoint == null
+        events[1].endpoint == client.endpoints[0].url
+        events[4].statusCode == 200
+        (0..<events.size() - 1).every { events[it].timestampNanos <= events[it + 1].timestampNanos }
+        events.every { it.startNanos == events[0].startNanos }
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should report requests that failed without a response"() {
+        given:
+        def port = new ServerSocket(0).withCloseable { it.localPort }
+        def client = new Jotenberg("http://127.0.0.1:$port/", new JotenbergConfig.Builder().listener(listener).build())
+
+        when:
+        convert(client)
+
+        then:
+        thrown(IOException)
+        phases == ["queued", "failed"]
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should report attempts closed without reading their body"() {
+        given:
+        def policy = new RetryPolicy.Builder().maxAttempts(2).initialBackoff(Duration.ofMillis(1)).retryableStatusCodes(500).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().listener(listener).retryPolicy(policy).build())
+        server.errorRate = 1
+
+        when:
+        convert(client)
+
+        then:
+        server.requests.size() == 2
+        phases.count("completed") == 2
+        phases.indices.findAll { phases[it] == "completed" }.collect { events[it].statusCode } == [500, 500]
+
+        cleanup:
+        client?.close()
+    }
+
+    private void record(String phase, ConversionEvent event) {
+        phases << phase
+        events << event
+    }
+
+    private static String convert(Jotenberg client) {
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[64])]
+        client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .withCloseable {
+                    it.transferTo(OutputStream.nullOutputStream())
+                    it.trace
+                }
+    }
+}
@@ -0,0 +1,50 @@
+package io.bitizens.core
+
+import io.bitizens.common.DocumentSource
+import spock.lang.Specification
+
+class ConversionRequestSpecification extends Specification {
+
+    def "should fingerprint equivalent requests identically regardless of field order"() {
+        given:
+        def first = new ConversionRequest("/forms/chromium/convert/html").tap {
+            text("landscape", "true")
+            text("scale", "1.0")
+            document(DocumentSource.of("index.html", "<html></html>".bytes))
+        }
+        def second = new ConversionRequest("/forms/chromium/convert/html").tap {
+            text("scale", "1.0")
+            text("landscape", "true")
+            document(DocumentSource.of("index.html", "<html></html>".bytes))
+        }
+        expect:
+        first.fingerprint() == second.fingerprint()
+    }
+
+    def "should fingerprint requests differing by route, field or content differently"() {
+        given:
+        def base = request("/forms/chromium/convert/html", "true", "<html></html>")
+        expect:
+        base.fingerprint() != request("/forms/chromium/screenshot/html", "true", "<html></html>").fingerprint()
+        base.fingerprint() != request("/forms/chromium/convert/html", "false", "<html></html>").fingerprint()
+        base.fingerprint() != request("/forms/chromium/convert/html", "true", "<html> </html>").fingerprint()
+    }
+
+    def "should refuse to fingerprint stream documents"() {
+        given:
+        def request = new ConversionRequest("/forms/chromium/convert/html").tap {
+            document(DocumentSource.of("index.html", new ByteArrayInputStream(new byte[4])))
+        }
+        when:
+        request.fingerprint()
+        then:
+        thrown(IllegalStateException)
+    }
+
+    private static ConversionRequest request(String route, String landscape, String html) {
+        new ConversionRequest(route).tap {
+            text("landscape", landscape)
+            document(DocumentSource.of("index.html", html.bytes))
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.bitizens.core
+
+import org.apache.http.HttpVersion
+import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.entity.InputStreamEntity
+import org.apache.http.message.BasicHttpResponse
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.FileSystems
+import java.nio.file.StandardOpenOption
+
+class ConversionResultSpecification extends Specification {
+    @TempDir
+    Path directory
+
+    byte[] content = new byte[3 * BufferPool.BUFFER_SIZE + 17].tap { new Random(42).nextBytes(it) }
+
+    def "should stream the body to a file"(List<WriteOption> options) {
+        given:
+        def response = new StubResponse(200, new ByteArrayInputStream(content))
+        def target = directory.resolve("result.pdf")
+
+        when:
+        def written = new ConversionResult(response).writeTo(target, options as WriteOption[])
+
+        then:
+        written == content.length
+        Files.readAllBytes(target) == content
+        Files.list(directory).withCloseable { it.toList() } == [target]
+        response.closed
+
+        where:
+        options << [[], [WriteOption.ATOMIC], [WriteOption.FSYNC], [WriteOption.ATOMIC, WriteOption.FSYNC]]
+    }
+
+    def "should only replace the target once an atomic write is complete"() {
+        given:
+        def target = Files.writeString(directory.resolve("result.pdf"), "previous")
+        def observed = []
+        def body = new FilterInputStream(new ByteArrayInputStream(content)) {
+            @Override
+            int read(byte[] bytes, int offset, int length) throws IOException {
+                observed << Files.readString(target)
+                observed << Files.list(directory).withCloseable { it.count() }
+                super.read(bytes, offset, length)
+            }
+        }
+
+        when:
+        new ConversionResult(new StubResponse(200, body)).writeTo(target, WriteOption.ATOMIC)
+
+        then:
+        observed[0] == "previous"
+        observed[1] == 2
+        Files.readAllBytes(target) == content
+        Files.list(directory).withCloseable { it.count() } == 1
+    }
+
+    def "should clean up after a failed write"(List<WriteOption> options, String remaining) {
+        given:
+        def target = Files.writeString(directory.resolve("result.pdf"), "previous")
+        def response = new StubResponse(200, new SequenceInputStream(new ByteArrayInputStream(content), new InputStream() {
+            @Override
+            int read() throws IOException {
+                throw new IOException("Connection reset")
+            }
+        }))
+
+        when:
+        new ConversionResult(response).writeTo(target, options as WriteOption[])
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Connection reset"
+        response.closed
+        (Files.exists(target) ? Files.readString(target) : null) == remaining
+        Files.list(directory).withCloseable { it.count() } == (remaining == null ? 0 : 1)
+
+        where:
+        options              | remaining
+        []                   | null
+        [WriteOption.ATOMIC] | "previous"
+    }
+
+    def "should remove the partial file when an atomic write cannot be published"() {
+        given:
+        def target = Files.createDirectory(directory.resolve("result.pdf"))
+        Files.writeString(target.resolve("child"), "occupied")
+        def response = new StubResponse(200, new ByteArrayInputStream(content))
+
+        when:
+        new ConversionResult(response).writeTo(target, WriteOption.ATOMIC)
+
+        then:
+        thrown(IOException)
+        response.closed
+        Files.list(directory).withCloseable { it.toList() } == [target]
+    }
+
+    @IgnoreIf({ !FileSystems.default.supportedFileAttributeViews().contains("posix") })
+    def "should publish atomic writes with the permissions of a plain write"() {
+        given:
+        def plain = directory.resolve("plain.pdf")
+        def atomic = directory.resolve("atomic.pdf")
+
+        when:
+        new ConversionResult(new StubResponse(200, new ByteArrayInputStream(content))).writeTo(plain)
+        new ConversionResult(new StubResponse(200, new ByteArrayInputStream(content))).writeTo(atomic, WriteOption.ATOMIC)
+
+        then:
+        Files.getPosixFilePermissions(atomic) == Files.getPosixFilePermissions(plain)
+    }
+
+    def "should not write the body of an error response"() {
+        given:
+        def response = new StubResponse(503, new ByteArrayInputStream("Service Unavailable".bytes))
+        def target = directory.resolve("result.pdf")
+
+        when:
+        new ConversionResult(response).writeTo(target)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Gotenberg answered with status 503."
+        response.closed
+        Files.notExists(target)
+    }
+
+    def "should stream the body to a channel"() {
+        given:
+        def response = new StubResponse(200, new ByteArrayInputStream(content))
+        def target = directory.resolve("result.pdf")
+
+        when:
+        def written = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).withCloseable { channel ->
+            def transferred = new ConversionResult(response).transferTo(channel)
+            assert channel.open
+            transferred
+        }
+
+        then:
+        written == content.length
+        Files.readAllBytes(target) == content
+        response.closed
+    }
+
+    def "should stream the body to an output stream"() {
+        given:
+        def response = new StubResponse(200, new ByteArrayInputStream(content))
+        def out = new ByteArrayOutputStream()
+
+        when:
+        def written = new ConversionResult(response).transferTo(out)
+
+        then:
+        written == content.length
+        out.toByteArray() == content
+        response.closed
+    }
+
+    static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        boolean closed
+
+        StubResponse(int statusCode, InputStream body) {
+            super(HttpVersion.HTTP_1_1, statusCode, "Status")
+            entity = new InputStreamEntity(body)
+        }
+
+        @Override
+        void close() {
+            closed = true
+        }
+    }
+}
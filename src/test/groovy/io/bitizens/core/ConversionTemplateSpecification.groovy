@@ -0,0 +1,144 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.common.exceptions.IndexFileNotFoundExceptions
+import io.bitizens.testing.FakeGotenberg
+import org.apache.http.ContentTooLongException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ConversionTemplateSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    @TempDir
+    Path directory
+
+    Path header
+
+    ChromiumPageProperties pageProperties = new ChromiumPageProperties.Builder().addPrintBackground(true).build()
+
+    ChromiumOptions options
+
+    DocumentSource index = DocumentSource.of("index.html", "<html>Hello</html>".bytes)
+
+    def setup() {
+        header = directory.resolve("header.html")
+        Files.writeString(header, "<html>Header</html>")
+        options = new ChromiumOptions.Builder().addHeader(header.toFile()).build() as ChromiumOptions
+    }
+
+    def "should send the same form as a conversion without a template"(boolean offHeap) {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        def template = new ConversionTemplate.Builder().chromiumHtml(pageProperties, options).offHeap(offHeap).build()
+
+        when:
+        client.convert(index, pageProperties, options).close()
+        def result = client.convert(template, index)
+
+        then:
+        result.successful
+        template.offHeap == offHeap
+        template.assetNames == ["header.html"]
+        def (expected, actual) = server.requests
+        actual.route == expected.route
+        actual.fields == expected.fields
+        actual.files*.filename == expected.files*.filename
+        actual.files*.content == expected.files*.content
+
+        cleanup:
+        result?.close()
+        client?.close()
+
+        where:
+        offHeap << [false, true]
+    }
+
+    def "should keep the assets read when the template was built"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        def template = new ConversionTemplate.Builder().chromiumHtml(pageProperties, options).build()
+        Files.writeString(header, "<html>Changed</html>")
+
+        when:
+        client.convert(template, index).close()
+
+        then:
+        new String(server.requests[0].files.find { it.filename == "header.html" }.content) == "<html>Header</html>"
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should fingerprint requests by their template and documents"() {
+        given:
+        def template = new ConversionTemplate.Builder().chromiumHtml(pageProperties, options).build()
+        def other = new ConversionTemplate.Builder().chromiumHtml(new ChromiumPageProperties.Builder().build(), options).build()
+
+        expect:
+        request(template, "<html>Hello</html>").fingerprint() == request(template, "<html>Hello</html>").fingerprint()
+        request(template, "<html>Hello</html>").fingerprint() != request(template, "<html>Bye</html>").fingerprint()
+        request(template, "<html>Hello</html>").fingerprint() != request(other, "<html>Hello</html>").fingerprint()
+    }
+
+    def "should buffer small bodies like any other multipart entity"() {
+        given:
+        def template = new ConversionTemplate.Builder().chromiumHtml(pageProperties, options).build()
+        def small = request(template, "<html>Hello</html>").toEntity()
+        def large = request(template, "x" * (32 * 1024)).toEntity()
+        def unknown = new ConversionRequest(template).tap {
+            document(DocumentSource.of("index.html", new ByteArrayInputStream("<html>Hello</html>".bytes)))
+        }.toEntity()
+
+        when:
+        def out = new ByteArrayOutputStream()
+        small.writeTo(out)
+
+        then:
+        small.content.bytes == out.toByteArray()
+
+        when:
+        large.content
+
+        then:
+        def tooLong = thrown(ContentTooLongException)
+        tooLong.message == "Content length is too long: " + large.contentLength
+
+        when:
+        unknown.content
+
+        then:
+        def lengthUnknown = thrown(ContentTooLongException)
+        lengthUnknown.message == "Content length is unknown"
+    }
+
+    def "should reject Chromium conversions without an index file"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        def template = new ConversionTemplate.Builder().chromiumHtml(pageProperties, options).build()
+
+        when:
+        client.convert(template, DocumentSource.of("style.css", new byte[8]))
+
+        then:
+        thrown(IndexFileNotFoundExceptions)
+        server.requests.isEmpty()
+
+        cleanup:
+        client?.close()
+    }
+
+    private static ConversionRequest request(ConversionTemplate template, String content) {
+        def request = new ConversionRequest(template)
+        request.document(DocumentSource.of("index.html", content.bytes))
+        request
+    }
+}
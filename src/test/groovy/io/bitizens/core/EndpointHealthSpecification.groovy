@@ -0,0 +1,189 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import org.apache.http.client.methods.HttpGet
+import spock.lang.Specification
+
+import java.time.Duration
+
+class EndpointHealthSpecification extends Specification {
+    static final long SECOND = Duration.ofSeconds(1).toNanos()
+
+    HealthPolicy policy = new HealthPolicy.Builder()
+            .checkInterval(null)
+            .minimumRequests(4)
+            .slidingWindowSize(4)
+            .consecutiveTimeoutsThreshold(2)
+            .openDuration(Duration.ofSeconds(10))
+            .minimumLatencySamples(10)
+            .rampUpDuration(Duration.ZERO)
+            .build()
+
+    def "should open the circuit on the failure rate and close it after a successful trial"() {
+        given:
+        def health = new EndpointHealth(policy)
+
+        when:
+        2.times { health.record(Endpoint.Outcome.SUCCESS, RouteFamily.CHROMIUM, 1, 0) }
+        2.times { health.record(Endpoint.Outcome.FAILURE, RouteFamily.CHROMIUM, 1, 0) }
+
+        then:
+        health.getState(0) == Endpoint.State.OPEN
+        !health.isAvailable(5 * SECOND)
+
+        when:
+        def available = health.isAvailable(10 * SECOND)
+        def claimed = health.tryBegin(10 * SECOND)
+
+        then:
+        available
+        claimed
+        health.getState(10 * SECOND) == Endpoint.State.HALF_OPEN
+        !health.isAvailable(10 * SECOND)
+        !health.tryBegin(10 * SECOND)
+
+        when:
+        health.record(Endpoint.Outcome.SUCCESS, RouteFamily.CHROMIUM, 1, 11 * SECOND)
+
+        then:
+        health.getState(11 * SECOND) == Endpoint.State.HEALTHY
+    }
+
+    def "should release the trial of a half-open endpoint when it is cancelled"() {
+        given:
+        def config = new JotenbergConfig.Builder().healthPolicy(policy).build()
+        def endpoint = new Endpoint("http://localhost:3000/", config)
+        def opened = System.nanoTime() - 20 * SECOND
+        2.times { endpoint.health.record(Endpoint.Outcome.TIMEOUT, RouteFamily.CHROMIUM, 1, opened) }
+
+        when:
+        def now = System.nanoTime()
+        def first = endpoint.tryClaim(now)
+        def second = endpoint.tryClaim(now)
+        endpoint.end(endpoint.begin(), Endpoint.Outcome.CANCELLED)
+
+        then:
+        first
+        !second
+        endpoint.state == Endpoint.State.HALF_OPEN
+        endpoint.failureCount == 0
+        endpoint.inFlightCount == 0
+        endpoint.isAvailable(System.nanoTime())
+        endpoint.tryClaim(System.nanoTime())
+
+        cleanup:
+        endpoint?.close()
+    }
+
+    def "should open the circuit on consecutive timeouts and on failed health checks"() {
+        given:
+        def timedOut = new EndpointHealth(policy)
+        def unhealthy = new EndpointHealth(policy)
+
+        when:
+        2.times { timedOut.record(Endpoint.Outcome.TIMEOUT, RouteFamily.CHROMIUM, 1, 0) }
+        unhealthy.recordCheck(false, 0)
+
+        then:
+        timedOut.getState(0) == Endpoint.State.OPEN
+        unhealthy.getState(0) == Endpoint.State.OPEN
+    }
+
+    def "should not open the circuit when every connection is busy with conversions"() {
+        given:
+        def server = new FakeGotenberg.Builder().start()
+        def checkPolicy = new HealthPolicy.Builder().checkInterval(Duration.ofHours(1)).checkTimeout(Duration.ofMillis(100)).build()
+        def config = new JotenbergConfig.Builder().maxConnectionsTotal(1).maxConnectionsPerRoute(1).healthPolicy(checkPolicy).build()
+        def endpoint = new Endpoint(server.endpoint, config)
+        def busy = endpoint.client.execute(new HttpGet(server.endpoint + "health"))
+        def monitor = HealthMonitor.start([endpoint], checkPolicy)
+
+        when:
+        monitor.check(endpoint)
+
+        then:
+        endpoint.state == Endpoint.State.HEALTHY
+
+        cleanup:
+        monitor?.close()
+        busy?.close()
+        endpoint?.close()
+        server?.close()
+    }
+
+    def "should eject the endpoint whose p99 latency drifts above its peers"() {
+        given:
+        def config = new JotenbergConfig.Builder().healthPolicy(policy).build()
+        def endpoints = (0..2).collect { new Endpoint("http://localhost:300${it}/", config) }
+        [1, 1, 10].eachWithIndex { latency, i ->
+            10.times { endpoints[i].health.record(Endpoint.Outcome.SUCCESS, RouteFamily.CHROMIUM, latency * SECOND, 0) }
+        }
+        def monitor = HealthMonitor.start(endpoints, new HealthPolicy.Builder()
+                .checkInterval(Duration.ofHours(1))
+                .minimumLatencySamples(10)
+                .maxEjectionPercent(50)
+                .build())
+
+        when:
+        monitor.ejectOutliers()
+
+        then:
+        endpoints*.state == [Endpoint.State.HEALTHY, Endpoint.State.HEALTHY, Endpoint.State.EJECTED]
+
+        cleanup:
+        monitor?.close()
+        endpoints*.close()
+    }
+
+    def "should compare latencies within a route family only"() {
+        given:
+        def config = new JotenbergConfig.Builder().healthPolicy(policy).build()
+        def endpoints = (0..2).collect { new Endpoint("http://localhost:300${it}/", config) }
+        endpoints.each { endpoint -> 10.times { endpoint.health.record(Endpoint.Outcome.SUCCESS, RouteFamily.PDF_ENGINES, SECOND, 0) } }
+        10.times { endpoints[2].health.record(Endpoint.Outcome.SUCCESS, RouteFamily.LIBRE_OFFICE, 30 * SECOND, 0) }
+        def monitor = HealthMonitor.start(endpoints, new HealthPolicy.Builder()
+                .checkInterval(Duration.ofHours(1))
+                .minimumLatencySamples(10)
+                .maxEjectionPercent(50)
+                .build())
+
+        when:
+        monitor.ejectOutliers()
+
+        then:
+        endpoints*.state == [Endpoint.State.HEALTHY, Endpoint.State.HEALTHY, Endpoint.State.HEALTHY]
+
+        cleanup:
+        monitor?.close()
+        endpoints*.close()
+    }
+
+    def "should route around a failing endpoint"() {
+        given:
+        def failing = new FakeGotenberg.Builder().errorRate(1).start()
+        def healthy = new FakeGotenberg.Builder().start()
+        def client = new Jotenberg([failing.endpoint, healthy.endpoint], new JotenbergConfig.Builder()
+                .healthPolicy(policy)
+                .build())
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[8])]
+
+        when:
+        def statuses = (1..40).collect {
+            client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                    .withCloseable { it.statusCode }
+        }
+
+        then:
+        client.endpoints[0].state == Endpoint.State.OPEN
+        statuses.takeRight(10).every { it == 200 }
+
+        cleanup:
+        client?.close()
+        failing?.close()
+        healthy?.close()
+    }
+}
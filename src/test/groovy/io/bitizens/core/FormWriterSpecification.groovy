@@ -0,0 +1,69 @@
+package io.bitizens.core
+
+import io.bitizens.common.FormSink
+import io.bitizens.common.PdfFormat
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficeOptionsFormWriter
+import io.bitizens.pdfengines.PDFEnginesMergeOptions
+import io.bitizens.pdfengines.PDFEnginesMergeOptionsFormWriter
+import io.bitizens.screenshots.ScreenshotOptions
+import io.bitizens.screenshots.ScreenshotOptionsFormWriter
+import spock.lang.Specification
+
+class FormWriterSpecification extends Specification {
+    List<String> texts = []
+    List<String> files = []
+    FormSink sink = new FormSink() {
+        @Override
+        void text(String name, String value) {
+            texts << "$name=$value"
+        }
+
+        @Override
+        void file(String name, File file) {
+            files << "$name=${file.name}"
+        }
+    }
+
+    def "should write fields inherited from PDFEnginesOptions"() {
+        given:
+        PDFEnginesMergeOptions options = new PDFEnginesMergeOptions.Builder()
+                .addPdfa(PdfFormat.A_2B)
+                .addPdfua("true")
+                .build()
+        when:
+        PDFEnginesMergeOptionsFormWriter.write(options, sink)
+        then:
+        texts == ["pdfa=PDF/A-2b", "pdfua=true"]
+    }
+
+    def "should write fields declared by ScreenshotOptions"() {
+        given:
+        ScreenshotOptions options = new ScreenshotOptions.Builder()
+                .addOptimizeForSpeed(true)
+                .build()
+        when:
+        ScreenshotOptionsFormWriter.write(options, sink)
+        then:
+        texts.contains("optimizeForSpeed=true")
+    }
+
+    def "should write each embedded file as a repeated part"() {
+        given:
+        LibreOfficeOptions options = new LibreOfficeOptions.Builder()
+                .addEmbeds([new File("a.xml"), new File("b.xml")])
+                .build()
+        when:
+        LibreOfficeOptionsFormWriter.write(options, sink)
+        then:
+        files == ["embeds=a.xml", "embeds=b.xml"]
+    }
+
+    def "should write nothing when options are null"() {
+        when:
+        ScreenshotOptionsFormWriter.write(null, sink)
+        then:
+        texts.isEmpty()
+        files.isEmpty()
+    }
+}
@@ -0,0 +1,62 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import jdk.jfr.Recording
+import jdk.jfr.consumer.RecordingFile
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class GotenbergRequestEventSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    def "should emit a flight recorder event for every request"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+        def recording = new Recording()
+        recording.enable("io.bitizens.GotenbergRequest").withoutThreshold()
+        def dump = Files.createTempFile("jotenberg-", ".jfr")
+
+        when:
+        recording.start()
+        def trace = convert(client)
+        recording.stop()
+        recording.dump(dump)
+        def events = RecordingFile.readAllEvents(dump).findAll { it.eventType.name == "io.bitizens.GotenbergRequest" }
+
+        then:
+        events.size() == 1
+        with(events[0]) {
+            getString("route") == "forms/libreoffice/convert"
+            getString("endpoint") == client.endpoint
+            getString("trace") == trace
+            getInt("fileCount") == 2
+            getLong("uploadBytes") > 128
+            getLong("responseBytes") > 0
+            getInt("statusCode") == 200
+            getString("failure") == null
+            !getDuration("renderTime").negative
+            duration >= getDuration("uploadTime") + getDuration("renderTime")
+        }
+
+        cleanup:
+        recording?.close()
+        client?.close()
+        Files.deleteIfExists(dump)
+    }
+
+    private static String convert(Jotenberg client) {
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[64]), DocumentSource.of("b.docx", new byte[64])]
+        client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .withCloseable {
+                    it.transferTo(OutputStream.nullOutputStream())
+                    it.trace
+                }
+    }
+}
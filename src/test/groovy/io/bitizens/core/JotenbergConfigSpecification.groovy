@@ -0,0 +1,74 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import org.apache.http.HttpVersion
+import org.apache.http.client.protocol.HttpClientContext
+import org.apache.http.message.BasicHttpResponse
+import spock.lang.Specification
+
+import java.time.Duration
+
+class JotenbergConfigSpecification extends Specification {
+    def "should reject more connections per route than in total"() {
+        when:
+        new JotenbergConfig.Builder().maxConnectionsTotal(5).maxConnectionsPerRoute(10).build()
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "maxConnectionsPerRoute must not exceed maxConnectionsTotal"
+    }
+
+    def "should reject invalid pool and buffer sizes"(Closure<JotenbergConfig.Builder> setting, String message) {
+        when:
+        setting(new JotenbergConfig.Builder())
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == message
+
+        where:
+        setting                                   | message
+        { it.maxConnectionsTotal(0) }             | "maxConnectionsTotal must be positive"
+        { it.maxConnectionsTotal(-1) }            | "maxConnectionsTotal must be positive"
+        { it.maxConnectionsPerRoute(0) }          | "maxConnectionsPerRoute must be positive"
+        { it.connectionBufferSize(0) }            | "connectionBufferSize must be positive"
+        { it.socketSendBufferSize(-1) }           | "socketSendBufferSize must not be negative"
+        { it.socketReceiveBufferSize(-1) }        | "socketReceiveBufferSize must not be negative"
+    }
+
+    def "should size the connection pool of every endpoint"() {
+        given:
+        def config = new JotenbergConfig.Builder().maxConnectionsTotal(20).maxConnectionsPerRoute(20).build()
+        def client = new Jotenberg(["http://localhost:3000/", "http://localhost:3001/"], config)
+
+        expect:
+        client.endpoints.every { it.connectionManager.maxTotal == 20 && it.connectionManager.defaultMaxPerRoute == 20 }
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should honour the keep-alive timeout advertised by the server, capped by the configured one"(Duration keepAlive, String header, long expected) {
+        given:
+        def builder = new JotenbergConfig.Builder()
+        if (keepAlive != null) {
+            builder.keepAlive(keepAlive)
+        }
+        def response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK")
+        if (header != null) {
+            response.addHeader("Keep-Alive", header)
+        }
+
+        expect:
+        builder.build().keepAliveStrategy().getKeepAliveDuration(response, HttpClientContext.create()) == expected
+
+        where:
+        keepAlive             | header        | expected
+        null                  | "timeout=5"   | 5000
+        null                  | null          | -1
+        Duration.ofSeconds(2) | "timeout=5"   | 2000
+        Duration.ofSeconds(9) | "timeout=5"   | 5000
+        Duration.ofSeconds(2) | null          | 2000
+        Duration.ofSeconds(2) | "max=100"     | 2000
+    }
+}
@@ -0,0 +1,58 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class LoadBalancerSpecification extends Specification {
+    @AutoCleanup
+    Endpoint first = new Endpoint("http://localhost:3000/", JotenbergConfig.defaults())
+
+    @AutoCleanup
+    Endpoint second = new Endpoint("http://localhost:3001/", JotenbergConfig.defaults())
+
+    def "should pick the endpoint with the fewest outstanding requests"() {
+        given:
+        first.begin()
+        first.begin()
+        second.begin()
+
+        expect:
+        LoadBalancer.leastOutstandingRequests().select([first, second]) == second
+        LoadBalancer.powerOfTwoChoices().select([first, second]) == second
+    }
+
+    def "should spread conversions across every endpoint"() {
+        given:
+        def servers = (1..2).collect { new FakeGotenberg.Builder().start() }
+        def client = new Jotenberg(servers*.endpoint, new JotenbergConfig.Builder()
+                .loadBalancer(LoadBalancer.leastOutstandingRequests())
+                .build())
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[8])]
+
+        when:
+        20.times {
+            client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build()).close()
+        }
+
+        then:
+        servers.every { it.requestCount > 0 }
+        client.endpoints*.requestCount.sum() == 20
+        client.endpoints.every { it.inFlightCount == 0 }
+
+        cleanup:
+        client?.close()
+        servers*.close()
+    }
+
+    def "should reject an empty endpoint list"() {
+        when:
+        new Jotenberg([], JotenbergConfig.defaults())
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
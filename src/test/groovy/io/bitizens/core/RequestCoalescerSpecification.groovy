@@ -0,0 +1,115 @@
+package io.bitizens.core
+
+import io.bitizens.AsyncJotenberg
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.testing.FakeGotenberg
+import io.bitizens.testing.LatencyDistribution
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+class RequestCoalescerSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder()
+            .latency(LatencyDistribution.fixed(Duration.ofMillis(500)))
+            .start()
+
+    @TempDir
+    Path spoolDirectory
+
+    def "should share one in-flight conversion between identical callers"() {
+        given:
+        def coalescer = new RequestCoalescer.Builder().maxBufferSize(0).spoolDirectory(spoolDirectory).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().coalescer(coalescer).build())
+        def executor = Executors.newFixedThreadPool(8)
+        def start = new CountDownLatch(1)
+        def conversions = (1..8).collect {
+            (Callable<byte[]>) {
+                start.await()
+                def result = client.convert(DocumentSource.of("index.html", "<html></html>".bytes),
+                        new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build())
+                result.withCloseable { it.entity.content.readAllBytes() }
+            }
+        }
+
+        when:
+        def futures = conversions.collect { executor.submit(it) }
+        start.countDown()
+        def bodies = futures*.get()
+
+        then:
+        server.requestCount == coalescer.executionCount
+        coalescer.executionCount < 8
+        coalescer.executionCount + coalescer.coalescedCount == 8
+        bodies.every { it == bodies[0] }
+        coalescer.inFlightCount == 0
+        Files.list(spoolDirectory).withCloseable { it.count() } == 0
+
+        cleanup:
+        executor?.shutdownNow()
+        client?.close()
+    }
+
+    def "should hand a response nobody joined to its caller without buffering it"() {
+        given:
+        def coalescer = new RequestCoalescer.Builder().maxBufferSize(0).spoolDirectory(spoolDirectory).build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().coalescer(coalescer).build())
+
+        when:
+        def result = client.convert(DocumentSource.of("index.html", "<html></html>".bytes),
+                new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build())
+
+        then:
+        result.successful
+        result.getFirstHeader(RequestCoalescer.COALESCED_HEADER) == null
+        Files.list(spoolDirectory).withCloseable { it.count() } == 0
+        result.entity.content.readAllBytes().length > 0
+        coalescer.inFlightCount == 0
+
+        cleanup:
+        result?.close()
+        client?.close()
+    }
+
+    def "should keep a shared conversion running when the caller that started it is cancelled"() {
+        given:
+        def coalescer = new RequestCoalescer.Builder().build()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().coalescer(coalescer).build())
+        def async = new AsyncJotenberg(client)
+        def conditions = new PollingConditions(timeout: 1)
+        def pageProperties = new ChromiumPageProperties.Builder().build()
+        def options = new ChromiumOptions.Builder().build()
+
+        when:
+        def leader = async.convert("https://example.com", pageProperties, options)
+        conditions.eventually { assert coalescer.inFlightCount == 1 }
+        def follower = async.convert("https://example.com", pageProperties, options)
+        conditions.eventually { assert coalescer.coalescedCount == 1 }
+        leader.cancel(true)
+        def result = follower.get()
+
+        then:
+        leader.cancelled
+        result.successful
+        result.getFirstHeader(RequestCoalescer.COALESCED_HEADER).value == "true"
+        result.entity.content.readAllBytes().length > 0
+        server.requestCount == 1
+        coalescer.executionCount == 1
+
+        cleanup:
+        result?.close()
+        async?.close()
+        client?.close()
+    }
+}
@@ -0,0 +1,119 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.testing.FakeGotenberg
+import io.bitizens.testing.LatencyDistribution
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+class RequestHedgerSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg slow = new FakeGotenberg.Builder().latency(LatencyDistribution.fixed(Duration.ofMillis(10))).start()
+
+    @AutoCleanup
+    FakeGotenberg fast = new FakeGotenberg.Builder().latency(LatencyDistribution.fixed(Duration.ofMillis(10))).start()
+
+    def "should answer from the hedge when the primary endpoint stalls"() {
+        given:
+        def client = new Jotenberg([slow.endpoint, fast.endpoint], new JotenbergConfig.Builder()
+                .hedgePolicy(new HedgePolicy.Builder()
+                        .minimumSamples(5)
+                        .minDelay(Duration.ofMillis(20))
+                        .budgetRatio(1)
+                        .build())
+                .build())
+        def convert = {
+            client.convert("https://example.com", new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build())
+                    .withCloseable { it.statusCode }
+        }
+        10.times { convert() }
+
+        when:
+        slow.latency = LatencyDistribution.fixed(Duration.ofSeconds(5))
+        def start = System.nanoTime()
+        def statuses = (1..6).collect { convert() }
+        def elapsed = Duration.ofNanos(System.nanoTime() - start)
+
+        then:
+        statuses.every { it == 200 }
+        elapsed < Duration.ofSeconds(5)
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should not hedge routes outside the configured families"() {
+        given:
+        def hedger = new RequestHedger(HedgePolicy.defaults())
+
+        expect:
+        hedger.isHedged(new ConversionRequest("forms/chromium/convert/url"))
+        !hedger.isHedged(new ConversionRequest("forms/libreoffice/convert"))
+    }
+
+    def "should keep the hedge off the endpoint the primary picks after the hedge started"() {
+        given:
+        def hedger = new RequestHedger(new HedgePolicy.Builder()
+                .minimumSamples(1)
+                .minDelay(Duration.ofMillis(20))
+                .budgetRatio(1)
+                .build())
+        def endpoints = [new Endpoint("http://localhost:3000/", JotenbergConfig.defaults()),
+                         new Endpoint("http://localhost:3001/", JotenbergConfig.defaults())]
+        def request = new ConversionRequest("forms/chromium/convert/url")
+        def result = Stub(ConversionResult) { getStatusCode() >> 200 }
+        hedger.execute(request, { avoided, selected -> result } as RequestHedger.Attempt)
+
+        when:
+        def attempts = new AtomicInteger()
+        def picks = new CopyOnWriteArrayList<Endpoint>()
+        hedger.execute(request, { avoided, selected ->
+            if (attempts.getAndIncrement() == 0) {
+                Thread.sleep(100)
+            }
+            def endpoint = endpoints.find { it != avoided.get() }
+            selected.set(endpoint)
+            picks << endpoint
+            Thread.sleep(200)
+            result
+        } as RequestHedger.Attempt)
+
+        then:
+        attempts.get() == 2
+        picks.size() == 2
+        picks[0] != picks[1]
+
+        cleanup:
+        hedger?.close()
+        endpoints*.close()
+    }
+
+    def "should stop the hedge threads when the client is closed"() {
+        given:
+        def client = new Jotenberg([slow.endpoint, fast.endpoint], new JotenbergConfig.Builder()
+                .hedgePolicy(new HedgePolicy.Builder()
+                        .minimumSamples(1)
+                        .minDelay(Duration.ofMillis(1))
+                        .budgetRatio(1)
+                        .build())
+                .build())
+        3.times {
+            client.convert("https://example.com", new ChromiumPageProperties.Builder().build(), new ChromiumOptions.Builder().build()).close()
+        }
+
+        when:
+        client.close()
+
+        then:
+        new PollingConditions(timeout: 2).eventually {
+            assert !Thread.allStackTraces.keySet().any { it.name.startsWith("jotenberg-hedge-") && it.alive }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.common.exceptions.ConcurrencyLimitExceededException
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import org.apache.http.NoHttpResponseException
+import org.apache.http.conn.ConnectTimeoutException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+
+class RetryPolicySpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    RetryPolicy policy = new RetryPolicy.Builder()
+            .maxAttempts(10)
+            .initialBackoff(Duration.ofMillis(20))
+            .maxBackoff(Duration.ofMillis(200))
+            .build()
+
+    def "should classify failures"() {
+        expect:
+        policy.isRetryable(503)
+        !policy.isRetryable(400)
+        !policy.isRetryable(500)
+        policy.isRetryable(new ConnectException())
+        policy.isRetryable(new ConnectTimeoutException())
+        policy.isRetryable(new NoHttpResponseException("closed"))
+        policy.isRetryable(new SocketException("Connection reset"))
+        !policy.isRetryable(new SocketTimeoutException())
+        !policy.isRetryable(new ConcurrencyLimitExceededException("CHROMIUM", 1))
+    }
+
+    def "should grow the backoff exponentially up to the maximum"() {
+        expect:
+        policy.backoff(1) == Duration.ofMillis(20)
+        policy.backoff(3) == Duration.ofMillis(80)
+        policy.backoff(10) == Duration.ofMillis(200)
+    }
+
+    def "should retry through a transient outage"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().retryPolicy(policy).build())
+
+        when:
+        server.unavailableFor(Duration.ofMillis(50))
+        def statusCode = convert(client, DocumentSource.of("a.docx", new byte[8]))
+
+        then:
+        statusCode == 200
+        server.requestCount > 1
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should not retry validation errors, server errors or stream documents"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().retryPolicy(policy).build())
+
+        when:
+        server.errorRate = 1
+        def failed = convert(client, DocumentSource.of("a.docx", new byte[8]))
+        server.errorRate = 0
+        server.unavailableFor(Duration.ofSeconds(5))
+        def unavailable = convert(client, DocumentSource.of("a.docx", new ByteArrayInputStream(new byte[8])))
+
+        then:
+        failed == 500
+        unavailable == 503
+        server.requestCount == 2
+
+        cleanup:
+        client?.close()
+    }
+
+    private static int convert(Jotenberg client, DocumentSource document) {
+        DocumentSource[] documents = [document]
+        client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .withCloseable { it.statusCode }
+    }
+}
@@ -0,0 +1,233 @@
+package io.bitizens.core
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.metrics.SimpleMetricsRegistry
+import io.bitizens.testing.LatencyDistribution
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class WebhookReceiverSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().recordRequests(true).start()
+
+    @TempDir
+    Path spool
+
+    @AutoCleanup
+    WebhookReceiver receiver
+
+    DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[32])]
+
+    def setup() {
+        receiver = new WebhookReceiver.Builder().host("127.0.0.1").spoolDirectory(spool).start()
+    }
+
+    def "should complete the conversion when Gotenberg posts the result"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().webhookReceiver(receiver).build())
+
+        when:
+        def result = client.submitToLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .get(10, TimeUnit.SECONDS)
+
+        then:
+        def request = server.requests[0]
+        def token = request.getHeader("Gotenberg-Webhook-Url") - (receiver.callbackUrl + "result?token=")
+        token.length() >= 16
+        request.getHeader("Gotenberg-Webhook-Url") == receiver.callbackUrl + "result?token=" + token
+        request.getHeader("Gotenberg-Webhook-Error-Url") == receiver.callbackUrl + "error?token=" + token
+        result.statusCode == 200
+        result.trace == request.getHeader(ConversionResult.TRACE_HEADER)
+        result.getFirstHeader("Content-Type").value == "application/pdf"
+        Files.list(spool).count() == 1
+
+        when:
+        def content = result.entity.content.readAllBytes()
+        result.close()
+
+        then:
+        new String(content).startsWith("%PDF-")
+        Files.list(spool).count() == 0
+        receiver.pendingCount == 0
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should complete the conversion with the error reported by Gotenberg"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().webhookReceiver(receiver).build())
+        server.errorRate = 1
+
+        when:
+        def result = client.submitToLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .get(10, TimeUnit.SECONDS)
+
+        then:
+        result.statusCode == 500
+        !result.successful
+        result.entity.content.text == "Internal Server Error"
+
+        cleanup:
+        result?.close()
+        client?.close()
+    }
+
+    def "should neither hedge webhook submissions nor measure them as conversions"() {
+        given:
+        def metrics = new SimpleMetricsRegistry()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder()
+                .webhookReceiver(receiver)
+                .metrics(metrics)
+                .hedgePolicy(new HedgePolicy.Builder().families(RouteFamily.LIBRE_OFFICE).minimumSamples(1).minDelay(Duration.ofMillis(1)).build())
+                .build())
+        server.latency = LatencyDistribution.fixed(Duration.ofMillis(200))
+        def pageProperties = new LibreOfficePageProperties.Builder().build()
+        def options = new LibreOfficeOptions.Builder().build()
+
+        when:
+        client.convertWithLibreOffice(documents, pageProperties, options).close()
+        def results = (1..3).collect { client.submitToLibreOffice(documents, pageProperties, options) }
+                .collect { it.get(10, TimeUnit.SECONDS) }
+
+        then:
+        results.every { it.statusCode == 200 }
+        server.requests.size() == 4
+        metrics.getRouteMetrics("forms/libreoffice/convert").requestCount == 1
+        metrics.getRouteMetrics("webhook/forms/libreoffice/convert").requestCount == 3
+        metrics.getGauge("jotenberg.hedges", [:]) == 0
+
+        cleanup:
+        results*.close()
+        client?.close()
+    }
+
+    def "should keep the conversion pending when a callback arrives with another method"() {
+        given:
+        def request = new ConversionRequest("forms/libreoffice/convert").tap { header(ConversionResult.TRACE_HEADER, "trace-1") }
+        def future = receiver.expect(request)
+
+        def url = request.headers.get("Gotenberg-Webhook-Url")
+
+        when:
+        def get = (HttpURLConnection) new URL(url).openConnection()
+        get.setRequestProperty(ConversionResult.TRACE_HEADER, "trace-1")
+
+        then:
+        get.responseCode == 405
+        receiver.pendingCount == 1
+        !future.done
+
+        when:
+        def callback = post(url, "trace-1")
+
+        then:
+        callback.responseCode == 204
+        def result = future.get(10, TimeUnit.SECONDS)
+        result.entity.content.text == "%PDF-1.4"
+
+        cleanup:
+        result?.close()
+    }
+
+    def "should refuse callbacks without the token of their conversion"(String query) {
+        given:
+        def request = new ConversionRequest("forms/libreoffice/convert").tap { header(ConversionResult.TRACE_HEADER, "trace-1") }
+        def future = receiver.expect(request)
+
+        when:
+        def forged = post(receiver.callbackUrl + "result" + query, "trace-1")
+
+        then:
+        forged.responseCode == 404
+        receiver.pendingCount == 1
+        !future.done
+
+        cleanup:
+        future?.cancel(false)
+
+        where:
+        query << ["", "?token=guessed"]
+    }
+
+    def "should require a callback URL when listening on every interface"() {
+        when:
+        new WebhookReceiver.Builder().host("0.0.0.0").start()
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "callbackUrl must be set when listening on every interface"
+    }
+
+    def "should hand back answers other than an acceptance"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().webhookReceiver(receiver).build())
+        server.unavailableFor(Duration.ofMinutes(1))
+
+        when:
+        def future = client.submitToLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+
+        then:
+        future.done
+        future.get().statusCode == 503
+        receiver.pendingCount == 0
+
+        cleanup:
+        future?.get()?.close()
+        client?.close()
+    }
+
+    def "should fail conversions whose callback never comes"() {
+        given:
+        def lateReceiver = new WebhookReceiver.Builder().host("127.0.0.1").callbackUrl("http://127.0.0.1:1/").timeout(Duration.ofMillis(200)).start()
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().webhookReceiver(lateReceiver).build())
+
+        when:
+        client.submitToLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .get(10, TimeUnit.SECONDS)
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause instanceof TimeoutException
+
+        cleanup:
+        client?.close()
+        lateReceiver?.close()
+    }
+
+    def "should require a webhook receiver"() {
+        given:
+        def client = new Jotenberg(server.endpoint)
+
+        when:
+        client.submitToLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+
+        then:
+        thrown(IllegalStateException)
+
+        cleanup:
+        client?.close()
+    }
+
+    private static HttpURLConnection post(String url, String trace) {
+        def connection = (HttpURLConnection) new URL(url).openConnection()
+        connection.requestMethod = "POST"
+        connection.doOutput = true
+        connection.setRequestProperty(ConversionResult.TRACE_HEADER, trace)
+        connection.setRequestProperty("Content-Type", "application/pdf")
+        connection.outputStream.withCloseable { it.write("%PDF-1.4".bytes) }
+        connection
+    }
+}
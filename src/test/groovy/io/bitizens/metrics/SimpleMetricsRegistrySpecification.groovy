@@ -0,0 +1,82 @@
+package io.bitizens.metrics
+
+import io.bitizens.Jotenberg
+import io.bitizens.common.DocumentSource
+import io.bitizens.core.JotenbergConfig
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import io.bitizens.testing.FakeGotenberg
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+
+class SimpleMetricsRegistrySpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    SimpleMetricsRegistry registry = new SimpleMetricsRegistry()
+
+    def "should approximate percentiles with bucket bounds"() {
+        given:
+        def histogram = new LatencyHistogram()
+
+        when:
+        90.times { histogram.record(Duration.ofMillis(3).toNanos()) }
+        10.times { histogram.record(Duration.ofMillis(700).toNanos()) }
+
+        then:
+        histogram.count == 100
+        histogram.getPercentile(0.5) == Duration.ofMillis(5)
+        histogram.getPercentile(0.99) == Duration.ofMillis(700)
+        histogram.max == Duration.ofMillis(700)
+        histogram.bucketCounts.length == histogram.bucketBounds.length + 1
+    }
+
+    def "should record requests, errors and bytes per route"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().metrics(registry).build())
+
+        when:
+        def read = convert(client)
+        server.errorRate = 1
+        convert(client)
+
+        then:
+        def route = registry.getRouteMetrics("forms/libreoffice/convert")
+        route.requestCount == 2
+        route.getErrorCount(500) == 1
+        route.errorCounts == [500: 1L]
+        route.failureCount == 0
+        route.latency.count == 2
+        route.requestBytes > 2 * 64
+        route.responseBytes >= read
+
+        cleanup:
+        client?.close()
+    }
+
+    def "should sample connection pool gauges"() {
+        given:
+        def client = new Jotenberg(server.endpoint, new JotenbergConfig.Builder().metrics(registry).build())
+        def tags = [endpoint: client.endpoints[0].url]
+
+        when:
+        convert(client)
+
+        then:
+        registry.getGauge("jotenberg.pool.leased", tags) == 0
+        registry.getGauge("jotenberg.pool.available", tags) == 1
+        registry.getGauge("jotenberg.pool.max", tags) == 50
+        registry.gauges.containsKey("jotenberg.pool.pending{endpoint=" + client.endpoints[0].url + "}")
+
+        cleanup:
+        client?.close()
+    }
+
+    private static long convert(Jotenberg client) {
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[64])]
+        client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+                .withCloseable { it.transferTo(OutputStream.nullOutputStream()) }
+    }
+}
@@ -0,0 +1,70 @@
+package io.bitizens.testing
+
+import io.bitizens.Jotenberg
+import io.bitizens.chromium.ChromiumOptions
+import io.bitizens.chromium.ChromiumPageProperties
+import io.bitizens.common.DocumentSource
+import io.bitizens.libreoffice.LibreOfficeOptions
+import io.bitizens.libreoffice.LibreOfficePageProperties
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.time.Duration
+
+class FakeGotenbergSpecification extends Specification {
+    @AutoCleanup
+    FakeGotenberg server = new FakeGotenberg.Builder().start()
+
+    @AutoCleanup
+    Jotenberg client = new Jotenberg(server.endpoint)
+
+    def "should record the parsed form and answer with a PDF"() {
+        given:
+        def document = DocumentSource.of("index.html", "<html>fake</html>".bytes)
+        def pageProperties = new ChromiumPageProperties.Builder().addLandscape(true).build()
+
+        when:
+        def result = client.convert(document, pageProperties, new ChromiumOptions.Builder().build())
+
+        then:
+        result.statusCode == 200
+        result.trace != null
+        new String(result.entity.content.readAllBytes()).startsWith("%PDF-")
+        server.requests.size() == 1
+        server.requests[0].route == "forms/chromium/convert/html"
+        server.requests[0].getField("landscape") == "true"
+        new String(server.requests[0].files[0].content()) == "<html>fake</html>"
+    }
+
+    def "should answer with a ZIP when LibreOffice converts several documents without merging"() {
+        given:
+        DocumentSource[] documents = [DocumentSource.of("a.docx", new byte[8]), DocumentSource.of("b.docx", new byte[8])]
+
+        when:
+        def result = client.convertWithLibreOffice(documents, new LibreOfficePageProperties.Builder().build(), new LibreOfficeOptions.Builder().build())
+
+        then:
+        result.statusCode == 200
+        result.getFirstHeader("Content-Type").value == "application/zip"
+    }
+
+    def "should inject errors and outages"() {
+        given:
+        def document = DocumentSource.of("index.html", "<html></html>".bytes)
+        def pageProperties = new ChromiumPageProperties.Builder().build()
+        def options = new ChromiumOptions.Builder().build()
+
+        when:
+        server.errorRate = 1
+        def failed = client.convert(document, pageProperties, options)
+        failed.close()
+        server.errorRate = 0
+        server.unavailableFor(Duration.ofMinutes(1))
+        def unavailable = client.convert(document, pageProperties, options)
+        unavailable.close()
+
+        then:
+        failed.statusCode == 500
+        unavailable.statusCode == 503
+    }
+}
@@ -0,0 +1,616 @@
+package io.bitizens.testing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * FakeGotenberg is a lightweight in-process stand-in for Gotenberg, for load and resilience tests that cannot rely on
+ * the real service.
+ * <p>
+ * It serves every route Jotenberg uses, plus {@code /health}. Multipart bodies are parsed, validated the way
+ * Gotenberg does it for the essentials (an index.html for HTML routes, a url for URL routes, at least one PDF for PDF
+ * Engines routes) and recorded. Responses are canned PDF, PNG, JPEG, WebP, ZIP or JSON payloads, posted to the
+ * webhook URL of the request, if any, after an immediate 204 answer. Latency, error
+ * rate and 503 bursts are configurable and can be changed while the server is running; with a fixed seed, a
+ * sequential workload sees the same sequence of latencies and failures on every run.
+ */
+public final class FakeGotenberg implements AutoCloseable {
+    public static final String TRACE_HEADER = "Gotenberg-Trace";
+
+    private static final byte[] PNG = Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAIAAACQd1PeAAAADElEQVR4nGP4//8/AAX+Av4N70a4AAAAAElFTkSuQmCC");
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, (byte) 0xFF, (byte) 0xD9};
+    private static final String WEBHOOK_URL_HEADER = "Gotenberg-Webhook-Url";
+    private static final String WEBHOOK_ERROR_URL_HEADER = "Gotenberg-Webhook-Error-Url";
+    private static final HttpClient WEBHOOK_CLIENT = HttpClient.newHttpClient();
+    private static final Pattern PAGE_RANGE = Pattern.compile("(\\d+)(?:-(\\d+))?");
+    private static final byte[] WEBP = "RIFF\u0004\u0000\u0000\u0000WEBP".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+    private final boolean recordRequests;
+    private final Duration burstPeriod;
+    private final Duration burstLength;
+    private final int pageCount;
+    private final byte[] pdf;
+    private final long startNanos = System.nanoTime();
+
+    private final Queue<RecordedRequest> requests = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxConcurrency = new AtomicInteger();
+
+    private volatile LatencyDistribution latency;
+    private volatile double errorRate;
+    private volatile long unavailableUntilNanos;
+
+    private FakeGotenberg(Builder builder) throws IOException {
+        random = new Random(builder.seed);
+        recordRequests = builder.recordRequests;
+        burstPeriod = builder.burstPeriod;
+        burstLength = builder.burstLength;
+        latency = builder.latency;
+        errorRate = builder.errorRate;
+        pageCount = builder.pageCount;
+        pdf = pdf(pageCount);
+        unavailableUntilNanos = startNanos;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", builder.port), builder.backlog);
+        server.createContext("/", this::handle);
+        executor = Executors.newFixedThreadPool(builder.concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "fake-gotenberg");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the base URL of the server, to pass to Jotenberg.
+     *
+     * @return The endpoint, ending with a slash.
+     */
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the requests received so far, in arrival order. Empty if recording is disabled.
+     *
+     * @return The recorded requests.
+     */
+    public List<RecordedRequest> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the highest number of requests processed concurrently since the server started or was reset.
+     *
+     * @return The peak concurrency.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency.get();
+    }
+
+    /**
+     * Clears recorded requests and statistics.
+     */
+    public void reset() {
+        requests.clear();
+        requestCount.set(0);
+        maxConcurrency.set(inFlight.get());
+    }
+
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Answers every request with a 503 for the given duration, starting now.
+     *
+     * @param duration The duration of the outage.
+     */
+    public void unavailableFor(Duration duration) {
+        unavailableUntilNanos = System.nanoTime() + duration.toNanos();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int concurrency = inFlight.incrementAndGet();
+        maxConcurrency.accumulateAndGet(concurrency, Math::max);
+        requestCount.incrementAndGet();
+        try (exchange) {
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+
+            String trace = exchange.getRequestHeaders().getFirst(TRACE_HEADER);
+            exchange.getResponseHeaders().set(TRACE_HEADER, trace == null ? UUID.randomUUID().toString() : trace);
+
+            String route = exchange.getRequestURI().getPath().substring(1);
+            if (route.equals("health")) {
+                send(exchange, 200, "application/json", "{\"status\":\"up\"}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "text/plain", "Method Not Allowed".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            MultipartParser form = MultipartParser.parse(exchange.getRequestHeaders().getFirst("Content-Type"), body);
+            if (recordRequests) {
+                requests.add(new RecordedRequest(route, Map.copyOf(exchange.getRequestHeaders()), form.getFields(), form.getFiles(), body.length));
+            }
+
+            if (isUnavailable()) {
+                send(exchange, 503, "text/plain", "Service Unavailable".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            String webhookUrl = exchange.getRequestHeaders().getFirst(WEBHOOK_URL_HEADER);
+            if (webhookUrl != null) {
+                String callbackTrace = exchange.getResponseHeaders().getFirst(TRACE_HEADER);
+                String errorUrl = exchange.getRequestHeaders().getFirst(WEBHOOK_ERROR_URL_HEADER);
+                exchange.sendResponseHeaders(204, -1);
+                executor.execute(() -> respondToWebhook(route, form, callbackTrace, webhookUrl, errorUrl));
+                return;
+            }
+
+            sleep(latency.next(random));
+
+            if (random.nextDouble() < errorRate) {
+                send(exchange, 500, "text/plain", "Internal Server Error".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            respond(route, form, (status, contentType, responseBody) -> send(exchange, status, contentType, responseBody));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void respond(String route, MultipartParser form, Reply reply) throws IOException {
+        List<RecordedRequest.Part> files = form.getFiles();
+        List<RecordedRequest.Part> pdfs = files.stream().filter(part -> part.filename().endsWith(".pdf")).toList();
+
+        switch (route) {
+            case "forms/chromium/convert/url", "forms/chromium/screenshot/url" -> {
+                if (first(form, "url") == null) {
+                    badRequest(reply, "Invalid form data: form field 'url' is required");
+                } else if (route.contains("screenshot")) {
+                    sendImage(reply, first(form, "format"));
+                } else {
+                    sendPages(reply, first(form, "nativePageRanges"));
+                }
+            }
+            case "forms/chromium/convert/html", "forms/chromium/convert/markdown",
+                    "forms/chromium/screenshot/html", "forms/chromium/screenshot/markdown" -> {
+                if (files.stream().noneMatch(part -> part.filename().equals("index.html"))) {
+                    badRequest(reply, "Invalid form data: form file 'index.html' is required");
+                } else if (route.contains("screenshot")) {
+                    sendImage(reply, first(form, "format"));
+                } else {
+                    sendPages(reply, first(form, "nativePageRanges"));
+                }
+            }
+            case "forms/libreoffice/convert" -> {
+                if (files.isEmpty()) {
+                    badRequest(reply, "Invalid form data: no form file found for extensions");
+                } else {
+                    sendDocuments(reply, files.stream().map(RecordedRequest.Part::filename).toList(), "true".equals(first(form, "merge")));
+                }
+            }
+            case "forms/pdfengines/convert", "forms/pdfengines/flatten", "forms/pdfengines/encrypt",
+                    "forms/pdfengines/embed", "forms/pdfengines/metadata/write" -> {
+                if (pdfs.isEmpty()) {
+                    badRequest(reply, "Invalid form data: no form file found for extensions: [.pdf]");
+                } else {
+                    sendDocuments(reply, pdfs.stream().map(RecordedRequest.Part::filename).toList(), false);
+                }
+            }
+            case "forms/pdfengines/merge" -> {
+                if (pdfs.isEmpty()) {
+                    badRequest(reply, "Invalid form data: no form file found for extensions: [.pdf]");
+                } else {
+                    reply.send(200, "application/pdf", pdf);
+                }
+            }
+            case "forms/pdfengines/split" -> {
+                if (pdfs.isEmpty()) {
+                    badRequest(reply, "Invalid form data: no form file found for extensions: [.pdf]");
+                } else {
+                    List<String> names = new ArrayList<>();
+                    for (RecordedRequest.Part part : pdfs) {
+                        String stem = part.filename().substring(0, part.filename().length() - ".pdf".length());
+                        names.add(stem + "_0.pdf");
+                        names.add(stem + "_1.pdf");
+                    }
+                    reply.send(200, "application/zip", zip(names));
+                }
+            }
+            case "forms/pdfengines/metadata/read" -> {
+                if (pdfs.isEmpty()) {
+                    badRequest(reply, "Invalid form data: no form file found for extensions: [.pdf]");
+                } else {
+                    StringBuilder json = new StringBuilder("{");
+                    for (RecordedRequest.Part part : pdfs) {
+                        if (json.length() > 1) {
+                            json.append(',');
+                        }
+                        json.append('"').append(part.filename()).append("\":{\"Producer\":\"FakeGotenberg\"}");
+                    }
+                    reply.send(200, "application/json", json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            default -> reply.send(404, "text/plain", "Not Found".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Converts a request accepted in webhook mode and posts the result to the webhook URL, or a JSON description of the
+     * error to the error URL, the way Gotenberg does.
+     */
+    private void respondToWebhook(String route, MultipartParser form, String trace, String webhookUrl, String errorUrl) {
+        try {
+            sleep(latency.next(random));
+            Reply callback = (status, contentType, body) -> {
+                if (status < 300) {
+                    post(webhookUrl, trace, contentType, body);
+                } else {
+                    String message = new String(body, StandardCharsets.UTF_8).replace("\"", "'");
+                    String json = "{\"status\":" + status + ",\"message\":\"" + message + "\"}";
+                    post(errorUrl, trace, "application/json", json.getBytes(StandardCharsets.UTF_8));
+                }
+            };
+            if (random.nextDouble() < errorRate) {
+                callback.send(500, "text/plain", "Internal Server Error".getBytes(StandardCharsets.UTF_8));
+            } else {
+                respond(route, form, callback);
+            }
+        } catch (IOException e) {
+            // Like Gotenberg, drop the result when the webhook cannot be reached.
+        }
+    }
+
+    private static void post(String url, String trace, String contentType, byte[] body) throws IOException {
+        if (url == null) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header(TRACE_HEADER, trace)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        try {
+            WEBHOOK_CLIENT.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while posting to the webhook");
+        }
+    }
+
+    private boolean isUnavailable() {
+        long now = System.nanoTime();
+        if (now - unavailableUntilNanos < 0) {
+            return true;
+        }
+        if (burstPeriod == null) {
+            return false;
+        }
+        long period = burstPeriod.toNanos();
+        return (now - startNanos) % period >= period - burstLength.toNanos();
+    }
+
+    private void sendDocuments(Reply reply, List<String> names, boolean merge) throws IOException {
+        if (merge || names.size() == 1) {
+            reply.send(200, "application/pdf", pdf);
+            return;
+        }
+        List<String> pdfNames = names.stream().map(name -> name.replaceFirst("\\.[^.]*$", "") + ".pdf").toList();
+        reply.send(200, "application/zip", zip(pdfNames));
+    }
+
+    /**
+     * Answers with the pages selected by a single {@code start-end} range, rejecting ranges starting past the last page
+     * the way Chromium does.
+     */
+    private void sendPages(Reply reply, String pageRanges) throws IOException {
+        if (pageRanges == null) {
+            reply.send(200, "application/pdf", pdf);
+            return;
+        }
+        Matcher matcher = PAGE_RANGE.matcher(pageRanges);
+        if (!matcher.matches()) {
+            badRequest(reply, "Chromium does not handle the page ranges '" + pageRanges + "' (nativePageRanges)");
+            return;
+        }
+        int start = Integer.parseInt(matcher.group(1));
+        int end = matcher.group(2) == null ? start : Integer.parseInt(matcher.group(2));
+        if (start > pageCount) {
+            badRequest(reply, "The page ranges '" + pageRanges + "' (nativePageRanges) exceeds the page count");
+            return;
+        }
+        reply.send(200, "application/pdf", pdf(Math.min(end, pageCount) - start + 1));
+    }
+
+    private void sendImage(Reply reply, String format) throws IOException {
+        if ("jpeg".equals(format)) {
+            reply.send(200, "image/jpeg", JPEG);
+        } else if ("webp".equals(format)) {
+            reply.send(200, "image/webp", WEBP);
+        } else {
+            reply.send(200, "image/png", PNG);
+        }
+    }
+
+    private byte[] zip(List<String> names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(pdf);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void badRequest(Reply reply, String message) throws IOException {
+        reply.send(400, "text/plain", message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String first(MultipartParser form, String name) {
+        List<String> values = form.getFields().get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis(), (int) (duration.toNanos() % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Builds a minimal well-formed PDF with the given number of blank letter-sized pages.
+     *
+     * @param pageCount The number of pages.
+     * @return The PDF document.
+     */
+    public static byte[] pdf(int pageCount) {
+        StringBuilder out = new StringBuilder("%PDF-1.7\n");
+        List<Integer> offsets = new ArrayList<>();
+
+        offsets.add(out.length());
+        out.append("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+
+        offsets.add(out.length());
+        out.append("2 0 obj\n<< /Type /Pages /Kids [");
+        for (int i = 0; i < pageCount; i++) {
+            out.append(i == 0 ? "" : " ").append(3 + i).append(" 0 R");
+        }
+        out.append("] /Count ").append(pageCount).append(" >>\nendobj\n");
+
+        for (int i = 0; i < pageCount; i++) {
+            offsets.add(out.length());
+            out.append(3 + i).append(" 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] >>\nendobj\n");
+        }
+
+        int xref = out.length();
+        out.append("xref\n0 ").append(offsets.size() + 1).append("\n0000000000 65535 f \n");
+        for (int offset : offsets) {
+            out.append(String.format("%010d 00000 n \n", offset));
+        }
+        out.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n");
+        out.append("startxref\n").append(xref).append("\n%%EOF\n");
+        return out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reply sends the response of a conversion, to the client or to a webhook.
+     */
+    @FunctionalInterface
+    private interface Reply {
+        void send(int status, String contentType, byte[] body) throws IOException;
+    }
+
+    /**
+     * The Builder class is used to configure and start instances of FakeGotenberg.
+     */
+    public static class Builder {
+        private int port = 0;
+        private int backlog = 0;
+        private int concurrency = 16;
+        private long seed = 42L;
+        private boolean recordRequests = true;
+        private int pageCount = 1;
+        private LatencyDistribution latency = LatencyDistribution.NONE;
+        private double errorRate = 0;
+        private Duration burstPeriod = null;
+        private Duration burstLength = null;
+
+        /**
+         * Sets the port to listen on. Zero, the default, picks a free port.
+         *
+         * @param port The port.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pending connections.
+         *
+         * @param backlog The backlog, zero for the system default.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests processed concurrently, like Gotenberg's API workers. Extra requests wait.
+         *
+         * @param concurrency The number of worker threads.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder concurrency(int concurrency) {
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException("concurrency must be positive");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the random source drawing latencies and failures.
+         *
+         * @param seed The seed.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets whether requests are recorded. Disable it for long load tests.
+         *
+         * @param recordRequests `true` to record requests, `false` otherwise.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder recordRequests(boolean recordRequests) {
+            this.recordRequests = recordRequests;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages of the canned PDF documents.
+         *
+         * @param pageCount The number of pages.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder pageCount(int pageCount) {
+            if (pageCount <= 0) {
+                throw new IllegalArgumentException("pageCount must be positive");
+            }
+            this.pageCount = pageCount;
+            return this;
+        }
+
+        /**
+         * Sets the processing latency added to each request.
+         *
+         * @param latency The latency distribution.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Sets the share of requests answered with a 500.
+         *
+         * @param errorRate The error rate, between 0 and 1.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder errorRate(double errorRate) {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("errorRate must be between 0 and 1");
+            }
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Answers every request with a 503 during the last {@code length} of every {@code period}, starting from
+         * when the server starts.
+         *
+         * @param period The period between the start of two bursts.
+         * @param length The duration of each burst.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder serviceUnavailableBursts(Duration period, Duration length) {
+            if (length.compareTo(period) >= 0) {
+                throw new IllegalArgumentException("length must be shorter than period");
+            }
+            this.burstPeriod = period;
+            this.burstLength = length;
+            return this;
+        }
+
+        /**
+         * Starts a FakeGotenberg with the configured settings.
+         *
+         * @return The running server.
+         * @throws IOException If the server cannot bind its port.
+         */
+        public FakeGotenberg start() throws IOException {
+            return new FakeGotenberg(this);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.bitizens.testing;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * LatencyDistribution draws the processing time FakeGotenberg adds to each request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * No added latency.
+     */
+    LatencyDistribution NONE = random -> Duration.ZERO;
+
+    /**
+     * Returns a distribution that always yields the same latency.
+     *
+     * @param latency The latency.
+     * @return The distribution.
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        return random -> latency;
+    }
+
+    /**
+     * Returns a distribution that yields latencies uniformly between two bounds.
+     *
+     * @param min The lower bound, inclusive.
+     * @param max The upper bound, exclusive.
+     * @return The distribution.
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long span = max.toNanos() - min.toNanos();
+        return random -> min.plusNanos((long) (random.nextDouble() * span));
+    }
+
+    /**
+     * Returns a log-normal distribution, whose long right tail mimics the latency of real conversions.
+     *
+     * @param median The median latency.
+     * @param sigma  The standard deviation of the underlying normal distribution; 0.5 gives a p99 about three times
+     *               the median.
+     * @return The distribution.
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        double mu = Math.log(median.toNanos());
+        return random -> Duration.ofNanos((long) Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Returns a distribution yielding the latency of this distribution, except for a given share of requests which
+     * get the latency of a slow distribution instead.
+     *
+     * @param probability The share of slow requests, between 0 and 1.
+     * @param slow        The distribution of slow requests.
+     * @return The distribution.
+     */
+    default LatencyDistribution withOutliers(double probability, LatencyDistribution slow) {
+        return random -> random.nextDouble() < probability ? slow.next(random) : next(random);
+    }
+
+    /**
+     * Draws a latency.
+     *
+     * @param random The source of randomness of the server.
+     * @return The latency to add.
+     */
+    Duration next(Random random);
+}
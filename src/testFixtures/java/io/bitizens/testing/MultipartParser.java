@@ -0,0 +1,126 @@
+package io.bitizens.testing;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * MultipartParser splits a buffered multipart/form-data body into text fields and files. It understands the subset
+ * of RFC 7578 produced by Apache HttpClient, which is all FakeGotenberg needs.
+ */
+final class MultipartParser {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    private final Map<String, List<String>> fields = new LinkedHashMap<>();
+    private final List<RecordedRequest.Part> files = new ArrayList<>();
+
+    private MultipartParser() {
+    }
+
+    static MultipartParser parse(String contentType, byte[] body) throws IOException {
+        MultipartParser parser = new MultipartParser();
+        String boundary = boundaryOf(contentType);
+        if (boundary == null) {
+            return parser;
+        }
+
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        int position = indexOf(body, delimiter, 0);
+        if (position < 0) {
+            throw new IOException("Multipart boundary not found");
+        }
+
+        while (true) {
+            position += delimiter.length;
+            if (position + 1 < body.length && body[position] == '-' && body[position + 1] == '-') {
+                return parser;
+            }
+            position += CRLF.length;
+
+            int headersEnd = indexOf(body, HEADER_END, position);
+            if (headersEnd < 0) {
+                throw new IOException("Malformed multipart part headers");
+            }
+            String headers = new String(body, position, headersEnd - position, StandardCharsets.UTF_8);
+            int contentStart = headersEnd + HEADER_END.length;
+
+            int next = indexOf(body, delimiter, contentStart);
+            if (next < 0) {
+                throw new IOException("Unterminated multipart part");
+            }
+            byte[] content = new byte[next - CRLF.length - contentStart];
+            System.arraycopy(body, contentStart, content, 0, content.length);
+            parser.add(headers, content);
+            position = next;
+        }
+    }
+
+    Map<String, List<String>> getFields() {
+        return fields;
+    }
+
+    List<RecordedRequest.Part> getFiles() {
+        return files;
+    }
+
+    private void add(String headers, byte[] content) {
+        String name = null;
+        String filename = null;
+        for (String header : headers.split("\r\n")) {
+            if (!header.toLowerCase(Locale.ROOT).startsWith("content-disposition:")) {
+                continue;
+            }
+            name = parameter(header, "name");
+            filename = parameter(header, "filename");
+        }
+
+        if (filename != null) {
+            files.add(new RecordedRequest.Part(name, filename, content));
+        } else if (name != null) {
+            fields.computeIfAbsent(name, key -> new ArrayList<>()).add(new String(content, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String parameter(String header, String parameter) {
+        for (String token : header.split(";")) {
+            String trimmed = token.trim();
+            if (trimmed.startsWith(parameter + "=")) {
+                String value = trimmed.substring(parameter.length() + 1);
+                return value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    private static String boundaryOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String token : contentType.split(";")) {
+            String trimmed = token.trim();
+            if (trimmed.startsWith("boundary=")) {
+                String boundary = trimmed.substring("boundary=".length());
+                return boundary.startsWith("\"") ? boundary.substring(1, boundary.length() - 1) : boundary;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= content.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
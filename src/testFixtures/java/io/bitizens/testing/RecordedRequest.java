@@ -0,0 +1,84 @@
+package io.bitizens.testing;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RecordedRequest is a request received by FakeGotenberg, with its multipart body parsed into fields and files.
+ */
+public final class RecordedRequest {
+    private final String route;
+    private final Map<String, List<String>> headers;
+    private final Map<String, List<String>> fields;
+    private final List<Part> files;
+    private final long bodySize;
+
+    RecordedRequest(String route, Map<String, List<String>> headers, Map<String, List<String>> fields, List<Part> files, long bodySize) {
+        this.route = route;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.fields = Collections.unmodifiableMap(fields);
+        this.files = Collections.unmodifiableList(files);
+        this.bodySize = bodySize;
+    }
+
+    /**
+     * Returns the route of the request, without the leading slash, e.g. {@code forms/chromium/convert/html}.
+     *
+     * @return The route.
+     */
+    public String getRoute() {
+        return route;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first value of a header, matched case-insensitively.
+     *
+     * @param name The name of the header.
+     * @return The value or {@code null}.
+     */
+    public String getHeader(String name) {
+        return headers.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty())
+                .map(entry -> entry.getValue().get(0))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public Map<String, List<String>> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the first value of a text field.
+     *
+     * @param name The name of the field.
+     * @return The value or {@code null}.
+     */
+    public String getField(String name) {
+        List<String> values = fields.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    public List<Part> getFiles() {
+        return files;
+    }
+
+    public long getBodySize() {
+        return bodySize;
+    }
+
+    /**
+     * Part is an uploaded file.
+     *
+     * @param name     The name of the form field.
+     * @param filename The file name.
+     * @param content  The content of the file.
+     */
+    public record Part(String name, String filename, byte[] content) {
+    }
+}